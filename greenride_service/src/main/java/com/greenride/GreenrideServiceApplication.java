@@ -2,11 +2,9 @@ package com.greenride;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EnableAsync      //για SMS Notifications
 @EnableScheduling //για Ride Reminders
 public class GreenrideServiceApplication {
 
@@ -3,13 +3,16 @@ package com.greenride.config;
 import com.greenride.model.Ride;
 import com.greenride.model.Role;
 import com.greenride.model.User;
+import com.greenride.repository.DriverRideQuotaRepository;
 import com.greenride.repository.RideRepository;
 import com.greenride.repository.RoleRepository;
 import com.greenride.repository.UserRepository;
+import com.greenride.service.search.LocationNormalizer;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -22,7 +25,8 @@ public class DataInitializer {
     public CommandLineRunner initData(UserRepository userRepository,
                                       RoleRepository roleRepository,
                                       RideRepository rideRepository,
-
+                                      DriverRideQuotaRepository quotaRepository,
+                                      TransactionTemplate transactionTemplate,
                                       PasswordEncoder passwordEncoder) {
         return args -> {
             Role userRole = createRoleIfNotFound(roleRepository, "ROLE_USER");
@@ -57,25 +61,28 @@ public class DataInitializer {
                     "giorgos", "giorgos@test.com", "pass123", "+306933333333");
 
             // φτιάχνει sample rides εαν δεν υπάρχουν ηδη
+            // Μαζί με τους μετρητές του quota, στο ίδιο transaction: το data.sql έχει ήδη τρέξει πριν από εδώ
             if (rideRepository.count() == 0) {
-                createRide(rideRepository, driverMaria,
-                        "Athens, Syntagma",
-                        "Thessaloniki, White Tower",
-                        LocalDateTime.now().plusDays(2).withHour(10).withMinute(0),
-                        3);
-
-                createRide(rideRepository, driverMaria,
-                        "Athens, Omonoia",
-                        "Chalkida",
-                        LocalDateTime.now().plusDays(5).withHour(17).withMinute(30),
-                        2);
-
-
-                createRide(rideRepository, driverNikos,
-                        "Patras, Port",
-                        "Athens, Kifissia",
-                        LocalDateTime.now().plusDays(1).withHour(8).withMinute(0),
-                        4);
+                transactionTemplate.executeWithoutResult(status -> {
+                    createRide(rideRepository, quotaRepository, driverMaria,
+                            "Athens, Syntagma",
+                            "Thessaloniki, White Tower",
+                            LocalDateTime.now().plusDays(2).withHour(10).withMinute(0),
+                            3);
+
+                    createRide(rideRepository, quotaRepository, driverMaria,
+                            "Athens, Omonoia",
+                            "Chalkida",
+                            LocalDateTime.now().plusDays(5).withHour(17).withMinute(30),
+                            2);
+
+
+                    createRide(rideRepository, quotaRepository, driverNikos,
+                            "Patras, Port",
+                            "Athens, Kifissia",
+                            LocalDateTime.now().plusDays(1).withHour(8).withMinute(0),
+                            4);
+                });
 
                 System.out.println("SAMPLE RIDES CREATED for Maria & Nikos");
             }
@@ -107,14 +114,20 @@ public class DataInitializer {
         });
     }
 
-    private void createRide(RideRepository rideRepository, User driver, String start, String dest,
-                            LocalDateTime deptTime, int seats) {
+    private void createRide(RideRepository rideRepository, DriverRideQuotaRepository quotaRepository, User driver,
+                            String start, String dest, LocalDateTime deptTime, int seats) {
         Ride ride = new Ride();
         ride.setDriver(driver);
         ride.setStartLocation(start);
         ride.setDestination(dest);
+        ride.setStartLocationKey(LocationNormalizer.searchKey(start));
+        ride.setDestinationKey(LocationNormalizer.searchKey(dest));
+        ride.setLocationKeyVersion(LocationNormalizer.KEY_VERSION);
         ride.setDepartureTime(deptTime);
         ride.setAvailableSeats(seats);
+        ride.setTotalSeats(seats);
         rideRepository.save(ride);
+        // Όπως κάθε νέα διαδρομή, μετράει στις ενεργές του οδηγού (αλλιώς το sweep την αφαιρεί από ένα 0)
+        quotaRepository.addActiveRides(driver.getId(), 1);
     }
 }
\ No newline at end of file
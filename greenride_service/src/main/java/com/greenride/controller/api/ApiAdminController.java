@@ -1,12 +1,16 @@
 package com.greenride.controller.api;
 
+import com.greenride.dto.RideImportReport;
 import com.greenride.model.User;
 import com.greenride.service.AdminService;
+import com.greenride.service.RideImportService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
@@ -16,11 +20,13 @@ import java.util.Map;
 public class ApiAdminController {
 
     private final AdminService adminService;
+    private final RideImportService rideImportService;
 
-    //κάνουμε inject μόνο το Service
+    //κάνουμε inject μόνο τα Services
     @Autowired
-    public ApiAdminController(AdminService adminService) {
+    public ApiAdminController(AdminService adminService, RideImportService rideImportService) {
         this.adminService = adminService;
+        this.rideImportService = rideImportService;
     }
 
     @GetMapping("/stats")
@@ -38,4 +44,13 @@ public class ApiAdminController {
         String responseMessage = adminService.toggleUserStatus(id);
         return ResponseEntity.ok(responseMessage);
     }
+
+    // Μαζική εισαγωγή διαδρομών: text/csv (με header) ή application/x-ndjson. Το body διαβάζεται σαν stream.
+    @PostMapping(value = "/rides/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<RideImportReport> importRides(HttpServletRequest request) throws IOException {
+        RideImportReport report = request.getContentType().startsWith("text/csv")
+                ? rideImportService.importCsv(request.getInputStream())
+                : rideImportService.importNdjson(request.getInputStream());
+        return ResponseEntity.ok(report);
+    }
 }
\ No newline at end of file
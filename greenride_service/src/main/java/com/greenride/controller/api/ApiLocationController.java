@@ -0,0 +1,45 @@
+package com.greenride.controller.api;
+
+import com.greenride.dto.LocationSuggestion;
+import com.greenride.service.location.LocationSuggestionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST Controller για τις τοποθεσίες (autocomplete στις φόρμες αναζήτησης/δημιουργίας).
+ */
+@RestController
+@RequestMapping("/api/v1/locations")
+@Tag(name = "Locations", description = "Location autocomplete")
+@SecurityRequirement(name = "Bearer Authentication")
+public class ApiLocationController {
+
+    private final LocationSuggestionService locationSuggestionService;
+
+    @Autowired
+    public ApiLocationController(LocationSuggestionService locationSuggestionService) {
+        this.locationSuggestionService = locationSuggestionService;
+    }
+
+    /**
+     * Προτάσεις τοποθεσιών που ξεκινάνε με ό,τι έχει γράψει ο χρήστης, οι πιο "δημοφιλείς" πρώτα.
+     * Απαντιέται εξ ολοκλήρου από τη μνήμη.
+     */
+    @Operation(summary = "Suggest locations")
+    @GetMapping("/suggest")
+    public ResponseEntity<List<LocationSuggestion>> suggest(
+            @Parameter(description = "What the user has typed so far") @RequestParam(defaultValue = "") String q,
+            @Parameter(description = "Max suggestions (default 5, max 10)") @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(locationSuggestionService.suggest(q, limit));
+    }
+}
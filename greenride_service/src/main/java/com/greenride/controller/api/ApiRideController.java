@@ -1,26 +1,35 @@
 package com.greenride.controller.api;
 
+import com.greenride.dto.BookingPage;
+import com.greenride.dto.BookingRequest;
 import com.greenride.dto.CreateRideDTO;
+import com.greenride.dto.PopularRoute;
+import com.greenride.dto.RidePage;
 import com.greenride.dto.RideView;
+import com.greenride.dto.WaitlistView;
 import com.greenride.model.Ride;
 import com.greenride.security.CurrentUserProvider;
 import com.greenride.service.BookingService;
 import com.greenride.service.RideService;
-import com.greenride.service.mapper.RideMapper;
+import com.greenride.service.idempotency.IdempotencyService;
+import com.greenride.service.location.PopularRoutesService;
+import com.greenride.service.search.GeoRadius;
+import com.greenride.service.search.RideSearchQuery;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * REST Controller για τη διαχείριση διαδρομών (Rides) και κρατήσεων (Bookings).
@@ -36,18 +45,21 @@ public class ApiRideController {
     private final RideService rideService;
     private final BookingService bookingService;
     private final CurrentUserProvider currentUserProvider;
-    private final RideMapper rideMapper;
+    private final PopularRoutesService popularRoutesService;
+    private final IdempotencyService idempotencyService;
 
     // Dependency Injection μέσω του Constructor
     @Autowired
     public ApiRideController(RideService rideService,
                              BookingService bookingService,
                              CurrentUserProvider currentUserProvider,
-                             RideMapper rideMapper) {
+                             PopularRoutesService popularRoutesService,
+                             IdempotencyService idempotencyService) {
         this.rideService = rideService;
         this.bookingService = bookingService;
         this.currentUserProvider = currentUserProvider;
-        this.rideMapper = rideMapper;
+        this.popularRoutesService = popularRoutesService;
+        this.idempotencyService = idempotencyService;
     }
 
     /**
@@ -66,30 +78,66 @@ public class ApiRideController {
      */
     @Operation(summary = "Create a new Ride")
     @PostMapping
-    public ResponseEntity<?> createRide(@Valid @RequestBody CreateRideDTO createRideDto) {
+    public ResponseEntity<?> createRide(
+            @Parameter(description = "Retries with the same key return the first response")
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody CreateRideDTO createRideDto) {
         String username = getCurrentUsername(); // Παίρνουμε τον οδηγό από το token
-        Ride ride = rideService.createRide(createRideDto, username);
-        return ResponseEntity.status(201).body("Ride created successfully with ID: " + ride.getId());
+        return idempotencyService.execute(idempotencyKey, username, "create-ride:" + createRideDto, () -> {
+            Ride ride = rideService.createRide(createRideDto, username);
+            return ResponseEntity.status(201).body("Ride created successfully with ID: " + ride.getId());
+        });
     }
 
     /**
      * Αναζήτηση διαδρομών με βάση την αφετηρία και τον προορισμό.
-     * Επιστρέφει λίστα με RideView (DTOs) για να μην εκθέτουμε απευθείας τα Entities.
+     * Επιστρέφει μια σελίδα από RideView (DTOs) για να μην εκθέτουμε απευθείας τα Entities.
+     * Για την επόμενη σελίδα ο client ξαναστέλνει το {@code nextCursor} της απάντησης.
+     * Επιστρέφονται μόνο μελλοντικές διαδρομές, προαιρετικά μέσα σε χρονικό παράθυρο και με ελάχιστες θέσεις.
+     * Με συντεταγμένες (pickupLat/pickupLon, dropoffLat/dropoffLon) ψάχνουμε σε ακτίνα γύρω από τα σημεία,
+     * οπότε τα start/dest γίνονται προαιρετικά. Με {@code alongRoute=true} αρκεί η διαδρομή να περνάει
+     * κοντά από τα δύο σημεία, πρώτα από την επιβίβαση και μετά από την αποβίβαση.
      */
     @Operation(summary = "Search for Rides")
     @GetMapping("/search")
-    public ResponseEntity<List<RideView>> searchRides(
-            @Parameter(description = "Starting city") @RequestParam String start,
-            @Parameter(description = "Destination city") @RequestParam String dest) {
+    public ResponseEntity<RidePage> searchRides(
+            @Parameter(description = "Starting city") @RequestParam(defaultValue = "") String start,
+            @Parameter(description = "Destination city") @RequestParam(defaultValue = "") String dest,
+            @Parameter(description = "Earliest departure (ISO date-time)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Latest departure (ISO date-time)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Flexibility in hours around from/to (max 24)") @RequestParam(required = false) Integer flex,
+            @Parameter(description = "Minimum free seats") @RequestParam(required = false) Integer minSeats,
+            @Parameter(description = "Pickup latitude") @RequestParam(required = false) Double pickupLat,
+            @Parameter(description = "Pickup longitude") @RequestParam(required = false) Double pickupLon,
+            @Parameter(description = "Drop-off latitude") @RequestParam(required = false) Double dropoffLat,
+            @Parameter(description = "Drop-off longitude") @RequestParam(required = false) Double dropoffLon,
+            @Parameter(description = "Radius in km around pickup/drop-off (default 5, max 50)")
+            @RequestParam(required = false) Double radiusKm,
+            @Parameter(description = "Match rides whose route passes near pickup and then drop-off")
+            @RequestParam(defaultValue = "false") boolean alongRoute,
+            @Parameter(description = "nextCursor from the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (max 50)") @RequestParam(required = false) Integer size) {
 
-        List<Ride> rides = rideService.searchRides(start, dest);
+        RideSearchQuery query = RideSearchQuery.of(start, dest, from, to, flex, minSeats,
+                GeoRadius.of(pickupLat, pickupLon, radiusKm),
+                GeoRadius.of(dropoffLat, dropoffLon, radiusKm),
+                alongRoute, cursor, size);
 
-        // Μετατροπή των Entities (Ride) σε DTOs (RideView)
-        List<RideView> views = rides.stream()
-                .map(rideMapper::toRideView)
-                .collect(Collectors.toList());
+        // Το search engine επιστρέφει απευθείας DTOs (RideView), χωρίς να αγγίζει τη βάση
+        return ResponseEntity.ok(rideService.searchRides(query));
+    }
 
-        return ResponseEntity.ok(views);
+    /**
+     * Τα πιο δημοφιλή routes (αφετηρία → προορισμός) αυτή τη στιγμή, με βάση τις μελλοντικές διαδρομές
+     * και τις κρατήσεις τους. Σερβίρεται από τη μνήμη, χωρίς query στη βάση.
+     */
+    @Operation(summary = "Popular Routes")
+    @GetMapping("/popular")
+    public ResponseEntity<List<PopularRoute>> getPopularRoutes(
+            @Parameter(description = "How many routes (default 10, max 50)") @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(popularRoutesService.topRoutes(limit));
     }
 
     /**
@@ -98,19 +146,92 @@ public class ApiRideController {
     @Operation(summary = "Get Ride Details")
     @GetMapping("/{rideId}")
     public ResponseEntity<Map<String, Object>> getRideDetails(@PathVariable Long rideId) {
-        Ride ride = rideService.getRideById(rideId);
-        return ResponseEntity.ok(Map.of("ride", rideMapper.toRideView(ride)));
+        return ResponseEntity.ok(Map.of("ride", rideService.getRideView(rideId)));
     }
 
     /**
      * Κράτηση θέσης σε μια διαδρομή.
      * Ο χρήστης ταυτοποιείται από το JWT token.
+     * Με {@code seats} κλείνει πολλές θέσεις μαζί (π.χ. οικογένεια), όλες ή καμία.
      */
     @Operation(summary = "Book a Seat")
     @PostMapping("/{rideId}/bookings")
-    public ResponseEntity<String> bookSeat(@PathVariable Long rideId) {
-        bookingService.bookRide(rideId, getCurrentUsername());
-        return ResponseEntity.ok("Booking confirmed!");
+    public ResponseEntity<?> bookSeat(
+            @Parameter(description = "Retries with the same key return the first response")
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @PathVariable Long rideId,
+            @Parameter(description = "Number of seats (default 1, max 8)") @RequestParam(defaultValue = "1") int seats) {
+        String username = getCurrentUsername();
+        return idempotencyService.execute(idempotencyKey, username, "book:" + rideId + ":" + seats, () -> {
+            bookingService.bookRide(rideId, username, seats);
+            return ResponseEntity.ok(seats == 1 ? "Booking confirmed!" : "Booking confirmed for " + seats + " seats!");
+        });
+    }
+
+    /**
+     * Κράτηση σε πολλές διαδρομές με ένα request. Είτε γίνονται όλες είτε καμία.
+     * Επιστρέφει τα IDs των κρατήσεων με τη σειρά που ζητήθηκαν.
+     */
+    @Operation(summary = "Book Several Rides")
+    @PostMapping("/bookings/batch")
+    public ResponseEntity<?> bookRides(
+            @Parameter(description = "Retries with the same key return the first response")
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody List<BookingRequest> requests) {
+        String username = getCurrentUsername();
+        return idempotencyService.execute(idempotencyKey, username, "book-batch:" + requests, () -> {
+            List<Long> bookingIds = bookingService.bookRides(requests, username);
+            return ResponseEntity.ok(Map.of("bookingIds", bookingIds));
+        });
+    }
+
+    /**
+     * Κράτηση σε δύο φάσεις: το hold δεσμεύει τις θέσεις για λίγα λεπτά (π.χ. όσο γίνεται η πληρωμή).
+     * Αν δεν γίνει confirm μέχρι το {@code expiresAt}, οι θέσεις επιστρέφουν αυτόματα.
+     */
+    @Operation(summary = "Hold Seats")
+    @PostMapping("/{rideId}/holds")
+    public ResponseEntity<?> holdSeats(
+            @Parameter(description = "Retries with the same key return the first response")
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @PathVariable Long rideId,
+            @Parameter(description = "Number of seats (default 1, max 8)") @RequestParam(defaultValue = "1") int seats) {
+        String username = getCurrentUsername();
+        return idempotencyService.execute(idempotencyKey, username, "hold:" + rideId + ":" + seats,
+                () -> ResponseEntity.status(201).body(bookingService.holdSeats(rideId, username, seats)));
+    }
+
+    @Operation(summary = "Confirm Hold")
+    @PostMapping("/holds/{holdId}/confirm")
+    public ResponseEntity<Map<String, Object>> confirmHold(@PathVariable Long holdId) {
+        Long bookingId = bookingService.confirmHold(holdId, getCurrentUsername());
+        return ResponseEntity.ok(Map.of("bookingId", bookingId));
+    }
+
+    @Operation(summary = "Release Hold")
+    @DeleteMapping("/holds/{holdId}")
+    public ResponseEntity<String> releaseHold(@PathVariable Long holdId) {
+        bookingService.releaseHold(holdId, getCurrentUsername());
+        return ResponseEntity.ok("Hold released. Seats restored.");
+    }
+
+    /**
+     * Ουρά αναμονής για γεμάτη διαδρομή. Όταν ελευθερωθούν θέσεις η κράτηση γίνεται αυτόματα
+     * (με τη σειρά της ουράς) και ο επιβάτης ειδοποιείται με SMS.
+     */
+    @Operation(summary = "Join Waitlist")
+    @PostMapping("/{rideId}/waitlist")
+    public ResponseEntity<WaitlistView> joinWaitlist(
+            @PathVariable Long rideId,
+            @Parameter(description = "Number of seats (default 1, max 8)") @RequestParam(defaultValue = "1") int seats) {
+        return ResponseEntity.status(201).body(bookingService.joinWaitlist(rideId, getCurrentUsername(), seats));
+    }
+
+    @Operation(summary = "Leave Waitlist")
+    @DeleteMapping("/waitlist/{entryId}")
+    public ResponseEntity<String> leaveWaitlist(@PathVariable Long entryId) {
+        bookingService.leaveWaitlist(entryId, getCurrentUsername());
+        return ResponseEntity.ok("You left the waitlist.");
     }
 
     /**
@@ -130,19 +251,17 @@ public class ApiRideController {
     @Operation(summary = "View Offered Rides")
     @GetMapping("/my-offered-rides")
     public ResponseEntity<List<RideView>> getMyOfferedRides() {
-        List<Ride> rides = rideService.getRidesByDriver(getCurrentUsername());
-        List<RideView> views = rides.stream()
-                .map(rideMapper::toRideView)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(views);
+        return ResponseEntity.ok(rideService.getRidesByDriver(getCurrentUsername()));
     }
 
     /**
-     * Επιστρέφει τις κρατήσεις που έχει κάνει ο τρέχων χρήστης (ως επιβάτης).
+     * Επιστρέφει τις κρατήσεις που έχει κάνει ο τρέχων χρήστης (ως επιβάτης), μία σελίδα τη φορά.
      */
     @Operation(summary = "View My Bookings")
     @GetMapping("/my-bookings")
-    public ResponseEntity<?> getMyBookings() {
-        return ResponseEntity.ok(bookingService.getMyBookings(getCurrentUsername()));
+    public ResponseEntity<BookingPage> getMyBookings(
+            @Parameter(description = "Page number (from 0)") @RequestParam(required = false) Integer page,
+            @Parameter(description = "Page size (max 50)") @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(bookingService.getMyBookings(getCurrentUsername(), page, size));
     }
 }
@@ -1,14 +1,17 @@
 package com.greenride.controller.web;
 
+import com.greenride.dto.BookingPage;
 import com.greenride.dto.CreateRideDTO;
-import com.greenride.dto.RideView;
-import com.greenride.model.Ride;
+import com.greenride.dto.LocationSuggestion;
+import com.greenride.dto.RidePage;
 import com.greenride.security.CurrentUserProvider;
 import com.greenride.service.BookingService;
 import com.greenride.service.RideService;
-import com.greenride.service.mapper.RideMapper;
+import com.greenride.service.location.LocationSuggestionService;
+import com.greenride.service.search.RideSearchQuery;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
@@ -19,7 +22,6 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Controller
 // ΔΙΟΡΘΩΣΗ: Αφαιρέσαμε το @RequestMapping("/rides") από εδώ
@@ -27,18 +29,18 @@ public class WebRideController {
 
     private final RideService rideService;
     private final BookingService bookingService;
-    private final RideMapper rideMapper;
     private final CurrentUserProvider currentUserProvider;
+    private final LocationSuggestionService locationSuggestionService;
 
     @Autowired
     public WebRideController(RideService rideService,
                              BookingService bookingService,
-                             RideMapper rideMapper,
-                             CurrentUserProvider currentUserProvider) {
+                             CurrentUserProvider currentUserProvider,
+                             LocationSuggestionService locationSuggestionService) {
         this.rideService = rideService;
         this.bookingService = bookingService;
-        this.rideMapper = rideMapper;
         this.currentUserProvider = currentUserProvider;
+        this.locationSuggestionService = locationSuggestionService;
     }
 
     // --- RIDE LISTING ---
@@ -48,21 +50,36 @@ public class WebRideController {
     public String showRides(
             @RequestParam(required = false, defaultValue = "") String start,
             @RequestParam(required = false, defaultValue = "") String dest,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) Integer flex,
+            @RequestParam(required = false) Integer minSeats,
+            @RequestParam(required = false) String cursor,
             Model model) {
 
-        List<Ride> rides = rideService.searchRides(start, dest);
+        // Ακόμα και με κενά φίλτρα φέρνουμε μόνο μία σελίδα μελλοντικών διαδρομών, όχι όλο τον πίνακα
+        RidePage page = rideService.searchRides(
+                RideSearchQuery.of(start, dest, from, null, flex, minSeats, cursor, null));
 
-        List<RideView> rideViews = rides.stream()
-                .map(rideMapper::toRideView)
-                .collect(Collectors.toList());
-
-        model.addAttribute("rides", rideViews);
+        model.addAttribute("rides", page.rides());
+        model.addAttribute("nextCursor", page.nextCursor());
         model.addAttribute("paramStart", start);
         model.addAttribute("paramDest", dest);
+        model.addAttribute("paramFrom", from);
+        model.addAttribute("paramFlex", flex);
+        model.addAttribute("paramMinSeats", minSeats);
 
         return "rides";
     }
 
+    // --- LOCATION AUTOCOMPLETE ---
+
+    // JSON για τα datalists των φορμών (το /api/v1 θέλει JWT, εδώ αρκεί το session)
+    @GetMapping("/locations/suggest")
+    @ResponseBody
+    public List<LocationSuggestion> suggestLocations(@RequestParam(defaultValue = "") String q) {
+        return locationSuggestionService.suggest(q, null);
+    }
+
     // --- CREATE RIDE ---
 
     // ΔΙΟΡΘΩΣΗ: Προσθέσαμε το "/rides/create" εδώ
@@ -120,13 +137,15 @@ public class WebRideController {
     // --- MY BOOKINGS & OFFERED (Αυτά μένουν ως έχουν στο root path) ---
 
     @GetMapping("/my-bookings")
-    public String showMyBookings(Model model) {
+    public String showMyBookings(@RequestParam(required = false) Integer page, Model model) {
         String username = currentUserProvider.getCurrentUser()
                 .orElseThrow(() -> new RuntimeException("Not authenticated"))
                 .username();
 
-        var bookings = bookingService.getMyBookings(username);
-        model.addAttribute("bookings", bookings);
+        BookingPage bookings = bookingService.getMyBookings(username, page, null);
+        model.addAttribute("bookings", bookings.bookings());
+        model.addAttribute("page", bookings.page());
+        model.addAttribute("hasNext", bookings.hasNext());
 
         return "my-bookings";
     }
@@ -137,13 +156,8 @@ public class WebRideController {
                 .orElseThrow(() -> new RuntimeException("Not authenticated"))
                 .username();
 
-        List<Ride> rides = rideService.getRidesByDriver(username);
-
-        List<RideView> views = rides.stream()
-                .map(rideMapper::toRideView)
-                .collect(Collectors.toList());
-
-        model.addAttribute("rides", views);
+        // Έρχονται ήδη σαν RideView από ένα μόνο query
+        model.addAttribute("rides", rideService.getRidesByDriver(username));
 
         return "my-offered-rides";
     }
@@ -0,0 +1,13 @@
+package com.greenride.dto;
+
+import java.util.List;
+
+/**
+ * Μία σελίδα από το ιστορικό κρατήσεων.
+ *
+ * @param bookings Οι κρατήσεις της σελίδας, οι πιο πρόσφατες πρώτα
+ * @param page     Ο αριθμός της σελίδας (από 0)
+ * @param hasNext  Αν υπάρχει επόμενη (παλαιότερη) σελίδα
+ */
+public record BookingPage(List<BookingView> bookings, int page, boolean hasNext) {
+}
@@ -0,0 +1,14 @@
+package com.greenride.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Μία γραμμή του batch booking: σε ποια διαδρομή και πόσες θέσεις (default 1).
+ */
+public record BookingRequest(
+        @NotNull Long rideId,
+        @Min(1) @Max(8) Integer seats
+) {
+}
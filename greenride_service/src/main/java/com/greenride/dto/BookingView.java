@@ -0,0 +1,25 @@
+package com.greenride.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Μία κράτηση όπως τη βλέπει ο επιβάτης: η ίδια η κράτηση μαζί με τη διαδρομή και τον οδηγό της.
+ */
+public record BookingView(
+        Long id,
+        LocalDateTime bookingTime,
+        String status,
+        int seats,
+        RideView ride
+) {
+    /**
+     * Constructor για το JPQL constructor expression: κράτηση, διαδρομή και οδηγός σε ένα query.
+     */
+    public BookingView(Long id, LocalDateTime bookingTime, String status, int seats,
+                       Long rideId, String startLocation, String destination, LocalDateTime departureTime,
+                       int availableSeats, Long driverId, String driverUsername, String driverEmail) {
+        this(id, bookingTime, status, seats,
+                new RideView(rideId, startLocation, destination, departureTime, availableSeats,
+                        new UserView(driverId, driverUsername, driverEmail), null, null));
+    }
+}
@@ -1,13 +1,29 @@
 package com.greenride.dto;
 
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Future;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import java.time.LocalDateTime;
 
+/**
+ * Οι συντεταγμένες είναι προαιρετικές. Χωρίς αυτές η διαδρομή βρίσκεται μόνο με αναζήτηση κειμένου.
+ * Το {@code routePolyline} (encoded polyline) περιγράφει την πορεία, ώστε να βρίσκεται και από
+ * επιβάτες που βρίσκονται στον δρόμο της.
+ */
 public record CreateRideDTO(
         @NotBlank String startLocation,
         @NotBlank String destination,
         @Future LocalDateTime departureTime,
-        @Min(1) int availableSeats
-) {}
\ No newline at end of file
+        @Min(1) int availableSeats,
+        @DecimalMin("-90") @DecimalMax("90") Double startLatitude,
+        @DecimalMin("-180") @DecimalMax("180") Double startLongitude,
+        @DecimalMin("-90") @DecimalMax("90") Double destinationLatitude,
+        @DecimalMin("-180") @DecimalMax("180") Double destinationLongitude,
+        String routePolyline
+) {
+    public CreateRideDTO(String startLocation, String destination, LocalDateTime departureTime, int availableSeats) {
+        this(startLocation, destination, departureTime, availableSeats, null, null, null, null, null);
+    }
+}
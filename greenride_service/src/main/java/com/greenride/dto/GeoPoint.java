@@ -0,0 +1,28 @@
+package com.greenride.dto;
+
+/**
+ * Σημείο στον χάρτη (WGS84, μοίρες).
+ */
+public record GeoPoint(double latitude, double longitude) {
+
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    /**
+     * @return Το σημείο, ή null αν λείπει κάποια από τις δύο συντεταγμένες.
+     */
+    public static GeoPoint of(Double latitude, Double longitude) {
+        return latitude == null || longitude == null ? null : new GeoPoint(latitude, longitude);
+    }
+
+    /**
+     * Απόσταση σε χιλιόμετρα (haversine). Για τις αποστάσεις που μας ενδιαφέρουν το σφάλμα είναι αμελητέο.
+     */
+    public double distanceKm(GeoPoint other) {
+        double dLat = Math.toRadians(other.latitude - latitude);
+        double dLon = Math.toRadians(other.longitude - longitude);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(latitude)) * Math.cos(Math.toRadians(other.latitude))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+}
@@ -0,0 +1,7 @@
+package com.greenride.dto;
+
+/**
+ * Μία πρόταση του autocomplete: η τοποθεσία όπως την έγραψε ο οδηγός και σε πόσες διαδρομές εμφανίζεται.
+ */
+public record LocationSuggestion(String location, long rides) {
+}
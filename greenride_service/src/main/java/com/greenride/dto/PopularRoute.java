@@ -0,0 +1,7 @@
+package com.greenride.dto;
+
+/**
+ * Ένα δημοφιλές ζεύγος αφετηρίας → προορισμού, με τις μελλοντικές διαδρομές και τις κρατημένες θέσεις τους.
+ */
+public record PopularRoute(String startLocation, String destination, long upcomingRides, long bookedSeats) {
+}
@@ -0,0 +1,18 @@
+package com.greenride.dto;
+
+import java.util.List;
+
+/**
+ * Το αποτέλεσμα μιας μαζικής εισαγωγής. Οι γραμμές με λάθη δεν σταματάνε την εισαγωγή των υπολοίπων.
+ *
+ * @param imported        Πόσες διαδρομές γράφτηκαν
+ * @param failed          Πόσες γραμμές απορρίφθηκαν
+ * @param errors          Τα λάθη ανά γραμμή (το πολύ τα πρώτα 100)
+ * @param errorsTruncated true αν υπήρξαν περισσότερα λάθη από όσα επιστρέφονται
+ */
+public record RideImportReport(int imported, int failed, List<RowError> errors, boolean errorsTruncated) {
+
+    // line = ο αριθμός γραμμής στο αρχείο (από 1, μαζί με το header του CSV)
+    public record RowError(long line, String message) {
+    }
+}
@@ -0,0 +1,26 @@
+package com.greenride.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Μία γραμμή της μαζικής εισαγωγής διαδρομών (CSV ή NDJSON). Ίδια πεδία με το {@link CreateRideDTO},
+ * συν τον οδηγό, αφού ένας operator ανεβάζει διαδρομές για πολλούς οδηγούς.
+ */
+public record RideImportRow(
+        String driver,
+        String startLocation,
+        String destination,
+        LocalDateTime departureTime,
+        Integer availableSeats,
+        Double startLatitude,
+        Double startLongitude,
+        Double destinationLatitude,
+        Double destinationLongitude,
+        String routePolyline
+) {
+    public CreateRideDTO toCreateRideDTO() {
+        return new CreateRideDTO(startLocation, destination, departureTime,
+                availableSeats == null ? 0 : availableSeats,
+                startLatitude, startLongitude, destinationLatitude, destinationLongitude, routePolyline);
+    }
+}
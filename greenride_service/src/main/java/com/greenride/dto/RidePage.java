@@ -0,0 +1,14 @@
+package com.greenride.dto;
+
+import java.util.List;
+
+/**
+ * Μια σελίδα αποτελεσμάτων αναζήτησης.
+ *
+ * @param rides      Οι διαδρομές της σελίδας (ταξινομημένες κατά ώρα αναχώρησης και ID)
+ * @param nextCursor Token για την επόμενη σελίδα, ή null αν δεν υπάρχουν άλλα αποτελέσματα
+ */
+public record RidePage(
+        List<RideView> rides,
+        String nextCursor
+) {}
@@ -8,5 +8,22 @@ public record RideView(
         String destination,
         LocalDateTime departureTime,
         int availableSeats,
-        UserView driver
-) {}
\ No newline at end of file
+        UserView driver,
+        // Προαιρετικά: null για διαδρομές χωρίς συντεταγμένες
+        GeoPoint startPoint,
+        GeoPoint destinationPoint
+) {
+    /**
+     * "Επίπεδος" constructor για τα JPQL constructor expressions ({@code SELECT new ...RideView(...)}),
+     * ώστε ο οδηγός να έρχεται στο ίδιο query και όχι με ένα lazy load ανά διαδρομή.
+     */
+    public RideView(Long id, String startLocation, String destination, LocalDateTime departureTime,
+                    int availableSeats, Long driverId, String driverUsername, String driverEmail,
+                    Double startLatitude, Double startLongitude,
+                    Double destinationLatitude, Double destinationLongitude) {
+        this(id, startLocation, destination, departureTime, availableSeats,
+                new UserView(driverId, driverUsername, driverEmail),
+                GeoPoint.of(startLatitude, startLongitude),
+                GeoPoint.of(destinationLatitude, destinationLongitude));
+    }
+}
@@ -0,0 +1,14 @@
+package com.greenride.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ένα ενεργό hold: ο client έχει μέχρι το {@code expiresAt} για να το κάνει confirm.
+ */
+public record SeatHoldView(
+        Long id,
+        Long rideId,
+        int seats,
+        LocalDateTime expiresAt
+) {
+}
@@ -0,0 +1,12 @@
+package com.greenride.dto;
+
+/**
+ * Η θέση του επιβάτη στην ουρά αναμονής ({@code position} 1 = ο επόμενος που θα πάρει θέση).
+ */
+public record WaitlistView(
+        Long id,
+        Long rideId,
+        int seats,
+        long position
+) {
+}
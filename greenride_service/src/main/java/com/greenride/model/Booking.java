@@ -3,12 +3,16 @@ package com.greenride.model;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
+// Επιπλέον, στο data.sql: partial unique index uq_bookings_active_passenger (ride_id, passenger_id)
+// για τις μη ακυρωμένες κρατήσεις. Το JPA @Index δεν υποστηρίζει WHERE, γι' αυτό είναι σε SQL.
 @Entity
 @Table(name = "bookings")
 public class Booking {
 
+    // Pooled sequence όπως στο Ride, για να γίνονται batch τα INSERT
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -17,6 +21,10 @@ public class Booking {
     @Column(nullable = false)
     private String status; // ("CONFIRMED", "CANCELLED")
 
+    // Πόσες θέσεις κρατάει (ομαδική κράτηση). Το default είναι για τις γραμμές που υπήρχαν πριν τη στήλη.
+    @Column(nullable = false, columnDefinition = "integer default 1")
+    private int seats = 1;
+
     //Για να βλέπουμε εαν εχουμε ήδη ειδοποιήσει τον χρήστη
     @Column(name = "reminder_sent", nullable = false)
     private boolean reminderSent = false;
@@ -57,6 +65,14 @@ public class Booking {
         this.status = status;
     }
 
+    public int getSeats() {
+        return seats;
+    }
+
+    public void setSeats(int seats) {
+        this.seats = seats;
+    }
+
     public boolean isReminderSent() {
         return reminderSent;
     }
@@ -0,0 +1,40 @@
+package com.greenride.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Ο μετρητής ενεργών (μελλοντικών) διαδρομών ενός οδηγού, για το όριο του {@code RideServiceImpl}.
+ * Αυξάνεται ατομικά με conditional upsert μέσα στο ίδιο statement που κάνει το INSERT της διαδρομής,
+ * και μειώνεται όταν η διαδρομή αναχωρήσει ή διαγραφεί (βλ. {@code Ride.quotaReleased}).
+ */
+// Οι γραμμές για τους οδηγούς που υπήρχαν πριν από τον μετρητή γεμίζουν από το data.sql
+@Entity
+@Table(name = "driver_ride_quotas")
+public class DriverRideQuota {
+
+    @Id
+    @Column(name = "driver_id")
+    private Long driverId;
+
+    @Column(name = "active_rides", nullable = false)
+    private int activeRides;
+
+    public DriverRideQuota() {
+    }
+
+    public Long getDriverId() {
+        return driverId;
+    }
+
+    public void setDriverId(Long driverId) {
+        this.driverId = driverId;
+    }
+
+    public int getActiveRides() {
+        return activeRides;
+    }
+
+    public void setActiveRides(int activeRides) {
+        this.activeRides = activeRides;
+    }
+}
@@ -0,0 +1,82 @@
+package com.greenride.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Η απάντηση που δώσαμε σε ένα request με {@code Idempotency-Key}, ώστε ένα retry να πάρει την ίδια
+ * απάντηση χωρίς να ξανατρέξει η λογική. Το κλειδί είναι ανά χρήστη ({@code username:key}).
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        // Για το καθάρισμα των ληγμένων
+        @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at")
+})
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "idempotency_key", length = 255)
+    private String key;
+
+    // SHA-256 του endpoint και των παραμέτρων: το ίδιο κλειδί δεν επιτρέπεται για διαφορετικό request
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    @Column(nullable = false)
+    private int statusCode;
+
+    // true = το body είναι JSON, false = απλό κείμενο (ή το μήνυμα λάθους, για απαντήσεις 4xx)
+    @Column(nullable = false)
+    private boolean json;
+
+    @Column(columnDefinition = "text")
+    private String body;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public IdempotencyRecord() {
+    }
+
+    public IdempotencyRecord(String key, String fingerprint, int statusCode, boolean json, String body,
+                             LocalDateTime createdAt, LocalDateTime expiresAt) {
+        this.key = key;
+        this.fingerprint = fingerprint;
+        this.statusCode = statusCode;
+        this.json = json;
+        this.body = body;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public boolean isJson() {
+        return json;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+}
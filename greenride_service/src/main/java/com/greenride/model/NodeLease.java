@@ -0,0 +1,51 @@
+package com.greenride.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Το lease ενός κόμβου (container) της εφαρμογής. Κάθε κόμβος το ανανεώνει περιοδικά· όσοι έχουν
+ * lease που δεν έχει λήξει είναι οι "ζωντανοί" κόμβοι, που μοιράζονται τη δουλειά (βλ. {@code ClusterMembership}).
+ * Οι χρόνοι γράφονται με το ρολόι της βάσης, ώστε να μη μετράει η απόκλιση των ρολογιών των κόμβων.
+ */
+@Entity
+@Table(name = "node_leases")
+public class NodeLease {
+
+    @Id
+    @Column(name = "node_id", length = 100)
+    private String nodeId;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public NodeLease() {
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
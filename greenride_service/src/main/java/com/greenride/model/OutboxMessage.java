@@ -0,0 +1,92 @@
+package com.greenride.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Ένα SMS που περιμένει να σταλεί (transactional outbox). Γράφεται στο ίδιο transaction με την αλλαγή
+ * που το προκάλεσε (εγγραφή, υπενθύμιση, κράτηση από την ουρά αναμονής) και το στέλνει αργότερα
+ * ο {@code SmsOutboxRelay}. Αν το transaction κάνει rollback, το SMS δεν υπάρχει καν.
+ */
+// Επιπλέον, στο data.sql: partial index idx_sms_outbox_pending (next_attempt_at, id) για τα PENDING
+@Entity
+@Table(name = "sms_outbox")
+public class OutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "phone_number", nullable = false)
+    private String phoneNumber;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String message;
+
+    @Column(nullable = false)
+    private String status; // ("PENDING", "SENT", "FAILED")
+
+    // Πόσες φορές απέτυχε η αποστολή (για το backoff)
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Πότε μπορεί να γίνει η επόμενη προσπάθεια
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    public OutboxMessage() {
+    }
+
+    public OutboxMessage(String phoneNumber, String message, LocalDateTime createdAt) {
+        this.phoneNumber = phoneNumber;
+        this.message = message;
+        this.status = "PENDING";
+        this.createdAt = createdAt;
+        this.nextAttemptAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getPhoneNumber() {
+        return phoneNumber;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+}
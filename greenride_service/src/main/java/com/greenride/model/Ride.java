@@ -6,11 +6,18 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "rides")
+@Table(name = "rides", indexes = {
+        // Για την keyset σελιδοποίηση της αναζήτησης (ORDER BY departure_time, id)
+        @Index(name = "idx_rides_departure_id", columnList = "departure_time, id")
+        // Τα κλειδιά αναζήτησης έχουν trigram (GIN) indexes στο data.sql: το LIKE '%q%' δεν χρησιμοποιεί btree
+})
 public class Ride {
 
+    // Sequence αντί για IDENTITY: ο Hibernate παίρνει 50 IDs με ένα nextval και μπορεί να κάνει batch τα INSERT
+    // (με IDENTITY κάθε INSERT πρέπει να εκτελεστεί αμέσως για να μάθουμε το ID). Βλ. και data.sql.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "rides_seq")
+    @SequenceGenerator(name = "rides_seq", sequenceName = "rides_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -19,12 +26,44 @@ public class Ride {
     @Column(nullable = false)
     private String destination;
 
+    // Υπολογίζονται μία φορά στην εγγραφή, ώστε η αναζήτηση να μη κάνει lower() σε κάθε γραμμή
+    @Column(name = "start_location_key")
+    private String startLocationKey;
+
+    @Column(name = "destination_key")
+    private String destinationKey;
+
+    // Με ποια έκδοση του LocationNormalizer φτιάχτηκαν τα κλειδιά (null = πριν υπάρξει η στήλη)
+    @Column(name = "location_key_version")
+    private Integer locationKeyVersion;
+
     @Column(nullable = false)
     private LocalDateTime departureTime;
 
     @Column(nullable = false)
     private int availableSeats;
 
+    // Οι θέσεις που έδωσε ο οδηγός. Με αυτές το in-memory inventory ξαναβγάζει τις ελεύθερες από τις κρατήσεις
+    @Column(name = "total_seats")
+    private Integer totalSeats;
+
+    // Προαιρετικές συντεταγμένες (WGS84) για την αναζήτηση με ακτίνα
+    private Double startLatitude;
+
+    private Double startLongitude;
+
+    private Double destinationLatitude;
+
+    private Double destinationLongitude;
+
+    // Η πορεία της διαδρομής σε encoded polyline format (προαιρετικό)
+    @Column(columnDefinition = "text")
+    private String routePolyline;
+
+    // true όταν η διαδρομή έχει ήδη αφαιρεθεί από το quota του οδηγού (αναχώρησε ή διαγράφηκε)
+    @Column(name = "quota_released", nullable = false, columnDefinition = "boolean default false")
+    private boolean quotaReleased = false;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "driver_id", nullable = false)
     private User driver;
@@ -59,6 +98,30 @@ public class Ride {
         this.destination = destination;
     }
 
+    public String getStartLocationKey() {
+        return startLocationKey;
+    }
+
+    public void setStartLocationKey(String startLocationKey) {
+        this.startLocationKey = startLocationKey;
+    }
+
+    public String getDestinationKey() {
+        return destinationKey;
+    }
+
+    public void setDestinationKey(String destinationKey) {
+        this.destinationKey = destinationKey;
+    }
+
+    public Integer getLocationKeyVersion() {
+        return locationKeyVersion;
+    }
+
+    public void setLocationKeyVersion(Integer locationKeyVersion) {
+        this.locationKeyVersion = locationKeyVersion;
+    }
+
     public LocalDateTime getDepartureTime() {
         return departureTime;
     }
@@ -75,6 +138,62 @@ public class Ride {
         this.availableSeats = availableSeats;
     }
 
+    public Integer getTotalSeats() {
+        return totalSeats;
+    }
+
+    public void setTotalSeats(Integer totalSeats) {
+        this.totalSeats = totalSeats;
+    }
+
+    public Double getStartLatitude() {
+        return startLatitude;
+    }
+
+    public void setStartLatitude(Double startLatitude) {
+        this.startLatitude = startLatitude;
+    }
+
+    public Double getStartLongitude() {
+        return startLongitude;
+    }
+
+    public void setStartLongitude(Double startLongitude) {
+        this.startLongitude = startLongitude;
+    }
+
+    public Double getDestinationLatitude() {
+        return destinationLatitude;
+    }
+
+    public void setDestinationLatitude(Double destinationLatitude) {
+        this.destinationLatitude = destinationLatitude;
+    }
+
+    public Double getDestinationLongitude() {
+        return destinationLongitude;
+    }
+
+    public void setDestinationLongitude(Double destinationLongitude) {
+        this.destinationLongitude = destinationLongitude;
+    }
+
+    public String getRoutePolyline() {
+        return routePolyline;
+    }
+
+    public void setRoutePolyline(String routePolyline) {
+        this.routePolyline = routePolyline;
+    }
+
+    public boolean isQuotaReleased() {
+        return quotaReleased;
+    }
+
+    public void setQuotaReleased(boolean quotaReleased) {
+        this.quotaReleased = quotaReleased;
+    }
+
     public User getDriver() {
         return driver;
     }
@@ -0,0 +1,89 @@
+package com.greenride.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Θέση στην ουρά αναμονής μιας γεμάτης διαδρομής. Η σειρά είναι το ID (FIFO).
+ * Όταν ελευθερωθούν θέσεις, ο πρώτος της ουράς γίνεται αυτόματα κράτηση ({@code PROMOTED}).
+ */
+// Επιπλέον, στο data.sql: partial unique index uq_waitlist_active_passenger (ride_id, passenger_id) για τα WAITING
+@Entity
+@Table(name = "waitlist_entries", indexes = {
+        // Για το "ποιος είναι πρώτος στην ουρά" της διαδρομής
+        @Index(name = "idx_waitlist_ride_status_id", columnList = "ride_id, status, id")
+})
+public class WaitlistEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private int seats;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private String status; // ("WAITING", "PROMOTED", "CANCELLED")
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "ride_id", nullable = false)
+    private Ride ride;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "passenger_id", nullable = false)
+    private User passenger;
+
+    public WaitlistEntry() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public int getSeats() {
+        return seats;
+    }
+
+    public void setSeats(int seats) {
+        this.seats = seats;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Ride getRide() {
+        return ride;
+    }
+
+    public void setRide(Ride ride) {
+        this.ride = ride;
+    }
+
+    public User getPassenger() {
+        return passenger;
+    }
+
+    public void setPassenger(User passenger) {
+        this.passenger = passenger;
+    }
+}
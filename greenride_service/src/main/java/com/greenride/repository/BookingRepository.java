@@ -1,11 +1,131 @@
 package com.greenride.repository;
 
+import com.greenride.dto.BookingView;
 import com.greenride.model.Booking;
 import com.greenride.model.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
     List<Booking> findByPassenger(User passenger);
     List<Booking> findByPassenger_Username(String username);
-}
\ No newline at end of file
+
+    // Το αποτέλεσμα της κράτησης με ένα statement: κωδικός (OK, FULL, DUPLICATE, ...) και το ID της κράτησης
+    interface BookingResult {
+        String getCode();
+
+        Long getBookingId();
+
+        LocalDateTime getDepartureTime();
+    }
+
+    // Μια κράτηση που χρωστάει υπενθύμιση και πότε φεύγει η διαδρομή της (για το timing wheel)
+    interface PendingReminder {
+        Long getBookingId();
+
+        Long getRideId();
+
+        LocalDateTime getDepartureTime();
+    }
+
+    // Μια υπενθύμιση που μόλις "κλείστηκε" για αποστολή: ό,τι χρειάζεται το SMS, χωρίς entities
+    interface DueReminder {
+        Long getBookingId();
+
+        String getUsername();
+
+        String getPhoneNumber();
+
+        String getDestination();
+    }
+
+    /* Όλη η κράτηση σε ένα round trip (data-modifying CTE), με τους ίδιους κανόνες με το BookingService:
+     ο χρήστης και η διαδρομή υπάρχουν, δεν είναι ο οδηγός, δεν έχει ήδη κράτηση, υπάρχουν αρκετές θέσεις.
+     Το UPDATE των θέσεων και το INSERT της κράτησης γίνονται μόνο αν περάσουν οι έλεγχοι. Αν το INSERT
+     σκάσει στο partial unique index (ταυτόχρονη διπλή κράτηση) ο κωδικός είναι DUPLICATE και ο caller
+     κάνει rollback, οπότε επιστρέφει και η θέση. */
+    @Query(value = "WITH passenger AS (" +
+            "    SELECT u.id FROM users u WHERE u.username = :username" +
+            "), ride AS (" +
+            "    SELECT r.id, r.driver_id FROM rides r WHERE r.id = :rideId" +
+            "), checks AS (" +
+            "    SELECT CASE" +
+            "        WHEN NOT EXISTS (SELECT 1 FROM passenger) THEN 'USER_NOT_FOUND'" +
+            "        WHEN NOT EXISTS (SELECT 1 FROM ride) THEN 'RIDE_NOT_FOUND'" +
+            "        WHEN (SELECT driver_id FROM ride) = (SELECT id FROM passenger) THEN 'OWN_RIDE'" +
+            "        WHEN EXISTS (SELECT 1 FROM bookings b WHERE b.ride_id = :rideId" +
+            "                     AND b.passenger_id = (SELECT id FROM passenger) AND b.status <> 'CANCELLED') THEN 'DUPLICATE'" +
+            "        ELSE 'OK' END AS code" +
+            "), seat AS (" +
+            "    UPDATE rides SET available_seats = available_seats - CAST(:seats AS integer)" +
+            "    WHERE id = :rideId AND available_seats >= CAST(:seats AS integer) AND (SELECT code FROM checks) = 'OK'" +
+            "    RETURNING id, departure_time" +
+            "), booking AS (" +
+            "    INSERT INTO bookings (id, ride_id, passenger_id, booking_time, status, reminder_sent, seats)" +
+            "    SELECT nextval('bookings_seq'), s.id, (SELECT id FROM passenger), CAST(:now AS timestamp), 'CONFIRMED', false, CAST(:seats AS integer)" +
+            "    FROM seat s" +
+            "    ON CONFLICT (ride_id, passenger_id) WHERE status <> 'CANCELLED' DO NOTHING" +
+            "    RETURNING id" +
+            ") " +
+            "SELECT CASE" +
+            "    WHEN (SELECT code FROM checks) <> 'OK' THEN (SELECT code FROM checks)" +
+            "    WHEN NOT EXISTS (SELECT 1 FROM seat) THEN 'FULL'" +
+            "    WHEN NOT EXISTS (SELECT 1 FROM booking) THEN 'DUPLICATE'" +
+            "    ELSE 'OK' END AS code," +
+            "  (SELECT id FROM booking) AS \"bookingId\"," +
+            "  (SELECT departure_time FROM seat) AS \"departureTime\"", nativeQuery = true)
+    BookingResult bookInOneStatement(@Param("rideId") Long rideId, @Param("username") String username,
+                                     @Param("seats") int seats, @Param("now") LocalDateTime now);
+
+    /* Οι κρατήσεις που χρωστάνε υπενθύμιση, για διαδρομές που φεύγουν μέσα στο (from, to] και ανήκουν
+     στο partition του κόμβου (το hash του Partition.bucket, με τις ίδιες σταθερές).
+     Native ώστε η αριθμητική να είναι ακριβώς η bigint της PostgreSQL, όπως στη Java.
+     Range scan στο idx_rides_departure_id και μετά στο partial index idx_bookings_reminder_pending,
+     οπότε το κόστος εξαρτάται από τις διαδρομές του παραθύρου και όχι από όλο το ιστορικό. */
+    @Query(value = "SELECT b.id AS \"bookingId\", r.id AS \"rideId\", r.departure_time AS \"departureTime\"" +
+            " FROM bookings b JOIN rides r ON r.id = b.ride_id" +
+            " WHERE r.departure_time > :from AND r.departure_time <= :to" +
+            "   AND b.status = 'CONFIRMED' AND b.reminder_sent = false" +
+            "   AND mod(mod(r.id, 2147483647) * 1327217884, 2147483647) * :partitions / 2147483647 = :partition",
+            nativeQuery = true)
+    List<PendingReminder> findPendingReminders(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                               @Param("partition") int partition, @Param("partitions") int partitions);
+
+    /* "Κλείνει" την υπενθύμιση μιας κράτησης: τη μαρκάρει reminder_sent = true μόνο αν είναι ακόμα
+     επιβεβαιωμένη, δεν έχει σταλεί και η διαδρομή δεν έχει φύγει, και επιστρέφει ό,τι χρειάζεται το SMS.
+     Κενό αποτέλεσμα = δεν στέλνουμε τίποτα (ακυρώθηκε ή την έστειλε ήδη άλλο node). */
+    @Query(value = "WITH marked AS (" +
+            "    UPDATE bookings b SET reminder_sent = true FROM rides r" +
+            "    WHERE b.id = :bookingId AND r.id = b.ride_id AND r.departure_time > :now" +
+            "      AND b.status = 'CONFIRMED' AND b.reminder_sent = false" +
+            "    RETURNING b.id, b.passenger_id, r.destination" +
+            ") " +
+            "SELECT m.id AS \"bookingId\", u.username AS username, u.phone_number AS \"phoneNumber\"," +
+            "       m.destination AS destination" +
+            " FROM marked m JOIN users u ON u.id = m.passenger_id", nativeQuery = true)
+    Optional<DueReminder> claimReminder(@Param("bookingId") Long bookingId, @Param("now") LocalDateTime now);
+
+    // Οι θέσεις που κρατάνε οι ενεργές κρατήσεις (μια κράτηση μπορεί να έχει πολλές θέσεις)
+    @Query("SELECT COALESCE(SUM(b.seats), 0) FROM Booking b WHERE b.status <> 'CANCELLED'")
+    long sumBookedSeats();
+
+    // Υπάρχει ήδη ενεργή κράτηση του επιβάτη σε αυτή τη διαδρομή; (index uq_bookings_active_passenger)
+    boolean existsByRide_IdAndPassenger_IdAndStatusNot(Long rideId, Long passengerId, String status);
+
+    // Το ιστορικό κρατήσεων σαν projection: κράτηση + διαδρομή + οδηγός σε ένα query.
+    // Slice αντί για Page ώστε να μη τρέχει και δεύτερο count query (φέρνει size+1 γραμμές).
+    @Query("SELECT new com.greenride.dto.BookingView(b.id, b.bookingTime, b.status, b.seats, " +
+            "r.id, r.startLocation, r.destination, r.departureTime, r.availableSeats, " +
+            "d.id, d.username, d.email) " +
+            "FROM Booking b JOIN b.ride r JOIN r.driver d JOIN b.passenger p " +
+            "WHERE p.username = :username " +
+            "ORDER BY b.bookingTime DESC, b.id DESC")
+    Slice<BookingView> findViewsByPassengerUsername(@Param("username") String username, Pageable pageable);
+}
@@ -0,0 +1,45 @@
+package com.greenride.repository;
+
+import com.greenride.model.DriverRideQuota;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface DriverRideQuotaRepository extends JpaRepository<DriverRideQuota, Long> {
+
+    /* Οι διαδρομές που αναχώρησαν βγαίνουν από το quota των οδηγών τους. Το UPDATE στο rides γυρίζει
+     το quota_released μόνο για όσες δεν έχουν ήδη μετρηθεί, οπότε δύο nodes που τρέχουν ταυτόχρονα
+     δεν μειώνουν ποτέ την ίδια διαδρομή δύο φορές. Επιστρέφει πόσοι μετρητές άλλαξαν. */
+    @Modifying
+    @Query(value = "WITH departed AS (" +
+            "    UPDATE rides SET quota_released = true" +
+            "    WHERE departure_time <= :now AND quota_released = false" +
+            "    RETURNING driver_id" +
+            "), counts AS (" +
+            "    SELECT driver_id, count(*) AS n FROM departed GROUP BY driver_id" +
+            ") " +
+            "UPDATE driver_ride_quotas q SET active_rides = GREATEST(q.active_rides - c.n, 0)" +
+            " FROM counts c WHERE q.driver_id = c.driver_id", nativeQuery = true)
+    int releaseDeparted(@Param("now") LocalDateTime now);
+
+    // Το ίδιο για μία διαδρομή (διαγραφή από admin): -1 μόνο αν δεν είχε ήδη αφαιρεθεί
+    @Modifying
+    @Query(value = "WITH released AS (" +
+            "    UPDATE rides SET quota_released = true" +
+            "    WHERE id = :rideId AND quota_released = false" +
+            "    RETURNING driver_id" +
+            ") " +
+            "UPDATE driver_ride_quotas q SET active_rides = GREATEST(q.active_rides - 1, 0)" +
+            " FROM released r WHERE q.driver_id = r.driver_id", nativeQuery = true)
+    int releaseRide(@Param("rideId") Long rideId);
+
+    // Μαζική εισαγωγή (admin): +n χωρίς έλεγχο ορίου, ώστε ο μετρητής να μένει σωστός
+    @Modifying
+    @Query(value = "INSERT INTO driver_ride_quotas (driver_id, active_rides) VALUES (:driverId, :n)" +
+            " ON CONFLICT (driver_id) DO UPDATE SET active_rides = driver_ride_quotas.active_rides + :n",
+            nativeQuery = true)
+    void addActiveRides(@Param("driverId") Long driverId, @Param("n") int n);
+}
@@ -0,0 +1,35 @@
+package com.greenride.repository;
+
+import com.greenride.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    Optional<IdempotencyRecord> findByKeyAndExpiresAtAfter(String key, LocalDateTime now);
+
+    /* Native γιατί θέλουμε ON CONFLICT: το save() θα έκανε merge (UPDATE) πάνω σε απάντηση άλλου request.
+     Ένα ληγμένο κλειδί που δεν έχει σβηστεί ακόμα αντικαθίσταται. Επιστρέφει 0 αν το κλειδί είναι ενεργό. */
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys " +
+            "(idempotency_key, fingerprint, status_code, json, body, created_at, expires_at) " +
+            "VALUES (:key, :fingerprint, :statusCode, :json, :body, :createdAt, :expiresAt) " +
+            "ON CONFLICT (idempotency_key) DO UPDATE SET fingerprint = EXCLUDED.fingerprint, " +
+            "status_code = EXCLUDED.status_code, json = EXCLUDED.json, body = EXCLUDED.body, " +
+            "created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at " +
+            "WHERE idempotency_keys.expires_at < EXCLUDED.created_at", nativeQuery = true)
+    int insertIfAbsent(@Param("key") String key, @Param("fingerprint") String fingerprint,
+                       @Param("statusCode") int statusCode, @Param("json") boolean json, @Param("body") String body,
+                       @Param("createdAt") LocalDateTime createdAt, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,38 @@
+package com.greenride.repository;
+
+import com.greenride.model.NodeLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+// Όλοι οι χρόνοι με LOCALTIMESTAMP της βάσης: ένα ρολόι για όλους τους κόμβους
+public interface NodeLeaseRepository extends JpaRepository<NodeLease, String> {
+
+    // Heartbeat: δημιουργεί ή παρατείνει το lease του κόμβου κατά :leaseSeconds
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO node_leases (node_id, started_at, expires_at)" +
+            " VALUES (:nodeId, LOCALTIMESTAMP, LOCALTIMESTAMP + make_interval(secs => :leaseSeconds))" +
+            " ON CONFLICT (node_id) DO UPDATE SET expires_at = EXCLUDED.expires_at", nativeQuery = true)
+    void renew(@Param("nodeId") String nodeId, @Param("leaseSeconds") int leaseSeconds);
+
+    // Οι ζωντανοί κόμβοι, με σταθερή σειρά: η θέση ενός κόμβου στη λίστα είναι το partition του
+    @Query(value = "SELECT node_id FROM node_leases WHERE expires_at > LOCALTIMESTAMP ORDER BY node_id",
+            nativeQuery = true)
+    List<String> findLiveNodeIds();
+
+    // Ένας κόμβος που σταματάει κανονικά αφήνει αμέσως το lease, ώστε οι άλλοι να μην περιμένουν τη λήξη του
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM node_leases WHERE node_id = :nodeId", nativeQuery = true)
+    void release(@Param("nodeId") String nodeId);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM node_leases WHERE expires_at <= LOCALTIMESTAMP", nativeQuery = true)
+    int deleteExpired();
+}
@@ -0,0 +1,61 @@
+package com.greenride.repository;
+
+import com.greenride.model.OutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    // Ένα SMS που πήρε ο relay για αποστολή
+    interface ClaimedMessage {
+        Long getId();
+
+        String getPhoneNumber();
+
+        String getMessage();
+
+        int getAttempts();
+    }
+
+    /* Παίρνει τα επόμενα :limit SMS που είναι έτοιμα για αποστολή και μεταθέτει το next_attempt_at τους
+     στο :leaseUntil. Έτσι ένας άλλος κόμβος (ή το επόμενο tick) δεν τα ξαναπαίρνει όσο στέλνονται, και αν
+     ο κόμβος πέσει στη μέση ξαναγίνονται διαθέσιμα όταν λήξει το lease: κανένα SMS δεν χάνεται. */
+    @Query(value = "WITH next AS (" +
+            "    SELECT id FROM sms_outbox" +
+            "    WHERE status = 'PENDING' AND next_attempt_at <= :now" +
+            "    ORDER BY next_attempt_at, id LIMIT :limit" +
+            "    FOR UPDATE SKIP LOCKED" +
+            ") " +
+            "UPDATE sms_outbox o SET next_attempt_at = :leaseUntil FROM next WHERE o.id = next.id" +
+            " RETURNING o.id AS id, o.phone_number AS \"phoneNumber\", o.message AS message, o.attempts AS attempts",
+            nativeQuery = true)
+    List<ClaimedMessage> claimBatch(@Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil,
+                                    @Param("limit") int limit);
+
+    // Όσα στάλθηκαν, με ένα UPDATE για όλο το batch
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = 'SENT', m.sentAt = :now WHERE m.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // Αποτυχία: ξανά PENDING με backoff, ή FAILED αν εξαντλήθηκαν οι προσπάθειες
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.status = :status, m.attempts = m.attempts + 1, " +
+            "m.nextAttemptAt = :nextAttemptAt, m.lastError = :error WHERE m.id = :id")
+    int markFailed(@Param("id") Long id, @Param("status") String status,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("error") String error);
+
+    // Όσα δεν πρόλαβαν να δοκιμαστούν (το batch σταμάτησε σε αποτυχία): ξανά διαθέσιμα, χωρίς να χρεωθούν προσπάθεια
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.nextAttemptAt = :nextAttemptAt WHERE m.id IN :ids")
+    int postpone(@Param("ids") Collection<Long> ids, @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    @Modifying
+    @Query("DELETE FROM OutboxMessage m WHERE m.status = 'SENT' AND m.sentAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
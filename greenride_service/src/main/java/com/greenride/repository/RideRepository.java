@@ -1,6 +1,8 @@
 package com.greenride.repository;
 
+import com.greenride.dto.RideView;
 import com.greenride.model.Ride;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -9,26 +11,211 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface RideRepository extends JpaRepository<Ride, Long> {
 
-    List<Ride> findByStartLocationContainingIgnoreCaseAndDestinationContainingIgnoreCase(String startLocation, String destination);
+    // Projection για το πλήθος διαδρομών ανά τοποθεσία (autocomplete)
+    interface LocationCount {
+        String getLocation();
 
-    List<Ride> findByDriver_Username(String username);
+        long getRideCount();
+    }
 
-    // NEW: Count active rides for a specific driver
-    //Μετράει τα ενεργά rides για συγκεκριμένους οδηγούς
-    long countByDriver_UsernameAndDepartureTimeAfter(String username, LocalDateTime now);
+    // Projection για τα δημοφιλή routes: μία γραμμή ανά μελλοντική διαδρομή με τις κρατημένες θέσεις της
+    interface UpcomingRideStats {
+        Long getRideId();
 
-    //ΑAtomic Update:-1
+        String getStartLocation();
+
+        String getDestination();
+
+        LocalDateTime getDepartureTime();
+
+        long getBookedSeats();
+    }
+
+    // Το αποτέλεσμα της δημιουργίας διαδρομής με ένα statement, μαζί με τα στοιχεία του οδηγού για το search index
+    interface CreateRideResult {
+        String getCode();
+
+        Long getRideId();
+
+        Long getDriverId();
+
+        String getDriverEmail();
+    }
+
+    // Οι ελεύθερες θέσεις μιας διαδρομής, για τους counters του in-memory seat inventory
+    interface SeatCount {
+        Long getRideId();
+
+        int getAvailableSeats();
+
+        LocalDateTime getDepartureTime();
+    }
+
+    // Keyset σελιδοποίηση σε (departureTime, id) μέσα σε χρονικό παράθυρο [from, to]:
+    // πρώτη σελίδα και σελίδα μετά από cursor. Το index idx_rides_departure_id κάνει range scan
+    // μόνο στο κομμάτι των μελλοντικών διαδρομών που ζητήθηκε, ανεξάρτητα από το μέγεθος του πίνακα.
+    // Τα start/destination πρέπει να είναι ήδη κανονικοποιημένα με τον LocationNormalizer.
+    // Επιστρέφουν κατευθείαν RideView (constructor expression): ένα query, χωρίς entities και lazy loads.
+    @Query("SELECT new com.greenride.dto.RideView(r.id, r.startLocation, r.destination, r.departureTime, " +
+            "r.availableSeats, d.id, d.username, d.email, " +
+            "r.startLatitude, r.startLongitude, r.destinationLatitude, r.destinationLongitude) " +
+            "FROM Ride r JOIN r.driver d " +
+            "WHERE r.departureTime >= :from AND r.departureTime <= :to " +
+            "AND r.availableSeats >= :minSeats " +
+            "AND r.startLocationKey LIKE concat('%', :start, '%') " +
+            "AND r.destinationKey LIKE concat('%', :destination, '%') " +
+            "ORDER BY r.departureTime, r.id")
+    List<RideView> searchFirstPage(@Param("start") String start,
+                                   @Param("destination") String destination,
+                                   @Param("from") LocalDateTime from,
+                                   @Param("to") LocalDateTime to,
+                                   @Param("minSeats") int minSeats,
+                                   Limit limit);
+
+    @Query("SELECT new com.greenride.dto.RideView(r.id, r.startLocation, r.destination, r.departureTime, " +
+            "r.availableSeats, d.id, d.username, d.email, " +
+            "r.startLatitude, r.startLongitude, r.destinationLatitude, r.destinationLongitude) " +
+            "FROM Ride r JOIN r.driver d " +
+            "WHERE r.departureTime >= :from AND r.departureTime <= :to " +
+            "AND r.availableSeats >= :minSeats " +
+            "AND r.startLocationKey LIKE concat('%', :start, '%') " +
+            "AND r.destinationKey LIKE concat('%', :destination, '%') " +
+            "AND (r.departureTime > :afterTime OR (r.departureTime = :afterTime AND r.id > :afterId)) " +
+            "ORDER BY r.departureTime, r.id")
+    List<RideView> searchPageAfter(@Param("start") String start,
+                                   @Param("destination") String destination,
+                                   @Param("from") LocalDateTime from,
+                                   @Param("to") LocalDateTime to,
+                                   @Param("minSeats") int minSeats,
+                                   @Param("afterTime") LocalDateTime afterTime,
+                                   @Param("afterId") Long afterId,
+                                   Limit limit);
+
+    // Projections για τις λίστες του UI/API: κάθε λίστα κοστίζει ακριβώς ένα query
+    @Query("SELECT new com.greenride.dto.RideView(r.id, r.startLocation, r.destination, r.departureTime, " +
+            "r.availableSeats, d.id, d.username, d.email, " +
+            "r.startLatitude, r.startLongitude, r.destinationLatitude, r.destinationLongitude) " +
+            "FROM Ride r JOIN r.driver d " +
+            "WHERE d.username = :username ORDER BY r.departureTime, r.id")
+    List<RideView> findViewsByDriverUsername(@Param("username") String username);
+
+    @Query("SELECT new com.greenride.dto.RideView(r.id, r.startLocation, r.destination, r.departureTime, " +
+            "r.availableSeats, d.id, d.username, d.email, " +
+            "r.startLatitude, r.startLongitude, r.destinationLatitude, r.destinationLongitude) " +
+            "FROM Ride r JOIN r.driver d " +
+            "ORDER BY r.departureTime DESC, r.id DESC")
+    List<RideView> findAllViews();
+
+    @Query("SELECT new com.greenride.dto.RideView(r.id, r.startLocation, r.destination, r.departureTime, " +
+            "r.availableSeats, d.id, d.username, d.email, " +
+            "r.startLatitude, r.startLongitude, r.destinationLatitude, r.destinationLongitude) " +
+            "FROM Ride r JOIN r.driver d " +
+            "WHERE r.id = :id")
+    Optional<RideView> findViewById(@Param("id") Long id);
+
+    @Query("SELECT COALESCE(SUM(r.availableSeats), 0) FROM Ride r")
+    long sumAvailableSeats();
+
+    @Query("SELECT r.startLocation AS location, COUNT(r) AS rideCount FROM Ride r GROUP BY r.startLocation")
+    List<LocationCount> countRidesByStartLocation();
+
+    @Query("SELECT r.destination AS location, COUNT(r) AS rideCount FROM Ride r GROUP BY r.destination")
+    List<LocationCount> countRidesByDestination();
+
+
+    @Query("SELECT r.id AS rideId, r.availableSeats AS availableSeats, r.departureTime AS departureTime " +
+            "FROM Ride r WHERE r.id = :id")
+    Optional<SeatCount> findSeatCountById(@Param("id") Long id);
+
+    // Οι θέσεις της διαδρομής r που έχουν πιαστεί: ενεργές κρατήσεις και HELD holds
+    String RESERVED_SEATS =
+            "COALESCE((SELECT SUM(b.seats) FROM Booking b WHERE b.ride = r AND b.status <> 'CANCELLED'), 0)" +
+            " + COALESCE((SELECT SUM(h.seats) FROM SeatHold h WHERE h.ride = r AND h.status = 'HELD'), 0)";
+
+    /* Οι ελεύθερες θέσεις όπως βγαίνουν από τις κρατήσεις και τα ενεργά holds (total_seats - δεσμευμένες), όχι από
+     το available_seats που στο in-memory inventory γράφεται με καθυστέρηση. Αυτό δεν χάνει τίποτα σε crash. */
+    String FREE_SEATS = "CAST(r.totalSeats - (" + RESERVED_SEATS + ") AS Integer)";
+
+    // Για τα δημοφιλή routes: "κρατημένες" είναι και τα holds, όπως στα SEATS_CHANGED events
+    @Query("SELECT r.id AS rideId, r.startLocation AS startLocation, r.destination AS destination, " +
+            "r.departureTime AS departureTime, " + RESERVED_SEATS + " AS bookedSeats " +
+            "FROM Ride r WHERE r.departureTime > :now")
+    List<UpcomingRideStats> findUpcomingRideStats(@Param("now") LocalDateTime now);
+
+    @Query("SELECT " + RESERVED_SEATS + " FROM Ride r WHERE r.id = :id")
+    Optional<Long> findReservedSeatsById(@Param("id") Long id);
+
+    @Query("SELECT r.id AS rideId, " + FREE_SEATS + " AS availableSeats, r.departureTime AS departureTime " +
+            "FROM Ride r WHERE r.departureTime > :now")
+    List<SeatCount> findUpcomingFreeSeats(@Param("now") LocalDateTime now);
+
+    @Query("SELECT r.id AS rideId, " + FREE_SEATS + " AS availableSeats, r.departureTime AS departureTime " +
+            "FROM Ride r WHERE r.id = :id")
+    Optional<SeatCount> findFreeSeatsById(@Param("id") Long id);
+
+    /* Δημιουργία διαδρομής σε ένα round trip (data-modifying CTE): βρίσκει τον οδηγό, αυξάνει ατομικά τον μετρητή
+     ενεργών διαδρομών του (driver_ride_quotas) μόνο αν είναι κάτω από το όριο, και κάνει το INSERT μόνο αν
+     πέτυχε η αύξηση. Το upsert κλειδώνει τη γραμμή του οδηγού, οπότε ταυτόχρονα creates δεν περνάνε το όριο.
+     Κωδικοί: OK, DRIVER_NOT_FOUND, TOO_MANY_ACTIVE.
+     Το ID βγαίνει από το ίδιο sequence με τον Hibernate (κάθε nextval είναι μοναδικό, δεν συγκρούεται με τα blocks του).
+     Τα CAST χρειάζονται γιατί στο INSERT ... SELECT η PostgreSQL δεν βγάζει τον τύπο των (πιθανώς null) παραμέτρων. */
+    @Query(value = "WITH driver AS (" +
+            "    SELECT u.id, u.email FROM users u WHERE u.username = :username" +
+            "), quota AS (" +
+            "    INSERT INTO driver_ride_quotas (driver_id, active_rides)" +
+            "    SELECT d.id, 1 FROM driver d" +
+            "    ON CONFLICT (driver_id) DO UPDATE SET active_rides = driver_ride_quotas.active_rides + 1" +
+            "    WHERE driver_ride_quotas.active_rides < CAST(:maxActive AS integer)" +
+            "    RETURNING driver_id" +
+            "), inserted AS (" +
+            "    INSERT INTO rides (id, start_location, destination, start_location_key, destination_key, departure_time," +
+            "                       available_seats, total_seats, start_latitude, start_longitude, destination_latitude," +
+            "                       destination_longitude, route_polyline, location_key_version, quota_released, driver_id)" +
+            "    SELECT nextval('rides_seq'), CAST(:start AS varchar), CAST(:destination AS varchar), CAST(:startKey AS varchar)," +
+            "           CAST(:destinationKey AS varchar), CAST(:departureTime AS timestamp), CAST(:seats AS integer)," +
+            "           CAST(:seats AS integer), CAST(:startLat AS double precision), CAST(:startLon AS double precision)," +
+            "           CAST(:destinationLat AS double precision), CAST(:destinationLon AS double precision)," +
+            "           CAST(:routePolyline AS text), CAST(:keyVersion AS integer), false, q.driver_id" +
+            "    FROM quota q" +
+            "    RETURNING id" +
+            ") " +
+            "SELECT CASE" +
+            "    WHEN NOT EXISTS (SELECT 1 FROM driver) THEN 'DRIVER_NOT_FOUND'" +
+            "    WHEN NOT EXISTS (SELECT 1 FROM inserted) THEN 'TOO_MANY_ACTIVE'" +
+            "    ELSE 'OK' END AS code," +
+            "  (SELECT id FROM inserted) AS \"rideId\"," +
+            "  (SELECT id FROM driver) AS \"driverId\"," +
+            "  (SELECT email FROM driver) AS \"driverEmail\"", nativeQuery = true)
+    CreateRideResult createInOneStatement(@Param("username") String username, @Param("maxActive") int maxActive,
+                                          @Param("start") String start, @Param("destination") String destination,
+                                          @Param("startKey") String startKey, @Param("destinationKey") String destinationKey,
+                                          @Param("departureTime") LocalDateTime departureTime, @Param("seats") int seats,
+                                          @Param("startLat") Double startLat, @Param("startLon") Double startLon,
+                                          @Param("destinationLat") Double destinationLat,
+                                          @Param("destinationLon") Double destinationLon,
+                                          @Param("routePolyline") String routePolyline,
+                                          @Param("keyVersion") int keyVersion);
+
+    // Παλιές διαδρομές χωρίς κλειδιά αναζήτησης ή με κλειδιά παλιότερης έκδοσης (για το backfill στην εκκίνηση)
+    List<Ride> findByLocationKeyVersionIsNullOrLocationKeyVersionLessThan(int version, Limit limit);
+
+    // Φόρτωση των μελλοντικών διαδρομών μαζί με τον οδηγό σε ένα query (για το in-memory search index)
+    @Query("SELECT r FROM Ride r JOIN FETCH r.driver WHERE r.departureTime > :now")
+    List<Ride> findUpcomingWithDriver(@Param("now") LocalDateTime now);
+
+    //Atomic Update: -n, μόνο αν υπάρχουν τουλάχιστον n ελεύθερες θέσεις (ομαδική κράτηση, όλα ή τίποτα)
     @Transactional
     @Modifying
-    @Query("UPDATE Ride r SET r.availableSeats = r.availableSeats - 1 WHERE r.id = :id AND r.availableSeats > 0")
-    int decrementAvailableSeats(@Param("id") Long id);
+    @Query("UPDATE Ride r SET r.availableSeats = r.availableSeats - :n WHERE r.id = :id AND r.availableSeats >= :n")
+    int decrementAvailableSeatsBy(@Param("id") Long id, @Param("n") int n);
 
-    // ATOMIC UPDATE:+1
+    // ATOMIC UPDATE: +n (ακύρωση ομαδικής κράτησης)
     @Transactional
     @Modifying
-    @Query("UPDATE Ride r SET r.availableSeats = r.availableSeats + 1 WHERE r.id = :id")
-    void incrementAvailableSeats(@Param("id") Long id);
+    @Query("UPDATE Ride r SET r.availableSeats = r.availableSeats + :n WHERE r.id = :id")
+    void incrementAvailableSeatsBy(@Param("id") Long id, @Param("n") int n);
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.greenride.repository;
+
+import com.greenride.model.SeatHold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface SeatHoldRepository extends JpaRepository<SeatHold, Long> {
+
+    // Τα ενεργά holds (ID + λήξη), για να ξαναμπούν στο timing wheel μετά από restart
+    interface PendingHold {
+        Long getId();
+
+        LocalDateTime getExpiresAt();
+    }
+
+    @Query("SELECT h.id AS id, h.expiresAt AS expiresAt FROM SeatHold h WHERE h.status = 'HELD'")
+    List<PendingHold> findPendingHolds();
+
+    // Για το sweep: holds που έπρεπε να έχουν λήξει (partial index idx_seat_holds_held_expires)
+    @Query("SELECT h.id FROM SeatHold h WHERE h.status = 'HELD' AND h.expiresAt < :now")
+    List<Long> findExpiredHoldIds(@Param("now") LocalDateTime now);
+
+    /* Ατομική μετάβαση από HELD σε άλλη κατάσταση. Επιστρέφει 1 μόνο σε έναν από όσους τρέχουν ταυτόχρονα
+     (confirm, release, expiry), οπότε οι θέσεις δεν επιστρέφονται ποτέ δύο φορές. */
+    @Modifying
+    @Query("UPDATE SeatHold h SET h.status = :status WHERE h.id = :id AND h.status = 'HELD'")
+    int finish(@Param("id") Long id, @Param("status") String status);
+
+    // Όπως το finish, αλλά μόνο αν το hold δεν έχει λήξει ακόμα
+    @Modifying
+    @Query("UPDATE SeatHold h SET h.status = 'CONFIRMED' WHERE h.id = :id AND h.status = 'HELD' AND h.expiresAt > :now")
+    int confirm(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM SeatHold h WHERE h.ride.id = :rideId")
+    void deleteByRideId(@Param("rideId") Long rideId);
+}
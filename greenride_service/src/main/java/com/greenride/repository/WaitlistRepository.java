@@ -0,0 +1,31 @@
+package com.greenride.repository;
+
+import com.greenride.model.WaitlistEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    // Οι πρώτοι της ουράς, μαζί με τον επιβάτη (χρειαζόμαστε το τηλέφωνο για το SMS)
+    @Query("SELECT w FROM WaitlistEntry w JOIN FETCH w.passenger " +
+            "WHERE w.ride.id = :rideId AND w.status = 'WAITING' ORDER BY w.id")
+    List<WaitlistEntry> findWaiting(@Param("rideId") Long rideId, Limit limit);
+
+    // Πόσοι περιμένουν μπροστά από αυτή τη θέση
+    long countByRide_IdAndStatusAndIdLessThan(Long rideId, String status, Long id);
+
+    /* Ατομική μετάβαση από WAITING. Αν δύο ακυρώσεις πάνε να προωθήσουν τον ίδιο επιβάτη,
+     μόνο η μία παίρνει 1 και η άλλη συνεχίζει στον επόμενο. */
+    @Modifying
+    @Query("UPDATE WaitlistEntry w SET w.status = :status WHERE w.id = :id AND w.status = 'WAITING'")
+    int finish(@Param("id") Long id, @Param("status") String status);
+
+    @Modifying
+    @Query("DELETE FROM WaitlistEntry w WHERE w.ride.id = :rideId")
+    void deleteByRideId(@Param("rideId") Long rideId);
+}
@@ -1,6 +1,5 @@
 package com.greenride.service;
 
-import com.greenride.model.Ride;
 import com.greenride.model.User;
 import com.greenride.repository.BookingRepository;
 import com.greenride.repository.RideRepository;
@@ -48,17 +47,20 @@ public class AdminServiceImpl implements AdminService {
 
         if (totalRides > 0) {
             // Υπολογίζουμε τις συνολικές θέσεις που είναι ΑΚΟΜΑ διαθέσιμες σε όλες τις διαδρομές
-            long totalAvailableSeats = rideRepository.findAll().stream()
-                    .mapToLong(Ride::getAvailableSeats)
-                    .sum();
+            // Το άθροισμα γίνεται στη βάση, αντί να φορτώσουμε όλες τις διαδρομές στη μνήμη
+            long totalAvailableSeats = rideRepository.sumAvailableSeats();
+
+            // Κατειλημμένες θέσεις = οι θέσεις των ενεργών κρατήσεων (όχι το πλήθος τους,
+            // μια κράτηση μπορεί να έχει πολλές θέσεις, και όχι οι ακυρωμένες)
+            long bookedSeats = bookingRepository.sumBookedSeats();
 
             // Η πραγματική συνολική χωρητικότητα του στόλου είναι:
-            // Κατειλημμένες θέσεις (Bookings) + Κενές θέσεις (AvailableSeats)
-            long totalCapacity = totalBookings + totalAvailableSeats;
+            // Κατειλημμένες θέσεις + Κενές θέσεις (AvailableSeats)
+            long totalCapacity = bookedSeats + totalAvailableSeats;
 
             if (totalCapacity > 0) {
                 // Ποσοστό πληρότητας = Κατειλημμένες / Συνολικές
-                averageOccupancy = (double) totalBookings / totalCapacity;
+                averageOccupancy = (double) bookedSeats / totalCapacity;
             }
         }
 
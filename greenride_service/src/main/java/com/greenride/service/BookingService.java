@@ -1,12 +1,35 @@
 package com.greenride.service;
 
+import com.greenride.dto.BookingPage;
+import com.greenride.dto.BookingRequest;
+import com.greenride.dto.SeatHoldView;
+import com.greenride.dto.WaitlistView;
+import com.greenride.dto.BookingView;
 import com.greenride.model.Booking;
 import com.greenride.model.Ride;
+import com.greenride.model.SeatHold;
 import com.greenride.model.User;
+import com.greenride.model.WaitlistEntry;
 import com.greenride.repository.BookingRepository;
 import com.greenride.repository.RideRepository;
+import com.greenride.repository.SeatHoldRepository;
 import com.greenride.repository.UserRepository;
+import com.greenride.repository.WaitlistRepository;
+import com.greenride.service.event.BookingChangedEvent;
+import com.greenride.service.event.RideChangedEvent;
+import com.greenride.service.event.SeatHoldExpiredEvent;
+import com.greenride.service.event.WaitlistPromotedEvent;
+import com.greenride.service.inventory.SeatInventory;
+import com.greenride.service.scheduling.SeatHoldTimer;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,7 +37,12 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Service που διαχειρίζεται όλη τη λογική των κρατήσεων.
@@ -26,16 +54,157 @@ public class BookingService {
     @Autowired private RideRepository rideRepository;
     @Autowired private BookingRepository bookingRepository;
     @Autowired private UserRepository userRepository;
+    @Autowired private ApplicationEventPublisher eventPublisher;
+    @Autowired private SeatInventory seatInventory;
+    @Autowired private SeatHoldRepository seatHoldRepository;
+    @Autowired private SeatHoldTimer seatHoldTimer;
+    @Autowired private WaitlistRepository waitlistRepository;
+
+    @Value("${greenride.booking.hold-minutes:10}")
+    private long holdMinutes;
+
+    public static final int MAX_SEATS_PER_BOOKING = 8;
+    public static final int MAX_BATCH_BOOKINGS = 10;
+
+    /**
+     * Δημιουργία νέας κράτησης για μία θέση.
+     */
+    @Transactional
+    public Long bookRide(Long rideId, String passengerUsername) {
+        return bookRide(rideId, passengerUsername, 1);
+    }
 
     /**
-     * Δημιουργία νέας κράτησης.
+     * Ομαδική κράτηση: {@code seats} θέσεις στην ίδια διαδρομή, με ένα ατομικό UPDATE.
      * Χρησιμοποιεί @Transactional για να διασφαλίσει ότι όλα θα γίνουν σωστά ή τίποτα (ACID).
+     *
+     * @return Το ID της νέας κράτησης
      */
     @Transactional
-    public void bookRide(Long rideId, String passengerUsername) {
+    public Long bookRide(Long rideId, String passengerUsername, int seats) {
+        if (seatInventory.inDatabase()) {
+            return bookRideInOneStatement(rideId, passengerUsername, seats);
+        }
         // 1. Γρήγορος έλεγχος: Υπάρχει ο χρήστης που πάει να κάνει κράτηση;
-        User passenger = userRepository.findByUsername(passengerUsername)
+        User passenger = findPassenger(passengerUsername);
+        return reserve(passenger, rideId, seats).getId();
+    }
+
+    /**
+     * Η ίδια κράτηση σε ένα round trip: οι έλεγχοι (βήματα 1-4), το UPDATE των θέσεων και το INSERT
+     * της κράτησης γίνονται από ένα statement στη βάση, που επιστρέφει κωδικό αποτελέσματος.
+     * Ισχύει μόνο όταν οι θέσεις ζουν στη βάση (όχι με το in-memory inventory).
+     */
+    private Long bookRideInOneStatement(Long rideId, String passengerUsername, int seats) {
+        checkSeatCount(seats);
+        BookingRepository.BookingResult result =
+                bookingRepository.bookInOneStatement(rideId, passengerUsername, seats, LocalDateTime.now());
+        switch (result.getCode()) {
+            case "OK" -> {
+            }
+            case "USER_NOT_FOUND" -> throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+            case "RIDE_NOT_FOUND" -> throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Ride not found");
+            case "OWN_RIDE" -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Drivers cannot book their own ride.");
+            // Αν πρόλαβε να μειωθούν οι θέσεις, το rollback του exception τις επιστρέφει
+            case "DUPLICATE" -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "You have already booked this ride.");
+            case "FULL" -> throw fullyBooked(seats);
+            default -> throw new IllegalStateException("Unknown booking result: " + result.getCode());
+        }
+        eventPublisher.publishEvent(RideChangedEvent.seatsChanged(rideId, -seats));
+        eventPublisher.publishEvent(BookingChangedEvent.confirmed(result.getBookingId(), rideId, result.getDepartureTime()));
+        return result.getBookingId();
+    }
+
+    /**
+     * Κράτηση σε πολλές διαδρομές με ένα request (π.χ. πήγαινε-έλα).
+     * Όλες οι κρατήσεις γίνονται στο ίδιο transaction: αν αποτύχει μία, δεν μένει καμία.
+     *
+     * @return Τα IDs των κρατήσεων, με τη σειρά των requests
+     */
+    @Transactional
+    public List<Long> bookRides(List<BookingRequest> requests, String passengerUsername) {
+        if (requests == null || requests.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No bookings requested.");
+        }
+        if (requests.size() > MAX_BATCH_BOOKINGS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_BATCH_BOOKINGS + " bookings per request.");
+        }
+        Set<Long> rideIds = new HashSet<>();
+        for (BookingRequest request : requests) {
+            if (request == null || request.rideId() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Every booking needs a rideId.");
+            }
+            if (!rideIds.add(request.rideId())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Ride " + request.rideId() + " appears more than once.");
+            }
+        }
+
+        // Ο χρήστης φορτώνεται μία φορά για όλο το batch
+        User passenger = findPassenger(passengerUsername);
+
+        /* Κλειδώνουμε τις γραμμές των rides πάντα με την ίδια σειρά (αύξον ID), ώστε δύο ταυτόχρονα
+         batches με κοινές διαδρομές να μην κάνουν deadlock το ένα στο άλλο. */
+        Map<Long, Long> bookingIds = new HashMap<>();
+        requests.stream()
+                .sorted(Comparator.comparing(BookingRequest::rideId))
+                .forEach(request -> bookingIds.put(request.rideId(),
+                        reserve(passenger, request.rideId(), request.seats() == null ? 1 : request.seats()).getId()));
+        return requests.stream().map(request -> bookingIds.get(request.rideId())).toList();
+    }
+
+    private static void checkSeatCount(int seats) {
+        if (seats < 1 || seats > MAX_SEATS_PER_BOOKING) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "You can book between 1 and " + MAX_SEATS_PER_BOOKING + " seats.");
+        }
+    }
+
+    private static ResponseStatusException fullyBooked(int seats) {
+        return new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                seats == 1 ? "Ride is fully booked!" : "Not enough free seats for " + seats + " passengers.");
+    }
+
+    private User findPassenger(String passengerUsername) {
+        return userRepository.findByUsername(passengerUsername)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
+    }
+
+    /**
+     * Οι κανόνες και η ατομική δέσμευση θέσεων για μία κράτηση. Τρέχει μέσα στο transaction του caller.
+     */
+    private Booking reserve(User passenger, Long rideId, int seats) {
+        // Με το in-memory inventory μια γεμάτη διαδρομή απορρίπτεται εδώ, χωρίς κανένα query
+        if (!seatInventory.mightHave(rideId, seats)) {
+            throw fullyBooked(seats);
+        }
+        Ride ride = bookableRide(passenger, rideId, seats);
+
+        /* 5. --- ΚΡΙΣΙΜΟ ΣΗΜΕΙΟ CONCURRENCY (Ταυτοχρονισμός) ---
+         Εδώ λύνουμε το πρόβλημα του "Race Condition".
+         Αντί να διαβάσουμε τις θέσεις (getAvailableSeats) και να τις μειώσουμε στη μνήμη της Java,
+         κάνουμε μία ατομική δέσμευση στο seat inventory:
+         "Μείωσε κατά N  αν-αν οι θέσεις είναι >= N".
+         Στη βάση είναι ένα conditional UPDATE, στη μνήμη ένα compare-and-set. */
+        // Αν αποτύχει, σημαίνει ότι κάποιος άλλος πρόλαβε τις θέσεις χιλιοστά του δευτερολέπτου πριν.
+        if (!seatInventory.tryReserve(rideId, seats)) {
+            throw fullyBooked(seats);
+        }
+
+        // 6. Αν περάσαμε το βήμα 5, η θέση είναι δεσμευμένη. Αποθηκεύουμε την κράτηση.
+        Booking booking = saveBooking(passenger, ride, seats);
+
+        // 7. Ενημέρωση του search index για τις θέσεις (εφαρμόζεται μετά το commit)
+        eventPublisher.publishEvent(RideChangedEvent.seatsChanged(rideId, -seats));
+        return booking;
+    }
+
+    /**
+     * Βήματα 2-4: η διαδρομή υπάρχει και ο χρήστης επιτρέπεται να κλείσει {@code seats} θέσεις σε αυτή.
+     */
+    private Ride bookableRide(User passenger, Long rideId, int seats) {
+        checkSeatCount(seats);
 
         // 2. Γρήγορος έλεγχος: Υπάρχει η διαδρομή;
         Ride ride = rideRepository.findById(rideId)
@@ -46,42 +215,158 @@ public class BookingService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Drivers cannot book their own ride.");
         }
 
-        // 4. Κανόνας: Έλεγχος για διπλο-εγγραφές. Αν ο χρήστης έχει ήδη ενεργή κράτηση, απορρίπτουμε.
-        boolean alreadyBooked = ride.getBookings().stream()
-                .anyMatch(b -> b.getPassenger().getId().equals(passenger.getId())
-                        && !"CANCELLED".equals(b.getStatus()));
-        if (alreadyBooked) {
+        /* 4. Κανόνας: Έλεγχος για διπλο-εγγραφές. Αν ο χρήστης έχει ήδη ενεργή κράτηση, απορρίπτουμε.
+         Ένα exists query πάνω στο unique index (ride_id, passenger_id), αντί να φορτώσουμε όλες τις κρατήσεις της διαδρομής. */
+        if (bookingRepository.existsByRide_IdAndPassenger_IdAndStatusNot(rideId, passenger.getId(), "CANCELLED")) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "You have already booked this ride.");
         }
+        return ride;
+    }
 
-        /* 5. --- ΚΡΙΣΙΜΟ ΣΗΜΕΙΟ CONCURRENCY (Ταυτοχρονισμός) ---
-         Εδώ λύνουμε το πρόβλημα του "Race Condition".
-         Αντί να διαβάσουμε τις θέσεις (getAvailableSeats) και να τις μειώσουμε στη μνήμη της Java,
-         στέλνουμε ένα ατομικό ερώτημα UPDATE στη βάση δεδομένων:
-         "Μείωσε κατά 1  αν-αν οι θέσεις είναι > 0".
-         Η μέθοδος επιστρέφει πόσες γραμμές επηρεάστηκαν (1 = επιτυχία, 0 = αποτυχία). */
-        int updatedRows = rideRepository.decrementAvailableSeats(rideId);
-        
-        // Αν επιστρέψει 0, σημαίνει ότι κάποιος άλλος πρόλαβε την τελευταία θέση χιλιοστά του δευτερολέπτου πριν.
-        if (updatedRows == 0) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Ride is fully booked!");
-        }
-
-        // 6. Αν περάσαμε το βήμα 5, η θέση είναι δεσμευμένη. Αποθηκεύουμε την κράτηση.
+    /**
+     * Αποθηκεύει την κράτηση για θέσεις που έχουν ήδη δεσμευτεί (απευθείας ή μέσω hold).
+     */
+    private Booking saveBooking(User passenger, Ride ride, int seats) {
         Booking booking = new Booking();
         booking.setRide(ride);
         booking.setPassenger(passenger);
         booking.setBookingTime(LocalDateTime.now());
         booking.setStatus("CONFIRMED"); // Αρχική κατάσταση
+        booking.setSeats(seats);
 
-        bookingRepository.save(booking);
+        /* Δύο ταυτόχρονα requests μπορεί να περάσουν και τα δύο τον έλεγχο του βήματος 4.
+         Το partial unique index της βάσης κρατάει μόνο το ένα. Με το flush το βλέπουμε εδώ, και το
+         rollback επιστρέφει και τη θέση που δεσμεύσαμε στο βήμα 5. */
+        try {
+            bookingRepository.saveAndFlush(booking);
+        } catch (DataIntegrityViolationException e) {
+            if (!violates(e, "uq_bookings_active_passenger")) {
+                throw e;
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "You have already booked this ride.");
+        }
+        // Για τον προγραμματισμό της υπενθύμισης (μετά το commit)
+        eventPublisher.publishEvent(BookingChangedEvent.confirmed(booking.getId(), ride.getId(), ride.getDepartureTime()));
+        return booking;
     }
 
     /**
-     * Επιστρέφει τις κρατήσεις ενός συγκεκριμένου χρήστη.
+     * Αν το exception είναι παραβίαση του συγκεκριμένου constraint. Οτιδήποτε άλλο (foreign key, not-null)
+     * είναι bug και δεν πρέπει να φτάνει στον χρήστη σαν "έχεις ήδη κράτηση".
      */
-    public List<Booking> getMyBookings(String username) {
-        return bookingRepository.findByPassenger_Username(username);
+    private static boolean violates(DataIntegrityViolationException e, String constraint) {
+        return e.getCause() instanceof ConstraintViolationException violation
+                && constraint.equalsIgnoreCase(violation.getConstraintName());
+    }
+
+    /**
+     * Πρώτη φάση της κράτησης: δεσμεύει τις θέσεις για {@code greenride.booking.hold-minutes} λεπτά.
+     * Ίδιοι κανόνες με την απευθείας κράτηση. Αν δεν γίνει confirm μέχρι τη λήξη, οι θέσεις
+     * επιστρέφουν αυτόματα (βλ. {@link SeatHoldTimer}).
+     */
+    @Transactional
+    public SeatHoldView holdSeats(Long rideId, String passengerUsername, int seats) {
+        if (!seatInventory.mightHave(rideId, seats)) {
+            throw fullyBooked(seats);
+        }
+        User passenger = findPassenger(passengerUsername);
+        Ride ride = bookableRide(passenger, rideId, seats);
+        if (!seatInventory.tryReserve(rideId, seats)) {
+            throw fullyBooked(seats);
+        }
+
+        SeatHold hold = new SeatHold();
+        hold.setRide(ride);
+        hold.setPassenger(passenger);
+        hold.setSeats(seats);
+        hold.setCreatedAt(LocalDateTime.now());
+        hold.setExpiresAt(hold.getCreatedAt().plusMinutes(holdMinutes));
+        hold.setStatus("HELD");
+        // Ένα ενεργό hold ανά επιβάτη και διαδρομή (partial unique index, όπως στις κρατήσεις)
+        try {
+            seatHoldRepository.saveAndFlush(hold);
+        } catch (DataIntegrityViolationException e) {
+            if (!violates(e, "uq_seat_holds_active_passenger")) {
+                throw e;
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "You are already holding seats on this ride.");
+        }
+
+        eventPublisher.publishEvent(RideChangedEvent.seatsChanged(rideId, -seats));
+        // Αν το transaction κάνει rollback, το timeout απλά δεν θα βρει HELD γραμμή
+        seatHoldTimer.schedule(hold.getId(), hold.getExpiresAt());
+        return new SeatHoldView(hold.getId(), rideId, seats, hold.getExpiresAt());
+    }
+
+    /**
+     * Δεύτερη φάση: το hold γίνεται {@link Booking}. Οι θέσεις είναι ήδη δεσμευμένες, οπότε δεν αγγίζουμε το inventory.
+     *
+     * @return Το ID της νέας κράτησης
+     */
+    @Transactional
+    public Long confirmHold(Long holdId, String passengerUsername) {
+        SeatHold hold = findOwnHold(holdId, passengerUsername);
+        // Το conditional UPDATE κερδίζει ή χάνει ατομικά απέναντι στη λήξη και στο release
+        if (seatHoldRepository.confirm(holdId, LocalDateTime.now()) == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "This hold has expired or was already used.");
+        }
+        return saveBooking(hold.getPassenger(), hold.getRide(), hold.getSeats()).getId();
+    }
+
+    /**
+     * Ο επιβάτης αφήνει το hold πριν λήξει. Οι θέσεις επιστρέφουν αμέσως.
+     */
+    @Transactional
+    public void releaseHold(Long holdId, String passengerUsername) {
+        SeatHold hold = findOwnHold(holdId, passengerUsername);
+        if (seatHoldRepository.finish(holdId, "RELEASED") == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "This hold has expired or was already used.");
+        }
+        returnSeats(hold.getRide(), hold.getSeats());
+    }
+
+    /**
+     * Το hold έληξε χωρίς confirm (βλ. {@link SeatHoldTimer}). Οι θέσεις επιστρέφουν από το ίδιο μονοπάτι
+     * με την ακύρωση και το release, άρα πάνε πρώτα στην ουρά αναμονής: σε μια γεμάτη διαδρομή αυτός είναι
+     * ο πιο συνηθισμένος τρόπος να ελευθερωθούν θέσεις.
+     */
+    @EventListener
+    @Transactional
+    public void expireHold(SeatHoldExpiredEvent event) {
+        Long holdId = event.holdId();
+        // Αν το hold έγινε στο μεταξύ confirm ή release, δεν κάνουμε τίποτα
+        if (seatHoldRepository.finish(holdId, "EXPIRED") == 0) {
+            return;
+        }
+        SeatHold hold = seatHoldRepository.findById(holdId).orElseThrow();
+        returnSeats(hold.getRide(), hold.getSeats());
+        System.out.println("HOLDS: Hold " + holdId + " expired, returned " + hold.getSeats()
+                + " seats of ride " + hold.getRide().getId());
+    }
+
+    private SeatHold findOwnHold(Long holdId, String passengerUsername) {
+        SeatHold hold = seatHoldRepository.findById(holdId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Hold not found"));
+        if (!hold.getPassenger().getUsername().equals(passengerUsername)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You are not authorized to use this hold.");
+        }
+        return hold;
+    }
+
+    public static final int DEFAULT_BOOKINGS_PAGE_SIZE = 20;
+    public static final int MAX_BOOKINGS_PAGE_SIZE = 50;
+
+    /**
+     * Επιστρέφει μία σελίδα από τις κρατήσεις ενός συγκεκριμένου χρήστη (οι πιο πρόσφατες πρώτα).
+     * Φέρνει κατευθείαν {@link BookingView}, οπότε η σελίδα κοστίζει ένα query και δεν μένει τίποτα lazy.
+     */
+    @Transactional(readOnly = true)
+    public BookingPage getMyBookings(String username, Integer page, Integer size) {
+        int pageNumber = page == null ? 0 : Math.max(0, page);
+        int pageSize = size == null ? DEFAULT_BOOKINGS_PAGE_SIZE : Math.max(1, Math.min(size, MAX_BOOKINGS_PAGE_SIZE));
+        Slice<BookingView> slice = bookingRepository.findViewsByPassengerUsername(username,
+                PageRequest.of(pageNumber, pageSize));
+        return new BookingPage(slice.getContent(), pageNumber, slice.hasNext());
     }
 
     /**
@@ -118,10 +403,114 @@ public class BookingService {
         // 5. Μαρκάρισμα της κράτησης ως Ακυρωμένης
         booking.setStatus("CANCELLED");
         bookingRepository.save(booking);
+        eventPublisher.publishEvent(BookingChangedEvent.cancelled(bookingId, booking.getRide().getId()));
 
         // 6. --- CONCURRENCY FIX  ---
         /* Ατομική αύξηση των θέσεων. Επιστρέφουμε τη θέση πίσω στο σύστημα
-         ώστε να μπορεί να την κλείσει κάποιος άλλος χρήστης.*/
-        rideRepository.incrementAvailableSeats(booking.getRide().getId());
+         ώστε να μπορεί να την κλείσει κάποιος άλλος χρήστης.
+         Αν υπάρχει ουρά αναμονής, η θέση πάει πρώτα εκεί, στο ίδιο transaction.*/
+        returnSeats(booking.getRide(), booking.getSeats());
+    }
+
+    /**
+     * Μπαίνει στην ουρά αναμονής μιας γεμάτης διαδρομής, αντί ο client να ξαναρωτάει συνέχεια.
+     * Όταν ελευθερωθούν θέσεις, η κράτηση γίνεται αυτόματα και ο επιβάτης παίρνει SMS.
+     */
+    @Transactional
+    public WaitlistView joinWaitlist(Long rideId, String passengerUsername, int seats) {
+        User passenger = findPassenger(passengerUsername);
+        Ride ride = bookableRide(passenger, rideId, seats);
+        // Μόνο το inventory: με το in-memory η στήλη available_seats γράφεται write-behind και μπορεί να είναι παλιά
+        if (seatInventory.available(rideId) >= seats) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "This ride still has free seats, book it directly.");
+        }
+
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setRide(ride);
+        entry.setPassenger(passenger);
+        entry.setSeats(seats);
+        entry.setCreatedAt(LocalDateTime.now());
+        entry.setStatus("WAITING");
+        try {
+            waitlistRepository.saveAndFlush(entry);
+        } catch (DataIntegrityViolationException e) {
+            if (!violates(e, "uq_waitlist_active_passenger")) {
+                throw e;
+            }
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "You are already on the waitlist for this ride.");
+        }
+        long ahead = waitlistRepository.countByRide_IdAndStatusAndIdLessThan(rideId, "WAITING", entry.getId());
+        return new WaitlistView(entry.getId(), rideId, seats, ahead + 1);
+    }
+
+    @Transactional
+    public void leaveWaitlist(Long entryId, String passengerUsername) {
+        WaitlistEntry entry = waitlistRepository.findById(entryId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Waitlist entry not found"));
+        if (!entry.getPassenger().getUsername().equals(passengerUsername)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You are not authorized to change this waitlist entry.");
+        }
+        if (waitlistRepository.finish(entryId, "CANCELLED") == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "You are no longer on the waitlist.");
+        }
+    }
+
+    /**
+     * Θέσεις που ελευθερώθηκαν (ακύρωση ή release hold): πρώτα στην ουρά αναμονής, ό,τι περισσέψει στο inventory.
+     */
+    private void returnSeats(Ride ride, int seats) {
+        int left = promoteWaitlist(ride, seats);
+        if (left > 0) {
+            seatInventory.release(ride.getId(), left);
+            eventPublisher.publishEvent(RideChangedEvent.seatsChanged(ride.getId(), left));
+        }
+    }
+
+    /**
+     * Δίνει τις θέσεις στους πρώτους της ουράς, αυστηρά με τη σειρά: αν ο πρώτος θέλει περισσότερες
+     * θέσεις από όσες υπάρχουν, σταματάμε (δεν τον προσπερνάει κάποιος πιο πίσω).
+     * Μετράνε όλες οι ελεύθερες θέσεις της διαδρομής: πρώτα αυτές που μόλις ελευθερώθηκαν (περνάνε απευθείας
+     * από τον έναν επιβάτη στον άλλο) και ό,τι λείπει δεσμεύεται από το inventory. Αλλιώς ένας πρώτος που θέλει
+     * 2 θέσεις δεν θα προωθούνταν ποτέ όταν ελευθερώνεται μία-μία, και θα τις έπαιρνε όποιος κλείνει απευθείας.
+     *
+     * @return Οι θέσεις που περίσσεψαν από όσες ελευθερώθηκαν
+     */
+    private int promoteWaitlist(Ride ride, int seats) {
+        int left = seats;
+        while (true) {
+            List<WaitlistEntry> head = waitlistRepository.findWaiting(ride.getId(), Limit.of(1));
+            if (head.isEmpty()) {
+                break;
+            }
+            WaitlistEntry next = head.get(0);
+            User passenger = next.getPassenger();
+            // Αν στο μεταξύ έκλεισε θέση μόνος του, απλά βγαίνει από την ουρά
+            if (bookingRepository.existsByRide_IdAndPassenger_IdAndStatusNot(ride.getId(), passenger.getId(), "CANCELLED")) {
+                waitlistRepository.finish(next.getId(), "CANCELLED");
+                continue;
+            }
+            int fromFreed = Math.min(left, next.getSeats());
+            int fromInventory = next.getSeats() - fromFreed;
+            // Ό,τι λείπει πρέπει να υπάρχει ελεύθερο στη διαδρομή, αλλιώς ο πρώτος περιμένει κι άλλο
+            if (fromInventory > 0 && !seatInventory.tryReserve(ride.getId(), fromInventory)) {
+                break;
+            }
+            // Μια ταυτόχρονη ακύρωση τον πρόλαβε: συνεχίζουμε με τον επόμενο
+            if (waitlistRepository.finish(next.getId(), "PROMOTED") == 0) {
+                if (fromInventory > 0) {
+                    seatInventory.release(ride.getId(), fromInventory);
+                }
+                continue;
+            }
+            Booking booking = saveBooking(passenger, ride, next.getSeats());
+            left -= fromFreed;
+            if (fromInventory > 0) {
+                eventPublisher.publishEvent(RideChangedEvent.seatsChanged(ride.getId(), -fromInventory));
+            }
+            eventPublisher.publishEvent(new WaitlistPromotedEvent(booking.getId(), passenger.getUsername(),
+                    passenger.getPhoneNumber(), ride.getStartLocation(), ride.getDestination(),
+                    ride.getDepartureTime(), next.getSeats()));
+        }
+        return left;
     }
 }
@@ -0,0 +1,330 @@
+package com.greenride.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.greenride.dto.CreateRideDTO;
+import com.greenride.dto.RideImportReport;
+import com.greenride.dto.RideImportRow;
+import com.greenride.model.Ride;
+import com.greenride.model.User;
+import com.greenride.repository.DriverRideQuotaRepository;
+import com.greenride.repository.RideRepository;
+import com.greenride.repository.UserRepository;
+import com.greenride.service.event.RideChangedEvent;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedRuntimeException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Μαζική εισαγωγή διαδρομών (για operators με στόλο, π.χ. shuttles πανεπιστημίου).
+ * <p>
+ * Το αρχείο διαβάζεται γραμμή-γραμμή: κάθε γραμμή ελέγχεται με τους ίδιους κανόνες με το {@code POST /rides}
+ * και οι σωστές μαζεύονται σε κομμάτια των {@value #CHUNK_SIZE}. Κάθε κομμάτι γράφεται σε δικό του transaction
+ * (ο Hibernate στέλνει τα INSERT σε JDBC batches, χάρη στα sequence IDs), οπότε στη μνήμη δεν υπάρχει
+ * ποτέ ολόκληρο το αρχείο. Οι λάθος γραμμές δεν σταματάνε την εισαγωγή: επιστρέφονται στο report.
+ * </p>
+ * Το όριο ενεργών διαδρομών ανά οδηγό δεν ισχύει εδώ (η εισαγωγή είναι μόνο για admins),
+ * αλλά ο μετρητής του ενημερώνεται κανονικά.
+ */
+@Service
+public class RideImportService {
+
+    // Διαδρομές ανά transaction. Το hibernate.jdbc.batch_size (50) ορίζει πόσα INSERT πάνε μαζί στη βάση.
+    private static final int CHUNK_SIZE = 500;
+    private static final int MAX_ROWS = 10_000;
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final List<String> CSV_COLUMNS = List.of("driver", "startLocation", "destination",
+            "departureTime", "availableSeats", "startLatitude", "startLongitude",
+            "destinationLatitude", "destinationLongitude", "routePolyline");
+    private static final List<String> REQUIRED_CSV_COLUMNS = CSV_COLUMNS.subList(0, 5);
+
+    private final RideRepository rideRepository;
+    private final UserRepository userRepository;
+    private final DriverRideQuotaRepository quotaRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+
+    public RideImportService(RideRepository rideRepository,
+                             UserRepository userRepository,
+                             DriverRideQuotaRepository quotaRepository,
+                             ApplicationEventPublisher eventPublisher,
+                             TransactionTemplate transactionTemplate,
+                             Validator validator,
+                             ObjectMapper objectMapper) {
+        this.rideRepository = rideRepository;
+        this.userRepository = userRepository;
+        this.quotaRepository = quotaRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * CSV με header. Υποχρεωτικές στήλες: driver, startLocation, destination, departureTime (ISO), availableSeats.
+     */
+    public RideImportReport importCsv(InputStream in) throws IOException {
+        BufferedReader reader = reader(in);
+        String header = reader.readLine();
+        if (header == null || header.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The CSV file is empty.");
+        }
+        return importLines(reader, 1, csvParser(header));
+    }
+
+    /**
+     * Ένα JSON object ανά γραμμή, με τα πεδία του {@link RideImportRow}.
+     */
+    public RideImportReport importNdjson(InputStream in) throws IOException {
+        return importLines(reader(in), 0, this::parseJson);
+    }
+
+    private static BufferedReader reader(InputStream in) {
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    private RideImportReport importLines(BufferedReader reader, long lineNumber,
+                                         Function<String, RideImportRow> parser) throws IOException {
+        ImportRun run = new ImportRun();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (run.rows == MAX_ROWS) {
+                run.error(lineNumber, "Import is limited to " + MAX_ROWS + " rows, the rest of the file was skipped.");
+                break;
+            }
+            run.rows++;
+            try {
+                run.add(lineNumber, toRide(parser.apply(line), run.drivers));
+            } catch (IllegalArgumentException e) {
+                run.error(lineNumber, e.getMessage());
+            } catch (ResponseStatusException e) {
+                run.error(lineNumber, e.getReason());
+            }
+            if (run.chunk.size() == CHUNK_SIZE) {
+                saveChunk(run);
+            }
+        }
+        saveChunk(run);
+        System.out.println("IMPORT: Imported " + run.imported + " rides, rejected " + run.failed + " rows.");
+        return new RideImportReport(run.imported, run.failed, run.errors, run.failed > run.errors.size());
+    }
+
+    // Ίδιοι έλεγχοι με το POST /rides (Bean Validation + polyline), συν την ύπαρξη του οδηγού
+    private Ride toRide(RideImportRow row, Map<String, Optional<User>> drivers) {
+        CreateRideDTO dto = row.toCreateRideDTO();
+        Set<ConstraintViolation<CreateRideDTO>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        if (row.driver() == null || row.driver().isBlank()) {
+            throw new IllegalArgumentException("driver must not be blank");
+        }
+        // Ένα query ανά διαφορετικό οδηγό σε όλο το αρχείο
+        User driver = drivers.computeIfAbsent(row.driver().trim(), userRepository::findByUsername)
+                .orElseThrow(() -> new IllegalArgumentException("Driver not found: " + row.driver()));
+        Ride ride = RideServiceImpl.newRide(dto);
+        ride.setDriver(driver);
+        return ride;
+    }
+
+    /**
+     * Ένα transaction ανά κομμάτι. Αν αποτύχει (π.χ. μία γραμμή παραβιάζει κάποιο constraint της βάσης),
+     * το κομμάτι ξαναγράφεται γραμμή-γραμμή, η καθεμία σε δικό της transaction: έτσι μία κακή γραμμή
+     * δεν παίρνει μαζί της τις υπόλοιπες και το report δείχνει ποια ακριβώς έφταιξε.
+     */
+    private void saveChunk(ImportRun run) {
+        if (run.chunk.isEmpty()) {
+            return;
+        }
+        try {
+            save(run.chunk);
+            run.imported += run.chunk.size();
+        } catch (DataAccessException | TransactionException e) {
+            System.err.println("IMPORT: Failed to save " + run.chunk.size() + " rides, retrying row by row: "
+                    + e.getMessage());
+            for (int i = 0; i < run.chunk.size(); i++) {
+                Ride ride = run.chunk.get(i);
+                // Το id το πήρε από το sequence μέσα στο transaction που έκανε rollback
+                ride.setId(null);
+                try {
+                    save(List.of(ride));
+                    run.imported++;
+                } catch (DataAccessException | TransactionException rowError) {
+                    run.error(run.chunkLines.get(i), "Could not save ride: " + reason(rowError));
+                }
+            }
+        }
+        run.chunk.clear();
+        run.chunkLines.clear();
+    }
+
+    // Τα INSERT (σε batches), οι μετρητές των οδηγών και τα events για το search index (μετά το commit)
+    private void save(List<Ride> rides) {
+        transactionTemplate.executeWithoutResult(status -> {
+            rideRepository.saveAll(rides);
+            Map<Long, Integer> perDriver = new HashMap<>();
+            for (Ride ride : rides) {
+                perDriver.merge(ride.getDriver().getId(), 1, Integer::sum);
+                eventPublisher.publishEvent(RideChangedEvent.created(ride));
+            }
+            perDriver.forEach(quotaRepository::addActiveRides);
+        });
+    }
+
+    // Το μήνυμα της βάσης (π.χ. "value too long for type character varying(255)"), όχι όλη η αλυσίδα
+    private static String reason(NestedRuntimeException e) {
+        return e.getMostSpecificCause().getMessage();
+    }
+
+    private RideImportRow parseJson(String line) {
+        try {
+            RideImportRow row = objectMapper.readValue(line, RideImportRow.class);
+            if (row == null) {
+                throw new IllegalArgumentException("Expected a JSON object");
+            }
+            return row;
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private static Function<String, RideImportRow> csvParser(String header) {
+        List<String> columns = splitCsv(header).stream().map(String::trim).toList();
+        Set<String> unknown = new LinkedHashSet<>(columns);
+        CSV_COLUMNS.forEach(unknown::remove);
+        if (!unknown.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown CSV columns: " + unknown
+                    + ". Allowed columns: " + CSV_COLUMNS);
+        }
+        List<String> missing = REQUIRED_CSV_COLUMNS.stream().filter(c -> !columns.contains(c)).toList();
+        if (!missing.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Missing CSV columns: " + missing);
+        }
+        return line -> {
+            List<String> fields = splitCsv(line);
+            if (fields.size() != columns.size()) {
+                throw new IllegalArgumentException("Expected " + columns.size() + " fields but found " + fields.size());
+            }
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < columns.size(); i++) {
+                String value = fields.get(i).trim();
+                values.put(columns.get(i), value.isEmpty() ? null : value);
+            }
+            return new RideImportRow(
+                    values.get("driver"),
+                    values.get("startLocation"),
+                    values.get("destination"),
+                    parseField(values, "departureTime", LocalDateTime::parse),
+                    parseField(values, "availableSeats", Integer::valueOf),
+                    parseField(values, "startLatitude", Double::valueOf),
+                    parseField(values, "startLongitude", Double::valueOf),
+                    parseField(values, "destinationLatitude", Double::valueOf),
+                    parseField(values, "destinationLongitude", Double::valueOf),
+                    values.get("routePolyline"));
+        };
+    }
+
+    private static <T> T parseField(Map<String, String> values, String column, Function<String, T> parser) {
+        String value = values.get(column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+
+    /**
+     * Χωρίζει μια γραμμή CSV (RFC 4180 χωρίς πεδία σε πολλές γραμμές): τα πεδία σε "..." μπορούν
+     * να έχουν κόμματα, και το "" μέσα τους είναι ένα εισαγωγικό.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // Η κατάσταση μιας εισαγωγής: το τρέχον κομμάτι, οι οδηγοί που έχουμε ήδη βρει και τα λάθη
+    private static final class ImportRun {
+        final List<Ride> chunk = new ArrayList<>(CHUNK_SIZE);
+        final List<Long> chunkLines = new ArrayList<>(CHUNK_SIZE);
+        final Map<String, Optional<User>> drivers = new HashMap<>();
+        final List<RideImportReport.RowError> errors = new ArrayList<>();
+        int rows;
+        int imported;
+        int failed;
+
+        void add(long line, Ride ride) {
+            chunk.add(ride);
+            chunkLines.add(line);
+        }
+
+        void error(long line, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RideImportReport.RowError(line, message));
+            }
+        }
+    }
+}
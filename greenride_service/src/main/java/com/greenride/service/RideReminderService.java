@@ -1,60 +1,182 @@
 package com.greenride.service;
 
-import com.greenride.model.Booking;
 import com.greenride.repository.BookingRepository;
-import com.greenride.service.port.SmsNotificationPort;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.greenride.service.cluster.ClusterMembership;
+import com.greenride.service.cluster.Partition;
+import com.greenride.service.event.BookingChangedEvent;
+import com.greenride.service.event.ClusterPartitionChangedEvent;
+import com.greenride.service.outbox.SmsOutbox;
+import com.greenride.service.scheduling.HashedTimingWheel;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Υπενθυμίσεις μία ώρα πριν από την αναχώρηση, τη στιγμή που λήγουν (με ακρίβεια δευτερολέπτου).
+ * <p>
+ * Κάθε κράτηση που χρωστάει υπενθύμιση μέσα στις επόμενες {@code greenride.reminders.horizon-hours} ώρες
+ * μπαίνει σε ένα {@link HashedTimingWheel}: στην εκκίνηση, όταν γίνεται η κράτηση ({@link BookingChangedEvent})
+ * και από το περιοδικό sweep για όσες μπαίνουν στο παράθυρο. Όταν λήξει, ένα conditional UPDATE αποφασίζει
+ * αν θα γραφτεί το SMS στο outbox (στο ίδιο transaction), οπότε μια ακυρωμένη κράτηση ή δύο nodes με την ίδια κράτηση δεν στέλνουν τίποτα διπλό.
+ * Ανάμεσα στα sweeps η βάση δεν ρωτιέται καθόλου αν δεν λήγει κάποια υπενθύμιση.
+ * </p>
+ * Με πολλούς κόμβους κάθε κόμβος κρατάει μόνο τις κρατήσεις των διαδρομών του δικού του {@link Partition}
+ * ({@link ClusterMembership}), οπότε η δουλειά (και τα queries) μοιράζεται αντί να γίνεται από όλους.
+ * Εξαίρεση οι κρατήσεις που έγιναν σε αυτόν τον κόμβο και λήγουν πριν από το επόμενο sweep: ο κόμβος της
+ * διαδρομής δεν τις έχει δει ακόμα, οπότε τις κρατάμε κι εμείς (το conditional UPDATE στέλνει μόνο μία).
+ */
 @Service
 public class RideReminderService {
 
-    @Autowired private BookingRepository bookingRepository;
-    @Autowired private SmsNotificationPort smsNotificationPort;
+    private static final Duration REMINDER_BEFORE_DEPARTURE = Duration.ofHours(1);
+
+    private final BookingRepository bookingRepository;
+    private final SmsOutbox smsOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final ClusterMembership clusterMembership;
+    private final Duration horizon;
+    private final Duration sweepInterval;
+
+    private final HashedTimingWheel<Long> wheel;
+    // Οι κρατήσεις που είναι ήδη στον τροχό, για να μη μπαίνουν δύο φορές, για την ακύρωση και για το ξαναμοίρασμα
+    private final Map<Long, ScheduledReminder> scheduled = new ConcurrentHashMap<>();
+
+    // local = κράτηση αυτού του κόμβου για διαδρομή άλλου partition: μένει εδώ ό,τι κι αν γίνει με τα partitions
+    private record ScheduledReminder(Long rideId, boolean local, HashedTimingWheel.Timeout timeout) {
+    }
+
+    public RideReminderService(BookingRepository bookingRepository,
+                               SmsOutbox smsOutbox,
+                               TransactionTemplate transactionTemplate,
+                               ClusterMembership clusterMembership,
+                               @Value("${greenride.reminders.horizon-hours:6}") long horizonHours,
+                               @Value("${greenride.reminders.sweep-interval-ms:900000}") long sweepIntervalMs) {
+        this.bookingRepository = bookingRepository;
+        this.smsOutbox = smsOutbox;
+        this.transactionTemplate = transactionTemplate;
+        this.clusterMembership = clusterMembership;
+        this.horizon = Duration.ofHours(horizonHours);
+        this.sweepInterval = Duration.ofMillis(sweepIntervalMs);
+        // Tick ενός δευτερολέπτου, 1024 θέσεις (~17 λεπτά ο γύρος)
+        this.wheel = new HashedTimingWheel<>("ride-reminder-timer", Duration.ofSeconds(1), 1024, this::remind);
+    }
 
     /**
-     * Τρέχει κάθε 1 λεπτό (60000ms).
-     * Ελέγχει αν υπάρχουν διαδρομές που ξεκινάνε σε λιγότερο από 1 ώρα.
+     * Το sweep: φορτώνει στον τροχό όσες υπενθυμίσεις του partition μας λήγουν μέσα στο παράθυρο (και όσες
+     * έχουν ήδη λήξει χωρίς να σταλούν, π.χ. όσο η εφαρμογή ή ένας άλλος κόμβος ήταν κάτω). Τρέχει στην εκκίνηση
+     * και μετά κάθε 15 λεπτά (by default), πολύ πιο συχνά από το παράθυρο, οπότε καμία κράτηση δεν μένει εκτός τροχού.
      */
-    @Scheduled(fixedRate = 60000)
-    @Transactional
-    public void sendUpcomingRideReminders() {
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${greenride.reminders.sweep-interval-ms:900000}",
+            initialDelayString = "${greenride.reminders.sweep-interval-ms:900000}")
+    public void reconcile() {
+        Partition partition = clusterMembership.partition();
         LocalDateTime now = LocalDateTime.now();
-        LocalDateTime oneHourLater = now.plusHours(1);
+        List<BookingRepository.PendingReminder> pending = bookingRepository.findPendingReminders(
+                now, now.plus(horizon).plus(REMINDER_BEFORE_DEPARTURE), partition.index(), partition.count());
+        for (BookingRepository.PendingReminder reminder : pending) {
+            schedule(reminder.getBookingId(), reminder.getRideId(), false, reminder.getDepartureTime());
+        }
+        System.out.println("REMINDERS: " + pending.size() + " pending reminders in the next " + horizon.toHours()
+                + " hours for partition " + partition + ", " + scheduled.size() + " scheduled.");
+    }
 
-        List<Booking> bookings = bookingRepository.findAll();
+    /**
+     * Άλλαξαν οι κόμβοι: αφήνουμε όσες κρατήσεις δεν είναι πια δικές μας (θα τις φορτώσει ο νέος τους κόμβος)
+     * και φορτώνουμε όσες πήραμε.
+     */
+    @EventListener
+    public void onPartitionChanged(ClusterPartitionChangedEvent event) {
+        scheduled.forEach((bookingId, reminder) -> {
+            if (!reminder.local() && !event.current().owns(reminder.rideId()) && scheduled.remove(bookingId, reminder)) {
+                reminder.timeout().cancel();
+            }
+        });
+        reconcile();
+    }
 
-        for (Booking booking : bookings) {
-            // Αν η κράτηση έχει ακυρωθεί, την αγνοούμε
-            if ("CANCELLED".equals(booking.getStatus())) {
-                continue;
+    /**
+     * Νέα κράτηση. Αν η διαδρομή είναι του partition μας, μπαίνει στον τροχό όταν λήγει μέσα στο παράθυρο.
+     * Αν είναι άλλου κόμβου, εκείνος θα τη δει στο επόμενο sweep του, οπότε την κρατάμε εδώ μόνο αν λήγει πριν
+     * από αυτό. Το fixedDelay δεν εγγυάται ακριβώς ένα interval, γι' αυτό δίνουμε περιθώριο δύο.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        switch (event.type()) {
+            case CONFIRMED -> {
+                if (event.departureTime() == null) {
+                    return;
+                }
+                boolean owned = clusterMembership.partition().owns(event.rideId());
+                Duration window = owned ? horizon : sweepInterval.multipliedBy(2);
+                if (dueAt(event.departureTime()).isBefore(LocalDateTime.now().plus(window))) {
+                    schedule(event.bookingId(), event.rideId(), !owned, event.departureTime());
+                }
+            }
+            case CANCELLED -> {
+                ScheduledReminder reminder = scheduled.remove(event.bookingId());
+                if (reminder != null) {
+                    reminder.timeout().cancel();
+                }
             }
+        }
+    }
 
-            LocalDateTime departure = booking.getRide().getDepartureTime();
+    @PreDestroy
+    public void stop() {
+        wheel.close();
+    }
 
-            // Λογική ελέγχου:
-            // 1. Είναι η αναχώρηση στο μέλλον; (after now)
-            // 2. Είναι η αναχώρηση μέσα στην επόμενη ώρα; (before oneHourLater)
-            // 3. Έχουμε ΗΔΗ στείλει υπενθύμιση; (reminderSent flag) --> Αποφυγή Spamming
-            if (departure.isAfter(now) &&
-                    departure.isBefore(oneHourLater) &&
-                    !booking.isReminderSent()) { 
+    // Οι κρατήσεις που περιμένουν στον τροχό αυτού του κόμβου
+    Set<Long> scheduledBookings() {
+        return Set.copyOf(scheduled.keySet());
+    }
 
-                System.out.println("⏰ REMINDER SENT: Ride for " + booking.getPassenger().getUsername());
+    /* Το computeIfAbsent κρατάει το lock της κράτησης όσο μπαίνει στον τροχό: έτσι δύο ταυτόχρονα schedule
+     δεν τη βάζουν δύο φορές, και ένα timeout που λήγει αμέσως δεν προλαβαίνει να τρέξει το remove πριν το put. */
+    private void schedule(Long bookingId, Long rideId, boolean local, LocalDateTime departureTime) {
+        scheduled.computeIfAbsent(bookingId, id -> new ScheduledReminder(rideId, local,
+                wheel.schedule(id, Duration.between(LocalDateTime.now(), dueAt(departureTime)))));
+    }
 
-                // Χρήση του SMS Port για αποστολή μηνύματος
-                smsNotificationPort.sendSms(booking.getPassenger().getPhoneNumber(),
-                        "Reminder: Your ride to " + booking.getRide().getDestination() + " leaves in less than an hour!");
+    private static LocalDateTime dueAt(LocalDateTime departureTime) {
+        return departureTime.minus(REMINDER_BEFORE_DEPARTURE);
+    }
 
-                // UPDATE STATE: Μαρκάρουμε ότι στάλθηκε για να μην ξανασταλεί στο επόμενο λεπτό
-                booking.setReminderSent(true);
-                bookingRepository.save(booking);
-            }
+    /**
+     * Τρέχει στο thread του τροχού όταν λήξει η υπενθύμιση: ένα UPDATE και, αν κερδίσει, το SMS στο outbox,
+     * στο ίδιο transaction. Το thread του τροχού δεν περιμένει ποτέ το NOC.
+     */
+    private void remind(Long bookingId) {
+        ScheduledReminder scheduledReminder = scheduled.remove(bookingId);
+        // Ακυρώθηκε ή πέρασε σε άλλον κόμβο στο μεταξύ
+        if (scheduledReminder == null
+                || (!scheduledReminder.local() && !clusterMembership.partition().owns(scheduledReminder.rideId()))) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    bookingRepository.claimReminder(bookingId, LocalDateTime.now()).ifPresent(reminder -> {
+                        System.out.println("⏰ REMINDER QUEUED: Ride for " + reminder.getUsername());
+
+                        smsOutbox.enqueue(reminder.getPhoneNumber(),
+                                "Reminder: Your ride to " + reminder.getDestination() + " leaves in less than an hour!");
+                    }));
+        } catch (RuntimeException e) {
+            // Το reminder_sent δεν άλλαξε (rollback), οπότε το επόμενο sweep θα την ξαναβάλει στον τροχό
+            System.err.println("REMINDERS: Failed to send reminder for booking " + bookingId + ": " + e.getMessage());
         }
     }
 }
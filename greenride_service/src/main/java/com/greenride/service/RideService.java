@@ -1,17 +1,21 @@
 package com.greenride.service;
 
 import com.greenride.dto.CreateRideDTO;
+import com.greenride.dto.RidePage;
+import com.greenride.dto.RideView;
 import com.greenride.model.Ride;
+import com.greenride.service.search.RideSearchQuery;
 import java.util.List;
 
 public interface RideService {
     Ride createRide(CreateRideDTO createRideDTO, String driverUsername);
-    List<Ride> searchRides(String start, String destination);
+    RidePage searchRides(RideSearchQuery query);
     Ride getRideById(Long rideId);
-    List<Ride> getRidesByDriver(String driverUsername);
+    RideView getRideView(Long rideId);
+    List<RideView> getRidesByDriver(String driverUsername);
 
     // --- Admin Methods ---
-    List<Ride> findAllRides();
+    List<RideView> findAllRides();
     long countRides();
     void adminDeleteRide(Long id);
 }
\ No newline at end of file
@@ -1,18 +1,28 @@
 package com.greenride.service;
 
 import com.greenride.dto.CreateRideDTO;
+import com.greenride.dto.RidePage;
+import com.greenride.dto.RideView;
 import com.greenride.exception.ResourceNotFoundException; // Νέο Import
 import com.greenride.model.Ride;
 import com.greenride.model.User;
 import com.greenride.repository.RideRepository;
-import com.greenride.repository.UserRepository;
+import com.greenride.repository.SeatHoldRepository;
+import com.greenride.repository.WaitlistRepository;
+import com.greenride.service.event.RideChangedEvent;
+import com.greenride.service.quota.DriverRideQuotaService;
+import com.greenride.service.search.LocationNormalizer;
+import com.greenride.service.search.Polyline;
+import com.greenride.service.search.RideSearchCache;
+import com.greenride.service.search.RideSearchEngine;
+import com.greenride.service.search.RideSearchQuery;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -33,12 +43,28 @@ public class RideServiceImpl implements RideService {
     private static final int MAX_ACTIVE_RIDES = 5;
 
     private final RideRepository rideRepository;
-    private final UserRepository userRepository;
+    private final RideSearchEngine rideSearchEngine;
+    private final RideSearchCache rideSearchCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SeatHoldRepository seatHoldRepository;
+    private final WaitlistRepository waitlistRepository;
+    private final DriverRideQuotaService quotaService;
 
     @Autowired
-    public RideServiceImpl(RideRepository rideRepository, UserRepository userRepository) {
+    public RideServiceImpl(RideRepository rideRepository,
+                           RideSearchEngine rideSearchEngine,
+                           RideSearchCache rideSearchCache,
+                           ApplicationEventPublisher eventPublisher,
+                           SeatHoldRepository seatHoldRepository,
+                           WaitlistRepository waitlistRepository,
+                           DriverRideQuotaService quotaService) {
         this.rideRepository = rideRepository;
-        this.userRepository = userRepository;
+        this.rideSearchEngine = rideSearchEngine;
+        this.rideSearchCache = rideSearchCache;
+        this.eventPublisher = eventPublisher;
+        this.seatHoldRepository = seatHoldRepository;
+        this.waitlistRepository = waitlistRepository;
+        this.quotaService = quotaService;
     }
 
     /**
@@ -52,42 +78,91 @@ public class RideServiceImpl implements RideService {
     @Override
     @Transactional
     public Ride createRide(CreateRideDTO dto, String driverUsername) {
-        // Βήμα 1: Ψάχνω τον οδηγό στη βάση.
-        User driver = userRepository.findByUsername(driverUsername)
-                // ΑΛΛΑΓΗ: Εδώ προτίμησα να πετάξω το δικό μου Exception για να είναι πιο ξεκάθαρο το λάθος.
-                .orElseThrow(() -> new ResourceNotFoundException("Driver not found: " + driverUsername));
-
-        // Βήμα 2: Ελέγχω αν ο οδηγός έχει ξεπεράσει το όριο των διαδρομών.
-        // Μετράω πόσες διαδρομές έχει προγραμματισμένες για το μέλλον.
-        long activeRides = rideRepository.countByDriver_UsernameAndDepartureTimeAfter(driverUsername, LocalDateTime.now());
-        
-        // Αν έχει φτάσει το όριο, τον κόβω και επιστρέφω Bad Request.
-        if (activeRides >= MAX_ACTIVE_RIDES) {
-            // Θα μπορούσα να φτιάξω custom exception και εδώ, αλλά προς το παρόν το ResponseStatusException αρκεί.
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+        // Βήμα 1: Ετοιμάζω το αντικείμενο Ride με τα δεδομένα από το DTO.
+        Ride ride = newRide(dto);
+
+        /* Βήμα 2: Ένα statement στη βάση κάνει ό,τι πριν ήθελε τρία round trips:
+         βρίσκει τον οδηγό, αυξάνει ατομικά τον μετρητή ενεργών διαδρομών του (μόνο αν είναι κάτω από το όριο)
+         και κάνει το INSERT μόνο αν πέτυχε η αύξηση. Δεν μετράμε πια διαδρομές σε κάθε create. */
+        RideRepository.CreateRideResult result = rideRepository.createInOneStatement(driverUsername, MAX_ACTIVE_RIDES,
+                ride.getStartLocation(), ride.getDestination(), ride.getStartLocationKey(), ride.getDestinationKey(),
+                ride.getDepartureTime(), ride.getAvailableSeats(), ride.getStartLatitude(), ride.getStartLongitude(),
+                ride.getDestinationLatitude(), ride.getDestinationLongitude(), ride.getRoutePolyline(),
+                ride.getLocationKeyVersion());
+
+        switch (result.getCode()) {
+            case "OK" -> {
+            }
+            // ΑΛΛΑΓΗ: Εδώ προτίμησα να πετάξω το δικό μου Exception για να είναι πιο ξεκάθαρο το λάθος.
+            case "DRIVER_NOT_FOUND" -> throw new ResourceNotFoundException("Driver not found: " + driverUsername);
+            // Αν έχει φτάσει το όριο, τον κόβω και επιστρέφω Bad Request.
+            case "TOO_MANY_ACTIVE" -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
                     "You cannot have more than " + MAX_ACTIVE_RIDES + " active rides. Please complete or cancel existing ones.");
+            default -> throw new IllegalStateException("Unknown create ride result: " + result.getCode());
         }
 
-        // Βήμα 3: Ετοιμάζω το αντικείμενο Ride με τα δεδομένα από το DTO.
+        // Ο οδηγός για το search index: ό,τι χρειάζεται το RideView το έφερε ήδη το ίδιο statement
+        User driver = new User();
+        driver.setId(result.getDriverId());
+        driver.setUsername(driverUsername);
+        driver.setEmail(result.getDriverEmail());
+        ride.setId(result.getRideId());
+        ride.setDriver(driver);
+
+        // Βήμα 3: Ενημερώνω το search index (θα εφαρμοστεί μετά το commit).
+        eventPublisher.publishEvent(RideChangedEvent.created(ride));
+        return ride;
+    }
+
+    /**
+     * Το Ride από το DTO, χωρίς οδηγό (το χρησιμοποιεί και η μαζική εισαγωγή).
+     */
+    static Ride newRide(CreateRideDTO dto) {
         Ride ride = new Ride();
         ride.setStartLocation(dto.startLocation());
         ride.setDestination(dto.destination());
+        // Τα κλειδιά αναζήτησης (χωρίς τόνους, σε Λατινικά) τα υπολογίζω εδώ μία φορά
+        ride.setStartLocationKey(LocationNormalizer.searchKey(dto.startLocation()));
+        ride.setDestinationKey(LocationNormalizer.searchKey(dto.destination()));
+        ride.setLocationKeyVersion(LocationNormalizer.KEY_VERSION);
         ride.setDepartureTime(dto.departureTime());
         ride.setAvailableSeats(dto.availableSeats());
-        ride.setDriver(driver);
+        ride.setTotalSeats(dto.availableSeats());
+        ride.setStartLatitude(dto.startLatitude());
+        ride.setStartLongitude(dto.startLongitude());
+        ride.setDestinationLatitude(dto.destinationLatitude());
+        ride.setDestinationLongitude(dto.destinationLongitude());
+        ride.setRoutePolyline(validRoute(dto.routePolyline()));
+        return ride;
+    }
 
-        // Βήμα 4: Το αποθηκεύω στη βάση.
-        return rideRepository.save(ride);
+    /**
+     * Ελέγχω ότι το polyline διαβάζεται, ώστε να μη φτάσει "σπασμένο" στο search index.
+     * Κενό polyline σημαίνει ότι ο οδηγός δεν έδωσε πορεία.
+     */
+    static String validRoute(String routePolyline) {
+        if (routePolyline == null || routePolyline.isBlank()) {
+            return null;
+        }
+        try {
+            Polyline.decode(routePolyline);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid route polyline: " + e.getMessage());
+        }
+        return routePolyline;
     }
 
     /**
      * Η μέθοδος αναζήτησης.
      * Έκανα την αναζήτηση ευέλικτη (containing & ignoreCase) για να βρίσκει ο χρήστης εύκολα
-     * αυτό που ψάχνει, ακόμα κι αν δεν γράψει ολόκληρο το όνομα της πόλης.
+     * αυτό που ψάχνει, ακόμα κι αν δεν γράψει ολόκληρο το όνομα της πόλης ή το γράψει με Λατινικά.
+     * Η ίδια η αναζήτηση γίνεται από το {@link RideSearchEngine} (by default in-memory index).
+     * Τα αποτελέσματα έρχονται πάντα σε σελίδες με άνω όριο, ώστε το κόστος να μη μεγαλώνει με τον πίνακα.
+     * Ίδια queries εξυπηρετούνται από το {@link RideSearchCache}, που ακυρώνεται σε κάθε αλλαγή θέσεων.
      */
     @Override
-    public List<Ride> searchRides(String start, String destination) {
-        return rideRepository.findByStartLocationContainingIgnoreCaseAndDestinationContainingIgnoreCase(start, destination);
+    public RidePage searchRides(RideSearchQuery query) {
+        return rideSearchCache.get(query, rideSearchEngine::search);
     }
 
     /**
@@ -101,22 +176,32 @@ public class RideServiceImpl implements RideService {
                 .orElseThrow(() -> new ResourceNotFoundException("Ride not found with ID: " + rideId));
     }
 
+    /**
+     * Το ίδιο, αλλά κατευθείαν σαν DTO: ο οδηγός έρχεται στο ίδιο query (χωρίς lazy load).
+     */
+    @Override
+    public RideView getRideView(Long rideId) {
+        return rideRepository.findViewById(rideId)
+                .orElseThrow(() -> new ResourceNotFoundException("Ride not found with ID: " + rideId));
+    }
+
     /**
      * Βοηθητική μέθοδος για να πάρω όλες τις διαδρομές ενός συγκεκριμένου οδηγού.
+     * Φέρνω απευθείας RideView με ένα query, αντί για entities που φορτώνουν τον οδηγό ένα-ένα.
      */
     @Override
-    public List<Ride> getRidesByDriver(String driverUsername) {
-        return rideRepository.findByDriver_Username(driverUsername);
+    public List<RideView> getRidesByDriver(String driverUsername) {
+        return rideRepository.findViewsByDriverUsername(driverUsername);
     }
 
     // --- Admin Implementations ---
 
     /**
-     * Επιστρέφω τα πάντα για τον Admin.
+     * Επιστρέφω τα πάντα για τον Admin (σαν projection, πάλι ένα query για όλη τη λίστα).
      */
     @Override
-    public List<Ride> findAllRides() {
-        return rideRepository.findAll();
+    public List<RideView> findAllRides() {
+        return rideRepository.findAllViews();
     }
 
     @Override
@@ -135,6 +220,12 @@ public class RideServiceImpl implements RideService {
             // Χρησιμοποιώ ξανά το ίδιο exception για συνέπεια στον κώδικα.
             throw new ResourceNotFoundException("Ride not found with ID: " + id);
         }
+        // Τα holds και η ουρά αναμονής δεν έχουν νόημα χωρίς τη διαδρομή (και κρατάνε foreign key σε αυτή)
+        seatHoldRepository.deleteByRideId(id);
+        waitlistRepository.deleteByRideId(id);
+        // Η διαδρομή δεν μετράει πια στο όριο του οδηγού
+        quotaService.releaseRide(id);
         rideRepository.deleteById(id);
+        eventPublisher.publishEvent(RideChangedEvent.deleted(id));
     }
 }
@@ -5,6 +5,7 @@ import com.greenride.model.Role;
 import com.greenride.model.User;
 import com.greenride.repository.RoleRepository;
 import com.greenride.repository.UserRepository;
+import com.greenride.service.outbox.SmsOutbox;
 import com.greenride.service.port.SmsNotificationPort; // Χρήση του Interface
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -23,16 +24,19 @@ public class UserServiceImpl implements UserService {
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
     private final SmsNotificationPort smsNotificationPort; // Inject Interface
+    private final SmsOutbox smsOutbox;
 
     @Autowired
     public UserServiceImpl(UserRepository userRepository,
                            RoleRepository roleRepository,
                            PasswordEncoder passwordEncoder,
-                           SmsNotificationPort smsNotificationPort) { // Inject Interface
+                           SmsNotificationPort smsNotificationPort, // Inject Interface
+                           SmsOutbox smsOutbox) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
         this.smsNotificationPort = smsNotificationPort;
+        this.smsOutbox = smsOutbox;
     }
 
     @Override
@@ -74,7 +78,8 @@ public class UserServiceImpl implements UserService {
 
         User savedUser = userRepository.save(user);
 
-        smsNotificationPort.sendSms(savedUser.getPhoneNumber(), "Welcome to GreenRide! Your account is now active.");
+        // Το SMS γράφεται στο outbox, στο ίδιο transaction με τον χρήστη· το στέλνει ο relay
+        smsOutbox.enqueue(savedUser.getPhoneNumber(), "Welcome to GreenRide! Your account is now active.");
 
         return savedUser;
     }
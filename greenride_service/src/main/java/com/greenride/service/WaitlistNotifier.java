@@ -0,0 +1,35 @@
+package com.greenride.service;
+
+import com.greenride.service.event.WaitlistPromotedEvent;
+import com.greenride.service.outbox.SmsOutbox;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Ειδοποιεί με SMS όσους βγήκαν από την ουρά αναμονής με κράτηση.
+ * Τρέχει λίγο πριν το commit της ακύρωσης που τους έδωσε τη θέση, ώστε το SMS να γραφτεί στο outbox
+ * στο ίδιο transaction: αν γίνει rollback, δεν στέλνεται τίποτα.
+ */
+@Component
+public class WaitlistNotifier {
+
+    private static final DateTimeFormatter DEPARTURE_FORMAT = DateTimeFormatter.ofPattern("dd/MM HH:mm");
+
+    private final SmsOutbox smsOutbox;
+
+    public WaitlistNotifier(SmsOutbox smsOutbox) {
+        this.smsOutbox = smsOutbox;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onPromoted(WaitlistPromotedEvent event) {
+        System.out.println("WAITLIST: " + event.username() + " promoted to booking " + event.bookingId());
+        smsOutbox.enqueue(event.phoneNumber(),
+                "Good news! A seat opened up on your ride " + event.startLocation() + " -> " + event.destination()
+                        + " (" + event.departureTime().format(DEPARTURE_FORMAT) + "). Your booking for "
+                        + event.seats() + " seat(s) is confirmed.");
+    }
+}
@@ -9,7 +9,6 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
@@ -36,32 +35,28 @@ public class NocSmsAdapter implements SmsNotificationPort {
 
     /**
      * POST External Call (Secured)
-     * Στέλνει το SMS.
+     * Στέλνει το SMS. Η κλήση είναι σύγχρονη και πετάει exception αν το NOC δεν το δεχτεί:
+     * την κάνει μόνο ο SmsOutboxRelay, που ξαναδοκιμάζει. Η υπόλοιπη εφαρμογή γράφει στο SmsOutbox.
      */
-    @Async
     @Override
     public void sendSms(String phoneNumber, String message) {
-        try {
-            // Body
-            Map<String, String> payload = new HashMap<>();
-            payload.put("e164", phoneNumber);
-            payload.put("content", message);
+        // Body
+        Map<String, String> payload = new HashMap<>();
+        payload.put("e164", phoneNumber);
+        payload.put("content", message);
 
-            // Headers (Secured)
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + nocApiKey);
+        // Headers (Secured)
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("Authorization", "Bearer " + nocApiKey);
 
-            HttpEntity<Map<String, String>> request = new HttpEntity<>(payload, headers);
-            String url = nocBaseUrl + "/sms";
+        HttpEntity<Map<String, String>> request = new HttpEntity<>(payload, headers);
+        String url = nocBaseUrl + "/sms";
 
-            // Εκτέλεση POST
-            restTemplate.postForObject(url, request, String.class);
+        // Εκτέλεση POST
+        restTemplate.postForObject(url, request, String.class);
 
-            System.out.println("SMS sent via NOC to " + phoneNumber);
-        } catch (Exception e) {
-            System.err.println("Failed to reach NOC service (SMS): " + e.getMessage());
-        }
+        System.out.println("SMS sent via NOC to " + phoneNumber);
     }
 
     /**
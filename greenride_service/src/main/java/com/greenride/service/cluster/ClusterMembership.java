@@ -0,0 +1,105 @@
+package com.greenride.service.cluster;
+
+import com.greenride.repository.NodeLeaseRepository;
+import com.greenride.service.event.ClusterPartitionChangedEvent;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Ποιοι κόμβοι τρέχουν και ποιο {@link Partition} ανήκει σε αυτόν, με leases στον πίνακα {@code node_leases}.
+ * <p>
+ * Κάθε κόμβος ανανεώνει το lease του κάθε {@code greenride.cluster.heartbeat-interval-ms} και διαβάζει τη λίστα
+ * των ζωντανών κόμβων (ταξινομημένη με το ID). Η θέση του στη λίστα και το μέγεθός της ορίζουν το partition.
+ * Όταν αλλάξει, δημοσιεύεται {@link ClusterPartitionChangedEvent} ώστε οι υπηρεσίες να ξαναμοιράσουν τη δουλειά.
+ * Ένας κόμβος που πέφτει χωρίς να αφήσει το lease βγαίνει από τη λίστα όταν αυτό λήξει.
+ * </p>
+ * Για μικρό διάστημα μετά από αλλαγή δύο κόμβοι μπορεί να θεωρούν δική τους την ίδια διαδρομή·
+ * γι' αυτό η ίδια η δουλειά κλειδώνεται πάντα και με conditional UPDATE στη βάση.
+ */
+@Component
+public class ClusterMembership {
+
+    private final NodeLeaseRepository leaseRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int leaseSeconds;
+    private final String nodeId;
+
+    // Μέχρι το πρώτο heartbeat ο κόμβος θεωρεί ότι είναι μόνος του
+    private volatile Partition partition = Partition.SINGLE;
+
+    public ClusterMembership(NodeLeaseRepository leaseRepository,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${greenride.cluster.lease-seconds:30}") int leaseSeconds) {
+        this.leaseRepository = leaseRepository;
+        this.eventPublisher = eventPublisher;
+        this.leaseSeconds = leaseSeconds;
+        // Hostname για να φαίνεται στη βάση ποιος είναι ποιος, UUID για να είναι μοναδικό και μετά από restart
+        String host = System.getenv().getOrDefault("HOSTNAME", "node");
+        this.nodeId = host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    public Partition partition() {
+        return partition;
+    }
+
+    // Πριν από τους άλλους listeners του ApplicationReadyEvent, ώστε να φορτώσουν μόνο το δικό τους κομμάτι
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void join() {
+        heartbeat();
+        System.out.println("CLUSTER: Node " + nodeId + " joined as partition " + partition);
+    }
+
+    @Scheduled(fixedDelayString = "${greenride.cluster.heartbeat-interval-ms:10000}",
+            initialDelayString = "${greenride.cluster.heartbeat-interval-ms:10000}")
+    public void heartbeat() {
+        List<String> live;
+        try {
+            leaseRepository.renew(nodeId, leaseSeconds);
+            leaseRepository.deleteExpired();
+            live = leaseRepository.findLiveNodeIds();
+        } catch (DataAccessException e) {
+            // Κρατάμε το partition που είχαμε· αν δεν ξαναπετύχει, το lease μας θα λήξει και θα το πάρουν οι άλλοι
+            System.err.println("CLUSTER: Heartbeat failed for node " + nodeId + ": " + e.getMessage());
+            return;
+        }
+        int index = live.indexOf(nodeId);
+        if (index < 0) {
+            return;
+        }
+        update(new Partition(index, live.size()));
+    }
+
+    @PreDestroy
+    public void leave() {
+        try {
+            leaseRepository.release(nodeId);
+        } catch (DataAccessException e) {
+            System.err.println("CLUSTER: Could not release lease of node " + nodeId + ": " + e.getMessage());
+        }
+    }
+
+    private void update(Partition current) {
+        Partition previous = partition;
+        if (previous.equals(current)) {
+            return;
+        }
+        partition = current;
+        System.out.println("CLUSTER: Node " + nodeId + " is now partition " + current + " (was " + previous + ")");
+        eventPublisher.publishEvent(new ClusterPartitionChangedEvent(previous, current));
+    }
+}
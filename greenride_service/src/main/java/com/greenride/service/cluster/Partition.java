@@ -0,0 +1,48 @@
+package com.greenride.service.cluster;
+
+/**
+ * Το κομμάτι της δουλειάς που ανήκει σε αυτόν τον κόμβο: οι διαδρομές με {@code bucket(rideId, count) == index}.
+ * <p>
+ * Το σκέτο {@code rideId mod count} δεν κάνει: το {@code rides_seq} έχει INCREMENT 50 (allocationSize), οπότε
+ * όλες οι διαδρομές που δημιουργούνται με {@code nextval} έχουν το ίδιο υπόλοιπο mod 50 και με 2, 5 ή 10 κόμβους
+ * πέφτουν όλες στο ίδιο partition. Γι' αυτό ανακατεύουμε πρώτα το id με πολλαπλασιαστικό (Fibonacci) hash
+ * modulo τον πρώτο 2^31 - 1 και κρατάμε τα "ψηλά" bits του αποτελέσματος. Όλες οι πράξεις χωράνε σε bigint,
+ * ώστε η βάση να υπολογίζει ακριβώς το ίδιο:
+ * {@code mod(mod(r.id, 2147483647) * 1327217884, 2147483647) * :count / 2147483647 = :index}.
+ *
+ * @param index Η θέση του κόμβου στη λίστα των ζωντανών κόμβων (από 0)
+ * @param count Πόσοι ζωντανοί κόμβοι υπάρχουν
+ */
+public record Partition(int index, int count) {
+
+    // Ένας μόνο κόμβος: όλα δικά του
+    public static final Partition SINGLE = new Partition(0, 1);
+
+    // 2^31 - 1 (πρώτος) και ο πολλαπλασιαστής ≈ 0.618 * MODULUS (χρυσή τομή)
+    static final long MODULUS = 2147483647L;
+    static final long MULTIPLIER = 1327217884L;
+
+    public Partition {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Invalid partition " + index + "/" + count);
+        }
+    }
+
+    public boolean owns(long rideId) {
+        return bucket(rideId, count) == index;
+    }
+
+    /**
+     * Σε ποιο από τα {@code count} partitions πέφτει η διαδρομή. Ίδιο με το SQL της περιγραφής της κλάσης
+     * για θετικά ids (αυτά που δίνει το sequence).
+     */
+    public static int bucket(long rideId, int count) {
+        long mixed = Math.floorMod(rideId, MODULUS) * MULTIPLIER % MODULUS;
+        return (int) (mixed * count / MODULUS);
+    }
+
+    @Override
+    public String toString() {
+        return (index + 1) + "/" + count;
+    }
+}
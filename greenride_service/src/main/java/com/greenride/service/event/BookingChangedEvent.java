@@ -0,0 +1,25 @@
+package com.greenride.service.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Μια κράτηση δημιουργήθηκε ή ακυρώθηκε. Το χρησιμοποιεί ο προγραμματισμός των υπενθυμίσεων
+ * (μετά το commit), γι' αυτό κουβαλάει και την ώρα αναχώρησης της διαδρομής.
+ *
+ * @param type          CONFIRMED (νέα κράτηση) ή CANCELLED
+ * @param bookingId     Το ID της κράτησης
+ * @param rideId        Το ID της διαδρομής (για το partition του κόμβου)
+ * @param departureTime Η ώρα αναχώρησης της διαδρομής (μόνο για CONFIRMED, αλλιώς null)
+ */
+public record BookingChangedEvent(Type type, Long bookingId, Long rideId, LocalDateTime departureTime) {
+
+    public enum Type { CONFIRMED, CANCELLED }
+
+    public static BookingChangedEvent confirmed(Long bookingId, Long rideId, LocalDateTime departureTime) {
+        return new BookingChangedEvent(Type.CONFIRMED, bookingId, rideId, departureTime);
+    }
+
+    public static BookingChangedEvent cancelled(Long bookingId, Long rideId) {
+        return new BookingChangedEvent(Type.CANCELLED, bookingId, rideId, null);
+    }
+}
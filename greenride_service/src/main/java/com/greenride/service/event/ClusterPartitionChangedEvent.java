@@ -0,0 +1,9 @@
+package com.greenride.service.event;
+
+import com.greenride.service.cluster.Partition;
+
+/**
+ * Άλλαξαν οι ζωντανοί κόμβοι, οπότε άλλαξε και το κομμάτι της δουλειάς που ανήκει σε αυτόν τον κόμβο.
+ */
+public record ClusterPartitionChangedEvent(Partition previous, Partition current) {
+}
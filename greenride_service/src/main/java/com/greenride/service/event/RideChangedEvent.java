@@ -0,0 +1,29 @@
+package com.greenride.service.event;
+
+import com.greenride.model.Ride;
+
+/**
+ * Event που δημοσιεύεται όταν αλλάζει κάτι σε μια διαδρομή (δημιουργία, διαγραφή, αλλαγή θέσεων).
+ * Οι listeners (π.χ. το search index) το λαμβάνουν μόνο αφού γίνει commit η συναλλαγή.
+ *
+ * @param type      Το είδος της αλλαγής
+ * @param rideId    Το ID της διαδρομής
+ * @param ride      Το entity της διαδρομής (μόνο για CREATED, αλλιώς null)
+ * @param seatDelta Η μεταβολή στις διαθέσιμες θέσεις (μόνο για SEATS_CHANGED)
+ */
+public record RideChangedEvent(Type type, Long rideId, Ride ride, int seatDelta) {
+
+    public enum Type { CREATED, DELETED, SEATS_CHANGED }
+
+    public static RideChangedEvent created(Ride ride) {
+        return new RideChangedEvent(Type.CREATED, ride.getId(), ride, 0);
+    }
+
+    public static RideChangedEvent deleted(Long rideId) {
+        return new RideChangedEvent(Type.DELETED, rideId, null, 0);
+    }
+
+    public static RideChangedEvent seatsChanged(Long rideId, int seatDelta) {
+        return new RideChangedEvent(Type.SEATS_CHANGED, rideId, null, seatDelta);
+    }
+}
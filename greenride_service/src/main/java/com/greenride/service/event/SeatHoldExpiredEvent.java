@@ -0,0 +1,10 @@
+package com.greenride.service.event;
+
+/**
+ * Το timing wheel έφτασε στη λήξη ενός seat hold. Αν το hold είναι ακόμα HELD, το {@code BookingService}
+ * το μαρκάρει EXPIRED και επιστρέφει τις θέσεις (πρώτα στην ουρά αναμονής, όπως και στην ακύρωση).
+ *
+ * @param holdId Το ID του hold
+ */
+public record SeatHoldExpiredEvent(Long holdId) {
+}
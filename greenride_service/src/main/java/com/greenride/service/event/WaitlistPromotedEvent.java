@@ -0,0 +1,18 @@
+package com.greenride.service.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ένας επιβάτης της ουράς αναμονής πήρε θέση και έχει πλέον κράτηση.
+ * Κουβαλάει ό,τι χρειάζεται για την ειδοποίηση, γιατί ο listener τρέχει μετά το commit, χωρίς session.
+ */
+public record WaitlistPromotedEvent(
+        Long bookingId,
+        String username,
+        String phoneNumber,
+        String startLocation,
+        String destination,
+        LocalDateTime departureTime,
+        int seats
+) {
+}
@@ -0,0 +1,206 @@
+package com.greenride.service.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.greenride.model.IdempotencyRecord;
+import com.greenride.repository.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Υποστήριξη για το header {@code Idempotency-Key} στα POST endpoints που δημιουργούν κάτι.
+ * <p>
+ * Η πρώτη εκτέλεση τρέχει την ενέργεια και αποθηκεύει την απάντηση <b>στο ίδιο transaction</b>: είτε
+ * γίνονται commit και τα δύο είτε κανένα. Αν δύο κόμβοι πάρουν το ίδιο κλειδί ταυτόχρονα, μόνο ο ένας
+ * καταφέρνει το insert και ο άλλος κάνει rollback. Τα retries παίρνουν την αποθηκευμένη απάντηση από
+ * bounded cache στη μνήμη (ή από τον πίνακα μετά από restart), χωρίς να ξανατρέξει το service.
+ * Αποθηκεύονται και τα λάθη 4xx (π.χ. "Ride is fully booked!"), ώστε ένα retry να μην κοστίζει transaction.
+ * Τα 5xx δεν αποθηκεύονται, για να μπορεί ο client να ξαναδοκιμάσει.
+ * </p>
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Cache<String, IdempotencyRecord> cache;
+
+    // Κλειδιά που εκτελούνται αυτή τη στιγμή σε αυτόν τον κόμβο
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper,
+                              @Value("${greenride.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${greenride.idempotency.cache.max-entries:10000}") long maxEntries) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Τρέχει την ενέργεια μία φορά ανά {@code (username, idempotencyKey)}.
+     * Χωρίς header απλά την τρέχει.
+     *
+     * @param fingerprint Το endpoint και οι παράμετροι του request (π.χ. {@code "book:42:seats=2"})
+     */
+    public ResponseEntity<?> execute(String idempotencyKey, String username, String fingerprint,
+                                     Supplier<ResponseEntity<?>> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    HEADER + " must be at most " + MAX_KEY_LENGTH + " characters.");
+        }
+        String key = username + ":" + idempotencyKey;
+        String hash = sha256(fingerprint);
+
+        IdempotencyRecord stored = lookup(key);
+        if (stored != null) {
+            return replay(stored, hash);
+        }
+        if (!inFlight.add(key)) {
+            throw stillProcessing();
+        }
+        try {
+            // Μπορεί να τελείωσε όσο περιμέναμε
+            stored = lookup(key);
+            if (stored != null) {
+                return replay(stored, hash);
+            }
+            return runOnce(key, hash, action);
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+
+    private ResponseEntity<?> runOnce(String key, String hash, Supplier<ResponseEntity<?>> action) {
+        try {
+            return transactionTemplate.execute(status -> {
+                ResponseEntity<?> response = action.get();
+                if (response.getStatusCode().is2xxSuccessful()) {
+                    boolean json = response.getBody() != null && !(response.getBody() instanceof String);
+                    String body = json ? toJson(response.getBody()) : (String) response.getBody();
+                    store(key, hash, response.getStatusCode().value(), json, body);
+                }
+                return response;
+            });
+        } catch (KeyTakenException e) {
+            throw stillProcessing();
+        } catch (ResponseStatusException e) {
+            if (e.getStatusCode().is4xxClientError()) {
+                // Το transaction της ενέργειας έκανε rollback, οπότε το λάθος αποθηκεύεται σε δικό του
+                try {
+                    transactionTemplate.executeWithoutResult(status ->
+                            store(key, hash, e.getStatusCode().value(), false, e.getReason()));
+                } catch (KeyTakenException ignored) {
+                    // Κάποιος άλλος κόμβος πρόλαβε: ισχύει η δική του απάντηση
+                }
+            }
+            throw e;
+        }
+    }
+
+    private void store(String key, String hash, int statusCode, boolean json, String body) {
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyRecord record = new IdempotencyRecord(key, hash, statusCode, json, body, now, now.plus(ttl));
+        // INSERT ... ON CONFLICT: 0 γραμμές σημαίνει ότι το κλειδί το πήρε άλλο request
+        if (repository.insertIfAbsent(record.getKey(), record.getFingerprint(), record.getStatusCode(), record.isJson(),
+                record.getBody(), record.getCreatedAt(), record.getExpiresAt()) == 0) {
+            throw new KeyTakenException();
+        }
+        cache.put(key, record);
+    }
+
+    private IdempotencyRecord lookup(String key) {
+        IdempotencyRecord cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        IdempotencyRecord stored = repository.findByKeyAndExpiresAtAfter(key, LocalDateTime.now()).orElse(null);
+        if (stored != null) {
+            cache.put(key, stored);
+        }
+        return stored;
+    }
+
+    private static ResponseEntity<?> replay(IdempotencyRecord record, String hash) {
+        if (!record.getFingerprint().equals(hash)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "This " + HEADER + " was already used for a different request.");
+        }
+        if (record.getStatusCode() >= 400) {
+            throw new ResponseStatusException(HttpStatus.valueOf(record.getStatusCode()), record.getBody());
+        }
+        return ResponseEntity.status(record.getStatusCode())
+                .header("Idempotent-Replayed", "true")
+                .contentType(record.isJson() ? MediaType.APPLICATION_JSON : MediaType.TEXT_PLAIN)
+                .body(record.getBody());
+    }
+
+    /**
+     * Κάθε ώρα σβήνουμε τα ληγμένα κλειδιά (index στο expires_at).
+     */
+    @Scheduled(fixedDelay = 3600000, initialDelay = 3600000)
+    public void deleteExpired() {
+        int deleted = repository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            System.out.println("IDEMPOTENCY: Deleted " + deleted + " expired keys.");
+        }
+    }
+
+    private static ResponseStatusException stillProcessing() {
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "A request with this " + HEADER + " is still being processed.");
+    }
+
+    private String toJson(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize response for idempotency key", e);
+        }
+    }
+
+    private static String sha256(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class KeyTakenException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+}
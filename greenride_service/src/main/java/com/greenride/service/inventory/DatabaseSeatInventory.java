@@ -0,0 +1,46 @@
+package com.greenride.service.inventory;
+
+import com.greenride.repository.RideRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Η "κλασική" υλοποίηση: κάθε κράτηση είναι ένα conditional UPDATE στη γραμμή της διαδρομής.
+ * Η βάση είναι η μόνη πηγή της αλήθειας, με κόστος ένα row lock ανά κράτηση μέχρι το commit.
+ */
+@Component
+@ConditionalOnProperty(name = "greenride.booking.inventory", havingValue = "database", matchIfMissing = true)
+public class DatabaseSeatInventory implements SeatInventory {
+
+    private final RideRepository rideRepository;
+
+    public DatabaseSeatInventory(RideRepository rideRepository) {
+        this.rideRepository = rideRepository;
+    }
+
+    @Override
+    public boolean mightHave(Long rideId, int seats) {
+        // Δεν ξέρουμε τίποτα χωρίς query, οπότε αφήνουμε το UPDATE να αποφασίσει
+        return true;
+    }
+
+    @Override
+    public boolean tryReserve(Long rideId, int seats) {
+        return rideRepository.decrementAvailableSeatsBy(rideId, seats) == 1;
+    }
+
+    @Override
+    public void release(Long rideId, int seats) {
+        rideRepository.incrementAvailableSeatsBy(rideId, seats);
+    }
+
+    @Override
+    public int available(Long rideId) {
+        return rideRepository.findSeatCountById(rideId).map(RideRepository.SeatCount::getAvailableSeats).orElse(0);
+    }
+
+    @Override
+    public boolean inDatabase() {
+        return true;
+    }
+}
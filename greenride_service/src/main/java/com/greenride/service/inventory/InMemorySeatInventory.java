@@ -0,0 +1,273 @@
+package com.greenride.service.inventory;
+
+import com.greenride.repository.RideRepository;
+import com.greenride.service.cluster.ClusterMembership;
+import com.greenride.service.cluster.Partition;
+import com.greenride.service.event.ClusterPartitionChangedEvent;
+import com.greenride.service.event.RideChangedEvent;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Οι ελεύθερες θέσεις κρατιούνται σε counters στη μνήμη, ένας ανά διαδρομή.
+ * <p>
+ * Η δέσμευση είναι ένα CAS loop στον counter της διαδρομής: καμία κράτηση δεν περιμένει row lock στη βάση,
+ * και μια γεμάτη διαδρομή απαντάει "sold out" χωρίς κανένα query. Οι counters γεμίζουν από τη βάση
+ * (όλες οι μελλοντικές διαδρομές στην εκκίνηση, οι υπόλοιπες την πρώτη φορά που ζητηθούν).
+ * </p>
+ * <p>
+ * Κάθε κόμβος έχει counters μόνο για τις διαδρομές του {@link Partition} του ({@link ClusterMembership}),
+ * αλλιώς δύο κόμβοι θα μοίραζαν τις ίδιες θέσεις δύο φορές. Δέσμευση ή επιστροφή θέσεων διαδρομής άλλου κόμβου
+ * απαντάει 421 (Misdirected Request): ο load balancer πρέπει να στέλνει τα requests κάθε διαδρομής στον κόμβο
+ * της ({@link Partition#bucket}) ή να ξαναδοκιμάζει αλλού. Το {@link #available} για ξένη διαδρομή
+ * διαβάζει απευθείας τη βάση. Όταν αλλάζουν τα partitions, ο κόμβος γράφει τα deltas του και πετάει τους
+ * counters που δεν είναι πια δικοί του. Για όσο κρατάει η αλλαγή (ένα heartbeat) δύο κόμβοι μπορεί ακόμα
+ * να θεωρούν δική τους την ίδια διαδρομή.
+ * </p>
+ * <p>
+ * Write-behind: ό,τι έγινε commit μαζεύεται ως delta ανά διαδρομή και γράφεται στη βάση κάθε
+ * {@code greenride.booking.inventory.flush-interval-ms}, με ένα JDBC batch για όλες τις διαδρομές που άλλαξαν.
+ * Μέχρι τότε η στήλη {@code available_seats} μπορεί να δείχνει λίγο παλιά τιμή. Εδώ η μνήμη είναι η πηγή της αλήθειας.
+ * </p>
+ * <p>
+ * Οι counters δεν γεμίζουν ποτέ από το {@code available_seats}: ξεκινάνε από {@code total_seats} μείον τις
+ * ενεργές κρατήσεις και τα HELD holds, που γράφονται στο ίδιο transaction με την κράτηση. Έτσι, αν ο κόμβος
+ * πεθάνει απότομα (kill -9, OOM) πριν από το flush, χάνεται μόνο η καθυστέρηση της στήλης και όχι θέσεις:
+ * ο επόμενος owner της διαδρομής ξεκινάει από τη σωστή τιμή.
+ * </p>
+ * <p>
+ * Ενεργοποιείται με {@code greenride.booking.inventory=memory}.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "greenride.booking.inventory", havingValue = "memory")
+public class InMemorySeatInventory implements SeatInventory {
+
+    // Δεν υπάρχει στο HttpStatus
+    private static final HttpStatusCode MISDIRECTED_REQUEST = HttpStatusCode.valueOf(421);
+
+    private final RideRepository rideRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ClusterMembership clusterMembership;
+
+    private final Map<Long, SeatCounter> counters = new ConcurrentHashMap<>();
+    // Διαδρομές με deltas που δεν έχουν γραφτεί ακόμα, ώστε το flush να μην περνάει από όλους τους counters
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    public InMemorySeatInventory(RideRepository rideRepository, JdbcTemplate jdbcTemplate,
+                                 ClusterMembership clusterMembership) {
+        this.rideRepository = rideRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.clusterMembership = clusterMembership;
+    }
+
+    @Override
+    public boolean mightHave(Long rideId, int seats) {
+        SeatCounter counter = ownedCounter(rideId);
+        return counter != null && counter.available.get() >= seats;
+    }
+
+    @Override
+    public boolean tryReserve(Long rideId, int seats) {
+        SeatCounter counter = ownedCounter(rideId);
+        if (counter == null) {
+            return false;
+        }
+        int current;
+        do {
+            current = counter.available.get();
+            if (current < seats) {
+                return false;
+            }
+        } while (!counter.available.compareAndSet(current, current - seats));
+
+        onCompletion(committed -> {
+            if (committed) {
+                counter.unflushed.addAndGet(-seats);
+                dirty.add(rideId);
+            } else {
+                // Η κράτηση δεν έγινε (π.χ. διπλή κράτηση): οι θέσεις γυρνάνε πίσω
+                counter.available.addAndGet(seats);
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public void release(Long rideId, int seats) {
+        SeatCounter counter = ownedCounter(rideId);
+        if (counter == null) {
+            return;
+        }
+        // Η θέση ελευθερώνεται μόνο αν η ακύρωση γίνει όντως commit
+        onCompletion(committed -> {
+            if (committed) {
+                counter.available.addAndGet(seats);
+                counter.unflushed.addAndGet(seats);
+                dirty.add(rideId);
+            }
+        });
+    }
+
+    @Override
+    public int available(Long rideId) {
+        if (!owns(rideId)) {
+            return rideRepository.findFreeSeatsById(rideId).map(RideRepository.SeatCount::getAvailableSeats).orElse(0);
+        }
+        SeatCounter counter = counter(rideId);
+        return counter == null ? 0 : counter.available.get();
+    }
+
+    /**
+     * Γράφει στη βάση ό,τι έχει μαζευτεί από το προηγούμενο flush, σε ένα batch.
+     * Αν το batch αποτύχει, τα deltas ξαναμπαίνουν στην ουρά για την επόμενη φορά.
+     */
+    @Scheduled(fixedDelayString = "${greenride.booking.inventory.flush-interval-ms:200}")
+    @PreDestroy
+    public void flush() {
+        List<Long> rideIds = new ArrayList<>();
+        List<Object[]> batch = new ArrayList<>();
+        for (Iterator<Long> it = dirty.iterator(); it.hasNext(); ) {
+            Long rideId = it.next();
+            it.remove();
+            SeatCounter counter = counters.get(rideId);
+            int delta = counter == null ? 0 : counter.unflushed.getAndSet(0);
+            if (delta != 0) {
+                rideIds.add(rideId);
+                batch.add(new Object[]{delta, rideId});
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate("UPDATE rides SET available_seats = available_seats + ? WHERE id = ?", batch);
+        } catch (DataAccessException e) {
+            System.err.println("INVENTORY: Write-behind of " + batch.size() + " rides failed, will retry: " + e.getMessage());
+            for (int i = 0; i < batch.size(); i++) {
+                SeatCounter counter = counters.get(rideIds.get(i));
+                if (counter != null) {
+                    counter.unflushed.addAndGet((Integer) batch.get(i)[0]);
+                    dirty.add(rideIds.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Στην εκκίνηση φορτώνουμε τις θέσεις των μελλοντικών διαδρομών του partition μας, ώστε οι πρώτες κρατήσεις
+     * να μην πληρώνουν το query. Τρέχει μετά το {@link ClusterMembership#join()}, που ορίζει το partition.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        Partition partition = clusterMembership.partition();
+        int seeded = 0;
+        for (RideRepository.SeatCount seats : rideRepository.findUpcomingFreeSeats(LocalDateTime.now())) {
+            if (partition.owns(seats.getRideId())) {
+                counters.putIfAbsent(seats.getRideId(), new SeatCounter(seats));
+                seeded++;
+            }
+        }
+        System.out.println("INVENTORY: Seeded seat counters for " + seeded + " rides of partition " + partition + ".");
+    }
+
+    /**
+     * Νέο partition: γράφουμε ό,τι έχουμε και πετάμε τους counters των διαδρομών που πήγαν σε άλλον κόμβο.
+     * Αν ξαναγίνουν δικές μας, φορτώνονται από την αρχή (ο άλλος κόμβος μπορεί να τις άλλαξε στο μεταξύ).
+     * Όσες νέες διαδρομές πήραμε φορτώνονται την πρώτη φορά που ζητηθούν.
+     */
+    @EventListener
+    public void onPartitionChanged(ClusterPartitionChangedEvent event) {
+        flush();
+        counters.keySet().removeIf(rideId -> !event.current().owns(rideId) && !dirty.contains(rideId));
+    }
+
+    /**
+     * Κάθε λεπτό πετάμε τους counters για διαδρομές που έφυγαν πριν από πάνω από μία ώρα
+     * και δεν έχουν τίποτα να γραφτεί.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictDeparted() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(1);
+        counters.entrySet().removeIf(entry -> entry.getValue().departureTime.isBefore(cutoff)
+                && entry.getValue().unflushed.get() == 0
+                && !dirty.contains(entry.getKey()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRideChanged(RideChangedEvent event) {
+        if (event.type() == RideChangedEvent.Type.DELETED) {
+            counters.remove(event.rideId());
+            dirty.remove(event.rideId());
+        }
+    }
+
+    private boolean owns(Long rideId) {
+        return clusterMembership.partition().owns(rideId);
+    }
+
+    // Για δεσμεύσεις και επιστροφές: μόνο ο κόμβος της διαδρομής αλλάζει τον counter της
+    private SeatCounter ownedCounter(Long rideId) {
+        if (!owns(rideId)) {
+            throw new ResponseStatusException(MISDIRECTED_REQUEST,
+                    "Ride " + rideId + " is served by another node, please retry.");
+        }
+        return counter(rideId);
+    }
+
+    private SeatCounter counter(Long rideId) {
+        // Αν η διαδρομή δεν υπάρχει, το computeIfAbsent δεν βάζει τίποτα στο map
+        return counters.computeIfAbsent(rideId,
+                id -> rideRepository.findFreeSeatsById(id).map(SeatCounter::new).orElse(null));
+    }
+
+    /**
+     * Τρέχει την ενέργεια όταν τελειώσει το τρέχον transaction (true = commit).
+     * Εκτός transaction θεωρούμε ότι έγινε ήδη commit.
+     */
+    private static void onCompletion(Consumer<Boolean> action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    private static final class SeatCounter {
+        final AtomicInteger available;
+        // Το άθροισμα των αλλαγών που έγιναν commit αλλά δεν έχουν γραφτεί ακόμα στη βάση
+        final AtomicInteger unflushed = new AtomicInteger();
+        final LocalDateTime departureTime;
+
+        SeatCounter(RideRepository.SeatCount seats) {
+            this.available = new AtomicInteger(seats.getAvailableSeats());
+            this.departureTime = seats.getDepartureTime();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.greenride.service.inventory;
+
+/**
+ * SPI για τις ελεύθερες θέσεις των διαδρομών.
+ * <p>
+ * Η υλοποίηση επιλέγεται από το property {@code greenride.booking.inventory}
+ * ({@code database} = ατομικό UPDATE ανά κράτηση, {@code memory} = counters στη μνήμη με write-behind).
+ * Οι μέθοδοι καλούνται μέσα στο transaction της κράτησης/ακύρωσης: αν αυτό κάνει rollback,
+ * η δέσμευση αναιρείται.
+ * </p>
+ */
+public interface SeatInventory {
+
+    /**
+     * Φθηνός προέλεγχος πριν από οποιοδήποτε query. Το {@code true} δεν εγγυάται ότι το
+     * {@link #tryReserve} θα πετύχει, το {@code false} όμως σημαίνει σίγουρα "δεν υπάρχουν θέσεις".
+     */
+    boolean mightHave(Long rideId, int seats);
+
+    /**
+     * Δεσμεύει ατομικά {@code seats} θέσεις, όλες ή καμία.
+     *
+     * @return {@code false} αν δεν υπάρχουν αρκετές ελεύθερες θέσεις
+     */
+    boolean tryReserve(Long rideId, int seats);
+
+    /**
+     * Επιστρέφει θέσεις (ακύρωση κράτησης).
+     */
+    void release(Long rideId, int seats);
+
+    /**
+     * Οι ελεύθερες θέσεις της διαδρομής αυτή τη στιγμή (0 αν η διαδρομή δεν υπάρχει).
+     */
+    int available(Long rideId);
+
+    /**
+     * {@code true} αν οι θέσεις είναι απλά η στήλη {@code rides.available_seats}, οπότε μια κράτηση
+     * μπορεί να γίνει ολόκληρη μέσα σε ένα SQL statement.
+     */
+    default boolean inDatabase() {
+        return false;
+    }
+}
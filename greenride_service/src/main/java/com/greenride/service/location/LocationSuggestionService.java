@@ -0,0 +1,99 @@
+package com.greenride.service.location;
+
+import com.greenride.dto.LocationSuggestion;
+import com.greenride.model.Ride;
+import com.greenride.repository.RideRepository;
+import com.greenride.service.event.RideChangedEvent;
+import com.greenride.service.search.LocationNormalizer;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Autocomplete τοποθεσιών από ένα in-memory {@link LocationTrie}.
+ * <p>
+ * Το trie χτίζεται στην εκκίνηση από τις τοποθεσίες των υπαρχουσών διαδρομών (βάρος = πλήθος διαδρομών)
+ * και ενημερώνεται σε κάθε νέα διαδρομή. Ένα περιοδικό rebuild διορθώνει τα βάρη μετά από διαγραφές.
+ * Οι νέες διαδρομές που έρχονται όσο τρέχει το rebuild μπαίνουν και στο νέο trie πριν την αντικατάσταση.
+ * </p>
+ */
+@Service
+public class LocationSuggestionService {
+
+    public static final int DEFAULT_LIMIT = 5;
+
+    private final RideRepository rideRepository;
+
+    private volatile LocationTrie trie = new LocationTrie();
+
+    // Οι νέες διαδρομές όσο τρέχει rebuild (null = δεν τρέχει). Αλλάζουν μόνο με το changesLock.
+    private final Object changesLock = new Object();
+    private List<Ride> createdDuringRebuild;
+
+    public LocationSuggestionService(RideRepository rideRepository) {
+        this.rideRepository = rideRepository;
+    }
+
+    /**
+     * @param query Ό,τι έχει πληκτρολογήσει ο χρήστης μέχρι τώρα (σε οποιαδήποτε γραφή)
+     * @param limit Πόσες προτάσεις θέλουμε (το πολύ {@value LocationTrie#TOP_K})
+     */
+    public List<LocationSuggestion> suggest(String query, Integer limit) {
+        String prefix = LocationNormalizer.normalize(query);
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+        int k = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, LocationTrie.TOP_K));
+        return trie.complete(prefix, k);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelay = 3600000, initialDelay = 3600000)
+    public synchronized void rebuild() {
+        synchronized (changesLock) {
+            createdDuringRebuild = new ArrayList<>();
+        }
+        LocationTrie fresh = new LocationTrie();
+        try {
+            for (RideRepository.LocationCount location : rideRepository.countRidesByStartLocation()) {
+                fresh.add(LocationNormalizer.normalize(location.getLocation()), location.getLocation(), location.getRideCount());
+            }
+            for (RideRepository.LocationCount location : rideRepository.countRidesByDestination()) {
+                fresh.add(LocationNormalizer.normalize(location.getLocation()), location.getLocation(), location.getRideCount());
+            }
+            /* Ό,τι ήρθε όσο διαβάζαμε τη βάση μπαίνει και στο νέο trie, μαζί με το swap, ώστε να μη χαθεί μέχρι
+             το επόμενο rebuild. Αν το count το είχε ήδη δει, το βάρος βγαίνει μεγαλύτερο κατά ένα ως τότε. */
+            synchronized (changesLock) {
+                createdDuringRebuild.forEach(ride -> add(fresh, ride));
+                trie = fresh;
+            }
+        } finally {
+            synchronized (changesLock) {
+                createdDuringRebuild = null;
+            }
+        }
+        System.out.println("SUGGEST: Loaded locations into the autocomplete trie.");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRideChanged(RideChangedEvent event) {
+        if (event.type() == RideChangedEvent.Type.CREATED) {
+            synchronized (changesLock) {
+                add(trie, event.ride());
+                if (createdDuringRebuild != null) {
+                    createdDuringRebuild.add(event.ride());
+                }
+            }
+        }
+    }
+
+    private static void add(LocationTrie target, Ride ride) {
+        target.add(LocationNormalizer.normalize(ride.getStartLocation()), ride.getStartLocation(), 1);
+        target.add(LocationNormalizer.normalize(ride.getDestination()), ride.getDestination(), 1);
+    }
+}
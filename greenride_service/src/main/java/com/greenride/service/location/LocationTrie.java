@@ -0,0 +1,120 @@
+package com.greenride.service.location;
+
+import com.greenride.dto.LocationSuggestion;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Prefix trie πάνω στα κανονικοποιημένα κλειδιά τοποθεσιών, με βάρος = πλήθος διαδρομών.
+ * <p>
+ * Κάθε κόμβος κρατάει έτοιμη τη λίστα με τα {@value #TOP_K} βαρύτερα entries του υποδέντρου του.
+ * Έτσι ένα query είναι απλά ένα περπάτημα όσο το μήκος του prefix, χωρίς να ψάξουμε το υποδέντρο.
+ * Κάθε entry μπαίνει και από την αρχή κάθε λέξης του, ώστε το "synt" να βρίσκει και το "Athens, Syntagma".
+ * </p>
+ * <p>
+ * Οι εγγραφές είναι synchronized (λίγες, μόνο σε νέες διαδρομές), ενώ οι αναγνώσεις δεν κλειδώνουν ποτέ:
+ * οι λίστες {@code top} είναι immutable και αντικαθίστανται ολόκληρες.
+ * </p>
+ */
+final class LocationTrie {
+
+    static final int TOP_K = 10;
+
+    private static final Comparator<Entry> BY_WEIGHT =
+            Comparator.comparingLong(Entry::weight).reversed().thenComparing(Entry::label);
+
+    record Entry(String key, String label, long weight) {
+    }
+
+    private static final class Node {
+        final Map<Character, Node> children = new ConcurrentHashMap<>();
+        // Entries που τελειώνουν ακριβώς σε αυτόν τον κόμβο (κλειδί ή suffix λέξης του)
+        final Map<String, Entry> terminals = new HashMap<>();
+        volatile List<Entry> top = List.of();
+    }
+
+    private final Node root = new Node();
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * Προσθέτει {@code delta} διαδρομές στην τοποθεσία (αρνητικό για αφαίρεση).
+     *
+     * @param key   Το κανονικοποιημένο κλειδί
+     * @param label Πώς θα φαίνεται στον χρήστη (κρατάμε την πρώτη ορθογραφία που είδαμε)
+     */
+    synchronized void add(String key, String label, long delta) {
+        if (key.isEmpty()) {
+            return;
+        }
+        Entry previous = entries.get(key);
+        long weight = (previous == null ? 0 : previous.weight()) + delta;
+        Entry entry = weight > 0 ? new Entry(key, previous == null ? label : previous.label(), weight) : null;
+        if (entry == null) {
+            entries.remove(key);
+        } else {
+            entries.put(key, entry);
+        }
+
+        for (int start = 0; start < key.length(); start = key.indexOf(' ', start) + 1) {
+            update(key.substring(start), key, entry);
+            if (key.indexOf(' ', start) < 0) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return Τα βαρύτερα entries που ξεκινάνε (ή έχουν λέξη που ξεκινάει) με το {@code prefix}.
+     */
+    List<LocationSuggestion> complete(String prefix, int limit) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        List<Entry> top = node.top;
+        return top.subList(0, Math.min(limit, top.size())).stream()
+                .map(e -> new LocationSuggestion(e.label(), e.weight()))
+                .toList();
+    }
+
+    private void update(String path, String key, Entry entry) {
+        List<Node> nodes = new ArrayList<>(path.length() + 1);
+        Node node = root;
+        nodes.add(node);
+        for (int i = 0; i < path.length(); i++) {
+            node = node.children.computeIfAbsent(path.charAt(i), c -> new Node());
+            nodes.add(node);
+        }
+        if (entry == null) {
+            node.terminals.remove(key);
+        } else {
+            node.terminals.put(key, entry);
+        }
+        // Από κάτω προς τα πάνω: το top κάθε κόμβου βγαίνει από τα δικά του terminals και τα top των παιδιών
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            recompute(nodes.get(i));
+        }
+    }
+
+    private static void recompute(Node node) {
+        Map<String, Entry> candidates = new LinkedHashMap<>(node.terminals);
+        for (Node child : node.children.values()) {
+            for (Entry e : child.top) {
+                candidates.putIfAbsent(e.key(), e);
+            }
+        }
+        node.top = candidates.values().stream()
+                .sorted(BY_WEIGHT)
+                .limit(TOP_K)
+                .toList();
+    }
+}
@@ -0,0 +1,240 @@
+package com.greenride.service.location;
+
+import com.greenride.dto.PopularRoute;
+import com.greenride.model.Ride;
+import com.greenride.repository.RideRepository;
+import com.greenride.service.event.RideChangedEvent;
+import com.greenride.service.search.LocationNormalizer;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Τα "δημοφιλή routes τώρα": ζεύγη αφετηρίας → προορισμού με τις περισσότερες μελλοντικές διαδρομές και κρατήσεις.
+ * <p>
+ * Κρατάμε στη μνήμη ένα μικρό record ανά μελλοντική διαδρομή και τα αθροίσματα ανά route. Ένα background
+ * job τα ξαναχτίζει από τη βάση, ενώ στο μεταξύ ενημερώνονται από τα {@link RideChangedEvent}
+ * (νέα διαδρομή, κράτηση/ακύρωση/hold, διαγραφή). "Κρατημένες" θέσεις είναι οι ενεργές κρατήσεις και τα
+ * HELD holds, και στα events και στο rebuild, ώστε το score να μην πηδάει σε κάθε rebuild. Οι διαδρομές που αναχώρησαν βγαίνουν κάθε λεπτό.
+ * Η ταξινομημένη λίστα υπολογίζεται ξανά μόνο όταν κάτι άλλαξε.
+ * </p>
+ */
+@Service
+public class PopularRoutesService {
+
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 50;
+
+    private static final Comparator<RouteStats> BY_POPULARITY =
+            Comparator.comparingLong(RouteStats::score).reversed()
+                    .thenComparing(Comparator.comparingLong(RouteStats::upcomingRides).reversed());
+
+    private final RideRepository rideRepository;
+
+    // Όλη η κατάσταση προστατεύεται από το lock του service: οι εγγραφές είναι λίγες και πολύ γρήγορες
+    private Routes state = new Routes();
+    private volatile List<PopularRoute> ranking = List.of();
+    private boolean dirty;
+
+    // Οι αλλαγές όσο τρέχει rebuild (null = δεν τρέχει), για να ξαναπαιχτούν στη νέα κατάσταση. Με το lock του service.
+    private List<RideChangedEvent> changesDuringRebuild;
+    private final Object rebuildLock = new Object();
+
+    public PopularRoutesService(RideRepository rideRepository) {
+        this.rideRepository = rideRepository;
+    }
+
+    public List<PopularRoute> topRoutes(Integer limit) {
+        int n = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<PopularRoute> current = currentRanking();
+        return current.subList(0, Math.min(n, current.size()));
+    }
+
+    private List<PopularRoute> currentRanking() {
+        synchronized (this) {
+            if (dirty) {
+                ranking = state.routes.values().stream()
+                        .sorted(BY_POPULARITY)
+                        .limit(MAX_LIMIT)
+                        .map(r -> new PopularRoute(r.startLabel(), r.destinationLabel(), r.upcomingRides(), r.bookedSeats()))
+                        .toList();
+                dirty = false;
+            }
+            return ranking;
+        }
+    }
+
+    /**
+     * Ξαναχτίζει την κατάσταση από τη βάση. Οι αλλαγές που έρχονται όσο διαβάζουμε ξαναπαίζονται στη νέα
+     * κατάσταση πριν την αντικατάσταση (όπως στο search index), ώστε μια διαδρομή που δημιουργήθηκε στο μεταξύ
+     * να μην εξαφανιστεί μέχρι το επόμενο rebuild. Οι θέσεις δεν ξαναπαίζονται ως delta (δεν ξέρουμε αν το query
+     * είδε ήδη την κράτηση): ξαναδιαβάζονται από τη βάση για όσες διαδρομές άλλαξαν.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelay = 600000, initialDelay = 600000)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                changesDuringRebuild = new ArrayList<>();
+            }
+            Routes fresh = new Routes();
+            try {
+                for (RideRepository.UpcomingRideStats stats : rideRepository.findUpcomingRideStats(LocalDateTime.now())) {
+                    fresh.add(stats.getRideId(), stats.getStartLocation(), stats.getDestination(),
+                            stats.getDepartureTime(), stats.getBookedSeats());
+                }
+                // Το replay ρωτάει τη βάση, οπότε τρέχει εκτός lock μέχρι να μη μείνει τίποτα· το swap κάτω από το lock
+                while (true) {
+                    List<RideChangedEvent> replay;
+                    synchronized (this) {
+                        if (changesDuringRebuild.isEmpty()) {
+                            state = fresh;
+                            dirty = true;
+                            break;
+                        }
+                        replay = changesDuringRebuild;
+                        changesDuringRebuild = new ArrayList<>();
+                    }
+                    replay.forEach(change -> replay(fresh, change));
+                }
+            } finally {
+                synchronized (this) {
+                    changesDuringRebuild = null;
+                }
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onRideChanged(RideChangedEvent event) {
+        switch (event.type()) {
+            case CREATED -> {
+                Ride ride = event.ride();
+                state.add(ride.getId(), ride.getStartLocation(), ride.getDestination(), ride.getDepartureTime(), 0);
+            }
+            case DELETED -> state.remove(event.rideId());
+            // Λιγότερες ελεύθερες θέσεις = περισσότερες κρατημένες (κρατήσεις και holds, όπως μετράει και το rebuild)
+            case SEATS_CHANGED -> state.addBooked(event.rideId(), -event.seatDelta());
+        }
+        dirty = true;
+        if (changesDuringRebuild != null) {
+            changesDuringRebuild.add(event);
+        }
+    }
+
+    private void replay(Routes fresh, RideChangedEvent event) {
+        switch (event.type()) {
+            // Αν το query την είχε ήδη δει, το add δεν κάνει τίποτα
+            case CREATED -> {
+                Ride ride = event.ride();
+                fresh.add(ride.getId(), ride.getStartLocation(), ride.getDestination(), ride.getDepartureTime(), 0);
+            }
+            case DELETED -> fresh.remove(event.rideId());
+            case SEATS_CHANGED -> {
+                if (fresh.rides.containsKey(event.rideId())) {
+                    rideRepository.findReservedSeatsById(event.rideId())
+                            .ifPresent(booked -> fresh.setBooked(event.rideId(), booked));
+                }
+            }
+        }
+    }
+
+    /**
+     * Οι διαδρομές που αναχώρησαν δεν είναι πια "upcoming".
+     */
+    @Scheduled(fixedDelay = 60000)
+    public synchronized void evictDeparted() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> departed = state.rides.entrySet().stream()
+                .filter(entry -> !entry.getValue().departureTime().isAfter(now))
+                .map(Map.Entry::getKey)
+                .toList();
+        departed.forEach(state::remove);
+        if (!departed.isEmpty()) {
+            dirty = true;
+        }
+    }
+
+    private static RouteKey routeOf(String start, String destination) {
+        return new RouteKey(LocationNormalizer.normalize(start), LocationNormalizer.normalize(destination));
+    }
+
+    /**
+     * Ένα record ανά μελλοντική διαδρομή και τα αθροίσματα ανά route (η τρέχουσα κατάσταση ή αυτή που χτίζει το rebuild).
+     */
+    private static final class Routes {
+        final Map<Long, TrackedRide> rides = new HashMap<>();
+        final Map<RouteKey, RouteStats> routes = new HashMap<>();
+
+        void add(Long rideId, String start, String destination, LocalDateTime departureTime, long bookedSeats) {
+            TrackedRide tracked = new TrackedRide(routeOf(start, destination), departureTime, bookedSeats);
+            if (rides.putIfAbsent(rideId, tracked) == null) {
+                routes.computeIfAbsent(tracked.route(), k -> RouteStats.empty(start, destination));
+                apply(tracked.route(), 1, bookedSeats);
+            }
+        }
+
+        void remove(Long rideId) {
+            TrackedRide tracked = rides.remove(rideId);
+            if (tracked != null) {
+                apply(tracked.route(), -1, -tracked.bookedSeats());
+            }
+        }
+
+        void addBooked(Long rideId, long delta) {
+            TrackedRide tracked = rides.get(rideId);
+            if (tracked != null) {
+                setBooked(rideId, Math.max(0, tracked.bookedSeats() + delta));
+            }
+        }
+
+        void setBooked(Long rideId, long bookedSeats) {
+            TrackedRide tracked = rides.get(rideId);
+            if (tracked != null) {
+                rides.put(rideId, new TrackedRide(tracked.route(), tracked.departureTime(), bookedSeats));
+                apply(tracked.route(), 0, bookedSeats - tracked.bookedSeats());
+            }
+        }
+
+        private void apply(RouteKey route, long rideDelta, long seatDelta) {
+            routes.computeIfPresent(route, (k, r) -> {
+                RouteStats updated = r.plus(rideDelta, seatDelta);
+                return updated.upcomingRides() <= 0 ? null : updated;
+            });
+        }
+    }
+
+    private record RouteKey(String start, String destination) {
+    }
+
+    private record TrackedRide(RouteKey route, LocalDateTime departureTime, long bookedSeats) {
+    }
+
+    /**
+     * Αθροίσματα ανά route. Τα labels είναι η πρώτη ορθογραφία που είδαμε για κάθε άκρο.
+     */
+    private record RouteStats(String startLabel, String destinationLabel, long upcomingRides, long bookedSeats) {
+
+        static RouteStats empty(String startLabel, String destinationLabel) {
+            return new RouteStats(startLabel, destinationLabel, 0, 0);
+        }
+
+        RouteStats plus(long rides, long seats) {
+            return new RouteStats(startLabel, destinationLabel, upcomingRides + rides, Math.max(0, bookedSeats + seats));
+        }
+
+        // Μία κρατημένη θέση "μετράει" όσο μία διαδρομή: δείχνει ζήτηση, όχι μόνο προσφορά
+        long score() {
+            return upcomingRides + bookedSeats;
+        }
+    }
+}
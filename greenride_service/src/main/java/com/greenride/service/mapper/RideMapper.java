@@ -1,5 +1,6 @@
 package com.greenride.service.mapper;
 
+import com.greenride.dto.GeoPoint;
 import com.greenride.dto.RideView;
 import com.greenride.dto.UserView;
 import com.greenride.model.Ride;
@@ -36,7 +37,9 @@ public class RideMapper {
                 ride.getDestination(),
                 ride.getDepartureTime(),
                 ride.getAvailableSeats(),
-                driverView
+                driverView,
+                GeoPoint.of(ride.getStartLatitude(), ride.getStartLongitude()),
+                GeoPoint.of(ride.getDestinationLatitude(), ride.getDestinationLongitude())
         );
     }
 }
\ No newline at end of file
@@ -0,0 +1,235 @@
+package com.greenride.service.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ο executor για τις κλήσεις προς εξωτερικές υπηρεσίες ειδοποιήσεων (π.χ. SMS στο NOC).
+ * <p>
+ * Κάθε κλήση τρέχει σε δικό της virtual thread, οπότε μια κλήση που περιμένει το δίκτυο δεν κρατάει
+ * platform thread. Ανά destination (π.χ. {@code noc-sms}) τρέχουν το πολύ
+ * {@code greenride.notifications.max-concurrency-per-destination} κλήσεις μαζί. Οι υπόλοιπες περιμένουν
+ * σε ουρά (FIFO ανά destination), με κοινό όριο {@code greenride.notifications.queue-capacity} για όλες.
+ * Όταν η ουρά γεμίσει (π.χ. το NOC είναι αργό), εφαρμόζεται το {@link RejectionPolicy}. Έτσι η μνήμη
+ * δεν μεγαλώνει ποτέ χωρίς όριο, όπως με το default pool του @Async.
+ * </p>
+ * Metrics (Micrometer, στο {@code /actuator/metrics}): {@code greenride.notifications.queue.depth},
+ * {@code greenride.notifications.active}, {@code greenride.notifications.wait} (χρόνος στην ουρά),
+ * {@code greenride.notifications.latency} (διάρκεια κλήσης, με tag outcome) και {@code greenride.notifications.rejected}.
+ */
+@Component
+public class NotificationDispatcher {
+
+    /**
+     * Τι γίνεται με μια νέα ειδοποίηση όταν η ουρά είναι γεμάτη.
+     */
+    public enum RejectionPolicy {
+        // Απορρίπτεται η νέα (το future αποτυγχάνει με RejectedExecutionException)
+        ABORT,
+        // Απορρίπτεται η παλαιότερη που περιμένει στο ίδιο destination και μπαίνει η νέα
+        DISCARD_OLDEST,
+        // Η νέα τρέχει στο thread του caller, που έτσι "φρενάρει" (backpressure)
+        CALLER_RUNS
+    }
+
+    private final int queueCapacity;
+    private final int maxConcurrencyPerDestination;
+    private final RejectionPolicy rejectionPolicy;
+    private final MeterRegistry meterRegistry;
+    private final ThreadFactory threadFactory = Thread.ofVirtual().name("notification-", 0).factory();
+
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    // Όσες περιμένουν σε όλα τα destinations (για το κοινό όριο)
+    private final AtomicInteger queued = new AtomicInteger();
+    private volatile boolean closed;
+
+    public NotificationDispatcher(@Value("${greenride.notifications.queue-capacity:500}") int queueCapacity,
+                                  @Value("${greenride.notifications.max-concurrency-per-destination:8}") int maxConcurrencyPerDestination,
+                                  @Value("${greenride.notifications.rejection-policy:abort}") String rejectionPolicy,
+                                  MeterRegistry meterRegistry) {
+        if (queueCapacity < 1 || maxConcurrencyPerDestination < 1) {
+            throw new IllegalArgumentException("queue-capacity and max-concurrency-per-destination must be positive");
+        }
+        this.queueCapacity = queueCapacity;
+        this.maxConcurrencyPerDestination = maxConcurrencyPerDestination;
+        this.rejectionPolicy = RejectionPolicy.valueOf(rejectionPolicy.trim().toUpperCase().replace('-', '_'));
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("greenride.notifications.queue.depth", queued, AtomicInteger::get)
+                .description("Notifications waiting for a free slot, across all destinations")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Βάζει μια κλήση στο {@code destination}. Το future ολοκληρώνεται όταν τελειώσει η κλήση, αποτυγχάνει
+     * με το exception της, ή με {@link RejectedExecutionException} αν απορρίφθηκε λόγω γεμάτης ουράς.
+     */
+    public CompletableFuture<Void> submit(String destination, Runnable call) {
+        Lane lane = lanes.computeIfAbsent(destination, Lane::new);
+        Task task = new Task(call);
+        Task shed = null;
+        synchronized (lane) {
+            if (closed) {
+                return lane.reject(task, "Notification dispatcher is shut down");
+            }
+            if (lane.running < maxConcurrencyPerDestination) {
+                lane.running++;
+                lane.start(task);
+                return task.future;
+            }
+            if (queued.incrementAndGet() > queueCapacity) {
+                queued.decrementAndGet();
+                switch (rejectionPolicy) {
+                    case ABORT -> {
+                        return lane.reject(task, "Notification queue is full (" + queueCapacity + ")");
+                    }
+                    case CALLER_RUNS -> {
+                        lane.callerRuns.increment();
+                        task.waitStartNanos = System.nanoTime();
+                        shed = task;
+                    }
+                    case DISCARD_OLDEST -> {
+                        Task oldest = lane.waiting.pollFirst();
+                        if (oldest == null) {
+                            // Η ουρά γέμισε από άλλα destinations: δεν πετάμε ξένη δουλειά
+                            return lane.reject(task, "Notification queue is full (" + queueCapacity + ")");
+                        }
+                        lane.reject(oldest, "Discarded by a newer notification (queue full)");
+                        task.waitStartNanos = System.nanoTime();
+                        lane.waiting.addLast(task);
+                        return task.future;
+                    }
+                }
+            } else {
+                task.waitStartNanos = System.nanoTime();
+                lane.waiting.addLast(task);
+                return task.future;
+            }
+        }
+        // CALLER_RUNS: εκτός lock, στο thread του caller
+        lane.run(shed);
+        return shed.future;
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        for (Lane lane : lanes.values()) {
+            synchronized (lane) {
+                Task task;
+                while ((task = lane.waiting.pollFirst()) != null) {
+                    queued.decrementAndGet();
+                    lane.reject(task, "Notification dispatcher is shut down");
+                }
+            }
+        }
+    }
+
+    private static final class Task {
+        final Runnable call;
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        long waitStartNanos;
+
+        Task(Runnable call) {
+            this.call = call;
+        }
+    }
+
+    // Η ουρά και οι μετρητές ενός destination. Όλα τα πεδία αλλάζουν μόνο με το lock του Lane.
+    private final class Lane {
+        final String destination;
+        final Deque<Task> waiting = new ArrayDeque<>();
+        int running;
+
+        final Timer waitTimer;
+        final Timer successTimer;
+        final Timer failureTimer;
+        final Counter rejected;
+        final Counter callerRuns;
+
+        Lane(String destination) {
+            this.destination = destination;
+            this.waitTimer = Timer.builder("greenride.notifications.wait")
+                    .description("Time a notification waited in the queue")
+                    .tag("destination", destination)
+                    .register(meterRegistry);
+            this.successTimer = latencyTimer("success");
+            this.failureTimer = latencyTimer("failure");
+            this.rejected = Counter.builder("greenride.notifications.rejected")
+                    .tag("destination", destination)
+                    .register(meterRegistry);
+            this.callerRuns = Counter.builder("greenride.notifications.caller.runs")
+                    .tag("destination", destination)
+                    .register(meterRegistry);
+            Gauge.builder("greenride.notifications.active", this, lane -> lane.running)
+                    .tag("destination", destination)
+                    .register(meterRegistry);
+        }
+
+        private Timer latencyTimer(String outcome) {
+            return Timer.builder("greenride.notifications.latency")
+                    .description("Duration of the outgoing notification call")
+                    .tag("destination", destination)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+
+        void start(Task task) {
+            threadFactory.newThread(() -> {
+                Task next = task;
+                // Το ίδιο virtual thread συνεχίζει με την επόμενη της ουράς, χωρίς να ξαναπεράσει από το submit
+                while (next != null) {
+                    run(next);
+                    next = finishAndTakeNext();
+                }
+            }).start();
+        }
+
+        private Task finishAndTakeNext() {
+            synchronized (this) {
+                Task next = waiting.pollFirst();
+                if (next == null) {
+                    running--;
+                } else {
+                    queued.decrementAndGet();
+                }
+                return next;
+            }
+        }
+
+        void run(Task task) {
+            long start = System.nanoTime();
+            if (task.waitStartNanos != 0) {
+                waitTimer.record(Duration.ofNanos(start - task.waitStartNanos));
+            }
+            try {
+                task.call.run();
+                successTimer.record(Duration.ofNanos(System.nanoTime() - start));
+                task.future.complete(null);
+            } catch (RuntimeException e) {
+                failureTimer.record(Duration.ofNanos(System.nanoTime() - start));
+                task.future.completeExceptionally(e);
+            }
+        }
+
+        CompletableFuture<Void> reject(Task task, String reason) {
+            rejected.increment();
+            task.future.completeExceptionally(new RejectedExecutionException(reason + " [" + destination + "]"));
+            return task.future;
+        }
+    }
+}
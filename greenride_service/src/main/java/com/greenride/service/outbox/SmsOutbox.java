@@ -0,0 +1,29 @@
+package com.greenride.service.outbox;
+
+import com.greenride.model.OutboxMessage;
+import com.greenride.repository.OutboxMessageRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Η "πόρτα" για τα SMS της εφαρμογής: αντί να καλούμε το NOC από το request thread, γράφουμε το μήνυμα
+ * στον πίνακα {@code sms_outbox} μέσα στο transaction του caller (γι' αυτό MANDATORY).
+ * Την αποστολή, με retry και backoff, την κάνει ο {@link SmsOutboxRelay}.
+ */
+@Component
+public class SmsOutbox {
+
+    private final OutboxMessageRepository outboxRepository;
+
+    public SmsOutbox(OutboxMessageRepository outboxRepository) {
+        this.outboxRepository = outboxRepository;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String phoneNumber, String message) {
+        outboxRepository.save(new OutboxMessage(phoneNumber, message, LocalDateTime.now()));
+    }
+}
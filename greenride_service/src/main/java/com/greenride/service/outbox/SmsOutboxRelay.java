@@ -0,0 +1,217 @@
+package com.greenride.service.outbox;
+
+import com.greenride.repository.OutboxMessageRepository;
+import com.greenride.service.notification.NotificationDispatcher;
+import com.greenride.service.port.SmsNotificationPort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Αδειάζει το {@code sms_outbox} προς το NOC, σε batches.
+ * <p>
+ * Κάθε batch "κλειδώνεται" με lease ({@link OutboxMessageRepository#claimBatch}), οπότε πολλοί κόμβοι μπορούν
+ * να τρέχουν τον relay μαζί χωρίς να στέλνουν το ίδιο SMS. Τα επιτυχημένα μαρκάρονται SENT με ένα UPDATE.
+ * Μια αποτυχία ξαναδοκιμάζεται με εκθετικό backoff (5s, 10s, 20s, ... έως 30 λεπτά) και μετά από
+ * {@value #MAX_ATTEMPTS} προσπάθειες μένει FAILED στον πίνακα για έλεγχο.
+ * </p>
+ * Οι κλήσεις ενός batch γίνονται παράλληλα μέσω του {@link NotificationDispatcher} (destination
+ * {@value #DESTINATION}, με το δικό του όριο ταυτόχρονων κλήσεων). Αν ο dispatcher απορρίψει κάποιο SMS
+ * (γεμάτη ουρά), αυτό μένει στο outbox και ξαναγίνεται διαθέσιμο μετά το πρώτο backoff, χωρίς να χρεωθεί
+ * προσπάθεια. Αν κάτι απέτυχε ή απορρίφθηκε, δεν συνεχίζουμε με άλλο batch σε αυτό το tick.
+ * Όσες κλήσεις δεν τελειώσουν μέσα στο {@code BATCH_TIMEOUT} γράφουν το αποτέλεσμά τους όταν τελειώσουν,
+ * σε δικό τους transaction, ώστε ένα SMS που τελικά στάλθηκε να μην ξανασταλεί όταν λήξει το lease.
+ * Η αποστολή είναι at-least-once: αν ο κόμβος πέσει αφού σταλεί ένα SMS αλλά πριν το μαρκάρει, θα ξανασταλεί.
+ */
+@Component
+public class SmsOutboxRelay {
+
+    static final String DESTINATION = "noc-sms";
+    private static final int BATCH_SIZE = 50;
+    private static final int MAX_ATTEMPTS = 10;
+    private static final Duration BASE_BACKOFF = Duration.ofSeconds(5);
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(30);
+    // Πρέπει να είναι μεγαλύτερο από τον χρόνο ενός batch (50 κλήσεις με read timeout 5s)
+    private static final Duration CLAIM_LEASE = Duration.ofMinutes(5);
+    // Όσο περιμένουμε τις κλήσεις ενός batch: ό,τι δεν τελείωσε ως τότε ξαναπαίρνεται όταν λήξει το lease
+    private static final Duration BATCH_TIMEOUT = Duration.ofMinutes(2);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxMessageRepository outboxRepository;
+    private final SmsNotificationPort smsNotificationPort;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationDispatcher dispatcher;
+
+    public SmsOutboxRelay(OutboxMessageRepository outboxRepository,
+                          SmsNotificationPort smsNotificationPort,
+                          TransactionTemplate transactionTemplate,
+                          NotificationDispatcher dispatcher) {
+        this.outboxRepository = outboxRepository;
+        this.smsNotificationPort = smsNotificationPort;
+        this.transactionTemplate = transactionTemplate;
+        this.dispatcher = dispatcher;
+    }
+
+    @Scheduled(fixedDelayString = "${greenride.outbox.poll-interval-ms:1000}")
+    public void relay() {
+        boolean more = true;
+        while (more) {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxMessageRepository.ClaimedMessage> batch = transactionTemplate.execute(status ->
+                    outboxRepository.claimBatch(now, now.plus(CLAIM_LEASE), BATCH_SIZE));
+            more = relayBatch(batch) && batch.size() == BATCH_SIZE;
+        }
+    }
+
+    /**
+     * @return {@code false} αν κάποιο SMS απέτυχε ή απορρίφθηκε (δεν συνεχίζουμε με άλλο batch σε αυτό το tick)
+     */
+    private boolean relayBatch(List<OutboxMessageRepository.ClaimedMessage> batch) {
+        if (batch.isEmpty()) {
+            return true;
+        }
+        List<CompletableFuture<Void>> calls = new ArrayList<>(batch.size());
+        for (OutboxMessageRepository.ClaimedMessage message : batch) {
+            calls.add(dispatcher.submit(DESTINATION,
+                    () -> smsNotificationPort.sendSms(message.getPhoneNumber(), message.getMessage())));
+        }
+        awaitAll(calls);
+
+        Results results = new Results();
+        int pending = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            CompletableFuture<Void> call = calls.get(i);
+            OutboxMessageRepository.ClaimedMessage message = batch.get(i);
+            if (!call.isDone()) {
+                // Τρέχει ακόμα: μένει claimed και γράφει μόνο του το αποτέλεσμα όταν τελειώσει.
+                // Αν δεν τελειώσει ποτέ, θα ξαναδοκιμαστεί όταν λήξει το lease.
+                pending++;
+                call.whenComplete((ignored, error) -> recordLate(message, error));
+                continue;
+            }
+            results.add(message, failure(call));
+        }
+
+        record(results);
+        if (!results.sent.isEmpty()) {
+            System.out.println("OUTBOX: Relayed " + results.sent.size() + " SMS to NOC.");
+        }
+        if (!results.rejected.isEmpty()) {
+            System.err.println("OUTBOX: Notification queue full, postponed " + results.rejected.size() + " SMS.");
+        }
+        if (pending > 0) {
+            System.err.println("OUTBOX: " + pending + " SMS still in flight after " + BATCH_TIMEOUT.toSeconds() + "s.");
+        }
+        return results.failed.isEmpty() && results.rejected.isEmpty() && pending == 0;
+    }
+
+    // Μια κλήση που τελείωσε μετά το BATCH_TIMEOUT (τρέχει στο thread που την ολοκλήρωσε)
+    private void recordLate(OutboxMessageRepository.ClaimedMessage message, Throwable error) {
+        Results results = new Results();
+        results.add(message, error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+        try {
+            record(results);
+            System.out.println("OUTBOX: Late result for SMS " + message.getId() + ": "
+                    + (results.sent.isEmpty() ? "failed" : "sent") + ".");
+        } catch (RuntimeException e) {
+            // Μένει claimed: θα ξαναδοκιμαστεί όταν λήξει το lease
+            System.err.println("OUTBOX: Could not record late result for SMS " + message.getId() + ": " + e.getMessage());
+        }
+    }
+
+    private void record(Results results) {
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (!results.sent.isEmpty()) {
+                outboxRepository.markSent(results.sent, now);
+            }
+            for (int i = 0; i < results.failed.size(); i++) {
+                OutboxMessageRepository.ClaimedMessage message = results.failed.get(i);
+                String error = results.errors.get(i);
+                int attempts = message.getAttempts() + 1;
+                boolean giveUp = attempts >= MAX_ATTEMPTS;
+                outboxRepository.markFailed(message.getId(), giveUp ? "FAILED" : "PENDING",
+                        now.plus(backoff(attempts)), truncate(error));
+                System.err.println("OUTBOX: SMS " + message.getId() + " failed (attempt " + attempts + "): " + error
+                        + (giveUp ? " - giving up." : ""));
+            }
+            if (!results.rejected.isEmpty()) {
+                outboxRepository.postpone(results.rejected, now.plus(BASE_BACKOFF));
+            }
+        });
+    }
+
+    private static void awaitAll(List<CompletableFuture<Void>> calls) {
+        try {
+            CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new))
+                    .get(BATCH_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            // Οι αποτυχίες διαβάζονται ανά κλήση παρακάτω
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Το exception μιας ολοκληρωμένης κλήσης ή null αν πέτυχε
+    private static Throwable failure(CompletableFuture<Void> call) {
+        try {
+            call.join();
+            return null;
+        } catch (CompletionException e) {
+            return e.getCause() == null ? e : e.getCause();
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    // 5s * 2^(attempts-1), με άνω όριο
+    static Duration backoff(int attempts) {
+        int exponent = Math.min(attempts - 1, 20);
+        Duration delay = BASE_BACKOFF.multipliedBy(1L << exponent);
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+
+    private static String truncate(String error) {
+        return error.length() <= MAX_ERROR_LENGTH ? error : error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    // Τα αποτελέσματα των κλήσεων ανά κατηγορία, για να γραφτούν μαζί σε ένα transaction
+    private static final class Results {
+        final List<Long> sent = new ArrayList<>();
+        final List<OutboxMessageRepository.ClaimedMessage> failed = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+        final List<Long> rejected = new ArrayList<>();
+
+        void add(OutboxMessageRepository.ClaimedMessage message, Throwable error) {
+            if (error == null) {
+                sent.add(message.getId());
+            } else if (error instanceof RejectedExecutionException) {
+                rejected.add(message.getId());
+            } else {
+                failed.add(message);
+                errors.add(error.getMessage() == null ? error.getClass().getSimpleName() : error.getMessage());
+            }
+        }
+    }
+
+    // Τα SMS που στάλθηκαν δεν χρειάζονται για πάντα στον πίνακα
+    @Scheduled(fixedDelay = 3600000, initialDelay = 3600000)
+    public void deleteOldMessages() {
+        Integer deleted = transactionTemplate.execute(status ->
+                outboxRepository.deleteSentBefore(LocalDateTime.now().minusDays(7)));
+        if (deleted != null && deleted > 0) {
+            System.out.println("OUTBOX: Deleted " + deleted + " sent SMS older than 7 days.");
+        }
+    }
+}
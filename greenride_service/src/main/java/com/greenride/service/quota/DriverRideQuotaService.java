@@ -0,0 +1,43 @@
+package com.greenride.service.quota;
+
+import com.greenride.repository.DriverRideQuotaRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Κρατάει τους μετρητές ενεργών διαδρομών ({@code driver_ride_quotas}) σωστούς.
+ * <p>
+ * Η αύξηση γίνεται στο create (μέσα στο CTE του {@code RideRepository.createInOneStatement}).
+ * Εδώ γίνεται η μείωση: περιοδικά για όσες διαδρομές αναχώρησαν και αμέσως για όσες διαγράφονται.
+ * Μέχρι να τρέξει το sweep μια διαδρομή που μόλις αναχώρησε μετράει ακόμα, δηλαδή το όριο
+ * είναι για λίγα δευτερόλεπτα πιο αυστηρό, ποτέ πιο χαλαρό.
+ * </p>
+ */
+@Service
+public class DriverRideQuotaService {
+
+    private final DriverRideQuotaRepository quotaRepository;
+
+    public DriverRideQuotaService(DriverRideQuotaRepository quotaRepository) {
+        this.quotaRepository = quotaRepository;
+    }
+
+    // Τρέχει και αμέσως στην εκκίνηση, για τις διαδρομές που αναχώρησαν όσο η εφαρμογή ήταν κάτω
+    @Scheduled(fixedDelay = 60000)
+    @Transactional
+    public void releaseDepartedRides() {
+        int drivers = quotaRepository.releaseDeparted(LocalDateTime.now());
+        if (drivers > 0) {
+            System.out.println("QUOTA: Released departed rides for " + drivers + " drivers.");
+        }
+    }
+
+    // Καλείται μέσα στο transaction της διαγραφής, πριν σβηστεί η γραμμή της διαδρομής
+    @Transactional
+    public void releaseRide(Long rideId) {
+        quotaRepository.releaseRide(rideId);
+    }
+}
@@ -0,0 +1,230 @@
+package com.greenride.service.scheduling;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel (Varghese &amp; Lauck): χρονοδιακόπτες με κόστος O(1) για προσθήκη, ακύρωση και λήξη.
+ * <p>
+ * Ο τροχός έχει {@code wheelSize} κουβάδες και γυρίζει μία θέση κάθε {@code tick}. Ένα timeout μπαίνει στον
+ * κουβά της στιγμής που λήγει, μαζί με το πόσους γύρους πρέπει να περιμένει ακόμα. Σε κάθε tick ο worker
+ * κοιτάει μόνο τον τρέχοντα κουβά, οπότε το κόστος δεν εξαρτάται από το πόσα timeouts υπάρχουν συνολικά.
+ * </p>
+ * <p>
+ * Μόνο ο worker αγγίζει τους κουβάδες: τα νέα και τα ακυρωμένα timeouts περνάνε από lock-free ουρές.
+ * Η ακρίβεια είναι ένα tick (ποτέ νωρίτερα). Τα callbacks τρέχουν στο thread του worker, άρα πρέπει να είναι σύντομα.
+ * </p>
+ */
+public final class HashedTimingWheel<T> implements AutoCloseable {
+
+    /**
+     * Handle για ένα προγραμματισμένο timeout.
+     */
+    public interface Timeout {
+        /**
+         * @return {@code true} αν ακυρώθηκε πριν λήξει
+         */
+        boolean cancel();
+    }
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final long tickNanos;
+    private final Bucket<T>[] wheel;
+    private final int mask;
+    private final Consumer<T> onExpire;
+    private final Queue<Entry<T>> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Entry<T>> cancelled = new ConcurrentLinkedQueue<>();
+    private final long startNanos = System.nanoTime();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    // Ο αριθμός του τρέχοντος tick. Τον αλλάζει μόνο ο worker.
+    private long tick;
+
+    public HashedTimingWheel(String name, Duration tick, int wheelSize, Consumer<T> onExpire) {
+        if (tick.isNegative() || tick.isZero() || wheelSize <= 0) {
+            throw new IllegalArgumentException("tick and wheelSize must be positive");
+        }
+        // Δύναμη του 2, ώστε ο κουβάς να βγαίνει με μάσκα αντί για modulo
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        size = Math.max(size, 1);
+        this.tickNanos = tick.toNanos();
+        // Generic array: δεν γίνεται new Bucket<T>[size]
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Bucket<T>[] buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new Bucket<>();
+        }
+        this.wheel = buckets;
+        this.mask = size - 1;
+        this.onExpire = onExpire;
+        this.worker = Thread.ofPlatform().name(name).daemon().unstarted(this::run);
+        worker.start();
+    }
+
+    /**
+     * Προγραμματίζει το {@code task} να λήξει μετά από {@code delay} (αρνητικό = στο επόμενο tick).
+     */
+    public Timeout schedule(T task, Duration delay) {
+        long deadline = System.nanoTime() - startNanos + Math.max(0, delay.toNanos());
+        Entry<T> entry = new Entry<>(this, task, deadline);
+        added.add(entry);
+        return entry;
+    }
+
+    // Το πραγματικό μέγεθος του τροχού, μετά τη στρογγυλοποίηση σε δύναμη του 2
+    int wheelSize() {
+        return wheel.length;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            if (!waitForNextTick()) {
+                return;
+            }
+            removeCancelled();
+            transferAdded();
+            expire(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private boolean waitForNextTick() {
+        long deadline = tickNanos * (tick + 1);
+        while (true) {
+            long sleepNanos = deadline - (System.nanoTime() - startNanos);
+            if (sleepNanos <= 0) {
+                return true;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private void transferAdded() {
+        Entry<T> entry;
+        while ((entry = added.poll()) != null) {
+            if (entry.state.get() != PENDING) {
+                continue;
+            }
+            long expiresAtTick = entry.deadline / tickNanos;
+            entry.remainingRounds = (expiresAtTick - tick) / wheel.length;
+            // Ό,τι έπρεπε να έχει λήξει ήδη πάει στον τρέχοντα κουβά
+            wheel[(int) (Math.max(expiresAtTick, tick) & mask)].add(entry);
+        }
+    }
+
+    private void removeCancelled() {
+        Entry<T> entry;
+        while ((entry = cancelled.poll()) != null) {
+            if (entry.bucket != null) {
+                entry.bucket.remove(entry);
+            }
+        }
+    }
+
+    private void expire(Bucket<T> bucket) {
+        Entry<T> entry = bucket.head;
+        while (entry != null) {
+            Entry<T> next = entry.next;
+            if (entry.remainingRounds <= 0) {
+                bucket.remove(entry);
+                if (entry.state.compareAndSet(PENDING, EXPIRED)) {
+                    try {
+                        onExpire.accept(entry.task);
+                    } catch (RuntimeException e) {
+                        System.err.println("TIMER: Timeout callback failed: " + e.getMessage());
+                    }
+                }
+            } else {
+                entry.remainingRounds--;
+            }
+            entry = next;
+        }
+    }
+
+    private static final class Entry<T> implements Timeout {
+        final HashedTimingWheel<T> timer;
+        final T task;
+        final long deadline;
+        final AtomicInteger state = new AtomicInteger(PENDING);
+        long remainingRounds;
+        // Διπλά συνδεδεμένη λίστα μέσα στον κουβά, για αφαίρεση σε O(1)
+        Bucket<T> bucket;
+        Entry<T> prev;
+        Entry<T> next;
+
+        Entry(HashedTimingWheel<T> timer, T task, long deadline) {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            timer.cancelled.add(this);
+            return true;
+        }
+    }
+
+    private static final class Bucket<T> {
+        Entry<T> head;
+        Entry<T> tail;
+
+        void add(Entry<T> entry) {
+            entry.bucket = this;
+            if (head == null) {
+                head = tail = entry;
+            } else {
+                tail.next = entry;
+                entry.prev = tail;
+                tail = entry;
+            }
+        }
+
+        void remove(Entry<T> entry) {
+            if (entry.bucket != this) {
+                return;
+            }
+            if (entry.prev != null) {
+                entry.prev.next = entry.next;
+            } else {
+                head = entry.next;
+            }
+            if (entry.next != null) {
+                entry.next.prev = entry.prev;
+            } else {
+                tail = entry.prev;
+            }
+            entry.prev = null;
+            entry.next = null;
+            entry.bucket = null;
+        }
+    }
+}
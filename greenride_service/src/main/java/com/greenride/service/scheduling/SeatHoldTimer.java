@@ -0,0 +1,104 @@
+package com.greenride.service.scheduling;
+
+import com.greenride.repository.SeatHoldRepository;
+import com.greenride.service.event.SeatHoldExpiredEvent;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Λήξη των seat holds με {@link HashedTimingWheel}, χωρίς περιοδικό scan του πίνακα.
+ * <p>
+ * Κάθε hold μπαίνει στον τροχό τη στιγμή που δημιουργείται. Όταν λήξει, δημοσιεύεται ένα {@link SeatHoldExpiredEvent}
+ * και το {@code BookingService} αποφασίζει με ένα conditional UPDATE (HELD → EXPIRED) αν οι θέσεις πρέπει να
+ * επιστρέψουν: αν το hold έγινε στο μεταξύ confirm ή release, δεν γίνεται τίποτα. Γι' αυτό δεν χρειάζεται ποτέ
+ * να ακυρώσουμε timeout.
+ * Μετά από restart τα holds που είναι ακόμα HELD ξαναφορτώνονται από τη βάση.
+ * </p>
+ * <p>
+ * Ο τροχός είναι στη μνήμη του κόμβου που έφτιαξε το hold. Αν ο κόμβος πέσει ενώ οι άλλοι συνεχίζουν,
+ * ή αν η λήξη αποτύχει (π.χ. η βάση δεν απαντάει για λίγο), κανένας τροχός δεν θα ξαναδεί το hold.
+ * Γι' αυτό υπάρχει και ένα αραιό sweep πάνω στο partial index των ληγμένων HELD, σαν δίχτυ ασφαλείας
+ * (όπως το reconcile των υπενθυμίσεων). Το conditional UPDATE κάνει ακίνδυνο να το τρέχουν όλοι οι κόμβοι.
+ * </p>
+ */
+@Component
+public class SeatHoldTimer {
+
+    private final SeatHoldRepository seatHoldRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final HashedTimingWheel<Long> wheel;
+    // Τα transactions της λήξης τρέχουν εδώ και όχι στο thread του τροχού, που πρέπει να μένει ελεύθερο για τα ticks
+    private final ExecutorService expiryExecutor =
+            Executors.newSingleThreadExecutor(Thread.ofPlatform().name("seat-hold-expiry").daemon().factory());
+
+    public SeatHoldTimer(SeatHoldRepository seatHoldRepository,
+                         ApplicationEventPublisher eventPublisher) {
+        this.seatHoldRepository = seatHoldRepository;
+        this.eventPublisher = eventPublisher;
+        // Tick ενός δευτερολέπτου, 512 θέσεις: ένας γύρος κάθε ~8.5 λεπτά, τα μεγαλύτερα holds κάνουν παραπάνω γύρους
+        this.wheel = new HashedTimingWheel<>("seat-hold-timer", Duration.ofSeconds(1), 512,
+                holdId -> expiryExecutor.execute(() -> expire(holdId)));
+    }
+
+    public void schedule(Long holdId, LocalDateTime expiresAt) {
+        wheel.schedule(holdId, Duration.between(LocalDateTime.now(), expiresAt));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reloadPendingHolds() {
+        List<SeatHoldRepository.PendingHold> pending = seatHoldRepository.findPendingHolds();
+        for (SeatHoldRepository.PendingHold hold : pending) {
+            schedule(hold.getId(), hold.getExpiresAt());
+        }
+        System.out.println("HOLDS: Scheduled expiry for " + pending.size() + " pending seat holds.");
+    }
+
+    /**
+     * Τα holds που έχουν λήξει αλλά είναι ακόμα HELD: του κόμβου που έπεσε ή όσα απέτυχαν στη λήξη.
+     * Σε κανονική λειτουργία δεν βρίσκει τίποτα, γιατί ο τροχός τα έχει ήδη κλείσει.
+     */
+    @Scheduled(fixedDelayString = "${greenride.booking.hold-sweep-interval-ms:60000}",
+            initialDelayString = "${greenride.booking.hold-sweep-interval-ms:60000}")
+    public void sweepExpiredHolds() {
+        List<Long> expired = seatHoldRepository.findExpiredHoldIds(LocalDateTime.now());
+        if (!expired.isEmpty()) {
+            System.out.println("HOLDS: Sweep found " + expired.size() + " expired holds still HELD.");
+        }
+        for (Long holdId : expired) {
+            expiryExecutor.execute(() -> expire(holdId));
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        wheel.close();
+        expiryExecutor.shutdown();
+        // Όσα δεν προλάβουν θα τα βρει το sweep (ή το reload) του επόμενου κόμβου
+        expiryExecutor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Τρέχει στο {@code expiryExecutor}. Ο listener (στο {@code BookingService}) τρέχει συγχρονισμένα, στο δικό του
+     * transaction, ώστε οι θέσεις ενός hold που έληξε να περνάνε από την ουρά αναμονής όπως και στην ακύρωση.
+     * Αν αποτύχει, το hold μένει HELD και το ξαναπιάνει το επόμενο sweep.
+     */
+    private void expire(Long holdId) {
+        try {
+            eventPublisher.publishEvent(new SeatHoldExpiredEvent(holdId));
+        } catch (RuntimeException e) {
+            System.err.println("HOLDS: Expiry of hold " + holdId + " failed, the sweep will retry it: " + e.getMessage());
+        }
+    }
+}
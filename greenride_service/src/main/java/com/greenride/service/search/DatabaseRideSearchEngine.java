@@ -0,0 +1,71 @@
+package com.greenride.service.search;
+
+import com.greenride.dto.RidePage;
+import com.greenride.dto.RideView;
+import com.greenride.model.Ride;
+import com.greenride.repository.RideRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Η "κλασική" υλοποίηση: κάθε αναζήτηση γίνεται query στη βάση ({@code key like '%q%'}) πάνω στα
+ * κανονικοποιημένα κλειδιά που γράφονται μαζί με τη διαδρομή.
+ * Δεν κρατάει τίποτα στη μνήμη, οπότε οι μέθοδοι ενημέρωσης δεν κάνουν τίποτα.
+ * Ενεργοποιείται με {@code greenride.search.engine=database}.
+ */
+@Component
+@ConditionalOnProperty(name = "greenride.search.engine", havingValue = "database")
+public class DatabaseRideSearchEngine implements RideSearchEngine {
+
+    private static final LocalDateTime FAR_FUTURE = LocalDateTime.of(9999, 12, 31, 23, 59);
+
+    private final RideRepository rideRepository;
+
+    public DatabaseRideSearchEngine(RideRepository rideRepository) {
+        this.rideRepository = rideRepository;
+    }
+
+    @Override
+    public RidePage search(RideSearchQuery query) {
+        if (query.hasGeoFilter()) {
+            // Χωρίς spatial index στη βάση θα ήταν full scan, οπότε δεν το υποστηρίζουμε εδώ
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Radius search is only available with the in-memory search engine.");
+        }
+        // Φέρνουμε μία γραμμή παραπάνω για να ξέρουμε αν υπάρχει επόμενη σελίδα
+        Limit limit = Limit.of(query.limit() + 1);
+        RideCursor after = query.after();
+        // Χωρίς άνω όριο περνάμε μια μακρινή ημερομηνία, για να μη στέλνουμε NULL timestamp παράμετρο
+        LocalDateTime to = query.departureTo() == null ? FAR_FUTURE : query.departureTo();
+        List<RideView> rides = after == null
+                ? rideRepository.searchFirstPage(query.start(), query.destination(),
+                        query.departureFrom(), to, query.minSeats(), limit)
+                : rideRepository.searchPageAfter(query.start(), query.destination(),
+                        query.departureFrom(), to, query.minSeats(),
+                        after.departureTime(), after.id(), limit);
+        return query.toPage(rides);
+    }
+
+    @Override
+    public void index(Ride ride) {
+        // Η βάση είναι ήδη η πηγή της αλήθειας
+    }
+
+    @Override
+    public void remove(Long rideId) {
+    }
+
+    @Override
+    public void adjustSeats(Long rideId, int seatDelta) {
+    }
+
+    @Override
+    public void rebuild() {
+    }
+}
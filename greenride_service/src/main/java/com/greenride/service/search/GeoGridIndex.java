@@ -0,0 +1,124 @@
+package com.greenride.service.search;
+
+import com.greenride.dto.GeoPoint;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+
+/**
+ * Χωρικό index σε σταθερό πλέγμα (grid) από κελιά {@value #CELL_DEGREES}° x {@value #CELL_DEGREES}°
+ * (περίπου 5.5 km σε γεωγραφικό πλάτος).
+ * <p>
+ * Κάθε διαδρομή μπαίνει στο κελί του σημείου της. Ένα query ακτίνας κοιτάει μόνο τα κελιά που
+ * καλύπτουν το bounding box του κύκλου, άρα το κόστος εξαρτάται από την ακτίνα και όχι από το
+ * πλήθος των διαδρομών. Όπως και στο {@link NgramIndex}, τα αποτελέσματα είναι <b>υποψήφια</b>:
+ * ο caller κάνει τον τελικό έλεγχο απόστασης.
+ * </p>
+ */
+final class GeoGridIndex {
+
+    static final double CELL_DEGREES = 0.05;
+
+    static final double KM_PER_DEGREE = 111.32;
+    private static final long LONGITUDE_CELLS = Math.round(360 / CELL_DEGREES);
+
+    private final Map<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+
+    void add(Long id, GeoPoint point) {
+        if (point == null) {
+            return;
+        }
+        cells.compute(cellOf(point), (cell, ids) -> {
+            if (ids == null) {
+                ids = ConcurrentHashMap.newKeySet();
+            }
+            ids.add(id);
+            return ids;
+        });
+    }
+
+    void remove(Long id, GeoPoint point) {
+        if (point == null) {
+            return;
+        }
+        cells.computeIfPresent(cellOf(point), (cell, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /**
+     * @return Τα υποψήφια IDs μέσα στο bounding box του κύκλου, ή {@code null} αν δεν υπάρχει κύκλος.
+     */
+    Set<Long> candidates(GeoRadius radius) {
+        if (radius == null) {
+            return null;
+        }
+        Set<Long> result = new HashSet<>();
+        forEachCell(radius, cell -> {
+            Set<Long> ids = cells.get(cell);
+            if (ids != null) {
+                result.addAll(ids);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Περνάει από όλα τα κελιά που καλύπτουν το bounding box του κύκλου.
+     * Το κουτί συνεχίζει από την άλλη μεριά του αντιμεσημβρινού (179.99° → -179.99°), και αν ο κύκλος
+     * περιέχει πόλο καλύπτει όλα τα μήκη, γιατί εκεί συναντιούνται όλοι οι μεσημβρινοί.
+     */
+    static void forEachCell(GeoRadius radius, LongConsumer action) {
+        GeoPoint center = radius.center();
+        double angularRadius = radius.radiusKm() / GeoPoint.EARTH_RADIUS_KM;
+        double latSpan = Math.toDegrees(angularRadius);
+        double south = center.latitude() - latSpan;
+        double north = center.latitude() + latSpan;
+
+        long minLon = 0;
+        long maxLon = LONGITUDE_CELLS - 1;
+        if (south > -90 && north < 90) {
+            // Το μέγιστο άνοιγμα του κύκλου σε μήκος: μεγαλώνει όσο οι μεσημβρινοί πλησιάζουν προς τους πόλους
+            double lonSpan = Math.toDegrees(Math.asin(Math.min(1,
+                    Math.sin(angularRadius) / Math.cos(Math.toRadians(center.latitude())))));
+            // Χωρίς wrap εδώ: το cellKey γυρίζει τα κελιά έξω από το [-180, 180) στην άλλη μεριά
+            long west = lonIndex(center.longitude() - lonSpan);
+            long east = lonIndex(center.longitude() + lonSpan);
+            if (east - west < LONGITUDE_CELLS) {
+                minLon = west;
+                maxLon = east;
+            }
+        }
+
+        long minLat = latIndex(Math.max(south, -90));
+        long maxLat = latIndex(Math.min(north, 90));
+        for (long lat = minLat; lat <= maxLat; lat++) {
+            for (long lon = minLon; lon <= maxLon; lon++) {
+                action.accept(cellKey(lat, lon));
+            }
+        }
+    }
+
+    /**
+     * Το κλειδί του κελιού. Το μήκος γυρίζει γύρω από τον αντιμεσημβρινό, οπότε το 180° είναι το ίδιο κελί με το -180°.
+     */
+    static long cellKey(long latIndex, long lonIndex) {
+        return latIndex * LONGITUDE_CELLS + Math.floorMod(lonIndex, LONGITUDE_CELLS);
+    }
+
+    private static long cellOf(GeoPoint point) {
+        return cellKey(latIndex(point.latitude()), lonIndex(point.longitude()));
+    }
+
+    private static long latIndex(double latitude) {
+        return (long) Math.floor((latitude + 90) / CELL_DEGREES);
+    }
+
+    private static long lonIndex(double longitude) {
+        return (long) Math.floor((longitude + 180) / CELL_DEGREES);
+    }
+}
@@ -0,0 +1,39 @@
+package com.greenride.service.search;
+
+import com.greenride.dto.GeoPoint;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Κύκλος αναζήτησης: "σε απόσταση το πολύ {@code radiusKm} από το {@code center}".
+ */
+public record GeoRadius(GeoPoint center, double radiusKm) {
+
+    public static final double DEFAULT_RADIUS_KM = 5;
+    public static final double MAX_RADIUS_KM = 50;
+
+    /**
+     * Φτιάχνει τον κύκλο από τις παραμέτρους του request.
+     *
+     * @return Τον κύκλο, ή null αν δεν δόθηκαν συντεταγμένες (δηλαδή χωρίς γεωγραφικό φίλτρο)
+     * @throws ResponseStatusException 400 για μισές ή εκτός ορίων συντεταγμένες
+     */
+    public static GeoRadius of(Double latitude, Double longitude, Double radiusKm) {
+        if (latitude == null && longitude == null) {
+            return null;
+        }
+        if (latitude == null || longitude == null
+                || Math.abs(latitude) > 90 || Math.abs(longitude) > 180) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid coordinates.");
+        }
+        double radius = radiusKm == null ? DEFAULT_RADIUS_KM : radiusKm;
+        if (!(radius > 0)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Radius must be positive.");
+        }
+        return new GeoRadius(new GeoPoint(latitude, longitude), Math.min(radius, MAX_RADIUS_KM));
+    }
+
+    boolean contains(GeoPoint point) {
+        return point != null && center.distanceKm(point) <= radiusKm;
+    }
+}
@@ -0,0 +1,348 @@
+package com.greenride.service.search;
+
+import com.greenride.dto.GeoPoint;
+import com.greenride.dto.RidePage;
+import com.greenride.dto.RideView;
+import com.greenride.model.Ride;
+import com.greenride.repository.RideRepository;
+import com.greenride.service.inventory.SeatInventory;
+import com.greenride.service.mapper.RideMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * In-process υλοποίηση του {@link RideSearchEngine}.
+ * <p>
+ * Κρατάμε στη μνήμη ένα snapshot ({@link RideView}) για κάθε διαδρομή και δύο n-gram indexes
+ * (αφετηρία / προορισμός). Έτσι η αναζήτηση δεν αγγίζει καθόλου τη βάση: κάνει lookup στα
+ * postings, τομή των υποψηφίων και τελικό έλεγχο {@code contains} μόνο σε αυτά.
+ * Για την αναζήτηση με ακτίνα υπάρχουν δύο {@link GeoGridIndex} (σημείο επιβίβασης / αποβίβασης)
+ * και ένα {@link RouteSegmentIndex} για διαδρομές που απλά περνάνε από κοντά.
+ * Ένα ταξινομημένο index (departureTime, id) εξυπηρετεί τη σελιδοποίηση με keyset.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "greenride.search.engine", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRideSearchEngine implements RideSearchEngine {
+
+    private final RideRepository rideRepository;
+    private final RideMapper rideMapper;
+    private final SeatInventory seatInventory;
+
+    // Όλη η κατάσταση του index σε ένα αντικείμενο, ώστε το rebuild να την αντικαθιστά ατομικά
+    private volatile IndexState state = new IndexState();
+
+    /* Όσο τρέχει rebuild, κάθε αλλαγή εφαρμόζεται στο τρέχον state και κρατιέται και εδώ, για να ξαναπαιχτεί
+     στο νέο state πριν το swap. null = δεν τρέχει rebuild. Και τα δύο αλλάζουν μόνο με το changesLock. */
+    private final Object changesLock = new Object();
+    private List<Consumer<IndexState>> changesDuringRebuild;
+
+    public InMemoryRideSearchEngine(RideRepository rideRepository, RideMapper rideMapper, SeatInventory seatInventory) {
+        this.rideRepository = rideRepository;
+        this.rideMapper = rideMapper;
+        this.seatInventory = seatInventory;
+    }
+
+    @Override
+    public RidePage search(RideSearchQuery query) {
+        IndexState current = state;
+        String startKey = query.start();
+        String destinationKey = query.destination();
+
+        // Στο corridor query το segment index δίνει ήδη το ακριβές σύνολο, όχι απλά υποψήφιους
+        Set<Long> corridor = query.alongRoute()
+                ? current.routeIndex.matching(query.pickup(), query.dropoff())
+                : null;
+
+        // Το μικρότερο σύνολο υποψηφίων (null = δεν υπάρχει κανένα κριτήριο κειμένου ή τοποθεσίας)
+        Set<Long> candidates = corridor != null
+                ? smallest(current.startIndex.candidates(startKey),
+                        current.destinationIndex.candidates(destinationKey),
+                        corridor)
+                : smallest(current.startIndex.candidates(startKey),
+                        current.destinationIndex.candidates(destinationKey),
+                        current.pickupGrid.candidates(query.pickup()),
+                        current.dropoffGrid.candidates(query.dropoff()));
+
+        int wanted = query.limit() + 1;
+        // Μόνο το κομμάτι του χρονικού παραθύρου που μένει μετά το cursor
+        RideCursor lower = query.lowerBound();
+        RideCursor upper = query.upperBound();
+        if (upper != null && lower.compareTo(upper) >= 0) {
+            return query.toPage(List.of());
+        }
+        NavigableMap<RideCursor, Long> window = upper == null
+                ? current.byDeparture.tailMap(lower, false)
+                : current.byDeparture.subMap(lower, false, upper, true);
+
+        /* Δύο στρατηγικές:
+         - Περπατάμε το ταξινομημένο index από το cursor μέχρι να βρούμε limit+1 αποτελέσματα.
+           Κοστίζει ~ limit * N / m, άρα συμφέρει όταν οι υποψήφιοι (m) είναι πολλοί.
+         - Αλλιώς κρατάμε τα limit+1 μικρότερα από τους υποψηφίους με bounded heap (~ m log limit). */
+        List<RideView> rows;
+        if (candidates == null
+                || (long) candidates.size() * candidates.size() > (long) wanted * current.rides.size()) {
+            rows = new ArrayList<>(wanted);
+            for (Long id : window.values()) {
+                IndexedRide ride = current.rides.get(id);
+                if (ride != null && ride.matches(query, startKey, destinationKey, corridor)) {
+                    rows.add(ride.view());
+                    if (rows.size() == wanted) {
+                        break;
+                    }
+                }
+            }
+        } else {
+            rows = topByDeparture(current, candidates, query, startKey, destinationKey, corridor, wanted);
+        }
+        return query.toPage(rows);
+    }
+
+    @SafeVarargs
+    private static Set<Long> smallest(Set<Long>... sets) {
+        Set<Long> result = null;
+        for (Set<Long> set : sets) {
+            if (set != null && (result == null || set.size() < result.size())) {
+                result = set;
+            }
+        }
+        return result;
+    }
+
+    private static List<RideView> topByDeparture(IndexState current, Set<Long> candidates, RideSearchQuery query,
+                                                 String startKey, String destinationKey, Set<Long> corridor,
+                                                 int wanted) {
+        RideCursor lower = query.lowerBound();
+        RideCursor upper = query.upperBound();
+        // Max-heap: στην κορυφή το "χειρότερο" από όσα κρατάμε, ώστε να πετιέται πρώτο
+        PriorityQueue<IndexedRide> heap = new PriorityQueue<>(wanted + 1, IndexedRide.BY_POSITION.reversed());
+        for (Long id : candidates) {
+            IndexedRide ride = current.rides.get(id);
+            if (ride == null || !ride.matches(query, startKey, destinationKey, corridor)) {
+                continue;
+            }
+            RideCursor position = ride.position();
+            if (position.compareTo(lower) <= 0 || (upper != null && position.compareTo(upper) > 0)) {
+                continue;
+            }
+            heap.offer(ride);
+            if (heap.size() > wanted) {
+                heap.poll();
+            }
+        }
+        List<IndexedRide> sorted = new ArrayList<>(heap);
+        sorted.sort(IndexedRide.BY_POSITION);
+        return sorted.stream().map(IndexedRide::view).toList();
+    }
+
+    @Override
+    public void index(Ride ride) {
+        IndexedRide indexed = toIndexedRide(ride);
+        // Αν το νέο state τη φόρτωσε ήδη από τη βάση, εκείνη η εκδοχή είναι πιο πρόσφατη (π.χ. έχει και κρατήσεις)
+        apply(current -> current.put(indexed), fresh -> {
+            if (!fresh.rides.containsKey(indexed.view().id())) {
+                fresh.put(indexed);
+            }
+        });
+    }
+
+    @Override
+    public void remove(Long rideId) {
+        apply(current -> current.remove(rideId), fresh -> fresh.remove(rideId));
+    }
+
+    @Override
+    public void adjustSeats(Long rideId, int seatDelta) {
+        /* Στο νέο state δεν ξαναπαίζουμε το delta: δεν ξέρουμε αν το διάβασμα της βάσης είδε ήδη την αλλαγή.
+         Παίρνουμε την τρέχουσα τιμή από το seat inventory, που είναι σωστή και στις δύο περιπτώσεις. */
+        apply(current -> current.setSeats(rideId, seats -> seats + seatDelta),
+                fresh -> {
+                    int available = seatInventory.available(rideId);
+                    fresh.setSeats(rideId, seats -> available);
+                });
+    }
+
+    /**
+     * Εφαρμόζει μια αλλαγή στο τρέχον state και, αν τρέχει rebuild, την κρατάει για το νέο.
+     */
+    private void apply(Consumer<IndexState> change, Consumer<IndexState> replay) {
+        synchronized (changesLock) {
+            change.accept(state);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(replay);
+            }
+        }
+    }
+
+    /**
+     * Αρχικό γέμισμα στην εκκίνηση και περιοδικό refresh.
+     * Φορτώνουμε μόνο τις διαδρομές που δεν έχουν φύγει ακόμα: η αναζήτηση δεν δείχνει ποτέ παλιές.
+     * Οι αλλαγές (νέες διαδρομές, διαγραφές, θέσεις) που έρχονται όσο διαβάζουμε τη βάση ξαναπαίζονται
+     * στο νέο state πριν την αντικατάσταση, οπότε δεν χάνεται καμία μέχρι το επόμενο refresh.
+     */
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${greenride.search.rebuild-interval-ms:600000}",
+            initialDelayString = "${greenride.search.rebuild-interval-ms:600000}")
+    public synchronized void rebuild() {
+        synchronized (changesLock) {
+            changesDuringRebuild = new ArrayList<>();
+        }
+        IndexState fresh = new IndexState();
+        try {
+            for (Ride ride : rideRepository.findUpcomingWithDriver(LocalDateTime.now())) {
+                fresh.put(toIndexedRide(ride));
+            }
+            // Ξαναπαίζουμε εκτός lock (το replay των θέσεων ρωτάει το inventory) μέχρι να μη μείνει τίποτα,
+            // και το swap γίνεται κάτω από το lock, ώστε καμία αλλαγή να μην πέσει ανάμεσα
+            while (true) {
+                List<Consumer<IndexState>> replay;
+                synchronized (changesLock) {
+                    if (changesDuringRebuild.isEmpty()) {
+                        state = fresh;
+                        break;
+                    }
+                    replay = changesDuringRebuild;
+                    changesDuringRebuild = new ArrayList<>();
+                }
+                replay.forEach(change -> change.accept(fresh));
+            }
+        } finally {
+            synchronized (changesLock) {
+                changesDuringRebuild = null;
+            }
+        }
+        System.out.println("SEARCH: Indexed " + fresh.rides.size() + " rides in memory.");
+    }
+
+    /**
+     * Κάθε λεπτό πετάμε από το index ό,τι έχει ήδη αναχωρήσει.
+     * Χάρη στη διάταξη κατά departureTime είναι απλά το "κεφάλι" του skip list.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictDeparted() {
+        IndexState current = state;
+        RideCursor now = new RideCursor(LocalDateTime.now(), Long.MIN_VALUE);
+        for (Long id : current.byDeparture.headMap(now).values()) {
+            current.remove(id);
+        }
+    }
+
+    private IndexedRide toIndexedRide(Ride ride) {
+        RideView view = rideMapper.toRideView(ride);
+        return new IndexedRide(view,
+                LocationNormalizer.searchKey(view.startLocation()),
+                LocationNormalizer.searchKey(view.destination()),
+                route(ride, view));
+    }
+
+    /**
+     * Η πορεία της διαδρομής. Χωρίς polyline, αν ξέρουμε αφετηρία και προορισμό, υποθέτουμε ευθεία γραμμή.
+     */
+    private static List<GeoPoint> route(Ride ride, RideView view) {
+        if (ride.getRoutePolyline() != null) {
+            try {
+                return List.copyOf(Polyline.decode(ride.getRoutePolyline()));
+            } catch (IllegalArgumentException e) {
+                System.err.println("SEARCH: Ignoring invalid route polyline of ride " + ride.getId());
+            }
+        }
+        if (view.startPoint() != null && view.destinationPoint() != null) {
+            return List.of(view.startPoint(), view.destinationPoint());
+        }
+        return List.of();
+    }
+
+    /**
+     * Snapshot μιας διαδρομής μαζί με τα κανονικοποιημένα κλειδιά αναζήτησης και την πορεία της.
+     */
+    record IndexedRide(RideView view, String startKey, String destinationKey, List<GeoPoint> route) {
+
+        static final Comparator<IndexedRide> BY_POSITION = Comparator.comparing(IndexedRide::position);
+
+        RideCursor position() {
+            return RideCursor.of(view);
+        }
+
+        boolean matches(RideSearchQuery query, String start, String destination, Set<Long> corridor) {
+            return view.availableSeats() >= query.minSeats()
+                    && startKey.contains(start)
+                    && destinationKey.contains(destination)
+                    && (corridor != null ? corridor.contains(view.id()) : matchesEndpoints(query));
+        }
+
+        private boolean matchesEndpoints(RideSearchQuery query) {
+            return (query.pickup() == null || query.pickup().contains(view.startPoint()))
+                    && (query.dropoff() == null || query.dropoff().contains(view.destinationPoint()));
+        }
+
+        IndexedRide withSeats(int availableSeats) {
+            RideView v = view;
+            return new IndexedRide(
+                    new RideView(v.id(), v.startLocation(), v.destination(), v.departureTime(), availableSeats,
+                            v.driver(), v.startPoint(), v.destinationPoint()),
+                    startKey, destinationKey, route);
+        }
+    }
+
+    private static final class IndexState {
+        final Map<Long, IndexedRide> rides = new ConcurrentHashMap<>();
+        // Μόνο τα IDs: το τρέχον snapshot διαβάζεται πάντα από το rides map
+        final ConcurrentSkipListMap<RideCursor, Long> byDeparture = new ConcurrentSkipListMap<>();
+        final NgramIndex startIndex = new NgramIndex();
+        final NgramIndex destinationIndex = new NgramIndex();
+        final GeoGridIndex pickupGrid = new GeoGridIndex();
+        final GeoGridIndex dropoffGrid = new GeoGridIndex();
+        final RouteSegmentIndex routeIndex = new RouteSegmentIndex();
+
+        void put(IndexedRide ride) {
+            Long id = ride.view().id();
+            IndexedRide previous = rides.put(id, ride);
+            if (previous != null) {
+                unindex(id, previous);
+            }
+            byDeparture.put(ride.position(), id);
+            startIndex.add(id, ride.startKey());
+            destinationIndex.add(id, ride.destinationKey());
+            pickupGrid.add(id, ride.view().startPoint());
+            dropoffGrid.add(id, ride.view().destinationPoint());
+            routeIndex.add(id, ride.route());
+        }
+
+        void setSeats(Long rideId, IntUnaryOperator seats) {
+            rides.computeIfPresent(rideId, (id, ride) -> ride.withSeats(seats.applyAsInt(ride.view().availableSeats())));
+        }
+
+        void remove(Long rideId) {
+            IndexedRide previous = rides.remove(rideId);
+            if (previous != null) {
+                unindex(rideId, previous);
+            }
+        }
+
+        private void unindex(Long id, IndexedRide previous) {
+            byDeparture.remove(previous.position());
+            startIndex.remove(id, previous.startKey());
+            destinationIndex.remove(id, previous.destinationKey());
+            pickupGrid.remove(id, previous.view().startPoint());
+            dropoffGrid.remove(id, previous.view().destinationPoint());
+            routeIndex.remove(id, previous.route());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.greenride.service.search;
+
+import com.greenride.model.Ride;
+import com.greenride.repository.RideRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Συμπληρώνει τα κλειδιά αναζήτησης ({@link LocationNormalizer}) σε διαδρομές που γράφτηκαν πριν υπάρξουν
+ * οι στήλες ή με παλιότερη έκδοση των κλειδιών ({@link LocationNormalizer#KEY_VERSION}).
+ * Τρέχει μία φορά στην εκκίνηση, σε batches, και μετά δεν βρίσκει τίποτα να κάνει.
+ */
+@Component
+public class LocationKeyBackfill {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final RideRepository rideRepository;
+
+    public LocationKeyBackfill(RideRepository rideRepository) {
+        this.rideRepository = rideRepository;
+    }
+
+    @Order(0) // Πριν από το αρχικό γέμισμα του in-memory index
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        int updated = 0;
+        List<Ride> batch;
+        while (!(batch = rideRepository.findByLocationKeyVersionIsNullOrLocationKeyVersionLessThan(
+                LocationNormalizer.KEY_VERSION, Limit.of(BATCH_SIZE))).isEmpty()) {
+            for (Ride ride : batch) {
+                ride.setStartLocationKey(LocationNormalizer.searchKey(ride.getStartLocation()));
+                ride.setDestinationKey(LocationNormalizer.searchKey(ride.getDestination()));
+                ride.setLocationKeyVersion(LocationNormalizer.KEY_VERSION);
+            }
+            rideRepository.saveAll(batch);
+            updated += batch.size();
+        }
+        if (updated > 0) {
+            System.out.println("SEARCH: Backfilled location keys for " + updated + " rides.");
+        }
+    }
+}
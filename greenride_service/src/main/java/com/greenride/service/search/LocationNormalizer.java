@@ -0,0 +1,154 @@
+package com.greenride.service.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Φτιάχνει το "κλειδί αναζήτησης" μιας τοποθεσίας, ώστε τα "Αθήνα", "Athina" και "ATHENS" να γίνονται το ίδιο.
+ * <p>
+ * Τα βήματα:
+ * <ol>
+ *     <li>Αφαίρεση τόνων/διαλυτικών (Unicode NFKD και πέταμα των combining marks) και πεζά</li>
+ *     <li>Μεταγραφή Ελληνικών σε Λατινικά (απλοποιημένο ΕΛΟΤ 743, π.χ. θ → th, ου → ou, αυ → av/af)</li>
+ *     <li>Ό,τι δεν είναι γράμμα ή ψηφίο γίνεται κενό και τα πολλά κενά γίνονται ένα</li>
+ *     <li>Γνωστά ξενόγλωσσα ονόματα πόλεων αντιστοιχίζονται στο ελληνικό (athens → athina)</li>
+ *     <li>Τα διπλά γράμματα γίνονται μονά, γιατί η ορθογραφία τους στα Λατινικά είναι ασυνεπής (Kifissia / Kifisia)</li>
+ * </ol>
+ * Το ίδιο κλειδί υπολογίζεται μία φορά στην εγγραφή της διαδρομής και σε κάθε query, οπότε η σύγκριση
+ * είναι απλό substring πάνω σε έτοιμα strings. Στο κλειδί της διαδρομής ({@link #searchKey}) μπαίνουν επιπλέον
+ * και τα ξενόγλωσσα ονόματα, ώστε να ταιριάζει και ένα μισογραμμένο "Athe".
+ * </p>
+ */
+public final class LocationNormalizer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern DOUBLE_LETTERS = Pattern.compile("(\\p{L})\\1+");
+
+    private static final String VOICELESS = "θκξπσςτφχψ";
+
+    private static final Map<Character, String> GREEK = Map.ofEntries(
+            Map.entry('α', "a"), Map.entry('β', "v"), Map.entry('γ', "g"), Map.entry('δ', "d"),
+            Map.entry('ε', "e"), Map.entry('ζ', "z"), Map.entry('η', "i"), Map.entry('θ', "th"),
+            Map.entry('ι', "i"), Map.entry('κ', "k"), Map.entry('λ', "l"), Map.entry('μ', "m"),
+            Map.entry('ν', "n"), Map.entry('ξ', "x"), Map.entry('ο', "o"), Map.entry('π', "p"),
+            Map.entry('ρ', "r"), Map.entry('σ', "s"), Map.entry('ς', "s"), Map.entry('τ', "t"),
+            Map.entry('υ', "y"), Map.entry('φ', "f"), Map.entry('χ', "ch"), Map.entry('ψ', "ps"),
+            Map.entry('ω', "o"));
+
+    // Ξενόγλωσσα ονόματα (exonyms) -> το κλειδί του ελληνικού ονόματος. Συγκρίνονται ανά λέξη.
+    private static final Map<String, String> EXONYMS = Map.ofEntries(
+            Map.entry("athens", "athina"),
+            Map.entry("athen", "athina"),
+            Map.entry("salonica", "thessaloniki"),
+            Map.entry("salonika", "thessaloniki"),
+            Map.entry("piraeus", "peiraias"),
+            Map.entry("patras", "patra"),
+            Map.entry("corfu", "kerkyra"),
+            Map.entry("crete", "kriti"),
+            Map.entry("rhodes", "rodos"),
+            Map.entry("heraklion", "irakleio"),
+            Map.entry("iraklion", "irakleio"),
+            Map.entry("nauplia", "nafplio"),
+            Map.entry("nafplion", "nafplio"));
+
+    // Το αντίστροφο: κλειδί της ελληνικής λέξης -> τα κλειδιά των ξενόγλωσσων ονομάτων της (τα μεγαλύτερα πρώτα)
+    private static final Map<String, List<String>> ALIASES = aliases();
+
+    /**
+     * Η "έκδοση" των κλειδιών που γράφονται στις διαδρομές. Αλλάζει όταν αλλάζει ο τρόπος που φτιάχνονται,
+     * ώστε το {@link LocationKeyBackfill} να ξαναϋπολογίσει τα κλειδιά των παλιών διαδρομών στην εκκίνηση.
+     * 2: τα ξενόγλωσσα ονόματα μπαίνουν μέσα στο κλειδί.
+     */
+    public static final int KEY_VERSION = 2;
+
+    private LocationNormalizer() {
+    }
+
+    /**
+     * Το κλειδί που αποθηκεύεται για μια διαδρομή: το {@link #normalize} και, για κάθε λέξη με γνωστό ξενόγλωσσο
+     * όνομα, και αυτό (π.χ. "Αθήνα" → "athina athens"). Τα exonyms στο query αναγνωρίζονται μόνο σαν ολόκληρες
+     * λέξεις, οπότε χωρίς αυτό το "Athe" δεν θα έβρισκε την "Αθήνα", ενώ το παλιό {@code lower(...) LIKE} έβρισκε
+     * τουλάχιστον όσες ήταν γραμμένες "Athens".
+     */
+    public static String searchKey(String text) {
+        String key = normalize(text);
+        if (key.isEmpty()) {
+            return key;
+        }
+        StringBuilder searchKey = new StringBuilder(key);
+        for (String word : key.split(" ")) {
+            for (String alias : ALIASES.getOrDefault(word, List.of())) {
+                // Το "athen" είναι ήδη μέσα στο "athens"
+                if (searchKey.indexOf(alias) < 0) {
+                    searchKey.append(' ').append(alias);
+                }
+            }
+        }
+        return searchKey.toString();
+    }
+
+    public static String normalize(String text) {
+        if (text == null || text.isBlank()) {
+            return "";
+        }
+        String folded = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD)).replaceAll("");
+        String latin = transliterate(folded.toLowerCase(Locale.ROOT));
+        String[] words = NON_ALPHANUMERIC.matcher(latin).replaceAll(" ").strip().split(" ");
+
+        StringBuilder key = new StringBuilder(latin.length());
+        for (String word : words) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (!key.isEmpty()) {
+                key.append(' ');
+            }
+            key.append(EXONYMS.getOrDefault(word, word));
+        }
+        return DOUBLE_LETTERS.matcher(key).replaceAll("$1");
+    }
+
+    private static Map<String, List<String>> aliases() {
+        Map<String, List<String>> aliases = new TreeMap<>();
+        EXONYMS.forEach((exonym, target) -> aliases
+                .computeIfAbsent(DOUBLE_LETTERS.matcher(target).replaceAll("$1"), k -> new ArrayList<>())
+                .add(DOUBLE_LETTERS.matcher(exonym).replaceAll("$1")));
+        aliases.values().forEach(names -> names.sort(Comparator.comparingInt(String::length).reversed()
+                .thenComparing(Comparator.naturalOrder())));
+        return Map.copyOf(aliases);
+    }
+
+    private static String transliterate(String text) {
+        StringBuilder out = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            char next = i + 1 < text.length() ? text.charAt(i + 1) : 0;
+
+            if (c == 'ο' && next == 'υ') {
+                out.append("ou");
+                i++;
+            } else if ((c == 'α' || c == 'ε') && next == 'υ') {
+                // αυ/ευ: "f" πριν από άηχο σύμφωνο ή στο τέλος, αλλιώς "v" (Ναύπλιο -> nafplio, Ευρώπη -> evropi)
+                char after = i + 2 < text.length() ? text.charAt(i + 2) : 0;
+                out.append(c == 'α' ? 'a' : 'e')
+                        .append(after == 0 || VOICELESS.indexOf(after) >= 0 ? 'f' : 'v');
+                i++;
+            } else {
+                String mapped = GREEK.get(c);
+                if (mapped != null) {
+                    out.append(mapped);
+                } else {
+                    out.append(c);
+                }
+            }
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,88 @@
+package com.greenride.service.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inverted index από n-grams (μήκους 1 έως {@value #MAX_GRAM}) προς IDs διαδρομών.
+ * <p>
+ * Κάθε κείμενο σπάει σε όλα τα υπο-strings μήκους 1..3. Έτσι ένα query μέχρι 3 χαρακτήρες
+ * απαντιέται με ένα μόνο lookup, ενώ για μεγαλύτερα queries κάνουμε τομή των trigrams του.
+ * Τα αποτελέσματα είναι <b>υποψήφια</b>: ο caller κάνει τον τελικό έλεγχο με {@code contains}.
+ * Τα κείμενα πρέπει να έρχονται ήδη κανονικοποιημένα.
+ * </p>
+ */
+final class NgramIndex {
+
+    static final int MAX_GRAM = 3;
+
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+
+    void add(Long id, String text) {
+        for (String gram : grams(text)) {
+            // compute() ώστε το add να μην "χαθεί" σε set που αφαιρείται ταυτόχρονα από το remove()
+            postings.compute(gram, (g, ids) -> {
+                if (ids == null) {
+                    ids = ConcurrentHashMap.newKeySet();
+                }
+                ids.add(id);
+                return ids;
+            });
+        }
+    }
+
+    void remove(Long id, String text) {
+        for (String gram : grams(text)) {
+            postings.computeIfPresent(gram, (g, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    /**
+     * @return Τα υποψήφια IDs για το query, ή {@code null} αν το query είναι κενό (ταιριάζει με όλα).
+     */
+    Set<Long> candidates(String query) {
+        if (query.isEmpty()) {
+            return null;
+        }
+        if (query.length() <= MAX_GRAM) {
+            Set<Long> ids = postings.get(query);
+            return ids == null ? Set.of() : new HashSet<>(ids);
+        }
+
+        // Ξεκινάμε από το πιο "σπάνιο" trigram ώστε η τομή να μικραίνει όσο πιο γρήγορα γίνεται
+        List<Set<Long>> lists = new ArrayList<>();
+        for (int i = 0; i + MAX_GRAM <= query.length(); i++) {
+            Set<Long> ids = postings.get(query.substring(i, i + MAX_GRAM));
+            if (ids == null || ids.isEmpty()) {
+                return Set.of();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+
+        Set<Long> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int n = 1; n <= MAX_GRAM; n++) {
+            for (int i = 0; i + n <= text.length(); i++) {
+                grams.add(text.substring(i, i + n));
+            }
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,85 @@
+package com.greenride.service.search;
+
+import com.greenride.dto.GeoPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encoder/decoder για το "encoded polyline" format (ακρίβεια 5 δεκαδικών), το ίδιο που επιστρέφουν
+ * οι περισσότερες routing υπηρεσίες (Google, OSRM). Έτσι μια διαδρομή με εκατοντάδες σημεία
+ * χωράει σε ένα σχετικά μικρό string.
+ */
+public final class Polyline {
+
+    public static final int MAX_POINTS = 5000;
+
+    private static final double FACTOR = 1e5;
+
+    private Polyline() {
+    }
+
+    /**
+     * @throws IllegalArgumentException αν το string δεν είναι έγκυρο polyline ή έχει πάνω από {@value #MAX_POINTS} σημεία
+     */
+    public static List<GeoPoint> decode(String encoded) {
+        List<GeoPoint> points = new ArrayList<>();
+        int index = 0;
+        long lat = 0;
+        long lon = 0;
+        while (index < encoded.length()) {
+            long[] next = new long[2];
+            for (int c = 0; c < 2; c++) {
+                long result = 0;
+                int shift = 0;
+                int b;
+                do {
+                    if (index >= encoded.length() || shift > 30) {
+                        throw new IllegalArgumentException("Truncated polyline");
+                    }
+                    b = encoded.charAt(index++) - 63;
+                    if (b < 0 || b > 63) {
+                        throw new IllegalArgumentException("Invalid polyline character");
+                    }
+                    result |= (long) (b & 0x1f) << shift;
+                    shift += 5;
+                } while (b >= 0x20);
+                next[c] = (result & 1) != 0 ? ~(result >> 1) : (result >> 1);
+            }
+            lat += next[0];
+            lon += next[1];
+            if (Math.abs(lat) > 90 * FACTOR || Math.abs(lon) > 180 * FACTOR) {
+                throw new IllegalArgumentException("Polyline point out of range");
+            }
+            points.add(new GeoPoint(lat / FACTOR, lon / FACTOR));
+            if (points.size() > MAX_POINTS) {
+                throw new IllegalArgumentException("Polyline has too many points");
+            }
+        }
+        return points;
+    }
+
+    public static String encode(List<GeoPoint> points) {
+        StringBuilder out = new StringBuilder();
+        long lastLat = 0;
+        long lastLon = 0;
+        for (GeoPoint point : points) {
+            long lat = Math.round(point.latitude() * FACTOR);
+            long lon = Math.round(point.longitude() * FACTOR);
+            encodeValue(lat - lastLat, out);
+            encodeValue(lon - lastLon, out);
+            lastLat = lat;
+            lastLon = lon;
+        }
+        return out.toString();
+    }
+
+    private static void encodeValue(long value, StringBuilder out) {
+        long v = value < 0 ? ~(value << 1) : value << 1;
+        while (v >= 0x20) {
+            out.append((char) ((0x20 | (v & 0x1f)) + 63));
+            v >>= 5;
+        }
+        out.append((char) (v + 63));
+    }
+}
@@ -0,0 +1,48 @@
+package com.greenride.service.search;
+
+import com.greenride.dto.RideView;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Keyset cursor: η θέση (departureTime, id) της τελευταίας διαδρομής που είδε ο client.
+ * Στον client δίνεται σαν αδιαφανές (opaque) Base64 token.
+ */
+public record RideCursor(LocalDateTime departureTime, Long id) implements Comparable<RideCursor> {
+
+    public static RideCursor of(RideView ride) {
+        return new RideCursor(ride.departureTime(), ride.id());
+    }
+
+    /**
+     * @return Το cursor, ή null αν το token είναι κενό (πρώτη σελίδα).
+     */
+    public static RideCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new RideCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor.");
+        }
+    }
+
+    public String encode() {
+        String raw = departureTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public int compareTo(RideCursor other) {
+        int byTime = departureTime.compareTo(other.departureTime);
+        return byTime != 0 ? byTime : id.compareTo(other.id);
+    }
+}
@@ -0,0 +1,141 @@
+package com.greenride.service.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.greenride.dto.RidePage;
+import com.greenride.dto.RideView;
+import com.greenride.service.event.RideChangedEvent;
+import com.greenride.service.mapper.RideMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded cache με τα αποτελέσματα της αναζήτησης, ανά κανονικοποιημένο {@link RideSearchQuery}.
+ * <p>
+ * Ταυτόχρονα misses για το ίδιο query κάνουν <b>ένα</b> load: το {@code Cache.get(key, loader)} του Caffeine
+ * είναι ατομικό ανά κλειδί και οι υπόλοιποι περιμένουν το ίδιο αποτέλεσμα (single-flight).
+ * </p>
+ * <p>
+ * Η ακύρωση είναι στοχευμένη: κρατάμε reverse index {@code rideId -> queries που τη δείχνουν}, οπότε μια
+ * κράτηση/ακύρωση/διαγραφή πετάει μόνο τις σελίδες που περιέχουν τη διαδρομή. Μια νέα διαδρομή
+ * (ή μια διαδρομή που ξαναβρήκε θέσεις) πετάει μόνο τις σελίδες όπου θα μπορούσε να εμφανιστεί.
+ * </p>
+ */
+@Component
+public class RideSearchCache {
+
+    private final Cache<RideSearchQuery, Loaded> cache;
+    private final RideMapper rideMapper;
+
+    // rideId -> (query -> το load που το έβαλε). Με το value ξέρουμε ότι ένα "παλιό" unlink δεν σβήνει νέο link
+    private final Map<Long, Map<RideSearchQuery, Loaded>> queriesByRide = new ConcurrentHashMap<>();
+
+    // Αυξάνεται σε κάθε ακύρωση: αν άλλαξε όσο τρέχει ένα load, το αποτέλεσμά του δεν μένει στο cache
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public RideSearchCache(RideMapper rideMapper,
+                           @Value("${greenride.search.cache.max-entries:10000}") long maxEntries,
+                           @Value("${greenride.search.cache.ttl-seconds:60}") long ttlSeconds) {
+        this(rideMapper, maxEntries, ttlSeconds, ForkJoinPool.commonPool());
+    }
+
+    // Το executor είναι αυτό που τρέχει τον removal listener (στα tests ένα που τον καθυστερεί)
+    RideSearchCache(RideMapper rideMapper, long maxEntries, long ttlSeconds, Executor executor) {
+        this.rideMapper = rideMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .executor(executor)
+                .<RideSearchQuery, Loaded>removalListener((query, loaded, cause) -> unlink(query, loaded))
+                .build();
+    }
+
+    /**
+     * Ένα load της σελίδας. Συγκρίνεται με ταυτότητα (όχι record): δύο loads με ίδιο αποτέλεσμα είναι
+     * διαφορετικά links, οπότε ο removal listener ενός παλιού load, που τρέχει ασύγχρονα και μπορεί να
+     * αργήσει, δεν σβήνει το link του νεότερου.
+     */
+    private static final class Loaded {
+        final RidePage page;
+
+        Loaded(RidePage page) {
+            this.page = page;
+        }
+    }
+
+    public RidePage get(RideSearchQuery query, Function<RideSearchQuery, RidePage> loader) {
+        // Το query είναι ήδη κανονικοποιημένο, οπότε "Αθήνα" και "ATHENS" μοιράζονται το ίδιο entry
+        long before = generation.get();
+        Loaded loaded = cache.get(query, k -> {
+            Loaded fresh = new Loaded(loader.apply(k));
+            link(k, fresh);
+            return fresh;
+        });
+        if (generation.get() != before) {
+            // Κάποια αλλαγή έτρεξε παράλληλα με το load: το αποτέλεσμα ίσως είναι ήδη παλιό
+            cache.asMap().remove(query, loaded);
+        }
+        return loaded.page;
+    }
+
+    /**
+     * Τρέχει μετά τον {@link RideSearchIndexUpdater}, ώστε το επόμενο load να δει ήδη ενημερωμένο index.
+     */
+    @Order(1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRideChanged(RideChangedEvent event) {
+        generation.incrementAndGet();
+        switch (event.type()) {
+            case CREATED -> invalidateWhereVisible(rideMapper.toRideView(event.ride()));
+            case DELETED -> invalidateContaining(event.rideId());
+            case SEATS_CHANGED -> {
+                invalidateContaining(event.rideId());
+                if (event.seatDelta() > 0) {
+                    // Η διαδρομή μπορεί τώρα να περνάει φίλτρα minSeats που πριν την έκοβαν
+                    cache.asMap().keySet().removeIf(query -> query.minSeats() > 0);
+                }
+            }
+        }
+    }
+
+    private void invalidateContaining(Long rideId) {
+        Map<RideSearchQuery, Loaded> queries = queriesByRide.remove(rideId);
+        if (queries != null) {
+            queries.keySet().forEach(cache::invalidate);
+        }
+    }
+
+    private void invalidateWhereVisible(RideView ride) {
+        cache.asMap().entrySet().removeIf(entry -> entry.getKey().couldInclude(ride, entry.getValue().page));
+    }
+
+    private void link(RideSearchQuery query, Loaded loaded) {
+        for (RideView ride : loaded.page.rides()) {
+            queriesByRide.computeIfAbsent(ride.id(), id -> new ConcurrentHashMap<>()).put(query, loaded);
+        }
+    }
+
+    private void unlink(RideSearchQuery query, Loaded loaded) {
+        if (query == null || loaded == null) {
+            return;
+        }
+        for (RideView ride : loaded.page.rides()) {
+            queriesByRide.computeIfPresent(ride.id(), (id, queries) -> {
+                queries.remove(query, loaded);
+                return queries.isEmpty() ? null : queries;
+            });
+        }
+    }
+}
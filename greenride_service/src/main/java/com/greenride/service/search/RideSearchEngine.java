@@ -0,0 +1,34 @@
+package com.greenride.service.search;
+
+import com.greenride.dto.RidePage;
+import com.greenride.model.Ride;
+
+/**
+ * SPI για την αναζήτηση διαδρομών.
+ * <p>
+ * Η υλοποίηση επιλέγεται από το property {@code greenride.search.engine}
+ * ({@code memory} = in-process n-gram index, {@code database} = LIKE queries στη βάση).
+ * Οι μέθοδοι ενημέρωσης καλούνται από τον {@link RideSearchIndexUpdater} μετά το commit.
+ * </p>
+ */
+public interface RideSearchEngine {
+
+    /**
+     * Substring αναζήτηση (case-insensitive) σε αφετηρία και προορισμό.
+     * Κενό κριτήριο σημαίνει "όλες οι διαδρομές". Τα φίλτρα ακτίνας (pickup/dropoff) κρατάνε μόνο
+     * διαδρομές που έχουν συντεταγμένες.
+     * Επιστρέφει το πολύ {@code query.limit()} αποτελέσματα μετά το cursor, σε σειρά (departureTime, id).
+     */
+    RidePage search(RideSearchQuery query);
+
+    void index(Ride ride);
+
+    void remove(Long rideId);
+
+    void adjustSeats(Long rideId, int seatDelta);
+
+    /**
+     * Ξαναφορτώνει όλο το index από τη βάση (safety net για αλλαγές από άλλους κόμβους).
+     */
+    void rebuild();
+}
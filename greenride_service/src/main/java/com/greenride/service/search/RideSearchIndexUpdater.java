@@ -0,0 +1,30 @@
+package com.greenride.service.search;
+
+import com.greenride.service.event.RideChangedEvent;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Κρατάει το {@link RideSearchEngine} συγχρονισμένο με τις αλλαγές στις διαδρομές.
+ * Τρέχει μόνο μετά από επιτυχημένο commit, ώστε ένα rollback να μην αφήνει "φαντάσματα" στο index.
+ */
+@Component
+public class RideSearchIndexUpdater {
+
+    private final RideSearchEngine rideSearchEngine;
+
+    public RideSearchIndexUpdater(RideSearchEngine rideSearchEngine) {
+        this.rideSearchEngine = rideSearchEngine;
+    }
+
+    @Order(0) // Πρώτα ενημερώνεται το index και μετά όποιος άλλος βασίζεται σε αυτό
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRideChanged(RideChangedEvent event) {
+        switch (event.type()) {
+            case CREATED -> rideSearchEngine.index(event.ride());
+            case DELETED -> rideSearchEngine.remove(event.rideId());
+            case SEATS_CHANGED -> rideSearchEngine.adjustSeats(event.rideId(), event.seatDelta());
+        }
+    }
+}
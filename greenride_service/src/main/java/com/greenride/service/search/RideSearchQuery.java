@@ -0,0 +1,153 @@
+package com.greenride.service.search;
+
+import com.greenride.dto.RidePage;
+import com.greenride.dto.RideView;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Τα κριτήρια μιας αναζήτησης διαδρομών μαζί με τη θέση σελιδοποίησης.
+ *
+ * @param start         Substring της αφετηρίας, κανονικοποιημένο με τον {@link LocationNormalizer} (κενό = οποιαδήποτε)
+ * @param destination   Substring του προορισμού, κανονικοποιημένο (κενό = οποιοσδήποτε)
+ * @param departureFrom Κάτω όριο αναχώρησης (ποτέ στο παρελθόν)
+ * @param departureTo   Άνω όριο αναχώρησης (null = χωρίς όριο)
+ * @param minSeats      Ελάχιστες ελεύθερες θέσεις (0 = χωρίς φίλτρο)
+ * @param pickup        Κύκλος γύρω από το σημείο επιβίβασης (null = χωρίς φίλτρο)
+ * @param dropoff       Κύκλος γύρω από το σημείο αποβίβασης (null = χωρίς φίλτρο)
+ * @param alongRoute    Αν true, τα pickup/dropoff ελέγχονται πάνω στην πορεία της διαδρομής (με τη σειρά)
+ *                      και όχι μόνο στην αφετηρία/προορισμό της
+ * @param after         Keyset cursor (null = πρώτη σελίδα)
+ * @param limit         Μέγεθος σελίδας, πάντα μέσα στο [1, {@value #MAX_PAGE_SIZE}]
+ */
+public record RideSearchQuery(String start,
+                              String destination,
+                              LocalDateTime departureFrom,
+                              LocalDateTime departureTo,
+                              int minSeats,
+                              GeoRadius pickup,
+                              GeoRadius dropoff,
+                              boolean alongRoute,
+                              RideCursor after,
+                              int limit) {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    // Σκληρό όριο: κανένας client δεν μπορεί να ζητήσει μεγαλύτερη σελίδα
+    public static final int MAX_PAGE_SIZE = 50;
+    public static final int MAX_FLEX_HOURS = 24;
+
+    public RideSearchQuery {
+        start = normalize(start);
+        destination = normalize(destination);
+        minSeats = Math.max(0, minSeats);
+        limit = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    public static RideSearchQuery of(String start, String destination, String cursor, Integer size) {
+        return of(start, destination, null, null, null, null, cursor, size);
+    }
+
+    public static RideSearchQuery of(String start, String destination,
+                                     LocalDateTime from, LocalDateTime to, Integer flexHours,
+                                     Integer minSeats, String cursor, Integer size) {
+        return of(start, destination, from, to, flexHours, minSeats, null, null, false, cursor, size);
+    }
+
+    /**
+     * Φτιάχνει το query από τις παραμέτρους του request.
+     * <p>
+     * Το χρονικό παράθυρο είναι {@code [from - flex, to + flex]}. Αν δοθεί μόνο {@code from} μαζί με flex,
+     * ψάχνουμε γύρω από εκείνη την ώρα ({@code from ± flex}). Το κάτω όριο δεν πέφτει ποτέ πριν από το "τώρα",
+     * το οποίο στρογγυλεύουμε στο λεπτό ώστε ίδια queries να δίνουν ίδιο κλειδί (π.χ. για caching).
+     * </p>
+     */
+    public static RideSearchQuery of(String start, String destination,
+                                     LocalDateTime from, LocalDateTime to, Integer flexHours,
+                                     Integer minSeats, GeoRadius pickup, GeoRadius dropoff, boolean alongRoute,
+                                     String cursor, Integer size) {
+        if (alongRoute && (pickup == null || dropoff == null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Along-route search needs both pickup and drop-off coordinates.");
+        }
+        int flex = flexHours == null ? 0 : Math.max(0, Math.min(flexHours, MAX_FLEX_HOURS));
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+
+        if (to == null && from != null && flex > 0) {
+            to = from;
+        }
+        LocalDateTime lower = from == null ? now : from.minusHours(flex);
+        if (lower.isBefore(now)) {
+            lower = now;
+        }
+        LocalDateTime upper = to == null ? null : to.plusHours(flex);
+
+        return new RideSearchQuery(start, destination, lower, upper,
+                minSeats == null ? 0 : minSeats,
+                pickup, dropoff, alongRoute,
+                RideCursor.decode(cursor),
+                size == null ? DEFAULT_PAGE_SIZE : size);
+    }
+
+    static String normalize(String text) {
+        return LocationNormalizer.normalize(text);
+    }
+
+    /**
+     * Αν μια διαδρομή που δεν ήταν στη σελίδα {@code page} θα εμφανιζόταν τώρα σε αυτήν.
+     * Είναι συντηρητικό: για corridor queries δεν έχουμε εδώ την πορεία, οπότε απαντάμε "ναι".
+     */
+    boolean couldInclude(RideView ride, RidePage page) {
+        RideCursor position = RideCursor.of(ride);
+        RideCursor upper = upperBound();
+        if (position.compareTo(lowerBound()) <= 0 || (upper != null && position.compareTo(upper) > 0)) {
+            return false;
+        }
+        // Μια γεμάτη σελίδα αλλάζει μόνο αν η διαδρομή μπαίνει πριν από την τελευταία της γραμμή
+        if (page.nextCursor() != null && position.compareTo(RideCursor.decode(page.nextCursor())) > 0) {
+            return false;
+        }
+        if (ride.availableSeats() < minSeats
+                || !LocationNormalizer.searchKey(ride.startLocation()).contains(start)
+                || !LocationNormalizer.searchKey(ride.destination()).contains(destination)) {
+            return false;
+        }
+        return alongRoute
+                || ((pickup == null || pickup.contains(ride.startPoint()))
+                && (dropoff == null || dropoff.contains(ride.destinationPoint())));
+    }
+
+    boolean hasGeoFilter() {
+        return pickup != null || dropoff != null;
+    }
+
+    /**
+     * Το κλειδί (departureTime, id) μετά το οποίο ξεκινάει η σελίδα (exclusive).
+     * Χωρίς cursor είναι η αρχή του παραθύρου με id = MIN_VALUE, άρα πρακτικά inclusive για το departureFrom.
+     */
+    RideCursor lowerBound() {
+        RideCursor windowStart = new RideCursor(departureFrom, Long.MIN_VALUE);
+        return after != null && after.compareTo(windowStart) > 0 ? after : windowStart;
+    }
+
+    /**
+     * Το τελευταίο επιτρεπτό κλειδί (inclusive), ή null αν δεν υπάρχει άνω όριο.
+     */
+    RideCursor upperBound() {
+        return departureTo == null ? null : new RideCursor(departureTo, Long.MAX_VALUE);
+    }
+
+    /**
+     * Οι engines φέρνουν {@code limit + 1} γραμμές: αν υπάρχει η παραπάνω, υπάρχει και επόμενη σελίδα.
+     */
+    RidePage toPage(List<RideView> overfetched) {
+        if (overfetched.size() <= limit) {
+            return new RidePage(overfetched, null);
+        }
+        List<RideView> rides = overfetched.subList(0, limit);
+        return new RidePage(List.copyOf(rides), RideCursor.of(rides.get(limit - 1)).encode());
+    }
+}
@@ -0,0 +1,176 @@
+package com.greenride.service.search;
+
+import com.greenride.dto.GeoPoint;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+
+/**
+ * Χωρικό index από <b>ευθύγραμμα τμήματα</b> διαδρομών, πάνω στο ίδιο πλέγμα με το {@link GeoGridIndex}.
+ * <p>
+ * Κάθε τμήμα (σημείο i → i+1 του polyline) μπαίνει σε όλα τα κελιά από τα οποία περνάει.
+ * Ένα corridor query κοιτάει μόνο τα κελιά γύρω από το σημείο επιβίβασης και αποβίβασης, και για τα
+ * τμήματα που βρίσκει υπολογίζει ακριβώς πού μπαίνει η διαδρομή μέσα στον κύκλο. Έτσι δεν αγγίζουμε
+ * ποτέ ολόκληρη τη γεωμετρία μιας διαδρομής.
+ * </p>
+ */
+final class RouteSegmentIndex {
+
+    /**
+     * Το τμήμα {@code index} της διαδρομής {@code rideId}, από το {@code from} στο {@code to}.
+     */
+    record Segment(Long rideId, int index, GeoPoint from, GeoPoint to) {
+    }
+
+    private final Map<Long, Set<Segment>> cells = new ConcurrentHashMap<>();
+
+    void add(Long id, List<GeoPoint> route) {
+        for (int i = 0; i + 1 < route.size(); i++) {
+            Segment segment = new Segment(id, i, route.get(i), route.get(i + 1));
+            forEachCrossedCell(segment.from(), segment.to(), cell -> cells.compute(cell, (c, segments) -> {
+                if (segments == null) {
+                    segments = ConcurrentHashMap.newKeySet();
+                }
+                segments.add(segment);
+                return segments;
+            }));
+        }
+    }
+
+    void remove(Long id, List<GeoPoint> route) {
+        for (int i = 0; i + 1 < route.size(); i++) {
+            Segment segment = new Segment(id, i, route.get(i), route.get(i + 1));
+            forEachCrossedCell(segment.from(), segment.to(), cell -> cells.computeIfPresent(cell, (c, segments) -> {
+                segments.remove(segment);
+                return segments.isEmpty() ? null : segments;
+            }));
+        }
+    }
+
+    /**
+     * @return Τις διαδρομές που περνάνε πρώτα μέσα από τον κύκλο {@code pickup} και <b>μετά</b> μέσα από τον
+     *         κύκλο {@code dropoff}. Το αποτέλεσμα είναι ακριβές, όχι απλά υποψήφιοι.
+     */
+    Set<Long> matching(GeoRadius pickup, GeoRadius dropoff) {
+        // Για κάθε διαδρομή: η πιο νωρίς θέση (αριθμός τμήματος + κλάσμα) μέσα στον κύκλο επιβίβασης
+        Map<Long, Double> earliestPickup = new HashMap<>();
+        GeoGridIndex.forEachCell(pickup, cell -> {
+            Set<Segment> segments = cells.get(cell);
+            if (segments == null) {
+                return;
+            }
+            for (Segment segment : segments) {
+                double[] inside = insideInterval(segment, pickup);
+                if (inside != null) {
+                    earliestPickup.merge(segment.rideId(), segment.index() + inside[0], Math::min);
+                }
+            }
+        });
+        if (earliestPickup.isEmpty()) {
+            return Set.of();
+        }
+
+        Set<Long> result = new HashSet<>();
+        GeoGridIndex.forEachCell(dropoff, cell -> {
+            Set<Segment> segments = cells.get(cell);
+            if (segments == null) {
+                return;
+            }
+            for (Segment segment : segments) {
+                Double pickupAt = earliestPickup.get(segment.rideId());
+                if (pickupAt == null || result.contains(segment.rideId())) {
+                    continue;
+                }
+                double[] inside = insideInterval(segment, dropoff);
+                if (inside != null && segment.index() + inside[1] >= pickupAt) {
+                    result.add(segment.rideId());
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Το κομμάτι [t1, t2] του τμήματος (με t από 0 έως 1) που βρίσκεται μέσα στον κύκλο, ή null αν δεν τον ακουμπάει.
+     * Προβάλλουμε σε τοπικό επίπεδο γύρω από το κέντρο του κύκλου: για λίγες δεκάδες km το σφάλμα είναι αμελητέο.
+     */
+    private static double[] insideInterval(Segment segment, GeoRadius radius) {
+        GeoPoint center = radius.center();
+        double kmPerLon = GeoGridIndex.KM_PER_DEGREE * Math.cos(Math.toRadians(center.latitude()));
+        double ax = longitudeDelta(center.longitude(), segment.from().longitude()) * kmPerLon;
+        double ay = (segment.from().latitude() - center.latitude()) * GeoGridIndex.KM_PER_DEGREE;
+        double dx = longitudeDelta(segment.from().longitude(), segment.to().longitude()) * kmPerLon;
+        double dy = (segment.to().latitude() - segment.from().latitude()) * GeoGridIndex.KM_PER_DEGREE;
+
+        // |A + t*D|^2 = r^2
+        double a = dx * dx + dy * dy;
+        double b = 2 * (ax * dx + ay * dy);
+        double c = ax * ax + ay * ay - radius.radiusKm() * radius.radiusKm();
+        if (a == 0) {
+            return c <= 0 ? new double[]{0, 1} : null;
+        }
+        double discriminant = b * b - 4 * a * c;
+        if (discriminant < 0) {
+            return null;
+        }
+        double root = Math.sqrt(discriminant);
+        double t1 = (-b - root) / (2 * a);
+        double t2 = (-b + root) / (2 * a);
+        if (t1 > 1 || t2 < 0) {
+            return null;
+        }
+        return new double[]{Math.max(t1, 0), Math.min(t2, 1)};
+    }
+
+    /**
+     * Grid traversal (Amanatides &amp; Woo): περνάει ακριβώς από τα κελιά που διασχίζει το τμήμα,
+     * οπότε ένα μακρύ διαγώνιο τμήμα δεν "γεμίζει" όλο το bounding box του.
+     * Ένα τμήμα που περνάει τον αντιμεσημβρινό πάει από τη σύντομη μεριά, και το cellKey γυρίζει τα κελιά του.
+     */
+    private static void forEachCrossedCell(GeoPoint from, GeoPoint to, LongConsumer action) {
+        double x0 = (from.longitude() + 180) / GeoGridIndex.CELL_DEGREES;
+        double y0 = (from.latitude() + 90) / GeoGridIndex.CELL_DEGREES;
+        double x1 = x0 + longitudeDelta(from.longitude(), to.longitude()) / GeoGridIndex.CELL_DEGREES;
+        double y1 = (to.latitude() + 90) / GeoGridIndex.CELL_DEGREES;
+
+        long cx = (long) Math.floor(x0);
+        long cy = (long) Math.floor(y0);
+        long endX = (long) Math.floor(x1);
+        long endY = (long) Math.floor(y1);
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        int stepX = dx > 0 ? 1 : -1;
+        int stepY = dy > 0 ? 1 : -1;
+        double tDeltaX = dx == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dx);
+        double tDeltaY = dy == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dy);
+        double tMaxX = dx == 0 ? Double.POSITIVE_INFINITY : (dx > 0 ? cx + 1 - x0 : x0 - cx) * tDeltaX;
+        double tMaxY = dy == 0 ? Double.POSITIVE_INFINITY : (dy > 0 ? cy + 1 - y0 : y0 - cy) * tDeltaY;
+
+        action.accept(GeoGridIndex.cellKey(cy, cx));
+        // Κάθε βήμα αλλάζει ακριβώς ένα κελί, άρα χρειαζόμαστε ακριβώς τόσα βήματα
+        long steps = Math.abs(endX - cx) + Math.abs(endY - cy);
+        for (long i = 0; i < steps; i++) {
+            if (tMaxX < tMaxY ? cx != endX : cy == endY) {
+                cx += stepX;
+                tMaxX += tDeltaX;
+            } else {
+                cy += stepY;
+                tMaxY += tDeltaY;
+            }
+            action.accept(GeoGridIndex.cellKey(cy, cx));
+        }
+    }
+
+    /**
+     * Η διαφορά μήκους από το {@code from} στο {@code to} από τη σύντομη μεριά, μέσα στο [-180, 180].
+     */
+    private static double longitudeDelta(double from, double to) {
+        double delta = to - from;
+        return delta > 180 ? delta - 360 : delta < -180 ? delta + 360 : delta;
+    }
+}
@@ -6,4 +6,93 @@ SELECT 'ROLE_USER'
 -- Insert ROLE_ADMIN if it doesn't exist
 INSERT INTO roles (name)
 SELECT 'ROLE_ADMIN'
-    WHERE NOT EXISTS (SELECT 1 FROM roles WHERE name = 'ROLE_ADMIN');
\ No newline at end of file
+    WHERE NOT EXISTS (SELECT 1 FROM roles WHERE name = 'ROLE_ADMIN');
+
+-- Διπλές ενεργές κρατήσεις που πρόλαβαν να γραφτούν πριν από το unique index (το race που κλείνει το index).
+-- Κρατάμε την παλαιότερη (μικρότερο id), ακυρώνουμε τις υπόλοιπες και επιστρέφουμε τις θέσεις τους στη διαδρομή.
+-- Αλλιώς το CREATE UNIQUE INDEX αποτυγχάνει και η εφαρμογή δεν ξεκινάει. Όταν υπάρχει το index δεν βρίσκει τίποτα.
+WITH duplicates AS (
+    UPDATE bookings b SET status = 'CANCELLED'
+    WHERE b.status <> 'CANCELLED'
+      AND EXISTS (SELECT 1 FROM bookings d
+                  WHERE d.ride_id = b.ride_id AND d.passenger_id = b.passenger_id
+                    AND d.status <> 'CANCELLED' AND d.id < b.id)
+    RETURNING b.ride_id, b.seats
+)
+UPDATE rides r SET available_seats = r.available_seats + d.seats
+FROM (SELECT ride_id, sum(seats) AS seats FROM duplicates GROUP BY ride_id) d
+WHERE r.id = d.ride_id;
+
+-- Συνολικές θέσεις για τις διαδρομές πριν από τη στήλη: ό,τι είναι ελεύθερο συν ό,τι είναι κρατημένο (μία φορά).
+UPDATE rides r SET total_seats = r.available_seats
+    + COALESCE((SELECT sum(b.seats) FROM bookings b WHERE b.ride_id = r.id AND b.status <> 'CANCELLED'), 0)
+    + COALESCE((SELECT sum(h.seats) FROM seat_holds h WHERE h.ride_id = r.id AND h.status = 'HELD'), 0)
+WHERE r.total_seats IS NULL;
+
+-- Ένας επιβάτης μπορεί να έχει το πολύ μία ενεργή (μη ακυρωμένη) κράτηση ανά διαδρομή.
+-- Partial unique index: οι ακυρωμένες κρατήσεις δεν μετράνε, οπότε μπορεί να ξανακλείσει μετά από ακύρωση.
+CREATE UNIQUE INDEX IF NOT EXISTS uq_bookings_active_passenger
+    ON bookings (ride_id, passenger_id)
+    WHERE status <> 'CANCELLED';
+
+-- Το πολύ ένα ενεργό hold ανά επιβάτη και διαδρομή (τα ληγμένα/επιβεβαιωμένα δεν μετράνε).
+CREATE UNIQUE INDEX IF NOT EXISTS uq_seat_holds_active_passenger
+    ON seat_holds (ride_id, passenger_id)
+    WHERE status = 'HELD';
+
+-- Για το sweep των holds που έληξαν χωρίς να τα κλείσει κάποιος τροχός (π.χ. ο κόμβος τους έπεσε).
+CREATE INDEX IF NOT EXISTS idx_seat_holds_held_expires
+    ON seat_holds (expires_at)
+    WHERE status = 'HELD';
+
+-- Ένας επιβάτης μπαίνει μία φορά στην ουρά αναμονής κάθε διαδρομής.
+CREATE UNIQUE INDEX IF NOT EXISTS uq_waitlist_active_passenger
+    ON waitlist_entries (ride_id, passenger_id)
+    WHERE status = 'WAITING';
+
+-- Μετρητές ενεργών διαδρομών για τους οδηγούς που δεν έχουν ακόμα (π.χ. διαδρομές πριν από τον μετρητή).
+-- Μετράμε όλες όσες δεν έχουν αφαιρεθεί· όσες έχουν ήδη αναχωρήσει τις αφαιρεί το sweep του DriverRideQuotaService.
+INSERT INTO driver_ride_quotas (driver_id, active_rides)
+SELECT r.driver_id, count(*)
+FROM rides r
+WHERE r.quota_released = false
+GROUP BY r.driver_id
+ON CONFLICT (driver_id) DO NOTHING;
+
+-- Η αναζήτηση κάνει start_location_key / destination_key LIKE '%q%', που ένα btree δεν μπορεί να εξυπηρετήσει.
+-- Trigram GIN indexes (pg_trgm) το κάνουν, για οποιοδήποτε substring από 3 χαρακτήρες και πάνω.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_rides_start_location_key_trgm
+    ON rides USING gin (start_location_key gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_rides_destination_key_trgm
+    ON rides USING gin (destination_key gin_trgm_ops);
+
+-- Τα παλιά btree indexes των κλειδιών δεν τα χρησιμοποιούσε κανένα query
+DROP INDEX IF EXISTS idx_rides_start_location_key;
+DROP INDEX IF EXISTS idx_rides_destination_key;
+
+-- Για το sweep των διαδρομών που αναχώρησαν: μόνο όσες μετράνε ακόμα στο quota.
+CREATE INDEX IF NOT EXISTS idx_rides_quota_pending
+    ON rides (departure_time)
+    WHERE quota_released = false;
+
+-- Τα rides/bookings πήραν IDs από sequences (πριν ήταν IDENTITY). Σε βάση με υπάρχουσες γραμμές το sequence
+-- ξεκινάει από το 1, οπότε το προχωράμε πέρα από το μεγαλύτερο ID. Μόνο προς τα μπρος: δεύτερη εκτέλεση δεν κάνει τίποτα.
+SELECT setval('rides_seq', (SELECT max(id) FROM rides))
+WHERE (SELECT last_value FROM rides_seq) < (SELECT max(id) FROM rides);
+
+SELECT setval('bookings_seq', (SELECT max(id) FROM bookings))
+WHERE (SELECT last_value FROM bookings_seq) < (SELECT max(id) FROM bookings);
+
+-- Για τις υπενθυμίσεις: μόνο οι επιβεβαιωμένες κρατήσεις που δεν έχουν πάρει ακόμα SMS, ανά διαδρομή.
+-- Μαζί με το idx_rides_departure_id τα queries των υπενθυμίσεων δεν αγγίζουν τις παλιές κρατήσεις.
+CREATE INDEX IF NOT EXISTS idx_bookings_reminder_pending
+    ON bookings (ride_id)
+    WHERE status = 'CONFIRMED' AND reminder_sent = false;
+
+-- Ο relay των SMS διαβάζει μόνο τα PENDING με τη σειρά που είναι έτοιμα· τα SENT/FAILED δεν μπαίνουν στο index.
+CREATE INDEX IF NOT EXISTS idx_sms_outbox_pending
+    ON sms_outbox (next_attempt_at, id)
+    WHERE status = 'PENDING';
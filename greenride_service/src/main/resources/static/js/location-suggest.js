@@ -0,0 +1,30 @@
+// Autocomplete τοποθεσιών: κάθε input με data-suggest παίρνει ένα <datalist> από το /locations/suggest
+document.querySelectorAll('input[data-suggest]').forEach(function (input, i) {
+    var list = document.createElement('datalist');
+    list.id = 'location-suggestions-' + i;
+    input.setAttribute('list', list.id);
+    input.after(list);
+
+    var timer = null;
+    input.addEventListener('input', function () {
+        clearTimeout(timer);
+        // Μικρό debounce ώστε να μη στέλνουμε request σε κάθε πλήκτρο
+        timer = setTimeout(function () {
+            var q = input.value.trim();
+            if (!q) {
+                list.replaceChildren();
+                return;
+            }
+            fetch('/locations/suggest?q=' + encodeURIComponent(q))
+                .then(function (res) { return res.ok ? res.json() : []; })
+                .then(function (suggestions) {
+                    list.replaceChildren.apply(list, suggestions.map(function (s) {
+                        var option = document.createElement('option');
+                        option.value = s.location;
+                        return option;
+                    }));
+                })
+                .catch(function () { });
+        }, 150);
+    });
+});
@@ -0,0 +1,157 @@
+package com.greenride.repository;
+
+import com.greenride.model.Booking;
+import com.greenride.model.Ride;
+import com.greenride.model.User;
+import com.greenride.service.cluster.Partition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Τα queries των υπενθυμίσεων και των leases πάνω σε πραγματική PostgreSQL (native SQL, ON CONFLICT,
+ * data-modifying CTE, LOCALTIMESTAMP). Το {@code RideReminderClusterTest} τα έχει σε mock.
+ * Χωρίς Docker το test παραλείπεται.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+class ReminderQueriesPostgresTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private NodeLeaseRepository leaseRepository;
+
+    private final LocalDateTime now = LocalDateTime.now().withNano(0);
+    private User driver;
+    private User maria;
+    private User nikos;
+
+    @BeforeEach
+    void createUsers() {
+        driver = entityManager.persist(new User("driver", "driver@example.com", "secret", "+306900000001"));
+        maria = entityManager.persist(new User("maria", "maria@example.com", "secret", "+306900000002"));
+        nikos = entityManager.persist(new User("nikos", "nikos@example.com", "secret", "+306900000003"));
+    }
+
+    @Test
+    void pendingRemindersAreTheUnsentConfirmedBookingsOfTheWindow() {
+        Ride soon = ride("Patra", now.plusMinutes(30));
+        Ride later = ride("Volos", now.plusHours(3));
+        Ride outside = ride("Kalamata", now.plusHours(10));
+        Ride departed = ride("Larisa", now.minusMinutes(5));
+        Booking dueSoon = booking(soon, maria, "CONFIRMED", false);
+        Booking dueLater = booking(later, maria, "CONFIRMED", false);
+        booking(soon, nikos, "CANCELLED", false);
+        booking(later, nikos, "CONFIRMED", true);
+        booking(outside, maria, "CONFIRMED", false);
+        booking(departed, maria, "CONFIRMED", false);
+        entityManager.flush();
+
+        List<BookingRepository.PendingReminder> pending =
+                bookingRepository.findPendingReminders(now, now.plusHours(7), 0, 1);
+
+        assertThat(pending).extracting(BookingRepository.PendingReminder::getBookingId)
+                .containsExactlyInAnyOrder(dueSoon.getId(), dueLater.getId());
+    }
+
+    @Test
+    void pendingRemindersAreSplitByRidePartition() {
+        List<Long> bookingIds = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            bookingIds.add(booking(ride("Patra", now.plusHours(1)), maria, "CONFIRMED", false).getId());
+        }
+        entityManager.flush();
+
+        // Το hash της βάσης είναι ακριβώς αυτό του Partition.owns
+        for (int partitions : new int[]{2, 5}) {
+            List<Long> all = new ArrayList<>();
+            for (int partition = 0; partition < partitions; partition++) {
+                for (BookingRepository.PendingReminder reminder :
+                        bookingRepository.findPendingReminders(now, now.plusHours(2), partition, partitions)) {
+                    assertThat(Partition.bucket(reminder.getRideId(), partitions)).isEqualTo(partition);
+                    all.add(reminder.getBookingId());
+                }
+            }
+            assertThat(all).containsExactlyInAnyOrderElementsOf(bookingIds);
+        }
+    }
+
+    @Test
+    void reminderIsClaimedOnceAndOnlyForConfirmedBookingsOfRidesNotYetDeparted() {
+        Booking confirmed = booking(ride("Patra", now.plusMinutes(30)), maria, "CONFIRMED", false);
+        Booking cancelled = booking(ride("Volos", now.plusMinutes(30)), maria, "CANCELLED", false);
+        Booking departed = booking(ride("Larisa", now.minusMinutes(5)), maria, "CONFIRMED", false);
+        entityManager.flush();
+
+        assertThat(bookingRepository.claimReminder(confirmed.getId(), now)).hasValueSatisfying(reminder -> {
+            assertThat(reminder.getBookingId()).isEqualTo(confirmed.getId());
+            assertThat(reminder.getUsername()).isEqualTo("maria");
+            assertThat(reminder.getPhoneNumber()).isEqualTo("+306900000002");
+            assertThat(reminder.getDestination()).isEqualTo("Patra");
+        });
+        // Δεύτερος κόμβος με την ίδια κράτηση: το UPDATE δεν βρίσκει πια γραμμή
+        assertThat(bookingRepository.claimReminder(confirmed.getId(), now)).isEmpty();
+        assertThat(bookingRepository.claimReminder(cancelled.getId(), now)).isEmpty();
+        assertThat(bookingRepository.claimReminder(departed.getId(), now)).isEmpty();
+
+        assertThat(bookingRepository.findPendingReminders(now, now.plusHours(7), 0, 1)).isEmpty();
+    }
+
+    @Test
+    void liveNodesAreTheUnexpiredLeasesInIdOrder() {
+        leaseRepository.renew("node-b", 30);
+        leaseRepository.renew("node-a", 30);
+        // Ανανέωση υπάρχοντος lease (ON CONFLICT), όχι δεύτερη γραμμή
+        leaseRepository.renew("node-a", 30);
+        // Lease που λήγει αμέσως (expires_at = LOCALTIMESTAMP): δεν είναι πια ζωντανός
+        leaseRepository.renew("node-c", 0);
+
+        assertThat(leaseRepository.findLiveNodeIds()).containsExactly("node-a", "node-b");
+        assertThat(leaseRepository.deleteExpired()).isEqualTo(1);
+        assertThat(leaseRepository.count()).isEqualTo(2);
+
+        leaseRepository.release("node-a");
+        assertThat(leaseRepository.findLiveNodeIds()).containsExactly("node-b");
+    }
+
+    private Ride ride(String destination, LocalDateTime departureTime) {
+        Ride ride = new Ride();
+        ride.setStartLocation("Athens");
+        ride.setDestination(destination);
+        ride.setDepartureTime(departureTime);
+        ride.setAvailableSeats(3);
+        ride.setDriver(driver);
+        return entityManager.persist(ride);
+    }
+
+    private Booking booking(Ride ride, User passenger, String status, boolean reminderSent) {
+        Booking booking = new Booking();
+        booking.setRide(ride);
+        booking.setPassenger(passenger);
+        booking.setStatus(status);
+        booking.setReminderSent(reminderSent);
+        booking.setBookingTime(now.minusDays(1));
+        return entityManager.persist(booking);
+    }
+}
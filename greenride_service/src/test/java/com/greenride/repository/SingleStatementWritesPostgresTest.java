@@ -0,0 +1,251 @@
+package com.greenride.repository;
+
+import com.greenride.model.Booking;
+import com.greenride.model.Ride;
+import com.greenride.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Οι κρατήσεις και οι δημιουργίες διαδρομών σε ένα statement (data-modifying CTE) πάνω σε πραγματική PostgreSQL:
+ * κάθε κωδικός αποτελέσματος, και τα races που κλείνουν (τελευταία θέση, όριο ενεργών διαδρομών).
+ * Χωρίς το transaction του test, ώστε κάθε "request" να κάνει δικό του commit όπως στην εφαρμογή.
+ * Χωρίς Docker το test παραλείπεται.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class SingleStatementWritesPostgresTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private RideRepository rideRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private final LocalDateTime now = LocalDateTime.now().withNano(0);
+    private User driver;
+    private int users;
+
+    @BeforeEach
+    void createDriver() {
+        transaction = new TransactionTemplate(transactionManager);
+        driver = user("driver");
+    }
+
+    @AfterEach
+    void deleteEverything() {
+        jdbcTemplate.execute("TRUNCATE bookings, seat_holds, waitlist_entries, rides, driver_ride_quotas, users CASCADE");
+    }
+
+    @Test
+    void bookingTakesTheSeatsAndReturnsTheNewBooking() {
+        Ride ride = ride(3);
+        user("maria");
+
+        BookingRepository.BookingResult result = book(ride, "maria", 2);
+
+        assertThat(result.getCode()).isEqualTo("OK");
+        assertThat(result.getBookingId()).isNotNull();
+        assertThat(result.getDepartureTime()).isEqualTo(ride.getDepartureTime());
+        assertThat(availableSeats(ride)).isEqualTo(1);
+        Booking booking = bookingRepository.findById(result.getBookingId()).orElseThrow();
+        assertThat(booking.getStatus()).isEqualTo("CONFIRMED");
+        assertThat(booking.getSeats()).isEqualTo(2);
+    }
+
+    @Test
+    void everyRejectedBookingLeavesTheSeatsAlone() {
+        Ride ride = ride(2);
+        user("maria");
+        user("nikos");
+        assertThat(book(ride, "maria", 1).getCode()).isEqualTo("OK");
+
+        assertThat(book(ride, "nikos", 2).getCode()).isEqualTo("FULL");
+        assertThat(book(ride, "maria", 1).getCode()).isEqualTo("DUPLICATE");
+        assertThat(book(ride, "driver", 1).getCode()).isEqualTo("OWN_RIDE");
+        assertThat(bookingRepository.bookInOneStatement(-1L, "nikos", 1, now).getCode()).isEqualTo("RIDE_NOT_FOUND");
+        assertThat(book(ride, "nobody", 1).getCode()).isEqualTo("USER_NOT_FOUND");
+
+        assertThat(availableSeats(ride)).isEqualTo(1);
+        assertThat(bookingRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentBookingsGetTheLastSeatOnce() throws Exception {
+        Ride ride = ride(1);
+        List<Callable<String>> bookings = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            String passenger = user("passenger" + i).getUsername();
+            bookings.add(() -> transaction.execute(status -> book(ride, passenger, 1).getCode()));
+        }
+
+        List<String> codes = runTogether(bookings);
+
+        assertThat(codes).containsOnlyOnce("OK");
+        assertThat(codes).filteredOn(code -> !code.equals("OK")).hasSize(THREADS - 1).containsOnly("FULL");
+        assertThat(availableSeats(ride)).isZero();
+        assertThat(bookingRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentDuplicateBookingIsRolledBackWithItsSeat() throws Exception {
+        Ride ride = ride(5);
+        user("maria");
+        List<Callable<String>> bookings = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            bookings.add(() -> transaction.execute(status -> {
+                String code = book(ride, "maria", 1).getCode();
+                // Όπως το BookingService: κάθε κωδικός εκτός από OK γίνεται exception, άρα rollback
+                if (!code.equals("OK")) {
+                    status.setRollbackOnly();
+                }
+                return code;
+            }));
+        }
+
+        List<String> codes = runTogether(bookings);
+
+        assertThat(codes).containsOnlyOnce("OK");
+        assertThat(codes).filteredOn(code -> !code.equals("OK")).containsOnly("DUPLICATE");
+        assertThat(availableSeats(ride)).isEqualTo(4);
+    }
+
+    @Test
+    void rideCreationCountsTheDriverQuota() {
+        RideRepository.CreateRideResult result = create("driver", 5);
+
+        assertThat(result.getCode()).isEqualTo("OK");
+        assertThat(result.getDriverId()).isEqualTo(driver.getId());
+        assertThat(result.getDriverEmail()).isEqualTo("driver@example.com");
+        Ride ride = rideRepository.findById(result.getRideId()).orElseThrow();
+        assertThat(ride.getAvailableSeats()).isEqualTo(3);
+        assertThat(ride.getTotalSeats()).isEqualTo(3);
+        assertThat(ride.getStartLocationKey()).isEqualTo("athina");
+        assertThat(activeRides(driver)).isEqualTo(1);
+
+        assertThat(create("nobody", 5).getCode()).isEqualTo("DRIVER_NOT_FOUND");
+    }
+
+    @Test
+    void rideCreationStopsAtTheActiveRideLimit() {
+        assertThat(create("driver", 2).getCode()).isEqualTo("OK");
+        assertThat(create("driver", 2).getCode()).isEqualTo("OK");
+
+        RideRepository.CreateRideResult result = create("driver", 2);
+
+        assertThat(result.getCode()).isEqualTo("TOO_MANY_ACTIVE");
+        assertThat(result.getRideId()).isNull();
+        assertThat(rideRepository.count()).isEqualTo(2);
+        assertThat(activeRides(driver)).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentCreatesNeverPassTheActiveRideLimit() throws Exception {
+        List<Callable<String>> creates = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            creates.add(() -> transaction.execute(status -> create("driver", 3).getCode()));
+        }
+
+        List<String> codes = runTogether(creates);
+
+        assertThat(codes).filteredOn("OK"::equals).hasSize(3);
+        assertThat(codes).filteredOn(code -> !code.equals("OK")).containsOnly("TOO_MANY_ACTIVE");
+        assertThat(rideRepository.count()).isEqualTo(3);
+        assertThat(activeRides(driver)).isEqualTo(3);
+    }
+
+    private BookingRepository.BookingResult book(Ride ride, String username, int seats) {
+        return bookingRepository.bookInOneStatement(ride.getId(), username, seats, now);
+    }
+
+    private RideRepository.CreateRideResult create(String username, int maxActive) {
+        return rideRepository.createInOneStatement(username, maxActive, "Αθήνα", "Πάτρα", "athina", "patra",
+                now.plusDays(1), 3, null, null, null, null, null, 2);
+    }
+
+    // Όλες οι εργασίες ξεκινάνε μαζί, η καθεμία στο δικό της thread και transaction
+    private static List<String> runTogether(List<Callable<String>> tasks) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (Callable<String> task : tasks) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<String> codes = new ArrayList<>();
+            for (Future<String> result : results) {
+                codes.add(result.get());
+            }
+            return codes;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private User user(String username) {
+        String phone = String.format("+3069%08d", users++);
+        return userRepository.save(new User(username, username + "@example.com", "secret", phone));
+    }
+
+    private Ride ride(int seats) {
+        Ride ride = new Ride();
+        ride.setStartLocation("Athens");
+        ride.setDestination("Patra");
+        ride.setDepartureTime(now.plusDays(1));
+        ride.setAvailableSeats(seats);
+        ride.setTotalSeats(seats);
+        ride.setDriver(driver);
+        return rideRepository.save(ride);
+    }
+
+    private int availableSeats(Ride ride) {
+        return jdbcTemplate.queryForObject("SELECT available_seats FROM rides WHERE id = ?", Integer.class, ride.getId());
+    }
+
+    private int activeRides(User user) {
+        return jdbcTemplate.queryForObject("SELECT active_rides FROM driver_ride_quotas WHERE driver_id = ?",
+                Integer.class, user.getId());
+    }
+}
@@ -0,0 +1,203 @@
+package com.greenride.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.greenride.dto.RideImportReport;
+import com.greenride.model.Ride;
+import com.greenride.model.User;
+import com.greenride.repository.DriverRideQuotaRepository;
+import com.greenride.repository.RideRepository;
+import com.greenride.repository.UserRepository;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Το parsing (CSV και NDJSON) και η αποθήκευση σε κομμάτια, με τα repositories σε mock:
+ * ό,τι "γράφεται" μαζεύεται στη λίστα {@code saved}.
+ */
+class RideImportServiceTest {
+
+    private static final String DEPARTURE = LocalDateTime.now().plusDays(3).withNano(0).toString();
+
+    private final RideRepository rideRepository = mock(RideRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final DriverRideQuotaRepository quotaRepository = mock(DriverRideQuotaRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final ValidatorFactory validation = Validation.buildDefaultValidatorFactory();
+
+    private final RideImportService service = new RideImportService(rideRepository, userRepository, quotaRepository,
+            eventPublisher, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+            validation.getValidator(), new ObjectMapper().findAndRegisterModules());
+
+    // Οι διαδρομές των transactions που έγιναν commit
+    private final List<Ride> saved = new CopyOnWriteArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    RideImportServiceTest() {
+        User nikos = new User("nikos", "nikos@example.com", "secret", "+306900000001");
+        nikos.setId(1L);
+        when(userRepository.findByUsername(anyString())).thenReturn(Optional.empty());
+        when(userRepository.findByUsername("nikos")).thenReturn(Optional.of(nikos));
+        // Σαν τη βάση: το id έρχεται από το sequence, και μια διαδρομή "Broken" παραβιάζει κάποιο constraint
+        when(rideRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Ride> rides = invocation.getArgument(0);
+            for (Ride ride : rides) {
+                assertThat(ride.getId()).as("new ride without id").isNull();
+                ride.setId(sequence.incrementAndGet());
+            }
+            if (rides.stream().anyMatch(ride -> ride.getStartLocation().equals("Broken"))) {
+                throw new DataIntegrityViolationException("value too long for type character varying(255)");
+            }
+            saved.addAll(rides);
+            return rides;
+        });
+    }
+
+    @AfterEach
+    void closeValidation() {
+        validation.close();
+    }
+
+    @Test
+    void splitsPlainAndQuotedCsvFields() {
+        assertThat(RideImportService.splitCsv("nikos,Athens,Patra")).containsExactly("nikos", "Athens", "Patra");
+        assertThat(RideImportService.splitCsv("a,,c,")).containsExactly("a", "", "c", "");
+        assertThat(RideImportService.splitCsv("\"Athens, Syntagma\",Patra"))
+                .containsExactly("Athens, Syntagma", "Patra");
+        assertThat(RideImportService.splitCsv("\"say \"\"hi\"\"\",x")).containsExactly("say \"hi\"", "x");
+        assertThat(RideImportService.splitCsv("")).containsExactly("");
+        assertThatThrownBy(() -> RideImportService.splitCsv("\"Athens,Patra"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Unterminated quoted field");
+    }
+
+    @Test
+    void importsValidCsvRowsAndReportsTheRestByLine() throws IOException {
+        String csv = String.join("\n",
+                "driver,destination,startLocation,departureTime,availableSeats,startLatitude",
+                "nikos,Patra,Athens," + DEPARTURE + ",3,37.98",
+                "",
+                "nikos,\"Thessaloniki, KTEL\",Larisa," + DEPARTURE + ",2,",
+                "nikos,Patra,Athens," + DEPARTURE + ",many,",
+                "maria,Patra,Athens," + DEPARTURE + ",3,",
+                "nikos,Patra,Athens,2020-01-01T10:00,3,",
+                "nikos,Patra");
+
+        RideImportReport report = service.importCsv(stream(csv));
+
+        assertThat(report.imported()).isEqualTo(2);
+        assertThat(report.failed()).isEqualTo(4);
+        assertThat(report.errorsTruncated()).isFalse();
+        assertThat(report.errors()).extracting(RideImportReport.RowError::line).containsExactly(5L, 6L, 7L, 8L);
+        assertThat(report.errors().get(0).message()).isEqualTo("Invalid availableSeats: many");
+        assertThat(report.errors().get(1).message()).isEqualTo("Driver not found: maria");
+        // Τα μηνύματα του Bean Validation εξαρτώνται από το locale: ελέγχουμε μόνο το πεδίο
+        assertThat(report.errors().get(2).message()).startsWith("departureTime ");
+        assertThat(report.errors().get(3).message()).isEqualTo("Expected 6 fields but found 2");
+
+        assertThat(saved).extracting(Ride::getStartLocation, Ride::getDestination, Ride::getAvailableSeats,
+                Ride::getStartLatitude).containsExactly(
+                tuple("Athens", "Patra", 3, 37.98),
+                tuple("Larisa", "Thessaloniki, KTEL", 2, null));
+        verify(quotaRepository).addActiveRides(1L, 2);
+    }
+
+    @Test
+    void rejectsCsvWithUnknownOrMissingColumns() {
+        assertThatThrownBy(() -> service.importCsv(stream("driver,startLocation,destination,departureTime,seats")))
+                .isInstanceOfSatisfying(ResponseStatusException.class, e -> {
+                    assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+                    assertThat(e.getReason()).startsWith("Unknown CSV columns: [seats]");
+                });
+        assertThatThrownBy(() -> service.importCsv(stream("driver,startLocation,destination")))
+                .isInstanceOfSatisfying(ResponseStatusException.class, e ->
+                        assertThat(e.getReason()).isEqualTo("Missing CSV columns: [departureTime, availableSeats]"));
+        assertThatThrownBy(() -> service.importCsv(stream("")))
+                .isInstanceOfSatisfying(ResponseStatusException.class, e ->
+                        assertThat(e.getReason()).isEqualTo("The CSV file is empty."));
+    }
+
+    @Test
+    void importsNdjsonRows() throws IOException {
+        String ndjson = String.join("\n",
+                "{\"driver\":\"nikos\",\"startLocation\":\"Athens\",\"destination\":\"Patra\","
+                        + "\"departureTime\":\"" + DEPARTURE + "\",\"availableSeats\":3}",
+                "{\"driver\":\"nikos\",\"startLocation\":\"Athens\"",
+                "null",
+                "{\"driver\":\"nikos\",\"startLocation\":\"\",\"destination\":\"Patra\","
+                        + "\"departureTime\":\"" + DEPARTURE + "\",\"availableSeats\":0}",
+                "{\"startLocation\":\"Athens\",\"destination\":\"Patra\","
+                        + "\"departureTime\":\"" + DEPARTURE + "\",\"availableSeats\":1}");
+
+        RideImportReport report = service.importNdjson(stream(ndjson));
+
+        assertThat(report.imported()).isEqualTo(1);
+        assertThat(report.errors()).extracting(RideImportReport.RowError::line).containsExactly(2L, 3L, 4L, 5L);
+        assertThat(report.errors().get(0).message()).startsWith("Invalid JSON: ");
+        assertThat(report.errors().get(1).message()).isEqualTo("Expected a JSON object");
+        assertThat(report.errors().get(2).message()).startsWith("availableSeats ").contains("; startLocation ");
+        assertThat(report.errors().get(3).message()).isEqualTo("driver must not be blank");
+        assertThat(saved).extracting(Ride::getStartLocation).containsExactly("Athens");
+    }
+
+    @Test
+    void failedChunkIsRetriedRowByRowSoOnlyTheBadRowIsRejected() throws IOException {
+        String csv = String.join("\n",
+                "driver,startLocation,destination,departureTime,availableSeats",
+                "nikos,Athens,Patra," + DEPARTURE + ",3",
+                "nikos,Broken,Patra," + DEPARTURE + ",3",
+                "nikos,Larisa,Volos," + DEPARTURE + ",3");
+
+        RideImportReport report = service.importCsv(stream(csv));
+
+        assertThat(report.imported()).isEqualTo(2);
+        assertThat(report.errors()).containsExactly(new RideImportReport.RowError(3L,
+                "Could not save ride: value too long for type character varying(255)"));
+        assertThat(saved).extracting(Ride::getStartLocation).containsExactly("Athens", "Larisa");
+        // Ο μετρητής του οδηγού ανεβαίνει μόνο στα transactions που πέτυχαν (ένα ανά γραμμή στο retry)
+        verify(quotaRepository, times(2)).addActiveRides(1L, 1);
+        verify(quotaRepository, never()).addActiveRides(1L, 3);
+    }
+
+    @Test
+    void nothingIsSavedWhenEveryRowIsInvalid() throws IOException {
+        RideImportReport report = service.importNdjson(stream("{}\n{}"));
+
+        assertThat(report.imported()).isZero();
+        assertThat(report.failed()).isEqualTo(2);
+        verify(rideRepository, never()).saveAll(any());
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,321 @@
+package com.greenride.service;
+
+import com.greenride.repository.BookingRepository;
+import com.greenride.repository.NodeLeaseRepository;
+import com.greenride.service.cluster.ClusterMembership;
+import com.greenride.service.cluster.Partition;
+import com.greenride.service.event.BookingChangedEvent;
+import com.greenride.service.event.ClusterPartitionChangedEvent;
+import com.greenride.service.outbox.SmsOutbox;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Δύο κόμβοι στο ίδιο process, με κοινή "βάση" στη μνήμη (leases και κρατήσεις):
+ * κάθε υπενθύμιση στέλνεται μία φορά και η δουλειά μοιράζεται ανάμεσά τους.
+ */
+class RideReminderClusterTest {
+
+    private static final int RIDES = 100;
+    private static final int BOOKINGS_PER_RIDE = 3;
+    private static final Duration SWEEP_INTERVAL = Duration.ofMinutes(15);
+
+    // Η κοινή κατάσταση, όπως θα ήταν στην PostgreSQL
+    private final Map<String, LocalDateTime> leases = new ConcurrentHashMap<>();
+    private final Map<Long, Long> bookingRides = new ConcurrentHashMap<>();
+    private final Map<Long, LocalDateTime> departures = new ConcurrentHashMap<>();
+    private final Set<Long> reminded = ConcurrentHashMap.newKeySet();
+    private final List<String> sentSms = new CopyOnWriteArrayList<>();
+
+    private final NodeLeaseRepository leaseRepository = mock(NodeLeaseRepository.class);
+    private final List<Node> nodes = new ArrayList<>();
+
+    private final class Node {
+        final ClusterMembership membership;
+        final RideReminderService reminders;
+        // Για ποιες κρατήσεις προσπάθησε ο κόμβος να στείλει υπενθύμιση
+        final List<Long> claimed = new CopyOnWriteArrayList<>();
+
+        Node() {
+            AtomicReference<RideReminderService> self = new AtomicReference<>();
+            membership = new ClusterMembership(leaseRepository, event -> {
+                if (event instanceof ClusterPartitionChangedEvent changed && self.get() != null) {
+                    self.get().onPartitionChanged(changed);
+                }
+            }, 30);
+            reminders = new RideReminderService(bookingRepository(), smsOutbox(),
+                    new TransactionTemplate(mock(PlatformTransactionManager.class)), membership, 6,
+                    SWEEP_INTERVAL.toMillis());
+            self.set(reminders);
+            nodes.add(this);
+        }
+
+        // Το ίδιο "SQL" με το BookingRepository, πάνω στην κοινή κατάσταση
+        private BookingRepository bookingRepository() {
+            BookingRepository repository = mock(BookingRepository.class);
+            when(repository.findPendingReminders(any(), any(), anyInt(), anyInt())).thenAnswer(invocation -> {
+                LocalDateTime from = invocation.getArgument(0);
+                LocalDateTime to = invocation.getArgument(1);
+                int partition = invocation.getArgument(2);
+                int partitions = invocation.getArgument(3);
+                List<BookingRepository.PendingReminder> pending = new ArrayList<>();
+                bookingRides.forEach((bookingId, rideId) -> {
+                    LocalDateTime departure = departures.get(rideId);
+                    if (!reminded.contains(bookingId) && departure.isAfter(from) && !departure.isAfter(to)
+                            && Partition.bucket(rideId, partitions) == partition) {
+                        pending.add(pendingReminder(bookingId, rideId, departure));
+                    }
+                });
+                return pending;
+            });
+            when(repository.claimReminder(any(), any())).thenAnswer(invocation -> {
+                Long bookingId = invocation.getArgument(0);
+                claimed.add(bookingId);
+                // Το conditional UPDATE: μόνο ο πρώτος κερδίζει
+                return reminded.add(bookingId) ? Optional.of(dueReminder(bookingId)) : Optional.empty();
+            });
+            return repository;
+        }
+
+        private SmsOutbox smsOutbox() {
+            SmsOutbox outbox = mock(SmsOutbox.class);
+            doAnswer(invocation -> sentSms.add(invocation.getArgument(0)))
+                    .when(outbox).enqueue(anyString(), anyString());
+            return outbox;
+        }
+
+        void stop() {
+            reminders.stop();
+            membership.leave();
+        }
+    }
+
+    RideReminderClusterTest() {
+        doAnswer(invocation -> leases.put(invocation.getArgument(0), LocalDateTime.now().plusSeconds(30)))
+                .when(leaseRepository).renew(anyString(), anyInt());
+        doAnswer(invocation -> leases.remove(invocation.getArgument(0)))
+                .when(leaseRepository).release(anyString());
+        when(leaseRepository.findLiveNodeIds()).thenAnswer(invocation -> leases.entrySet().stream()
+                .filter(lease -> lease.getValue().isAfter(LocalDateTime.now()))
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList());
+    }
+
+    @AfterEach
+    void stopNodes() {
+        nodes.forEach(Node::stop);
+    }
+
+    @Test
+    void twoNodesSendEveryReminderOnceAndSplitTheWork() throws InterruptedException {
+        // Αναχώρηση σε 30 λεπτά: οι υπενθυμίσεις έχουν ήδη λήξει και φεύγουν στο επόμενο tick
+        createBookings(LocalDateTime.now().plusMinutes(30));
+        Node first = new Node();
+        Node second = new Node();
+        startCluster(first, second);
+
+        // Μέχρι να αδειάσουν και οι δύο τροχοί: κάθε κόμβος έχει προσπαθήσει για όλες τις κρατήσεις που κρατούσε
+        waitUntil(() -> reminded.size() == RIDES * BOOKINGS_PER_RIDE
+                && first.reminders.scheduledBookings().isEmpty()
+                && second.reminders.scheduledBookings().isEmpty());
+
+        assertThat(sentSms).hasSize(RIDES * BOOKINGS_PER_RIDE).doesNotHaveDuplicates();
+        // Κάθε κράτηση τη χειρίστηκε ένας μόνο κόμβος, και ο καθένας μόνο τις διαδρομές του partition του
+        assertThat(first.claimed).isNotEmpty().doesNotContainAnyElementsOf(second.claimed);
+        assertThat(second.claimed).isNotEmpty();
+        assertThat(first.claimed.size() + second.claimed.size()).isEqualTo(RIDES * BOOKINGS_PER_RIDE);
+        first.claimed.forEach(bookingId ->
+                assertThat(first.membership.partition().owns(bookingRides.get(bookingId))).isTrue());
+        second.claimed.forEach(bookingId ->
+                assertThat(second.membership.partition().owns(bookingRides.get(bookingId))).isTrue());
+    }
+
+    @Test
+    void ridesFromTheSequenceAreSpreadOverEveryNode() throws InterruptedException {
+        // Όπως τα δίνει το rides_seq (INCREMENT 50): όλα τα ids έχουν το ίδιο υπόλοιπο mod 50,
+        // οπότε με σκέτο modulo και 5 κόμβους όλη η δουλειά θα έπεφτε σε έναν
+        createBookings(LocalDateTime.now().plusMinutes(30), 1051, 50);
+        Node[] cluster = {new Node(), new Node(), new Node(), new Node(), new Node()};
+        startCluster(cluster);
+
+        waitUntil(() -> reminded.size() == RIDES * BOOKINGS_PER_RIDE
+                && nodes.stream().allMatch(node -> node.reminders.scheduledBookings().isEmpty()));
+
+        assertThat(sentSms).hasSize(RIDES * BOOKINGS_PER_RIDE).doesNotHaveDuplicates();
+        for (Node node : cluster) {
+            assertThat(node.claimed).as("work of node " + node.membership.partition()).isNotEmpty();
+            node.claimed.forEach(bookingId ->
+                    assertThat(node.membership.partition().owns(bookingRides.get(bookingId))).isTrue());
+        }
+    }
+
+    @Test
+    void remainingNodeTakesOverWhenTheOtherLeaves() {
+        // Σε 3 ώρες: οι υπενθυμίσεις είναι στον τροχό αλλά δεν λήγουν όσο τρέχει το test
+        createBookings(LocalDateTime.now().plusHours(3));
+        Node first = new Node();
+        Node second = new Node();
+        startCluster(first, second);
+
+        Set<Long> firstBookings = first.reminders.scheduledBookings();
+        Set<Long> secondBookings = second.reminders.scheduledBookings();
+        assertThat(firstBookings).isNotEmpty().doesNotContainAnyElementsOf(secondBookings);
+        Set<Long> all = new HashSet<>(firstBookings);
+        all.addAll(secondBookings);
+        assertThat(all).isEqualTo(bookingRides.keySet());
+
+        // Ο δεύτερος κόμβος σταματάει· στο επόμενο heartbeat ο πρώτος παίρνει όλες τις διαδρομές
+        second.stop();
+        nodes.remove(second);
+        first.membership.heartbeat();
+
+        assertThat(first.reminders.scheduledBookings()).isEqualTo(bookingRides.keySet());
+    }
+
+    @Test
+    void bookingOnTheOtherNodeIsRemindedBeforeTheOwnersNextSweep() throws InterruptedException {
+        Node owner = new Node();
+        Node other = new Node();
+        startCluster(owner, other);
+        long rideId = rideOwnedBy(owner);
+        departures.put(rideId, LocalDateTime.now().plusMinutes(30));
+        bookingRides.put(1L, rideId);
+
+        // Το request της κράτησης ήρθε στον άλλο κόμβο: μόνο αυτός παίρνει το event
+        other.reminders.onBookingChanged(BookingChangedEvent.confirmed(1L, rideId, departures.get(rideId)));
+
+        waitUntil(() -> sentSms.size() == 1);
+        assertThat(other.claimed).containsExactly(1L);
+
+        // Το επόμενο sweep του κόμβου της διαδρομής δεν βρίσκει τίποτα να στείλει
+        owner.reminders.reconcile();
+        assertThat(owner.reminders.scheduledBookings()).isEmpty();
+        assertThat(owner.claimed).isEmpty();
+        assertThat(sentSms).hasSize(1);
+    }
+
+    @Test
+    void laterBookingOnTheOtherNodeIsLeftToTheOwnersSweep() {
+        Node owner = new Node();
+        Node other = new Node();
+        startCluster(owner, other);
+        long rideId = rideOwnedBy(owner);
+        departures.put(rideId, LocalDateTime.now().plusHours(3));
+        bookingRides.put(1L, rideId);
+
+        // Λήγει μετά από δύο sweeps: δεν χρειάζεται να την κρατάει και ο άλλος κόμβος
+        other.reminders.onBookingChanged(BookingChangedEvent.confirmed(1L, rideId, departures.get(rideId)));
+        assertThat(other.reminders.scheduledBookings()).isEmpty();
+
+        owner.reminders.reconcile();
+        assertThat(owner.reminders.scheduledBookings()).containsExactly(1L);
+    }
+
+    private static long rideOwnedBy(Node node) {
+        long rideId = 1;
+        while (!node.membership.partition().owns(rideId)) {
+            rideId++;
+        }
+        return rideId;
+    }
+
+    // Όπως στην εκκίνηση: heartbeat όλων (ώστε να βλέπουν ο ένας τον άλλο) και μετά το πρώτο sweep
+    private void startCluster(Node... cluster) {
+        for (Node node : cluster) {
+            node.membership.heartbeat();
+        }
+        for (Node node : cluster) {
+            node.membership.heartbeat();
+            node.reminders.reconcile();
+        }
+    }
+
+    private void createBookings(LocalDateTime departure) {
+        createBookings(departure, 1, 1);
+    }
+
+    private void createBookings(LocalDateTime departure, long firstRideId, long step) {
+        long bookingId = 1;
+        for (int ride = 0; ride < RIDES; ride++) {
+            long rideId = firstRideId + ride * step;
+            departures.put(rideId, departure);
+            for (int i = 0; i < BOOKINGS_PER_RIDE; i++) {
+                bookingRides.put(bookingId++, rideId);
+            }
+        }
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(condition.getAsBoolean()).as("condition reached within 10s").isTrue();
+    }
+
+    private static BookingRepository.PendingReminder pendingReminder(Long bookingId, Long rideId, LocalDateTime departure) {
+        return new BookingRepository.PendingReminder() {
+            @Override
+            public Long getBookingId() {
+                return bookingId;
+            }
+
+            @Override
+            public Long getRideId() {
+                return rideId;
+            }
+
+            @Override
+            public LocalDateTime getDepartureTime() {
+                return departure;
+            }
+        };
+    }
+
+    private static BookingRepository.DueReminder dueReminder(Long bookingId) {
+        return new BookingRepository.DueReminder() {
+            @Override
+            public Long getBookingId() {
+                return bookingId;
+            }
+
+            @Override
+            public String getUsername() {
+                return "passenger" + bookingId;
+            }
+
+            @Override
+            public String getPhoneNumber() {
+                return "+3069" + bookingId;
+            }
+
+            @Override
+            public String getDestination() {
+                return "Thessaloniki";
+            }
+        };
+    }
+}
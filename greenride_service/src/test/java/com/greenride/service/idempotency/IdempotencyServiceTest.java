@@ -0,0 +1,169 @@
+package com.greenride.service.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.greenride.model.IdempotencyRecord;
+import com.greenride.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Το repository είναι mock (το INSERT ... ON CONFLICT απαντάει "μπήκε" ή "υπάρχει ήδη"),
+ * ώστε να ελέγχεται μόνο η λογική του replay.
+ */
+class IdempotencyServiceTest {
+
+    private static final String KEY = "4f0c2a4e-retry";
+    private static final String USER = "maria";
+    private static final String BOOK_42 = "book:42:seats=2";
+
+    private final IdempotencyRecordRepository repository = mock(IdempotencyRecordRepository.class);
+    private final IdempotencyService service = newService();
+
+    // Πόσες φορές έτρεξε πραγματικά η ενέργεια
+    private final AtomicInteger calls = new AtomicInteger();
+
+    IdempotencyServiceTest() {
+        when(repository.insertIfAbsent(anyString(), anyString(), anyInt(), anyBoolean(), any(), any(), any()))
+                .thenReturn(1);
+        when(repository.findByKeyAndExpiresAtAfter(anyString(), any())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void retryReplaysTheStoredResponseWithoutRunningTheActionAgain() {
+        ResponseEntity<?> first = service.execute(KEY, USER, BOOK_42, booked(7L));
+        ResponseEntity<?> retry = service.execute(KEY, USER, BOOK_42, booked(8L));
+
+        assertThat(calls).hasValue(1);
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(retry.getHeaders().getFirst("Idempotent-Replayed")).isEqualTo("true");
+        assertThat(retry.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(retry.getBody()).isEqualTo("{\"bookingId\":7}");
+    }
+
+    @Test
+    void storedResponseIsFoundInTheTableAfterRestart() {
+        IdempotencyService before = newService();
+        before.execute(KEY, USER, BOOK_42, booked(7L));
+        IdempotencyRecord stored = storedRecord(201, true, "{\"bookingId\":7}");
+        when(repository.findByKeyAndExpiresAtAfter(eq(USER + ":" + KEY), any())).thenReturn(Optional.of(stored));
+
+        // Νέος κόμβος / restart: άδεια cache, η απάντηση έρχεται από τον πίνακα
+        ResponseEntity<?> retry = newService().execute(KEY, USER, BOOK_42, booked(8L));
+
+        assertThat(calls).hasValue(1);
+        assertThat(retry.getBody()).isEqualTo("{\"bookingId\":7}");
+    }
+
+    @Test
+    void sameKeyForADifferentRequestIsRejectedWith422() {
+        service.execute(KEY, USER, BOOK_42, booked(7L));
+
+        assertThatThrownBy(() -> service.execute(KEY, USER, "book:43:seats=2", booked(8L)))
+                .isInstanceOfSatisfying(ResponseStatusException.class, e ->
+                        assertThat(e.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY));
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void clientErrorIsStoredAndReplayedWithoutRunningTheActionAgain() {
+        Supplier<ResponseEntity<?>> fullyBooked = () -> {
+            calls.incrementAndGet();
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Ride is fully booked!");
+        };
+
+        assertThatThrownBy(() -> service.execute(KEY, USER, BOOK_42, fullyBooked))
+                .isInstanceOf(ResponseStatusException.class);
+        verify(repository).insertIfAbsent(eq(USER + ":" + KEY), anyString(), eq(400), eq(false),
+                eq("Ride is fully booked!"), any(), any());
+
+        assertThatThrownBy(() -> service.execute(KEY, USER, BOOK_42, booked(7L)))
+                .isInstanceOfSatisfying(ResponseStatusException.class, e -> {
+                    assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+                    assertThat(e.getReason()).isEqualTo("Ride is fully booked!");
+                });
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void serverErrorIsNotStoredSoTheClientCanRetry() {
+        Supplier<ResponseEntity<?>> unavailable = () -> {
+            calls.incrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Try again later.");
+        };
+
+        assertThatThrownBy(() -> service.execute(KEY, USER, BOOK_42, unavailable))
+                .isInstanceOf(ResponseStatusException.class);
+        ResponseEntity<?> retry = service.execute(KEY, USER, BOOK_42, booked(7L));
+
+        assertThat(calls).hasValue(2);
+        assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        verify(repository, never()).insertIfAbsent(anyString(), anyString(), eq(503), anyBoolean(), any(), any(), any());
+    }
+
+    @Test
+    void keyTakenByAnotherNodeAnswers409() {
+        when(repository.insertIfAbsent(anyString(), anyString(), anyInt(), anyBoolean(), any(), any(), any()))
+                .thenReturn(0);
+
+        assertThatThrownBy(() -> service.execute(KEY, USER, BOOK_42, booked(7L)))
+                .isInstanceOfSatisfying(ResponseStatusException.class, e ->
+                        assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+    }
+
+    @Test
+    void keysAreScopedPerUserAndOptional() {
+        service.execute(KEY, USER, BOOK_42, booked(7L));
+        ResponseEntity<?> otherUser = service.execute(KEY, "nikos", BOOK_42, booked(8L));
+        service.execute(null, USER, BOOK_42, booked(9L));
+        service.execute(null, USER, BOOK_42, booked(10L));
+
+        assertThat(calls).hasValue(4);
+        assertThat(otherUser.getBody()).isEqualTo(Map.of("bookingId", 8L));
+    }
+
+    private Supplier<ResponseEntity<?>> booked(Long bookingId) {
+        return () -> {
+            calls.incrementAndGet();
+            return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("bookingId", bookingId));
+        };
+    }
+
+    private IdempotencyRecord storedRecord(int statusCode, boolean json, String body) {
+        // Το fingerprint όπως το γράφει το service: ό,τι πέρασε στο insert της πρώτης εκτέλεσης
+        ArgumentCaptor<String> fingerprint = ArgumentCaptor.forClass(String.class);
+        verify(repository).insertIfAbsent(anyString(), fingerprint.capture(), anyInt(), anyBoolean(), any(), any(), any());
+        LocalDateTime now = LocalDateTime.now();
+        return new IdempotencyRecord(USER + ":" + KEY, fingerprint.getValue(), statusCode, json, body,
+                now, now.plusHours(24));
+    }
+
+    private IdempotencyService newService() {
+        return new IdempotencyService(repository, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new ObjectMapper(), 24, 100);
+    }
+}
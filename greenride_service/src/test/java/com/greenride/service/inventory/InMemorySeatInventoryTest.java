@@ -0,0 +1,215 @@
+package com.greenride.service.inventory;
+
+import com.greenride.repository.RideRepository;
+import com.greenride.service.cluster.ClusterMembership;
+import com.greenride.service.cluster.Partition;
+import com.greenride.service.event.ClusterPartitionChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Οι counters με τα repositories σε mock: το CAS της δέσμευσης, το rollback, το write-behind
+ * και η ιδιοκτησία των διαδρομών ανά partition.
+ */
+class InMemorySeatInventoryTest {
+
+    private static final Partition FIRST_OF_TWO = new Partition(0, 2);
+    private static final Partition SECOND_OF_TWO = new Partition(1, 2);
+
+    private final RideRepository rideRepository = mock(RideRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ClusterMembership membership = mock(ClusterMembership.class);
+    private final InMemorySeatInventory inventory = new InMemorySeatInventory(rideRepository, jdbcTemplate, membership);
+
+    // Μια διαδρομή αυτού του κόμβου και μια του άλλου
+    private final long ownRide = rideOwnedBy(FIRST_OF_TWO);
+    private final long otherRide = rideOwnedBy(SECOND_OF_TWO);
+
+    InMemorySeatInventoryTest() {
+        when(membership.partition()).thenReturn(FIRST_OF_TWO);
+        when(rideRepository.findFreeSeatsById(anyLong())).thenReturn(Optional.empty());
+        freeSeats(ownRide, 5);
+        freeSeats(otherRide, 4);
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void concurrentReservationsNeverTakeMoreThanTheFreeSeats() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> attempts = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            attempts.add(pool.submit(() -> {
+                start.await();
+                return inventory.tryReserve(ownRide, 1);
+            }));
+        }
+        start.countDown();
+
+        int reserved = 0;
+        for (Future<Boolean> attempt : attempts) {
+            reserved += attempt.get() ? 1 : 0;
+        }
+        pool.shutdown();
+
+        assertThat(reserved).isEqualTo(5);
+        assertThat(inventory.available(ownRide)).isZero();
+        assertThat(inventory.mightHave(ownRide, 1)).isFalse();
+        // Όλα ή τίποτα: 2 θέσεις δεν δεσμεύονται όταν υπάρχει μόνο μία
+        inventory.release(ownRide, 1);
+        assertThat(inventory.tryReserve(ownRide, 2)).isFalse();
+        assertThat(inventory.available(ownRide)).isEqualTo(1);
+    }
+
+    @Test
+    void rolledBackTransactionGivesTheSeatsBackAndWritesNothing() {
+        TransactionSynchronizationManager.initSynchronization();
+        assertThat(inventory.tryReserve(ownRide, 2)).isTrue();
+        assertThat(inventory.available(ownRide)).isEqualTo(3);
+        // Η ακύρωση στο ίδιο transaction δεν ελευθερώνει τίποτα πριν από το commit
+        inventory.release(ownRide, 1);
+        assertThat(inventory.available(ownRide)).isEqualTo(3);
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        inventory.flush();
+
+        assertThat(inventory.available(ownRide)).isEqualTo(5);
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedFlushKeepsTheDeltasForTheNextOne() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new QueryTimeoutException("canceling statement due to statement timeout"))
+                .thenReturn(new int[]{1});
+        TransactionSynchronizationManager.initSynchronization();
+        inventory.tryReserve(ownRide, 3);
+        inventory.release(ownRide, 1);
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        inventory.flush();
+        inventory.flush();
+        // Τίποτα άλλο να γραφτεί: το τρίτο flush δεν πάει στη βάση
+        inventory.flush();
+
+        ArgumentCaptor<List<Object[]>> batches = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), batches.capture());
+        for (List<Object[]> batch : batches.getAllValues()) {
+            assertThat(batch).singleElement().satisfies(row -> assertThat(row).containsExactly(-2, ownRide));
+        }
+        assertThat(inventory.available(ownRide)).isEqualTo(3);
+    }
+
+    @Test
+    void seedLoadsOnlyTheRidesOfThisNodeFromTheBookings() {
+        when(rideRepository.findUpcomingFreeSeats(any())).thenReturn(List.of(seatCount(ownRide, 2), seatCount(otherRide, 4)));
+
+        inventory.seed();
+
+        // Από το seed (2) και όχι από το query ανά διαδρομή (5)
+        assertThat(inventory.available(ownRide)).isEqualTo(2);
+        verify(rideRepository, never()).findFreeSeatsById(ownRide);
+    }
+
+    @Test
+    void ridesOfAnotherNodeAreNotReservedHere() {
+        assertThatThrownBy(() -> inventory.tryReserve(otherRide, 1))
+                .isInstanceOfSatisfying(ResponseStatusException.class, e ->
+                        assertThat(e.getStatusCode().value()).isEqualTo(421));
+        assertThatThrownBy(() -> inventory.release(otherRide, 1)).isInstanceOf(ResponseStatusException.class);
+        assertThatThrownBy(() -> inventory.mightHave(otherRide, 1)).isInstanceOf(ResponseStatusException.class);
+
+        // Η ανάγνωση πάει κατευθείαν στη βάση, χωρίς counter
+        assertThat(inventory.available(otherRide)).isEqualTo(4);
+        assertThat(inventory.available(otherRide)).isEqualTo(4);
+        verify(rideRepository, times(2)).findFreeSeatsById(otherRide);
+    }
+
+    @Test
+    void partitionChangeFlushesAndDropsTheRidesThatMovedAway() {
+        inventory.tryReserve(ownRide, 2);
+
+        when(membership.partition()).thenReturn(SECOND_OF_TWO);
+        inventory.onPartitionChanged(new ClusterPartitionChangedEvent(FIRST_OF_TWO, SECOND_OF_TWO));
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+        assertThat(inventory.tryReserve(otherRide, 4)).isTrue();
+
+        // Η διαδρομή ξαναγυρίζει: ο counter ξαναφορτώνεται, γιατί ο άλλος κόμβος μπορεί να την άλλαξε
+        freeSeats(ownRide, 1);
+        when(membership.partition()).thenReturn(FIRST_OF_TWO);
+        inventory.onPartitionChanged(new ClusterPartitionChangedEvent(SECOND_OF_TWO, FIRST_OF_TWO));
+        assertThat(inventory.available(ownRide)).isEqualTo(1);
+    }
+
+    private void freeSeats(long rideId, int seats) {
+        when(rideRepository.findFreeSeatsById(rideId)).thenReturn(Optional.of(seatCount(rideId, seats)));
+    }
+
+    private static void complete(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(status);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private static long rideOwnedBy(Partition partition) {
+        long rideId = 1;
+        while (!partition.owns(rideId)) {
+            rideId++;
+        }
+        return rideId;
+    }
+
+    private static RideRepository.SeatCount seatCount(long rideId, int seats) {
+        return new RideRepository.SeatCount() {
+            @Override
+            public Long getRideId() {
+                return rideId;
+            }
+
+            @Override
+            public int getAvailableSeats() {
+                return seats;
+            }
+
+            @Override
+            public LocalDateTime getDepartureTime() {
+                return LocalDateTime.now().plusDays(1);
+            }
+        };
+    }
+}
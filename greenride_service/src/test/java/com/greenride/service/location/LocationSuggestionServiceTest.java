@@ -0,0 +1,95 @@
+package com.greenride.service.location;
+
+import com.greenride.dto.LocationSuggestion;
+import com.greenride.model.Ride;
+import com.greenride.repository.RideRepository;
+import com.greenride.service.event.RideChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Το autocomplete με το repository σε mock: οι μετρήσεις της βάσης και οι νέες διαδρομές από τα events.
+ */
+class LocationSuggestionServiceTest {
+
+    private final RideRepository rideRepository = mock(RideRepository.class);
+    private final LocationSuggestionService service = new LocationSuggestionService(rideRepository);
+
+    @Test
+    void suggestsLocationsInAnySpellingByRideCount() {
+        when(rideRepository.countRidesByStartLocation()).thenReturn(List.of(count("Αθήνα", 4), count("Άργος", 1)));
+        when(rideRepository.countRidesByDestination()).thenReturn(List.of(count("Athens, Syntagma", 2)));
+        service.rebuild();
+
+        assertThat(service.suggest("Αθ", null)).containsExactly(
+                new LocationSuggestion("Αθήνα", 4),
+                new LocationSuggestion("Athens, Syntagma", 2));
+        assertThat(service.suggest("ATH", 1)).containsExactly(new LocationSuggestion("Αθήνα", 4));
+        assertThat(service.suggest("Σύνταγμα", null)).containsExactly(new LocationSuggestion("Athens, Syntagma", 2));
+        assertThat(service.suggest("arg", null)).containsExactly(new LocationSuggestion("Άργος", 1));
+        assertThat(service.suggest("  ", null)).isEmpty();
+    }
+
+    @Test
+    void newRidesAreAddedWithoutARebuild() {
+        when(rideRepository.countRidesByStartLocation()).thenReturn(List.of(count("Patra", 1)));
+        when(rideRepository.countRidesByDestination()).thenReturn(List.of());
+        service.rebuild();
+
+        service.onRideChanged(RideChangedEvent.created(ride("Πάτρα", "Πύργος")));
+        // Μόνο οι νέες διαδρομές αλλάζουν το trie, οι διαγραφές περιμένουν το rebuild
+        service.onRideChanged(RideChangedEvent.deleted(1L));
+
+        assertThat(service.suggest("p", null)).containsExactly(
+                new LocationSuggestion("Patra", 2),
+                new LocationSuggestion("Πύργος", 1));
+    }
+
+    @Test
+    void ridesCreatedDuringTheRebuildAreKeptInTheNewTrie() {
+        when(rideRepository.countRidesByStartLocation()).thenAnswer(invocation -> {
+            // Όσο διαβάζεται η βάση: νέες διαδρομές που το count δεν πρόλαβε να δει
+            service.onRideChanged(RideChangedEvent.created(ride("Kalamata", "Sparti")));
+            service.onRideChanged(RideChangedEvent.created(ride("Volos", "Larisa")));
+            return List.of(count("Volos", 3));
+        });
+        when(rideRepository.countRidesByDestination()).thenReturn(List.of(count("Larisa", 1)));
+
+        service.rebuild();
+
+        assertThat(service.suggest("kal", null)).containsExactly(new LocationSuggestion("Kalamata", 1));
+        assertThat(service.suggest("spa", null)).containsExactly(new LocationSuggestion("Sparti", 1));
+        assertThat(service.suggest("vol", null)).containsExactly(new LocationSuggestion("Volos", 4));
+        assertThat(service.suggest("lar", null)).containsExactly(new LocationSuggestion("Larisa", 2));
+
+        // Μετά το rebuild τα events πάνε κατευθείαν στο νέο trie
+        service.onRideChanged(RideChangedEvent.created(ride("Kalamata", "Tripoli")));
+        assertThat(service.suggest("kal", null)).containsExactly(new LocationSuggestion("Kalamata", 2));
+    }
+
+    private static Ride ride(String start, String destination) {
+        Ride ride = new Ride();
+        ride.setStartLocation(start);
+        ride.setDestination(destination);
+        return ride;
+    }
+
+    private static RideRepository.LocationCount count(String location, long rides) {
+        return new RideRepository.LocationCount() {
+            @Override
+            public String getLocation() {
+                return location;
+            }
+
+            @Override
+            public long getRideCount() {
+                return rides;
+            }
+        };
+    }
+}
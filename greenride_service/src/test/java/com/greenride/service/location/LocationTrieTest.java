@@ -0,0 +1,104 @@
+package com.greenride.service.location;
+
+import com.greenride.dto.LocationSuggestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Το trie μόνο του: τα κλειδιά δίνονται ήδη κανονικοποιημένα, όπως τα δίνει το service.
+ */
+class LocationTrieTest {
+
+    private final LocationTrie trie = new LocationTrie();
+
+    @Test
+    void topEntriesArePropagatedToEveryPrefix() {
+        // 15 τοποθεσίες κάτω από το "p", με βάρος 1..15
+        for (int i = 1; i <= 15; i++) {
+            trie.add("p" + (char) ('a' + i), "P" + i, i);
+        }
+
+        List<LocationSuggestion> top = trie.complete("p", 20);
+
+        assertThat(top).hasSize(LocationTrie.TOP_K);
+        assertThat(top).extracting(LocationSuggestion::rides)
+                .containsExactly(15L, 14L, 13L, 12L, 11L, 10L, 9L, 8L, 7L, 6L);
+        assertThat(trie.complete("", 3)).extracting(LocationSuggestion::location).containsExactly("P15", "P14", "P13");
+        assertThat(trie.complete("pb", 5)).containsExactly(new LocationSuggestion("P1", 1));
+        assertThat(trie.complete("x", 5)).isEmpty();
+    }
+
+    @Test
+    void equalWeightsAreOrderedByLabel() {
+        trie.add("volos", "Volos", 2);
+        trie.add("veria", "Veria", 2);
+        trie.add("vari", "Vari", 3);
+
+        assertThat(trie.complete("v", 5)).extracting(LocationSuggestion::location)
+                .containsExactly("Vari", "Veria", "Volos");
+    }
+
+    @Test
+    void lowerWeightIsReRankedOnEveryPrefix() {
+        trie.add("patra", "Patra", 5);
+        trie.add("paros", "Paros", 3);
+        trie.add("preveza", "Preveza", 1);
+
+        trie.add("patra", "Patra", -4);
+
+        assertThat(trie.complete("p", 5)).containsExactly(
+                new LocationSuggestion("Paros", 3),
+                new LocationSuggestion("Patra", 1),
+                new LocationSuggestion("Preveza", 1));
+        assertThat(trie.complete("pa", 5)).extracting(LocationSuggestion::location).containsExactly("Paros", "Patra");
+    }
+
+    @Test
+    void removedEntryMakesRoomForTheNextOne() {
+        for (int i = 1; i <= LocationTrie.TOP_K + 1; i++) {
+            trie.add("k" + (char) ('a' + i), "K" + i, i);
+        }
+        assertThat(trie.complete("k", LocationTrie.TOP_K)).extracting(LocationSuggestion::location).doesNotContain("K1");
+
+        // Βάρος στο μηδέν: η τοποθεσία φεύγει, και η 11η ανεβαίνει στη λίστα του κόμβου
+        trie.add("kl", "K11", -11);
+
+        assertThat(trie.complete("k", LocationTrie.TOP_K)).extracting(LocationSuggestion::location)
+                .hasSize(LocationTrie.TOP_K).contains("K1").doesNotContain("K11");
+        assertThat(trie.complete("kl", 5)).isEmpty();
+    }
+
+    @Test
+    void everyWordStartMatchesButNotTheMiddleOfAWord() {
+        trie.add("athina syntagma", "Athens, Syntagma", 4);
+        trie.add("syros", "Syros", 1);
+
+        assertThat(trie.complete("synt", 5)).containsExactly(new LocationSuggestion("Athens, Syntagma", 4));
+        assertThat(trie.complete("sy", 5)).extracting(LocationSuggestion::location)
+                .containsExactly("Athens, Syntagma", "Syros");
+        assertThat(trie.complete("athina s", 5)).extracting(LocationSuggestion::location)
+                .containsExactly("Athens, Syntagma");
+        assertThat(trie.complete("ntag", 5)).isEmpty();
+    }
+
+    @Test
+    void entryWithSeveralWordsIsUpdatedOnAllOfThem() {
+        trie.add("nea smyrni", "Nea Smyrni", 2);
+        trie.add("smyrni", "Smyrni", 3);
+
+        trie.add("nea smyrni", "Νέα Σμύρνη", 2);
+
+        // Κρατάμε την πρώτη ορθογραφία, και το νέο βάρος φαίνεται και από τις δύο λέξεις
+        assertThat(trie.complete("nea", 5)).containsExactly(new LocationSuggestion("Nea Smyrni", 4));
+        assertThat(trie.complete("smy", 5)).containsExactly(
+                new LocationSuggestion("Nea Smyrni", 4),
+                new LocationSuggestion("Smyrni", 3));
+
+        trie.add("nea smyrni", "Nea Smyrni", -4);
+        assertThat(trie.complete("smy", 5)).containsExactly(new LocationSuggestion("Smyrni", 3));
+        assertThat(trie.complete("n", 5)).isEmpty();
+    }
+}
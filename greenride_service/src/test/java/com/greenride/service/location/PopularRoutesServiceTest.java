@@ -0,0 +1,118 @@
+package com.greenride.service.location;
+
+import com.greenride.dto.PopularRoute;
+import com.greenride.model.Ride;
+import com.greenride.repository.RideRepository;
+import com.greenride.service.event.RideChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Τα αθροίσματα ανά route από τα events και από το rebuild, με το repository σε mock.
+ */
+class PopularRoutesServiceTest {
+
+    private static final LocalDateTime DEPARTURE = LocalDateTime.now().plusDays(2);
+
+    private final RideRepository rideRepository = mock(RideRepository.class);
+    private final PopularRoutesService service = new PopularRoutesService(rideRepository);
+
+    @Test
+    void eventsUpdateRidesAndBookedSeatsPerRoute() {
+        when(rideRepository.findUpcomingRideStats(any())).thenReturn(List.of());
+        service.rebuild();
+
+        service.onRideChanged(RideChangedEvent.created(ride(1L, "Athens", "Patra")));
+        service.onRideChanged(RideChangedEvent.created(ride(2L, "ATHENS", "patra")));
+        service.onRideChanged(RideChangedEvent.created(ride(3L, "Larisa", "Volos")));
+        service.onRideChanged(RideChangedEvent.seatsChanged(3L, -3));
+        service.onRideChanged(RideChangedEvent.seatsChanged(3L, 1));
+
+        // Score = διαδρομές + κρατημένες θέσεις: 1 + 2 πριν από το 2 + 0
+        assertThat(service.topRoutes(null)).containsExactly(
+                new PopularRoute("Larisa", "Volos", 1, 2),
+                new PopularRoute("Athens", "Patra", 2, 0));
+
+        service.onRideChanged(RideChangedEvent.deleted(3L));
+        assertThat(service.topRoutes(null)).containsExactly(new PopularRoute("Athens", "Patra", 2, 0));
+    }
+
+    @Test
+    void changesDuringTheRebuildAreReplayedBeforeTheSwap() {
+        when(rideRepository.findUpcomingRideStats(any())).thenAnswer(invocation -> {
+            // Όσο τρέχει το query: νέα διαδρομή που δεν πρόλαβε να δει, και κράτηση σε μία που είδε
+            service.onRideChanged(RideChangedEvent.created(ride(2L, "Larisa", "Volos")));
+            service.onRideChanged(RideChangedEvent.seatsChanged(1L, -2));
+            return List.of(stats(1L, "Athens", "Patra", 0));
+        });
+        // Η τιμή της βάσης μετά την κράτηση: το delta δεν ξαναπαίζεται πάνω σε ό,τι είδε το query
+        when(rideRepository.findReservedSeatsById(1L)).thenReturn(Optional.of(2L));
+
+        service.rebuild();
+
+        assertThat(service.topRoutes(null)).containsExactly(
+                new PopularRoute("Athens", "Patra", 1, 2),
+                new PopularRoute("Larisa", "Volos", 1, 0));
+    }
+
+    @Test
+    void holdsCountTheSameInEventsAndInTheRebuild() {
+        when(rideRepository.findUpcomingRideStats(any())).thenReturn(List.of(stats(1L, "Athens", "Patra", 0)));
+        service.rebuild();
+
+        // Hold 2 θέσεων: SEATS_CHANGED -2, και το rebuild τις μετράει κι αυτό (RESERVED_SEATS)
+        service.onRideChanged(RideChangedEvent.seatsChanged(1L, -2));
+        List<PopularRoute> beforeRebuild = service.topRoutes(null);
+        when(rideRepository.findUpcomingRideStats(any())).thenReturn(List.of(stats(1L, "Athens", "Patra", 2)));
+        service.rebuild();
+
+        assertThat(service.topRoutes(null)).isEqualTo(beforeRebuild)
+                .containsExactly(new PopularRoute("Athens", "Patra", 1, 2));
+    }
+
+    private static Ride ride(Long id, String start, String destination) {
+        Ride ride = new Ride();
+        ride.setId(id);
+        ride.setStartLocation(start);
+        ride.setDestination(destination);
+        ride.setDepartureTime(DEPARTURE);
+        return ride;
+    }
+
+    private static RideRepository.UpcomingRideStats stats(Long rideId, String start, String destination, long booked) {
+        return new RideRepository.UpcomingRideStats() {
+            @Override
+            public Long getRideId() {
+                return rideId;
+            }
+
+            @Override
+            public String getStartLocation() {
+                return start;
+            }
+
+            @Override
+            public String getDestination() {
+                return destination;
+            }
+
+            @Override
+            public LocalDateTime getDepartureTime() {
+                return DEPARTURE;
+            }
+
+            @Override
+            public long getBookedSeats() {
+                return booked;
+            }
+        };
+    }
+}
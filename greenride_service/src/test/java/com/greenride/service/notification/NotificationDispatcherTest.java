@@ -0,0 +1,320 @@
+package com.greenride.service.notification;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Ο dispatcher με "αποστολές" που μπλοκάρουν μέχρι να τις αφήσει το test. Όσο μπλοκάρουν, το ποιες κλήσεις
+ * τρέχουν και ποιες περιμένουν στην ουρά εξαρτάται μόνο από τη σειρά των submit, άρα τα asserts δεν είναι
+ * θέμα χρονισμού. Τα metrics διαβάζονται από ένα {@link SimpleMeterRegistry}.
+ */
+class NotificationDispatcherTest {
+
+    private static final String NOC = "noc-sms";
+    private static final String EMAIL = "email";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<NotificationDispatcher> dispatchers = new ArrayList<>();
+    // Η σειρά με την οποία "στάλθηκαν" οι ειδοποιήσεις
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    // Πόσες BlockingCall τρέχουν αυτή τη στιγμή
+    private final AtomicInteger blockedCalls = new AtomicInteger();
+
+    @AfterEach
+    void closeDispatchers() {
+        dispatchers.forEach(NotificationDispatcher::close);
+    }
+
+    @Test
+    void abortRejectsTheNewNotificationWhenTheQueueIsFull() throws Exception {
+        NotificationDispatcher dispatcher = dispatcher(2, 1, "abort");
+        BlockingCall blocker = new BlockingCall();
+        CompletableFuture<Void> running = dispatcher.submit(NOC, blocker);
+        blocker.awaitStarted();
+        CompletableFuture<Void> first = dispatcher.submit(NOC, send("first"));
+        CompletableFuture<Void> second = dispatcher.submit(NOC, send("second"));
+
+        CompletableFuture<Void> third = dispatcher.submit(NOC, send("third"));
+
+        assertRejected(third, "Notification queue is full (2) [noc-sms]");
+        assertThat(queueDepth()).isEqualTo(2);
+        assertThat(active(NOC)).isEqualTo(1);
+        assertThat(rejected(NOC)).isEqualTo(1);
+
+        blocker.release();
+        CompletableFuture.allOf(running, first, second).get(5, TimeUnit.SECONDS);
+        assertThat(sent).containsExactly("first", "second");
+        assertThat(queueDepth()).isZero();
+        assertThat(registry.get("greenride.notifications.wait").tag("destination", NOC).timer().count()).isEqualTo(2);
+        assertThat(registry.get("greenride.notifications.latency").tag("destination", NOC)
+                .tag("outcome", "success").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    void discardOldestDropsTheOldestWaitingNotificationOfTheSameDestination() throws Exception {
+        NotificationDispatcher dispatcher = dispatcher(2, 1, "discard-oldest");
+        BlockingCall blocker = new BlockingCall();
+        dispatcher.submit(NOC, blocker);
+        blocker.awaitStarted();
+        CompletableFuture<Void> oldest = dispatcher.submit(NOC, send("oldest"));
+        CompletableFuture<Void> middle = dispatcher.submit(NOC, send("middle"));
+
+        CompletableFuture<Void> newest = dispatcher.submit(NOC, send("newest"));
+
+        assertRejected(oldest, "Discarded by a newer notification (queue full) [noc-sms]");
+        assertThat(queueDepth()).isEqualTo(2);
+        assertThat(rejected(NOC)).isEqualTo(1);
+
+        blocker.release();
+        CompletableFuture.allOf(middle, newest).get(5, TimeUnit.SECONDS);
+        assertThat(sent).containsExactly("middle", "newest");
+    }
+
+    @Test
+    void discardOldestNeverDropsWorkOfAnotherDestination() {
+        NotificationDispatcher dispatcher = dispatcher(1, 1, "discard-oldest");
+        BlockingCall nocBlocker = new BlockingCall();
+        BlockingCall emailBlocker = new BlockingCall();
+        dispatcher.submit(NOC, nocBlocker);
+        dispatcher.submit(EMAIL, emailBlocker);
+        CompletableFuture<Void> waitingEmail = dispatcher.submit(EMAIL, send("email"));
+
+        // Η κοινή ουρά είναι γεμάτη από το email και το noc-sms δεν έχει δική του να πετάξει
+        CompletableFuture<Void> noc = dispatcher.submit(NOC, send("noc"));
+
+        assertRejected(noc, "Notification queue is full (1) [noc-sms]");
+        assertThat(waitingEmail).isNotDone();
+        assertThat(rejected(NOC)).isEqualTo(1);
+        assertThat(rejected(EMAIL)).isZero();
+        nocBlocker.release();
+        emailBlocker.release();
+    }
+
+    @Test
+    void callerRunsSendsTheNotificationOnTheCallingThread() throws Exception {
+        NotificationDispatcher dispatcher = dispatcher(1, 1, "caller-runs");
+        BlockingCall blocker = new BlockingCall();
+        dispatcher.submit(NOC, blocker);
+        blocker.awaitStarted();
+        CompletableFuture<Void> waiting = dispatcher.submit(NOC, send("waiting"));
+        List<Thread> callerThreads = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<Void> overflow = dispatcher.submit(NOC, () -> {
+            callerThreads.add(Thread.currentThread());
+            sent.add("overflow");
+        });
+
+        // Έτρεξε πριν επιστρέψει το submit, ενώ η ουρά και η κλήση που τρέχει δεν κουνήθηκαν
+        assertThat(overflow).isCompletedWithValue(null);
+        assertThat(callerThreads).containsExactly(Thread.currentThread());
+        assertThat(sent).containsExactly("overflow");
+        assertThat(queueDepth()).isEqualTo(1);
+        assertThat(active(NOC)).isEqualTo(1);
+        assertThat(registry.get("greenride.notifications.caller.runs").tag("destination", NOC).counter().count())
+                .isEqualTo(1);
+        assertThat(rejected(NOC)).isZero();
+
+        blocker.release();
+        waiting.get(5, TimeUnit.SECONDS);
+        assertThat(sent).containsExactly("overflow", "waiting");
+    }
+
+    @Test
+    void queueCapacityIsSharedByAllDestinations() {
+        NotificationDispatcher dispatcher = dispatcher(3, 1, "abort");
+        List<BlockingCall> blockers = new ArrayList<>();
+        for (String destination : List.of(NOC, EMAIL, "push")) {
+            BlockingCall blocker = new BlockingCall();
+            blockers.add(blocker);
+            dispatcher.submit(destination, blocker);
+        }
+        dispatcher.submit(NOC, send("noc-1"));
+        dispatcher.submit(NOC, send("noc-2"));
+        dispatcher.submit(EMAIL, send("email-1"));
+
+        // Το push δεν έχει τίποτα στη δική του ουρά, αλλά η κοινή είναι γεμάτη
+        assertRejected(dispatcher.submit("push", send("push-1")), "Notification queue is full (3) [push]");
+        assertThat(queueDepth()).isEqualTo(3);
+        assertThat(rejected("push")).isEqualTo(1);
+        blockers.forEach(BlockingCall::release);
+    }
+
+    @Test
+    void notificationsOfADestinationAreSentInSubmitOrder() throws Exception {
+        NotificationDispatcher dispatcher = dispatcher(100, 1, "abort");
+        BlockingCall blocker = new BlockingCall();
+        dispatcher.submit(NOC, blocker);
+        blocker.awaitStarted();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            futures.add(dispatcher.submit(NOC, send("sms-" + i)));
+            expected.add("sms-" + i);
+        }
+
+        blocker.release();
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        assertThat(sent).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void neverRunsMoreThanTheConcurrencyLimitPerDestination() throws Exception {
+        NotificationDispatcher dispatcher = dispatcher(10, 2, "abort");
+        List<BlockingCall> calls = new ArrayList<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            BlockingCall call = new BlockingCall();
+            calls.add(call);
+            futures.add(dispatcher.submit(NOC, call));
+        }
+        calls.get(0).awaitStarted();
+        calls.get(1).awaitStarted();
+
+        assertThat(active(NOC)).isEqualTo(2);
+        assertThat(queueDepth()).isEqualTo(3);
+        assertThat(calls).filteredOn(BlockingCall::hasStarted).hasSize(2);
+
+        // Κάθε κλήση που τελειώνει αφήνει να ξεκινήσει ακριβώς την επόμενη της ουράς
+        calls.get(0).release();
+        calls.get(2).awaitStarted();
+        assertThat(calls.get(3).hasStarted()).isFalse();
+        assertThat(queueDepth()).isEqualTo(2);
+
+        calls.forEach(BlockingCall::release);
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        assertThat(calls).allMatch(BlockingCall::hasStarted);
+        assertThat(calls.stream().mapToInt(call -> call.maxConcurrent).max().orElseThrow()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void failedCallFailsItsFutureAndTheNextOneStillRuns() throws Exception {
+        NotificationDispatcher dispatcher = dispatcher(10, 1, "abort");
+        BlockingCall blocker = new BlockingCall();
+        dispatcher.submit(NOC, blocker);
+        blocker.awaitStarted();
+        CompletableFuture<Void> failing = dispatcher.submit(NOC, () -> {
+            throw new IllegalStateException("NOC is down");
+        });
+        CompletableFuture<Void> next = dispatcher.submit(NOC, send("next"));
+
+        blocker.release();
+        next.get(5, TimeUnit.SECONDS);
+
+        assertThat(failure(failing)).isInstanceOf(IllegalStateException.class).hasMessage("NOC is down");
+        assertThat(sent).containsExactly("next");
+        assertThat(registry.get("greenride.notifications.latency").tag("destination", NOC)
+                .tag("outcome", "failure").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void closeRejectsWaitingAndNewNotifications() throws Exception {
+        NotificationDispatcher dispatcher = dispatcher(10, 1, "abort");
+        BlockingCall blocker = new BlockingCall();
+        CompletableFuture<Void> running = dispatcher.submit(NOC, blocker);
+        blocker.awaitStarted();
+        CompletableFuture<Void> waiting = dispatcher.submit(NOC, send("waiting"));
+
+        dispatcher.close();
+
+        assertRejected(waiting, "Notification dispatcher is shut down [noc-sms]");
+        assertRejected(dispatcher.submit(NOC, send("late")), "Notification dispatcher is shut down [noc-sms]");
+        assertThat(queueDepth()).isZero();
+        // Ό,τι έτρεχε ήδη τελειώνει κανονικά
+        blocker.release();
+        running.get(5, TimeUnit.SECONDS);
+        assertThat(sent).isEmpty();
+        assertThat(rejected(NOC)).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThatThrownBy(() -> new NotificationDispatcher(0, 1, "abort", registry))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new NotificationDispatcher(1, 0, "abort", registry))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new NotificationDispatcher(1, 1, "drop-everything", registry))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private NotificationDispatcher dispatcher(int queueCapacity, int concurrency, String policy) {
+        NotificationDispatcher dispatcher = new NotificationDispatcher(queueCapacity, concurrency, policy, registry);
+        dispatchers.add(dispatcher);
+        return dispatcher;
+    }
+
+    private Runnable send(String name) {
+        return () -> sent.add(name);
+    }
+
+    private double queueDepth() {
+        return registry.get("greenride.notifications.queue.depth").gauge().value();
+    }
+
+    private double active(String destination) {
+        return registry.get("greenride.notifications.active").tag("destination", destination).gauge().value();
+    }
+
+    private double rejected(String destination) {
+        return registry.get("greenride.notifications.rejected").tag("destination", destination).counter().count();
+    }
+
+    private static void assertRejected(CompletableFuture<Void> future, String message) {
+        assertThat(failure(future)).isInstanceOf(RejectedExecutionException.class).hasMessage(message);
+    }
+
+    private static Throwable failure(CompletableFuture<Void> future) {
+        assertThat(future).isCompletedExceptionally();
+        return future.handle((ignored, e) -> e).join();
+    }
+
+    /**
+     * Μια "αποστολή" που κολλάει μέχρι το {@link #release()}. Μετράει και πόσες τέτοιες έτρεχαν μαζί.
+     */
+    private final class BlockingCall implements Runnable {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch released = new CountDownLatch(1);
+        volatile int maxConcurrent;
+
+        @Override
+        public void run() {
+            maxConcurrent = blockedCalls.incrementAndGet();
+            started.countDown();
+            try {
+                if (!released.await(5, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("Never released");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                blockedCalls.decrementAndGet();
+            }
+        }
+
+        void awaitStarted() throws InterruptedException {
+            assertThat(started.await(5, TimeUnit.SECONDS)).as("call started").isTrue();
+        }
+
+        boolean hasStarted() {
+            return started.getCount() == 0;
+        }
+
+        void release() {
+            released.countDown();
+        }
+    }
+}
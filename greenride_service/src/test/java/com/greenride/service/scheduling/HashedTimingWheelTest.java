@@ -0,0 +1,183 @@
+package com.greenride.service.scheduling;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Ο τροχός με πραγματικό χρόνο: μικρό tick, και τα όρια των assertions αρκετά χαλαρά
+ * ώστε να μην εξαρτώνται από το πόσο φορτωμένο είναι το μηχάνημα.
+ */
+class HashedTimingWheelTest {
+
+    private static final Duration TICK = Duration.ofMillis(10);
+
+    private final List<HashedTimingWheel<?>> wheels = new ArrayList<>();
+    // Πότε έληξε κάθε task (System.nanoTime)
+    private final Map<String, Long> expiredAt = new ConcurrentHashMap<>();
+
+    @AfterEach
+    void closeWheels() {
+        wheels.forEach(HashedTimingWheel::close);
+    }
+
+    @Test
+    void wheelSizeIsRoundedUpToPowerOfTwo() {
+        assertThat(wheel(1).wheelSize()).isEqualTo(1);
+        assertThat(wheel(2).wheelSize()).isEqualTo(2);
+        assertThat(wheel(3).wheelSize()).isEqualTo(4);
+        assertThat(wheel(8).wheelSize()).isEqualTo(8);
+        assertThat(wheel(9).wheelSize()).isEqualTo(16);
+        assertThat(wheel(1000).wheelSize()).isEqualTo(1024);
+
+        assertThatThrownBy(() -> wheel(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new HashedTimingWheel<String>("test-wheel", Duration.ZERO, 8, task -> { }))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void timeoutLongerThanOneRotationWaitsItsRemainingRounds() throws InterruptedException {
+        // Ένας γύρος = 4 ticks = 40ms, οπότε τα 200ms είναι 5 γύροι: χωρίς τους γύρους θα έληγε στον πρώτο
+        CountDownLatch done = new CountDownLatch(2);
+        HashedTimingWheel<String> wheel = wheel(4, task -> {
+            record(task);
+            done.countDown();
+        });
+
+        long start = System.nanoTime();
+        wheel.schedule("short", Duration.ofMillis(30));
+        wheel.schedule("long", Duration.ofMillis(200));
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(elapsedMillis(start, "short")).isGreaterThanOrEqualTo(30);
+        assertThat(elapsedMillis(start, "long")).isGreaterThanOrEqualTo(200);
+    }
+
+    @Test
+    void neverExpiresEarlierThanTheDelay() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(20);
+        HashedTimingWheel<String> wheel = wheel(8, task -> {
+            record(task);
+            done.countDown();
+        });
+
+        Map<String, Long> scheduledAt = new ConcurrentHashMap<>();
+        for (int i = 0; i < 20; i++) {
+            String task = "task-" + i;
+            scheduledAt.put(task, System.nanoTime());
+            wheel.schedule(task, Duration.ofMillis(i * 7L));
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 20; i++) {
+            String task = "task-" + i;
+            assertThat(elapsedMillis(scheduledAt.get(task), task)).as(task).isGreaterThanOrEqualTo(i * 7L);
+        }
+    }
+
+    @Test
+    void overdueTimeoutsExpireOnTheNextTickInsteadOfWaitingARotation() throws InterruptedException {
+        // Ένας γύρος = 1024 ticks ≈ 10s: ό,τι μπει σε λάθος κουβά δεν λήγει όσο τρέχει το test
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        HashedTimingWheel<String> wheel = wheel(1024, task -> {
+            if (task.equals("blocker")) {
+                blocked.countDown();
+                await(release);
+            }
+            record(task);
+            done.countDown();
+        });
+
+        long start = System.nanoTime();
+        wheel.schedule("past", Duration.ofMillis(-500));
+        wheel.schedule("blocker", Duration.ZERO);
+        assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // Ο worker είναι κολλημένος σε callback για αρκετά ticks: το timeout λήγει ενώ περιμένει
+        wheel.schedule("overdue", Duration.ofMillis(20));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertThat(done.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(elapsedMillis(start, "past")).isLessThan(1000);
+        assertThat(elapsedMillis(start, "overdue")).isLessThan(1000);
+    }
+
+    @Test
+    void cancelledTimeoutNeverExpires() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        HashedTimingWheel<String> wheel = wheel(8, task -> {
+            record(task);
+            done.countDown();
+        });
+
+        HashedTimingWheel.Timeout cancelled = wheel.schedule("cancelled", Duration.ofMillis(30));
+        assertThat(cancelled.cancel()).isTrue();
+        // Το δεύτερο cancel δεν βρίσκει πια τίποτα να ακυρώσει
+        assertThat(cancelled.cancel()).isFalse();
+
+        HashedTimingWheel.Timeout expired = wheel.schedule("expired", Duration.ofMillis(60));
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(expiredAt).containsOnlyKeys("expired");
+        assertThat(expired.cancel()).isFalse();
+    }
+
+    @Test
+    void failingCallbackDoesNotStopTheWheel() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        HashedTimingWheel<String> wheel = wheel(8, task -> {
+            if (task.equals("failing")) {
+                throw new IllegalStateException("boom");
+            }
+            record(task);
+            done.countDown();
+        });
+
+        wheel.schedule("failing", Duration.ZERO);
+        wheel.schedule("next", Duration.ofMillis(50));
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(expiredAt).containsOnlyKeys("next");
+    }
+
+    private HashedTimingWheel<String> wheel(int size) {
+        return wheel(size, task -> { });
+    }
+
+    private HashedTimingWheel<String> wheel(int size, Consumer<String> onExpire) {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>("test-wheel", TICK, size, onExpire);
+        wheels.add(wheel);
+        return wheel;
+    }
+
+    private void record(String task) {
+        expiredAt.put(task, System.nanoTime());
+    }
+
+    private long elapsedMillis(long since, String task) {
+        assertThat(expiredAt).containsKey(task);
+        return TimeUnit.NANOSECONDS.toMillis(expiredAt.get(task) - since);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
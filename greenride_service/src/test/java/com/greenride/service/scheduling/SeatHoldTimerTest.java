@@ -0,0 +1,63 @@
+package com.greenride.service.scheduling;
+
+import com.greenride.repository.SeatHoldRepository;
+import com.greenride.service.event.SeatHoldExpiredEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Η λήξη των holds: από τον τροχό και από το sweep, πάντα στο thread της λήξης και όχι του τροχού.
+ */
+class SeatHoldTimerTest {
+
+    private final SeatHoldRepository seatHoldRepository = mock(SeatHoldRepository.class);
+    // holdId -> το thread όπου έτρεξε το transaction της λήξης
+    private final Map<Long, String> expiredOn = new ConcurrentHashMap<>();
+    private final CountDownLatch expired = new CountDownLatch(2);
+
+    private final SeatHoldTimer timer = new SeatHoldTimer(seatHoldRepository, event -> {
+        Long holdId = ((SeatHoldExpiredEvent) event).holdId();
+        expiredOn.put(holdId, Thread.currentThread().getName());
+        expired.countDown();
+        if (holdId == 1L) {
+            throw new IllegalStateException("connection reset");
+        }
+    });
+
+    @AfterEach
+    void stopTimer() throws InterruptedException {
+        timer.stop();
+    }
+
+    @Test
+    void holdsExpireOnTheExpiryThreadAndAFailureDoesNotStopTheNext() throws InterruptedException {
+        timer.schedule(1L, LocalDateTime.now());
+        timer.schedule(2L, LocalDateTime.now().plusSeconds(1));
+
+        assertThat(expired.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(expiredOn).containsOnly(Map.entry(1L, "seat-hold-expiry"), Map.entry(2L, "seat-hold-expiry"));
+    }
+
+    @Test
+    void sweepExpiresTheHoldsNoWheelKnowsAbout() throws InterruptedException {
+        // Holds άλλου κόμβου που έπεσε: δεν είναι στον τροχό αυτού του κόμβου
+        when(seatHoldRepository.findExpiredHoldIds(any())).thenReturn(List.of(1L, 2L));
+
+        timer.sweepExpiredHolds();
+
+        assertThat(expired.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(expiredOn).containsOnlyKeys(1L, 2L);
+    }
+}
@@ -0,0 +1,110 @@
+package com.greenride.service.search;
+
+import com.greenride.dto.GeoPoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Το πλέγμα επιστρέφει υποψήφιους: εδώ ελέγχουμε ότι δεν λείπει ποτέ σημείο που είναι μέσα στον κύκλο,
+ * και ειδικά στις άκρες (αντιμεσημβρινός, πόλοι, σύνορα κελιών).
+ */
+class GeoGridIndexTest {
+
+    private final GeoGridIndex index = new GeoGridIndex();
+
+    @Test
+    void findsPointsInTheCircleAndNotFarAwayOnes() {
+        index.add(1L, new GeoPoint(37.9838, 23.7275));
+        index.add(2L, new GeoPoint(38.2466, 21.7346));
+        index.add(3L, null);
+
+        assertThat(index.candidates(radius(37.97, 23.72, 5))).containsExactly(1L);
+        assertThat(index.candidates(radius(38.25, 21.73, 5))).containsExactly(2L);
+        assertThat(index.candidates(radius(40.64, 22.94, 50))).isEmpty();
+        assertThat(index.candidates(null)).isNull();
+    }
+
+    @Test
+    void pointsOnCellBordersAreFoundFromEitherSide() {
+        // Ακριβώς πάνω στα όρια των κελιών των 0.05°
+        GeoPoint corner = new GeoPoint(38.0, 23.75);
+        GeoPoint latitudeBorder = new GeoPoint(38.05, 23.77);
+        index.add(1L, corner);
+        index.add(2L, latitudeBorder);
+
+        for (double[] center : new double[][]{{37.999, 23.749}, {38.001, 23.751}, {37.999, 23.751}, {38.001, 23.749}}) {
+            assertThat(index.candidates(radius(center[0], center[1], 0.5))).contains(1L);
+        }
+        assertThat(index.candidates(radius(38.049, 23.77, 0.5))).contains(2L);
+        assertThat(index.candidates(radius(38.051, 23.77, 0.5))).contains(2L);
+    }
+
+    @Test
+    void circleAcrossTheAntimeridianFindsPointsOnTheOtherSide() {
+        // Fiji: 179.99 και -179.99 απέχουν λίγο πάνω από 2 km
+        index.add(1L, new GeoPoint(-17.0, 179.99));
+        index.add(2L, new GeoPoint(-17.0, -179.99));
+        index.add(3L, new GeoPoint(-17.0, 180.0));
+
+        assertThat(index.candidates(radius(-17.0, -179.995, 5))).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(index.candidates(radius(-17.0, 179.995, 5))).containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    @Test
+    void circleAroundAPoleCoversEveryLongitude() {
+        index.add(1L, new GeoPoint(90.0, 0.0));
+        index.add(2L, new GeoPoint(89.99, 135.0));
+        index.add(3L, new GeoPoint(-89.99, -45.0));
+
+        // Το κέντρο απέχει ~1 km από τον πόλο, τα σημεία βρίσκονται "απέναντι" σε μήκος
+        assertThat(index.candidates(radius(89.99, -45.0, 5))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(index.candidates(radius(-89.99, 135.0, 5))).containsExactly(3L);
+    }
+
+    @Test
+    void neverMissesAPointInsideTheCircle() {
+        Random random = new Random(42);
+        GeoPoint[] points = new GeoPoint[2000];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = randomPoint(random);
+            index.add((long) i, points[i]);
+        }
+
+        for (int query = 0; query < 2000; query++) {
+            // Κέντρο κοντά σε κάποιο σημείο, ώστε ο κύκλος να μην είναι σχεδόν πάντα άδειος
+            GeoPoint near = points[random.nextInt(points.length)];
+            GeoRadius circle = new GeoRadius(new GeoPoint(
+                    Math.max(-90, Math.min(90, near.latitude() + random.nextGaussian() * 0.2)),
+                    wrap(near.longitude() + random.nextGaussian() * 0.2)),
+                    1 + random.nextDouble() * (GeoRadius.MAX_RADIUS_KM - 1));
+
+            Set<Long> candidates = index.candidates(circle);
+            for (int i = 0; i < points.length; i++) {
+                if (circle.contains(points[i])) {
+                    assertThat(candidates).as("%s in %s", points[i], circle).contains((long) i);
+                }
+            }
+        }
+    }
+
+    private static GeoPoint randomPoint(Random random) {
+        // Οι μισές πυκνά γύρω από τις άκρες: αντιμεσημβρινός και πόλοι
+        return switch (random.nextInt(4)) {
+            case 0 -> new GeoPoint(random.nextDouble() * 180 - 90, wrap(180 + random.nextGaussian() * 0.3));
+            case 1 -> new GeoPoint(Math.min(90, 89.5 + random.nextDouble() * 0.6), random.nextDouble() * 360 - 180);
+            default -> new GeoPoint(37 + random.nextDouble() * 2, 21 + random.nextDouble() * 3);
+        };
+    }
+
+    private static double wrap(double longitude) {
+        return longitude > 180 ? longitude - 360 : longitude < -180 ? longitude + 360 : longitude;
+    }
+
+    private static GeoRadius radius(double latitude, double longitude, double km) {
+        return new GeoRadius(new GeoPoint(latitude, longitude), km);
+    }
+}
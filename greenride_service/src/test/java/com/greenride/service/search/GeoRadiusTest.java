@@ -0,0 +1,54 @@
+package com.greenride.service.search;
+
+import com.greenride.dto.GeoPoint;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Οι παράμετροι του request (400 για ό,τι δεν στέκει) και ο τελικός έλεγχος απόστασης.
+ */
+class GeoRadiusTest {
+
+    @Test
+    void buildsTheCircleFromRequestParameters() {
+        assertThat(GeoRadius.of(null, null, 10.0)).isNull();
+        assertThat(GeoRadius.of(37.98, 23.72, null))
+                .isEqualTo(new GeoRadius(new GeoPoint(37.98, 23.72), GeoRadius.DEFAULT_RADIUS_KM));
+        assertThat(GeoRadius.of(90.0, -180.0, 1.5)).isEqualTo(new GeoRadius(new GeoPoint(90, -180), 1.5));
+        // Μεγαλύτερη ακτίνα από το όριο κόβεται, δεν απορρίπτεται
+        assertThat(GeoRadius.of(37.98, 23.72, 500.0).radiusKm()).isEqualTo(GeoRadius.MAX_RADIUS_KM);
+    }
+
+    @Test
+    void rejectsHalfOrOutOfRangeCoordinatesAndNonPositiveRadius() {
+        assertBadRequest(() -> GeoRadius.of(37.98, null, null), "Invalid coordinates.");
+        assertBadRequest(() -> GeoRadius.of(null, 23.72, null), "Invalid coordinates.");
+        assertBadRequest(() -> GeoRadius.of(90.01, 23.72, null), "Invalid coordinates.");
+        assertBadRequest(() -> GeoRadius.of(37.98, -180.01, null), "Invalid coordinates.");
+        assertBadRequest(() -> GeoRadius.of(37.98, 23.72, 0.0), "Radius must be positive.");
+        assertBadRequest(() -> GeoRadius.of(37.98, 23.72, -1.0), "Radius must be positive.");
+        assertBadRequest(() -> GeoRadius.of(37.98, 23.72, Double.NaN), "Radius must be positive.");
+    }
+
+    @Test
+    void containsUsesTheGreatCircleDistance() {
+        GeoRadius fiji = new GeoRadius(new GeoPoint(-17.0, 179.99), 5);
+
+        assertThat(fiji.contains(new GeoPoint(-17.0, -179.99))).isTrue();
+        assertThat(fiji.contains(new GeoPoint(-17.0, 179.9))).isFalse();
+        assertThat(fiji.contains(null)).isFalse();
+        // Στον πόλο όλοι οι μεσημβρινοί συναντιούνται
+        assertThat(new GeoRadius(new GeoPoint(89.99, 0), 3).contains(new GeoPoint(89.99, 180))).isTrue();
+    }
+
+    private static void assertBadRequest(Runnable call, String reason) {
+        assertThatThrownBy(call::run).isInstanceOfSatisfying(ResponseStatusException.class, e -> {
+            assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+            assertThat(e.getReason()).isEqualTo(reason);
+        });
+    }
+}
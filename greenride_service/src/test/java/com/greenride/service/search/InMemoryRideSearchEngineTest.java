@@ -0,0 +1,158 @@
+package com.greenride.service.search;
+
+import com.greenride.dto.RidePage;
+import com.greenride.dto.RideView;
+import com.greenride.model.Ride;
+import com.greenride.model.User;
+import com.greenride.repository.RideRepository;
+import com.greenride.service.inventory.SeatInventory;
+import com.greenride.service.mapper.RideMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Ο in-memory engine με το repository και το seat inventory σε mock: το rebuild "διαβάζει" ό,τι
+ * του δίνουμε, και οι αλλαγές στη μέση του rebuild γίνονται μέσα από το ίδιο το mock.
+ */
+class InMemoryRideSearchEngineTest {
+
+    private static final LocalDateTime TOMORROW = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.HOURS);
+
+    private final RideRepository rideRepository = mock(RideRepository.class);
+    private final SeatInventory seatInventory = mock(SeatInventory.class);
+    private final InMemoryRideSearchEngine engine =
+            new InMemoryRideSearchEngine(rideRepository, new RideMapper(), seatInventory);
+
+    private final User driver = new User("nikos", "nikos@example.com", "secret", "+306900000001");
+
+    @Test
+    void greekLatinAndAccentedQueriesFindTheSameRide() {
+        engine.index(ride(1L, "Αθήνα", "Θεσσαλονίκη", TOMORROW));
+        engine.index(ride(2L, "Athens", "Patras", TOMORROW));
+        engine.index(ride(3L, "Larisa", "Volos", TOMORROW));
+
+        assertThat(ids(search("ATHINA", ""))).containsExactly(1L, 2L);
+        assertThat(ids(search("Αθηνα", ""))).containsExactly(1L, 2L);
+        assertThat(ids(search("athens", ""))).containsExactly(1L, 2L);
+        // Μισογραμμένο ξενόγλωσσο όνομα: ταιριάζει χάρη στο alias μέσα στο κλειδί της διαδρομής
+        assertThat(ids(search("Athe", ""))).containsExactly(1L, 2L);
+        assertThat(ids(search("", "Salonica"))).containsExactly(1L);
+        assertThat(ids(search("", "Πάτρα"))).containsExactly(2L);
+        assertThat(ids(search("", "saloniki patra"))).isEmpty();
+    }
+
+    @Test
+    void trigramCandidatesAreCheckedWithContains() {
+        // Η "Abc Bcd" έχει και τα δύο trigrams του "abcd", αλλά όχι το ίδιο το "abcd"
+        engine.index(ride(1L, "Abc Bcd", "Patra", TOMORROW));
+        engine.index(ride(2L, "Abcd", "Patra", TOMORROW));
+
+        assertThat(ids(search("abcd", ""))).containsExactly(2L);
+    }
+
+    @Test
+    void pagesFollowDepartureTimeAndIdWhenScanningTheIndex() {
+        indexRidesWithTiedDepartures();
+
+        // Χωρίς κριτήριο κειμένου: περπάτημα του ταξινομημένου index
+        assertThat(allPages("", 2)).containsExactly(4L, 1L, 3L, 5L, 2L);
+    }
+
+    @Test
+    void pagesFollowDepartureTimeAndIdWhenUsingTheBoundedHeap() {
+        indexRidesWithTiedDepartures();
+        // Πολλές άσχετες διαδρομές, ώστε οι λίγοι υποψήφιοι του "Patra" να πάνε από το heap
+        for (long id = 100; id < 130; id++) {
+            engine.index(ride(id, "Larisa", "Volos", TOMORROW.plusMinutes(id)));
+        }
+
+        assertThat(allPages("patra", 2)).containsExactly(4L, 1L, 3L, 5L, 2L);
+    }
+
+    @Test
+    void changesDuringARebuildAreReplayedOnTheNewIndex() {
+        Ride loaded = ride(1L, "Athens", "Patra", TOMORROW);
+        Ride deleted = ride(2L, "Athens", "Volos", TOMORROW);
+        Ride created = ride(3L, "Athens", "Larisa", TOMORROW);
+        when(seatInventory.available(1L)).thenReturn(1);
+        when(rideRepository.findUpcomingWithDriver(any())).thenAnswer(invocation -> {
+            // Όσο διαβάζεται η βάση: νέα διαδρομή, διαγραφή και κράτηση
+            engine.index(created);
+            engine.remove(2L);
+            engine.adjustSeats(1L, -2);
+            return List.of(loaded, deleted);
+        });
+
+        engine.rebuild();
+
+        RidePage page = search("athina", "");
+        assertThat(ids(page)).containsExactly(1L, 3L);
+        // Οι θέσεις έρχονται από το inventory, όχι από το delta πάνω σε ό,τι διαβάστηκε
+        assertThat(page.rides().get(0).availableSeats()).isEqualTo(1);
+    }
+
+    @Test
+    void rebuildPrefersTheDatabaseVersionOfARideIndexedMeanwhile() {
+        Ride fromDatabase = ride(1L, "Athens", "Patra", TOMORROW);
+        Ride stale = ride(1L, "Athens", "Patra", TOMORROW);
+        stale.setAvailableSeats(3);
+        fromDatabase.setAvailableSeats(2);
+        when(rideRepository.findUpcomingWithDriver(any())).thenAnswer(invocation -> {
+            engine.index(stale);
+            return List.of(fromDatabase);
+        });
+
+        engine.rebuild();
+
+        assertThat(search("", "").rides()).extracting(RideView::availableSeats).containsExactly(2);
+    }
+
+    private void indexRidesWithTiedDepartures() {
+        // Τρεις διαδρομές την ίδια ώρα, μπαίνουν με ανακατεμένα IDs
+        engine.index(ride(5L, "Athens", "Patra", TOMORROW.plusHours(1)));
+        engine.index(ride(2L, "Athens", "Patra", TOMORROW.plusHours(2)));
+        engine.index(ride(3L, "Athens", "Patra", TOMORROW.plusHours(1)));
+        engine.index(ride(1L, "Athens", "Patra", TOMORROW.plusHours(1)));
+        engine.index(ride(4L, "Athens", "Patra", TOMORROW));
+    }
+
+    private List<Long> allPages(String destination, int size) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            RidePage page = engine.search(RideSearchQuery.of("", destination, cursor, size));
+            assertThat(page.rides()).hasSizeLessThanOrEqualTo(size);
+            ids.addAll(ids(page));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    private RidePage search(String start, String destination) {
+        return engine.search(RideSearchQuery.of(start, destination, null, null));
+    }
+
+    private static List<Long> ids(RidePage page) {
+        return page.rides().stream().map(RideView::id).toList();
+    }
+
+    private Ride ride(Long id, String start, String destination, LocalDateTime departureTime) {
+        Ride ride = new Ride();
+        ride.setId(id);
+        ride.setStartLocation(start);
+        ride.setDestination(destination);
+        ride.setDepartureTime(departureTime);
+        ride.setAvailableSeats(3);
+        ride.setDriver(driver);
+        return ride;
+    }
+}
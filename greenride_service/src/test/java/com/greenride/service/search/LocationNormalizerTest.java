@@ -0,0 +1,91 @@
+package com.greenride.service.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Πίνακες εισόδου → κλειδιού. Κάθε γραμμή είναι μια γραφή που βλέπουμε στην πράξη.
+ */
+class LocationNormalizerTest {
+
+    @ParameterizedTest(name = "{0} -> {1}")
+    @CsvSource(delimiter = '|', textBlock = """
+            Αθήνα               | athina
+            ΑΘΗΝΑ               | athina
+            αθηνα               | athina
+            Athina              | athina
+            Athens              | athina
+            ATHEN               | athina
+            Θεσσαλονίκη         | thesaloniki
+            Thessaloniki        | thesaloniki
+            Salonica            | thesaloniki
+            Salonika            | thesaloniki
+            Πειραιάς            | peiraias
+            Piraeus             | peiraias
+            Πάτρα               | patra
+            Patras              | patra
+            Κέρκυρα             | kerkyra
+            Corfu               | kerkyra
+            Ηράκλειο            | irakleio
+            Heraklion           | irakleio
+            Ναύπλιο             | nafplio
+            Nauplia             | nafplio
+            Nafplion            | nafplio
+            Ευρώπη              | evropi
+            Λουτράκι            | loutraki
+            Χαλκίδα             | chalkida
+            Ψαχνά               | psachna
+            Άγιος Νικόλαος      | agios nikolaos
+            Ϊστιαία             | istiaia
+            Κηφισιά             | kifisia
+            Kifissia            | kifisia
+            Ιωάννινα            | ioanina
+            Ioannina            | ioanina
+            Café Zürich         | cafe zurich
+            '  Νέα   Σμύρνη!! ' | nea smyrni
+            Athens/Piraeus      | athina peiraias
+            Athens Airport      | athina airport
+            Athenaeum           | athenaeum
+            Κόρινθος 2          | korinthos 2
+            """)
+    void normalize(String input, String expected) {
+        assertThat(LocationNormalizer.normalize(input)).isEqualTo(expected);
+    }
+
+    @ParameterizedTest(name = "{0} -> {1}")
+    @CsvSource(delimiter = '|', textBlock = """
+            Αθήνα            | athina athens
+            Athens           | athina athens
+            Θεσσαλονίκη      | thesaloniki salonica salonika
+            Σταθμός Λαρίσης  | stathmos larisis
+            Πειραιάς Λιμάνι  | peiraias limani piraeus
+            Ναύπλιο          | nafplio nafplion nauplia
+            Κέρκυρα          | kerkyra corfu
+            """)
+    void searchKeyAddsTheForeignNames(String input, String expected) {
+        assertThat(LocationNormalizer.searchKey(input)).isEqualTo(expected);
+    }
+
+    @Test
+    void everySpellingOfACityMatchesItsSearchKey() {
+        String athens = LocationNormalizer.searchKey("Αθήνα");
+        for (String query : new String[]{"Αθήνα", "αθηνα", "Athina", "Athens", "athe", "ΘΗΝ"}) {
+            assertThat(athens).as(query).contains(LocationNormalizer.normalize(query));
+        }
+        String thessaloniki = LocationNormalizer.searchKey("Θεσσαλονίκη");
+        for (String query : new String[]{"Thessaloniki", "Thesaloniki", "Salonica", "salon", "Σαλονίκη"}) {
+            assertThat(thessaloniki).as(query).contains(LocationNormalizer.normalize(query));
+        }
+    }
+
+    @Test
+    void missingTextIsTheEmptyKey() {
+        assertThat(LocationNormalizer.normalize(null)).isEmpty();
+        assertThat(LocationNormalizer.normalize("   ")).isEmpty();
+        assertThat(LocationNormalizer.normalize("--")).isEmpty();
+        assertThat(LocationNormalizer.searchKey(null)).isEmpty();
+    }
+}
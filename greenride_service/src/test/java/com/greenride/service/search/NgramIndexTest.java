@@ -0,0 +1,74 @@
+package com.greenride.service.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Το n-gram index μόνο του: τα κείμενα δίνονται ήδη κανονικοποιημένα, όπως τα δίνει ο engine.
+ */
+class NgramIndexTest {
+
+    private final NgramIndex index = new NgramIndex();
+
+    @Test
+    void shortQueryIsASingleGramLookup() {
+        index.add(1L, "athina");
+        index.add(2L, "patra");
+        index.add(3L, "thessaloniki");
+
+        assertThat(index.candidates("a")).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(index.candidates("th")).containsExactlyInAnyOrder(1L, 3L);
+        assertThat(index.candidates("tra")).containsExactly(2L);
+        assertThat(index.candidates("xyz")).isEmpty();
+    }
+
+    @Test
+    void longQueryIsTheIntersectionOfItsTrigrams() {
+        index.add(1L, "athina");
+        index.add(2L, "thessaloniki");
+        index.add(3L, "irakleio");
+
+        assertThat(index.candidates("thin")).containsExactly(1L);
+        assertThat(index.candidates("saloniki")).containsExactly(2L);
+        assertThat(index.candidates("athinas")).isEmpty();
+    }
+
+    @Test
+    void candidatesMayContainFalsePositivesThatTheCallerFiltersOut() {
+        // Έχει και το "abc" και το "bcd", αλλά όχι το "abcd"
+        index.add(1L, "abc bcd");
+
+        assertThat(index.candidates("abcd")).containsExactly(1L);
+        assertThat("abc bcd").doesNotContain("abcd");
+    }
+
+    @Test
+    void emptyQueryMatchesEverything() {
+        index.add(1L, "athina");
+
+        assertThat(index.candidates("")).isNull();
+    }
+
+    @Test
+    void removeDropsOnlyThatRideFromSharedGrams() {
+        index.add(1L, "patra");
+        index.add(2L, "patra");
+
+        index.remove(1L, "patra");
+
+        assertThat(index.candidates("patra")).containsExactly(2L);
+        index.remove(2L, "patra");
+        assertThat(index.candidates("pat")).isEmpty();
+        assertThat(index.candidates("patra")).isEmpty();
+    }
+
+    @Test
+    void returnedCandidatesAreACopy() {
+        index.add(1L, "volos");
+
+        index.candidates("vol").add(99L);
+
+        assertThat(index.candidates("vol")).containsExactly(1L);
+    }
+}
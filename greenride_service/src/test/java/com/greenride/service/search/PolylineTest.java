@@ -0,0 +1,76 @@
+package com.greenride.service.search;
+
+import com.greenride.dto.GeoPoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Το encoded polyline format: το παράδειγμα της τεκμηρίωσης, round trip και ό,τι πρέπει να απορρίπτεται.
+ */
+class PolylineTest {
+
+    @Test
+    void decodesTheReferenceExample() {
+        assertThat(Polyline.decode("_p~iF~ps|U_ulLnnqC_mqNvxq`@")).containsExactly(
+                new GeoPoint(38.5, -120.2),
+                new GeoPoint(40.7, -120.95),
+                new GeoPoint(43.252, -126.453));
+        assertThat(Polyline.encode(List.of(new GeoPoint(38.5, -120.2), new GeoPoint(40.7, -120.95),
+                new GeoPoint(43.252, -126.453)))).isEqualTo("_p~iF~ps|U_ulLnnqC_mqNvxq`@");
+    }
+
+    @Test
+    void roundTripKeepsFiveDecimals() {
+        List<GeoPoint> route = List.of(
+                new GeoPoint(37.983812, 23.727539),
+                new GeoPoint(-33.86785, 151.20732),
+                new GeoPoint(90, -180),
+                new GeoPoint(-90, 180),
+                new GeoPoint(0, 0));
+
+        List<GeoPoint> decoded = Polyline.decode(Polyline.encode(route));
+
+        assertThat(decoded).extracting(GeoPoint::latitude)
+                .containsExactly(37.98381, -33.86785, 90.0, -90.0, 0.0);
+        assertThat(decoded).extracting(GeoPoint::longitude)
+                .containsExactly(23.72754, 151.20732, -180.0, 180.0, 0.0);
+        assertThat(Polyline.decode("")).isEmpty();
+    }
+
+    @Test
+    void rejectsBadInput() {
+        // Μόνο το πλάτος του σημείου, χωρίς μήκος
+        assertRejected("_p~iF", "Truncated polyline");
+        // Χαρακτήρας συνέχειας στο τέλος
+        assertRejected("_p~iF~ps|U_", "Truncated polyline");
+        // Ατελείωτη σειρά από χαρακτήρες συνέχειας: δεν χωράει σε τιμή
+        assertRejected("_".repeat(20), "Truncated polyline");
+        assertRejected("_p~iF ps|U", "Invalid polyline character");
+        assertRejected("_p~iF\u007fps|U", "Invalid polyline character");
+        assertRejected("_p~iFάps|U", "Invalid polyline character");
+        assertRejected(Polyline.encode(List.of(new GeoPoint(90.5, 0))), "Polyline point out of range");
+        assertRejected(Polyline.encode(List.of(new GeoPoint(0, 179), new GeoPoint(0, 179), new GeoPoint(0, 181))),
+                "Polyline point out of range");
+    }
+
+    @Test
+    void rejectsMoreThanMaxPoints() {
+        List<GeoPoint> route = new ArrayList<>(Collections.nCopies(Polyline.MAX_POINTS, new GeoPoint(38, 23)));
+        assertThat(Polyline.decode(Polyline.encode(route))).hasSize(Polyline.MAX_POINTS);
+
+        route.add(new GeoPoint(38, 23));
+        assertRejected(Polyline.encode(route), "Polyline has too many points");
+    }
+
+    private static void assertRejected(String encoded, String message) {
+        assertThatThrownBy(() -> Polyline.decode(encoded))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage(message);
+    }
+}
@@ -0,0 +1,91 @@
+package com.greenride.service.search;
+
+import com.greenride.dto.RideView;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Το cursor είναι opaque για τον client: ό,τι δεν είναι ακριβώς δικό μας token απορρίπτεται με 400.
+ */
+class RideCursorTest {
+
+    private static final LocalDateTime NINE = LocalDateTime.of(2030, 5, 1, 9, 0);
+
+    @Test
+    void encodedCursorDecodesToTheSamePosition() {
+        for (RideCursor cursor : List.of(
+                new RideCursor(NINE, 42L),
+                new RideCursor(NINE.withSecond(30).withNano(123_456_789), Long.MAX_VALUE),
+                new RideCursor(NINE, -1L))) {
+            String token = cursor.encode();
+            assertThat(token).doesNotContain("|", "=", "+", "/");
+            assertThat(RideCursor.decode(token)).isEqualTo(cursor);
+        }
+        assertThat(RideCursor.of(new RideView(7L, "Athens", "Patra", NINE, 3, null, null, null)))
+                .isEqualTo(new RideCursor(NINE, 7L));
+    }
+
+    @Test
+    void missingCursorIsTheFirstPage() {
+        assertThat(RideCursor.decode(null)).isNull();
+        assertThat(RideCursor.decode("")).isNull();
+        assertThat(RideCursor.decode("  ")).isNull();
+    }
+
+    @Test
+    void malformedOrTamperedCursorIsRejectedWith400() {
+        String valid = new RideCursor(NINE, 42L).encode();
+        List<String> tokens = List.of(
+                "not a cursor",
+                valid.substring(0, valid.length() - 3),
+                valid + "!",
+                // Χαρακτήρας του standard Base64, εκτός του URL-safe αλφαβήτου
+                "/" + valid.substring(1),
+                valid.replace(valid.charAt(3), '+'),
+                raw("2030-05-01T09:00"),
+                raw("2030-05-01T09:00|"),
+                raw("2030-05-01T09:00|abc"),
+                raw("2030-05-01T09:00|99999999999999999999"),
+                raw("2030-13-01T09:00|42"),
+                raw("|42"),
+                raw("null|null"));
+
+        for (String token : tokens) {
+            assertThatThrownBy(() -> RideCursor.decode(token)).as(token)
+                    .isInstanceOfSatisfying(ResponseStatusException.class, e -> {
+                        assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+                        assertThat(e.getReason()).isEqualTo("Invalid cursor.");
+                    });
+        }
+    }
+
+    @Test
+    void equalDepartureTimesAreOrderedById() {
+        List<RideCursor> cursors = new ArrayList<>(List.of(
+                new RideCursor(NINE.plusMinutes(1), 1L),
+                new RideCursor(NINE, 30L),
+                new RideCursor(NINE, 4L),
+                new RideCursor(NINE, 200L),
+                new RideCursor(NINE.minusMinutes(1), 999L)));
+
+        Collections.sort(cursors);
+
+        assertThat(cursors).extracting(RideCursor::id).containsExactly(999L, 4L, 30L, 200L, 1L);
+        assertThat(new RideCursor(NINE, 4L)).isEqualByComparingTo(new RideCursor(NINE, 4L));
+    }
+
+    private static String raw(String text) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
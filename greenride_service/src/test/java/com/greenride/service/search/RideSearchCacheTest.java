@@ -0,0 +1,82 @@
+package com.greenride.service.search;
+
+import com.greenride.dto.RidePage;
+import com.greenride.dto.RideView;
+import com.greenride.dto.UserView;
+import com.greenride.service.event.RideChangedEvent;
+import com.greenride.service.mapper.RideMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Η στοχευμένη ακύρωση του cache. Ο removal listener του Caffeine τρέχει σε executor, οπότε εδώ τον
+ * κρατάμε σε ουρά και τον τρέχουμε όποτε θέλουμε (π.χ. αργά, αφού έχει γίνει νέο load).
+ */
+class RideSearchCacheTest {
+
+    private static final RideSearchQuery ATHENS_PATRA = RideSearchQuery.of("Athens", "Patra", null, null);
+
+    private final Queue<Runnable> pendingTasks = new ArrayDeque<>();
+    private final RideSearchCache cache = new RideSearchCache(mock(RideMapper.class), 100, 60, pendingTasks::add);
+
+    // Πόσες φορές χρειάστηκε να τρέξει το πραγματικό query
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void bookingEvictsOnlyThePagesThatContainTheRide() {
+        RideSearchQuery athensVolos = RideSearchQuery.of("Athens", "Volos", null, null);
+        search(ATHENS_PATRA, 1L);
+        search(athensVolos, 2L);
+
+        cache.onRideChanged(RideChangedEvent.seatsChanged(1L, -1));
+        runPendingTasks();
+        search(ATHENS_PATRA, 1L);
+        search(athensVolos, 2L);
+
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void lateRemovalOfAnOldLoadDoesNotUnlinkAnEqualNewerLoad() {
+        search(ATHENS_PATRA, 1L);
+        cache.onRideChanged(RideChangedEvent.seatsChanged(1L, -1));
+        // Νέο load με ίδιο (equals) αποτέλεσμα, πριν τρέξει ο listener της πρώτης σελίδας
+        search(ATHENS_PATRA, 1L);
+        assertThat(loads).hasValue(2);
+        runPendingTasks();
+
+        // Η νέα σελίδα είναι ακόμα συνδεδεμένη με τη διαδρομή: η επόμενη κράτηση την πετάει
+        cache.onRideChanged(RideChangedEvent.seatsChanged(1L, -1));
+        search(ATHENS_PATRA, 1L);
+
+        assertThat(loads).hasValue(3);
+    }
+
+    private void search(RideSearchQuery query, Long rideId) {
+        RidePage page = cache.get(query, q -> {
+            loads.incrementAndGet();
+            return new RidePage(List.of(ride(rideId)), null);
+        });
+        assertThat(page.rides()).extracting(RideView::id).containsExactly(rideId);
+    }
+
+    private void runPendingTasks() {
+        Runnable task;
+        while ((task = pendingTasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private static RideView ride(Long id) {
+        return new RideView(id, "Athens", "Patra", LocalDateTime.of(2030, 5, 1, 9, 0), 3,
+                new UserView(7L, "nikos", "nikos@example.com"), null, null);
+    }
+}
@@ -0,0 +1,104 @@
+package com.greenride.service.search;
+
+import com.greenride.dto.GeoPoint;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Corridor queries: η διαδρομή πρέπει να περάσει πρώτα από τον κύκλο επιβίβασης και μετά από τον κύκλο αποβίβασης.
+ */
+class RouteSegmentIndexTest {
+
+    private static final GeoPoint ATHENS = new GeoPoint(37.9838, 23.7275);
+    private static final GeoPoint LAMIA = new GeoPoint(38.8990, 22.4340);
+    private static final GeoPoint LARISA = new GeoPoint(39.6390, 22.4191);
+    private static final GeoPoint THESSALONIKI = new GeoPoint(40.6401, 22.9444);
+
+    private final RouteSegmentIndex index = new RouteSegmentIndex();
+
+    @Test
+    void matchesRidesPassingThroughPickupAndThenDropoff() {
+        index.add(1L, List.of(ATHENS, LAMIA, LARISA, THESSALONIKI));
+        index.add(2L, List.of(ATHENS, new GeoPoint(38.2466, 21.7346)));
+
+        assertThat(index.matching(near(LAMIA), near(LARISA))).containsExactly(1L);
+        assertThat(index.matching(near(ATHENS), near(THESSALONIKI))).containsExactly(1L);
+        assertThat(index.matching(near(ATHENS), circle(38.2466, 21.7346, 5))).containsExactly(2L);
+        assertThat(index.matching(near(LAMIA), circle(37.0, 22.0, 5))).isEmpty();
+    }
+
+    @Test
+    void reversedDirectionIsRejected() {
+        index.add(1L, List.of(ATHENS, LAMIA, LARISA, THESSALONIKI));
+
+        assertThat(index.matching(near(LARISA), near(LAMIA))).isEmpty();
+        assertThat(index.matching(near(THESSALONIKI), near(ATHENS))).isEmpty();
+    }
+
+    @Test
+    void directionIsCheckedInsideASingleSegment() {
+        // Ένα ευθύ τμήμα ~110 km: επιβίβαση στο πρώτο τέταρτο, αποβίβαση στο τρίτο
+        index.add(1L, List.of(new GeoPoint(38.0, 22.0), new GeoPoint(39.0, 22.0)));
+
+        assertThat(index.matching(circle(38.25, 22.0, 5), circle(38.75, 22.0, 5))).containsExactly(1L);
+        assertThat(index.matching(circle(38.75, 22.0, 5), circle(38.25, 22.0, 5))).isEmpty();
+    }
+
+    @Test
+    void longDiagonalSegmentIsFoundAwayFromItsEndpoints() {
+        index.add(1L, List.of(new GeoPoint(37.0, 21.0), new GeoPoint(40.0, 24.0)));
+
+        // Κανένα από τα δύο σημεία δεν είναι κοντά στους κύκλους, μόνο η γραμμή ανάμεσά τους
+        assertThat(index.matching(circle(38.0, 22.0, 3), circle(39.0, 23.0, 3))).containsExactly(1L);
+        assertThat(index.matching(circle(38.0, 22.5, 3), circle(39.0, 23.0, 3))).isEmpty();
+    }
+
+    @Test
+    void routeThatComesBackMatchesTheLaterVisit() {
+        // Πήγαινε-έλα: η αποβίβαση στην αφετηρία είναι μετά την επιβίβαση στη Λαμία
+        index.add(1L, List.of(ATHENS, LAMIA, ATHENS));
+
+        assertThat(index.matching(near(LAMIA), near(ATHENS))).containsExactly(1L);
+    }
+
+    @Test
+    void segmentAcrossTheAntimeridianTakesTheShortWay() {
+        // Fiji: ~21 km ανατολικά, από το 179.9° στο -179.9°
+        index.add(1L, List.of(new GeoPoint(-17.0, 179.9), new GeoPoint(-17.0, -179.9)));
+
+        assertThat(index.matching(circle(-17.0, 179.95, 2), circle(-17.0, -179.95, 2))).containsExactly(1L);
+        assertThat(index.matching(circle(-17.0, -179.95, 2), circle(-17.0, 179.95, 2))).isEmpty();
+        // Η "μακριά" μεριά, γύρω από όλη τη Γη, δεν ανήκει στη διαδρομή
+        assertThat(index.matching(circle(-17.0, 0.0, 50), circle(-17.0, 90.0, 50))).isEmpty();
+    }
+
+    @Test
+    void removedRouteIsNoLongerMatched() {
+        List<GeoPoint> route = List.of(ATHENS, LAMIA, LARISA);
+        index.add(1L, route);
+        index.add(2L, route);
+
+        index.remove(1L, route);
+
+        assertThat(index.matching(near(LAMIA), near(LARISA))).containsExactly(2L);
+    }
+
+    @Test
+    void routeWithLessThanTwoPointsHasNoSegments() {
+        index.add(1L, List.of());
+        index.add(2L, List.of(ATHENS));
+
+        assertThat(index.matching(near(ATHENS), near(ATHENS))).isEmpty();
+    }
+
+    private static GeoRadius near(GeoPoint point) {
+        return new GeoRadius(point, 5);
+    }
+
+    private static GeoRadius circle(double latitude, double longitude, double km) {
+        return new GeoRadius(new GeoPoint(latitude, longitude), km);
+    }
+}